@@ -7,7 +7,7 @@ create_container()
 	echo "\n### START: Create new containers ##########"
 	docker compose \
 		-f $CUR_DIR/docker-compose-webapp.base.yml \
-		-f $CUR_DIR/docker-compose-webapp.mode.dev.yml \
+		-f $CUR_DIR/docker-compose-webapp.mode.${WEBAPP_MODE:-dev}.yml \
 		up -d -V --remove-orphans
 }
 # }}}
@@ -20,7 +20,7 @@ destory_container()
 	echo "\n### START: Destory existing containers ##########"
 	docker compose \
 		-f $CUR_DIR/docker-compose-webapp.base.yml \
-		-f $CUR_DIR/docker-compose-webapp.mode.dev.yml \
+		-f $CUR_DIR/docker-compose-webapp.mode.${WEBAPP_MODE:-dev}.yml \
 		down -v --remove-orphans
 }
 # }}}
@@ -49,7 +49,7 @@ rebuild_container()
 	docker rmi $IMAGE_NM
 	docker compose \
 		-f $CUR_DIR/docker-compose-webapp.base.yml \
-		-f $CUR_DIR/docker-compose-webapp.mode.dev.yml \
+		-f $CUR_DIR/docker-compose-webapp.mode.${WEBAPP_MODE:-dev}.yml \
 		up -d -V --build $CONTAINER_NM
 }
 # }}}
@@ -107,6 +107,9 @@ Options:
   assemble              Assemble the outputs of this project.
   doc                   Generate the OpenAPI Spec and Javadoc.
   test                  Run the unit tests.
+  bench [pattern]       Run the JMH microbenchmarks (all of them by default).
+  offline [engine]      Run with the embedded H2 database instead of MySQL, or with
+                        the 'memory' or 'mmap' storage engine.
 
 EOS
 }
@@ -130,3 +133,21 @@ EOS
 }
 # }}}
 
+# {{{ show_usage_loadgen()
+show_usage_loadgen()
+{
+	cat << EOS
+Usage: $(basename $0) [options]
+
+Drives webapi and webui with a constant arrival rate (open model) or a
+fixed number of users (closed model), and reports the latency percentiles.
+
+Options:
+  assemble              Assemble the outputs of this project.
+  doc                   Generate the Javadoc.
+  test                  Run the unit tests.
+  run [arguments]       Run the load generator (run '--help' for the arguments).
+
+EOS
+}
+# }}}
@@ -0,0 +1,35 @@
+#!/bin/sh
+
+S_TIME=$(date +%s)
+CUR_DIR=$(cd $(dirname $0); pwd)
+. $CUR_DIR/common.sh
+. $CUR_DIR/custom.sh
+
+case "$1" in
+	"assemble")
+		start_banner
+		./gradlew assemble --info
+		finish_banner $S_TIME
+		;;
+	"doc")
+		start_banner
+		./gradlew javadoc
+		command -v tree >/dev/null 2>&1 && tree -L 2 build/docs/
+		finish_banner $S_TIME
+		;;
+	"test")
+		start_banner
+		./gradlew test
+		finish_banner $S_TIME
+		;;
+	"run")
+		start_banner
+		shift
+		# e.g. ./RUN.sh run --target=roll --mode=open --rate=100 --duration=60 --sleep=1
+		./gradlew run -q --args="$*"
+		finish_banner $S_TIME
+		;;
+	*)
+		show_usage_loadgen
+		;;
+esac
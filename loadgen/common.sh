@@ -0,0 +1 @@
+../common.sh
\ No newline at end of file
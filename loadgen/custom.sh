@@ -0,0 +1 @@
+../custom.sh
\ No newline at end of file
@@ -0,0 +1,103 @@
+package jp.sios.apisl.handson.rollingdice.webapp.loadgen;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一定数の利用者が応答を受け取ってから次のリクエストを送る閉鎖型のLoadRunnerです。.
+ *
+ * <p>利用者ごとに仮想スレッドを1つ起動し、応答を受け取るたびに次のリクエストを送ります。
+ * 到着率が指定された場合は、各利用者が「利用者数 / 到着率」の間隔でリクエストを送るように予定時刻を決め、
+ * 応答時間を予定時刻から計測します。応答が遅れて予定時刻を過ぎた場合は待たずに次のリクエストを送るため、
+ * 遅れた分は後続のリクエストの応答時間として記録されます。</p>
+ *
+ * <p>到着率が指定されない場合は予定時刻がないため、応答時間と処理時間は同じ値になり、
+ * Coordinated Omissionの補正は行われません。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+public class ClosedModelRunner extends LoadRunner {
+
+  /**
+   * 同時にリクエストを送る利用者の数です。.
+   */
+  private final int concurrency;
+
+  /**
+   * 全利用者の合計で1秒あたりに送るリクエスト数です。0の場合はペース配分を行いません。.
+   */
+  private final double rate;
+
+  /**
+   * 計測を始める前に負荷をかける時間です。.
+   */
+  private final Duration warmup;
+
+  /**
+   * 計測する時間です。.
+   */
+  private final Duration duration;
+
+  // {{{ public ClosedModelRunner(int concurrency, double rate, Duration warmup, ...)
+  /**
+   * ClosedModelRunnerのコンストラクタです。.
+   *
+   * @param concurrency 同時にリクエストを送る利用者の数
+   * @param rate 全利用者の合計で1秒あたりに送るリクエスト数（0の場合はペース配分なし）
+   * @param warmup 計測を始める前に負荷をかける時間
+   * @param duration 計測する時間
+   */
+  public ClosedModelRunner(
+      final int concurrency, final double rate, final Duration warmup, final Duration duration) {
+    this.concurrency = concurrency;
+    this.rate = rate;
+    this.warmup = warmup;
+    this.duration = duration;
+  }
+  // }}}
+
+  // {{{ public LatencyReport run(HttpClient client, HttpRequest request)
+  /**
+   * 一定数の利用者で負荷をかけ、計測期間の応答時間を集計したレポートを返します。.
+   *
+   * @param client リクエストの送信に使用するHttpClient
+   * @param request 繰り返し送るリクエスト
+   * @return 計測期間の応答時間を集計したレポート
+   */
+  @Override
+  public LatencyReport run(final HttpClient client, final HttpRequest request) {
+    final boolean paced = this.rate > 0;
+    final LatencyReport report = new LatencyReport(paced);
+    final double intervalNanos =
+        paced ? this.concurrency * TimeUnit.SECONDS.toNanos(1) / this.rate : 0;
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      final long originNanos = System.nanoTime();
+      final long measureFromNanos = originNanos + this.warmup.toNanos();
+      final long endNanos = measureFromNanos + this.duration.toNanos();
+      for (int user = 0; user < this.concurrency; user++) {
+        // Stagger the users, so that the paced requests arrive evenly instead of in bursts
+        final long firstNanos = originNanos + (long) (user * intervalNanos / this.concurrency);
+        executor.execute(() -> {
+          for (long i = 0; !Thread.currentThread().isInterrupted(); i++) {
+            final long intendedNanos =
+                paced ? firstNanos + (long) (i * intervalNanos) : System.nanoTime();
+            if (intendedNanos >= endNanos || System.nanoTime() >= endNanos) {
+              break;
+            }
+            parkUntil(intendedNanos);
+            send(client, request, report, intendedNanos, intendedNanos >= measureFromNanos);
+          }
+        });
+      }
+    }
+    return report;
+  }
+  // }}}
+
+}
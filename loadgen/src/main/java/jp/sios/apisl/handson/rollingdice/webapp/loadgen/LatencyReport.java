@@ -0,0 +1,205 @@
+package jp.sios.apisl.handson.rollingdice.webapp.loadgen;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * 負荷生成で計測した応答時間を集計するクラスです。.
+ *
+ * <p>応答時間は、リクエストを送るはずだった時刻（予定時刻）から応答を受け取るまでの時間として記録します。
+ * 負荷生成側の都合でリクエストの送信が遅れた場合でも、その待ち時間が応答時間から漏れないため、
+ * Coordinated Omissionによってパーセンタイルが実際より良く見えることを防ぎます。</p>
+ * <ul>
+ *   <li>応答時間（response time）: 予定時刻から応答を受け取るまでの時間です。</li>
+ *   <li>処理時間（service time）: 実際にリクエストを送ってから応答を受け取るまでの時間です。</li>
+ * </ul>
+ *
+ * <p>いずれもマイクロ秒単位でHdrHistogramに記録し、複数のスレッドから同時に記録できます。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+public class LatencyReport {
+
+  /**
+   * ヒストグラムの有効桁数です。.
+   */
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  /**
+   * レポートに表示するパーセンタイルです。.
+   */
+  private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+  /**
+   * マイクロ秒をミリ秒に換算する比率です。.
+   */
+  private static final double MICROS_PER_MILLI = 1000.0;
+
+  /**
+   * 予定時刻から応答を受け取るまでの時間を記録するヒストグラムです。.
+   */
+  private final Histogram responseTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+  /**
+   * リクエストを送ってから応答を受け取るまでの時間を記録するヒストグラムです。.
+   */
+  private final Histogram serviceTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+  /**
+   * HTTPステータスコードごとの応答数です。.
+   */
+  private final Map<Integer, LongAdder> statuses = new ConcurrentSkipListMap<>();
+
+  /**
+   * 応答を受け取れなかった原因（例外のクラス名）ごとのリクエスト数です。.
+   */
+  private final Map<String, LongAdder> failures = new ConcurrentSkipListMap<>();
+
+  /**
+   * 応答時間が予定時刻を基準に計測されているかどうかです。.
+   */
+  private final boolean corrected;
+
+  // {{{ public LatencyReport(boolean corrected)
+  /**
+   * LatencyReportのコンストラクタです。.
+   *
+   * @param corrected 応答時間が予定時刻を基準に計測される場合は{@code true}
+   */
+  public LatencyReport(final boolean corrected) {
+    this.corrected = corrected;
+  }
+  // }}}
+
+  // {{{ public void recordResponse(long intendedNanos, long startNanos, long endNanos, ...)
+  /**
+   * 応答を受け取ったリクエストを記録します。.
+   *
+   * @param intendedNanos リクエストを送る予定だった時刻（{@link System#nanoTime()}の値）
+   * @param startNanos 実際にリクエストを送った時刻
+   * @param endNanos 応答を受け取った時刻
+   * @param status HTTPステータスコード
+   */
+  public void recordResponse(
+      final long intendedNanos, final long startNanos, final long endNanos, final int status) {
+    this.recordTimes(intendedNanos, startNanos, endNanos);
+    this.statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+  }
+  // }}}
+
+  // {{{ public void recordFailure(long intendedNanos, long startNanos, long endNanos, ...)
+  /**
+   * 接続の失敗やタイムアウトにより応答を受け取れなかったリクエストを記録します。.
+   *
+   * @param intendedNanos リクエストを送る予定だった時刻（{@link System#nanoTime()}の値）
+   * @param startNanos 実際にリクエストを送った時刻
+   * @param endNanos 失敗が判明した時刻
+   * @param cause 失敗の原因となった例外
+   */
+  public void recordFailure(
+      final long intendedNanos, final long startNanos, final long endNanos,
+      final Exception cause) {
+    this.recordTimes(intendedNanos, startNanos, endNanos);
+    this.failures.computeIfAbsent(cause.getClass().getSimpleName(), key -> new LongAdder())
+        .increment();
+  }
+  // }}}
+
+  // {{{ private void recordTimes(long intendedNanos, long startNanos, long endNanos)
+  private void recordTimes(final long intendedNanos, final long startNanos, final long endNanos) {
+    this.responseTime.recordValue(TimeUnit.NANOSECONDS.toMicros(endNanos - intendedNanos));
+    this.serviceTime.recordValue(TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos));
+  }
+  // }}}
+
+  /**
+   * 予定時刻から応答を受け取るまでの時間（マイクロ秒）のヒストグラムを返します。.
+   *
+   * @return 応答時間のヒストグラム
+   */
+  public Histogram responseTime() {
+    return this.responseTime;
+  }
+
+  /**
+   * リクエストを送ってから応答を受け取るまでの時間（マイクロ秒）のヒストグラムを返します。.
+   *
+   * @return 処理時間のヒストグラム
+   */
+  public Histogram serviceTime() {
+    return this.serviceTime;
+  }
+
+  /**
+   * 記録したリクエストの数を返します。.
+   *
+   * @return 応答の有無に関わらず記録したリクエストの数
+   */
+  public long count() {
+    return this.responseTime.getTotalCount();
+  }
+
+  // {{{ public long errors()
+  /**
+   * エラーとなったリクエストの数を返します。.
+   *
+   * <p>HTTPステータスコードが400以上の応答と、応答を受け取れなかったリクエストを数えます。</p>
+   *
+   * @return エラーとなったリクエストの数
+   */
+  public long errors() {
+    final long errorResponses = this.statuses.entrySet().stream()
+        .filter(entry -> entry.getKey() >= 400)
+        .mapToLong(entry -> entry.getValue().sum())
+        .sum();
+    return errorResponses + this.failures.values().stream().mapToLong(LongAdder::sum).sum();
+  }
+  // }}}
+
+  // {{{ public void print(PrintStream out, Duration duration)
+  /**
+   * 集計結果を出力します。.
+   *
+   * @param out 出力先
+   * @param duration 計測した時間（スループットの算出に使用）
+   */
+  public void print(final PrintStream out, final Duration duration) {
+    final double seconds = duration.toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+    out.printf("Requests   : %d (errors: %d), %.1f req/s over %.0f s%n",
+        this.count(), this.errors(), this.count() / seconds, seconds);
+    out.printf("Statuses   : %s%n", this.statuses);
+    if (!this.failures.isEmpty()) {
+      out.printf("Failures   : %s%n", this.failures);
+    }
+
+    out.printf("%-16s%10s%10s%10s%10s%10s%n", "Latency (ms)", "p50", "p90", "p99", "p99.9", "max");
+    printLine(out, "response time", this.responseTime);
+    printLine(out, "service time", this.serviceTime);
+    if (!this.corrected) {
+      out.println("Note: without --rate the closed model has no schedule, so the response time "
+          + "is not corrected for coordinated omission.");
+    }
+  }
+  // }}}
+
+  // {{{ private static void printLine(PrintStream out, String label, Histogram histogram)
+  private static void printLine(
+      final PrintStream out, final String label, final Histogram histogram) {
+    final StringBuilder line = new StringBuilder(String.format("%-16s", label));
+    for (final double percentile : PERCENTILES) {
+      line.append(String.format("%10.2f",
+          histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI));
+    }
+    line.append(String.format("%10.2f", histogram.getMaxValue() / MICROS_PER_MILLI));
+    out.println(line);
+  }
+  // }}}
+
+}
@@ -0,0 +1,115 @@
+package jp.sios.apisl.handson.rollingdice.webapp.loadgen;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * webapiとwebuiに負荷をかけ、応答時間のパーセンタイルを出力する負荷生成ツールのエントリーポイントです。.
+ *
+ * <p>以下のエンドポイントと負荷のモデルを組み合わせて使用します。</p>
+ * <ul>
+ *   <li>エンドポイント: POST /api/v1/dices、GET /api/v1/dices、およびwebuiの「/」</li>
+ *   <li>開放型: 応答を待たずに一定の到着率でリクエストを送ります。</li>
+ *   <li>閉鎖型: 一定数の利用者が応答を受け取ってから次のリクエストを送ります。</li>
+ * </ul>
+ *
+ * <p>MySQLを用意できない環境では、webapiを{@code offline}プロファイル（組み込みのH2データベース）で
+ * 起動して負荷をかけられます。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+public class LoadGenerator {
+
+  /**
+   * 負荷生成の条件です。.
+   */
+  private final LoadOptions options;
+
+  /**
+   * レポートの出力先です。.
+   */
+  private final PrintStream out;
+
+  // {{{ public LoadGenerator(LoadOptions options, PrintStream out)
+  /**
+   * LoadGeneratorのコンストラクタです。.
+   *
+   * @param options 負荷生成の条件
+   * @param out レポートの出力先
+   */
+  public LoadGenerator(final LoadOptions options, final PrintStream out) {
+    this.options = options;
+    this.out = out;
+  }
+  // }}}
+
+  // {{{ public static void main(String... args)
+  /**
+   * コマンドライン引数で指定された条件で負荷をかけ、レポートを標準出力に出力します。.
+   *
+   * @param args {@code --name=value}形式のコマンドライン引数
+   * @throws IOException パーセンタイル分布の出力に失敗した場合
+   * @throws InterruptedException 負荷生成の途中で割り込まれた場合
+   */
+  public static void main(final String... args) throws IOException, InterruptedException {
+    final LoadOptions options;
+    try {
+      options = LoadOptions.parse(args);
+    } catch (IllegalArgumentException ex) {
+      System.err.println(ex.getMessage());
+      System.err.print(LoadOptions.USAGE);
+      System.exit(2);
+      return;
+    }
+    if (options.help()) {
+      System.out.print(LoadOptions.USAGE);
+      return;
+    }
+    new LoadGenerator(options, System.out).run();
+  }
+  // }}}
+
+  // {{{ public LatencyReport run()
+  /**
+   * 負荷をかけ、計測期間の応答時間を集計したレポートを出力します。.
+   *
+   * @return 計測期間の応答時間を集計したレポート
+   * @throws IOException パーセンタイル分布の出力に失敗した場合
+   * @throws InterruptedException 負荷生成の途中で割り込まれた場合
+   */
+  public LatencyReport run() throws IOException, InterruptedException {
+    final HttpRequest request = this.options.target().request(this.options);
+    this.out.printf("Target     : %s %s%n", request.method(), request.uri());
+    this.out.printf("Model      : %s, rate=%s/s, concurrency=%d, warmup=%ds, duration=%ds%n",
+        this.options.mode(), this.options.rate(), this.options.concurrency(),
+        this.options.warmup().toSeconds(), this.options.duration().toSeconds());
+
+    final LatencyReport report;
+    try (HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(this.options.timeout())
+        .build()) {
+      report = LoadRunner.of(this.options).run(client, request);
+    }
+    report.print(this.out, this.options.duration());
+
+    final Path histogramFile = this.options.histogramFile().orElse(null);
+    if (histogramFile != null) {
+      try (PrintStream hgrm = new PrintStream(
+          Files.newOutputStream(histogramFile), true, StandardCharsets.UTF_8)) {
+        // Scale microseconds to milliseconds, as the HdrHistogram plotter expects
+        report.responseTime().outputPercentileDistribution(hgrm, 1000.0);
+      }
+      this.out.printf("Histogram  : %s%n", histogramFile);
+    }
+    return report;
+  }
+  // }}}
+
+}
@@ -0,0 +1,171 @@
+package jp.sios.apisl.handson.rollingdice.webapp.loadgen;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 負荷生成の条件を保持するレコードです。.
+ *
+ * <p>コマンドライン引数は{@code --name=value}の形式で指定します。
+ * 指定されなかった項目には、ローカルで起動したwebapiとwebuiに適度な負荷をかける既定値を使用します。</p>
+ *
+ * @param target 負荷をかけるエンドポイント
+ * @param mode 負荷のモデル（到着率を一定に保つ開放型、または利用者数を一定に保つ閉鎖型）
+ * @param apiUrl webapiのベースURL
+ * @param uiUrl webuiのベースURL
+ * @param rate 1秒あたりのリクエスト数（閉鎖型で0の場合はペース配分なし）
+ * @param concurrency 閉鎖型で同時にリクエストを送る利用者の数
+ * @param duration 計測する時間
+ * @param warmup 計測を始める前に負荷をかける時間
+ * @param timeout 1リクエストあたりのタイムアウト
+ * @param maxInFlight 開放型で同時に応答を待つリクエストの上限
+ * @param sleep POST /api/v1/dices と webui に渡す{@code sleep}パラメーター
+ * @param loop POST /api/v1/dices と webui に渡す{@code loop}パラメーター
+ * @param error POST /api/v1/dices と webui に渡す{@code error}パラメーター
+ * @param limit GET /api/v1/dices に渡す{@code limit}パラメーター
+ * @param histogramFile パーセンタイル分布（.hgrm形式）の出力先
+ * @param help 使い方を表示するかどうか
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+public record LoadOptions(
+    Target target,
+    Mode mode,
+    URI apiUrl,
+    URI uiUrl,
+    double rate,
+    int concurrency,
+    Duration duration,
+    Duration warmup,
+    Duration timeout,
+    int maxInFlight,
+    Optional<Integer> sleep,
+    Optional<Integer> loop,
+    Optional<Boolean> error,
+    Optional<Integer> limit,
+    Optional<Path> histogramFile,
+    boolean help) {
+
+  /**
+   * 負荷のモデルを表す列挙型です。.
+   */
+  public enum Mode {
+
+    /**
+     * 応答を待たずに一定の到着率でリクエストを送る開放型のモデルです。.
+     */
+    OPEN,
+
+    /**
+     * 一定数の利用者が応答を受け取ってから次のリクエストを送る閉鎖型のモデルです。.
+     */
+    CLOSED
+  }
+
+  /**
+   * コマンドライン引数の使い方です。.
+   */
+  public static final String USAGE = """
+      Usage: LoadGenerator [--name=value ...]
+
+      Options:
+        --target=roll|list|ui   POST /api/v1/dices, GET /api/v1/dices or webui '/' (default: roll)
+        --mode=open|closed      constant arrival rate or fixed number of users (default: open)
+        --rate=N                requests per second; paces the closed model if given (default: 50)
+        --concurrency=N         users of the closed model (default: 16)
+        --duration=SECONDS      measured period (default: 30)
+        --warmup=SECONDS        unmeasured period before it (default: 5)
+        --timeout=SECONDS       timeout of each request (default: 30)
+        --max-in-flight=N       outstanding requests of the open model (default: 1000)
+        --sleep=N --loop=N --error=true
+                                query parameters for the roll and ui targets
+        --limit=N               query parameter for the list target
+        --api-url=URL           base URL of webapi (default: http://localhost:8182)
+        --ui-url=URL            base URL of webui (default: http://localhost:8181)
+        --hgrm=FILE             write the percentile distribution of the response time
+        --help                  show this message
+      """;
+
+  /**
+   * 指定可能なオプションの名前です。.
+   */
+  private static final Set<String> NAMES = Set.of(
+      "target", "mode", "rate", "concurrency", "duration", "warmup", "timeout", "max-in-flight",
+      "sleep", "loop", "error", "limit", "api-url", "ui-url", "hgrm", "help");
+
+  /**
+   * 開放型で既定とする1秒あたりのリクエスト数です。.
+   */
+  private static final String DEFAULT_RATE = "50";
+
+  // {{{ public static LoadOptions parse(String... args)
+  /**
+   * コマンドライン引数を解析して負荷生成の条件を返します。.
+   *
+   * @param args {@code --name=value}形式のコマンドライン引数
+   * @return 解析した負荷生成の条件
+   * @throws IllegalArgumentException 未知のオプションや範囲外の値が指定された場合
+   */
+  public static LoadOptions parse(final String... args) {
+    final Map<String, String> values = new HashMap<>();
+    for (final String arg : args) {
+      if (!arg.startsWith("--")) {
+        throw new IllegalArgumentException("Unexpected argument: '" + arg + "'");
+      }
+      final int separator = arg.indexOf('=');
+      final String name = separator < 0 ? arg.substring(2) : arg.substring(2, separator);
+      if (!NAMES.contains(name)) {
+        throw new IllegalArgumentException("Unknown option: '--" + name + "'");
+      }
+      values.put(name, separator < 0 ? "true" : arg.substring(separator + 1));
+    }
+
+    final Mode mode = Mode.valueOf(
+        values.getOrDefault("mode", "open").toUpperCase(Locale.ROOT));
+    final String defaultRate = mode == Mode.OPEN ? DEFAULT_RATE : "0";
+    final LoadOptions options = new LoadOptions(
+        Target.valueOf(values.getOrDefault("target", "roll").toUpperCase(Locale.ROOT)),
+        mode,
+        URI.create(values.getOrDefault("api-url", "http://localhost:8182")),
+        URI.create(values.getOrDefault("ui-url", "http://localhost:8181")),
+        Double.parseDouble(values.getOrDefault("rate", defaultRate)),
+        Integer.parseInt(values.getOrDefault("concurrency", "16")),
+        Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "30"))),
+        Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "5"))),
+        Duration.ofSeconds(Long.parseLong(values.getOrDefault("timeout", "30"))),
+        Integer.parseInt(values.getOrDefault("max-in-flight", "1000")),
+        Optional.ofNullable(values.get("sleep")).map(Integer::valueOf),
+        Optional.ofNullable(values.get("loop")).map(Integer::valueOf),
+        Optional.ofNullable(values.get("error")).map(Boolean::valueOf),
+        Optional.ofNullable(values.get("limit")).map(Integer::valueOf),
+        Optional.ofNullable(values.get("hgrm")).map(Path::of),
+        values.containsKey("help"));
+    options.validate();
+    return options;
+  }
+  // }}}
+
+  // {{{ private void validate()
+  private void validate() {
+    if (this.mode == Mode.OPEN ? this.rate <= 0 : this.rate < 0) {
+      throw new IllegalArgumentException("The rate is out of range: " + this.rate);
+    }
+    if (this.concurrency < 1 || this.maxInFlight < 1) {
+      throw new IllegalArgumentException("The concurrency and max-in-flight must be positive: "
+          + this.concurrency + " / " + this.maxInFlight);
+    }
+    if (this.duration.isNegative() || this.duration.isZero() || this.warmup.isNegative()
+        || this.timeout.isNegative() || this.timeout.isZero()) {
+      throw new IllegalArgumentException("The periods are out of range: duration="
+          + this.duration + ", warmup=" + this.warmup + ", timeout=" + this.timeout);
+    }
+  }
+  // }}}
+
+}
@@ -0,0 +1,95 @@
+package jp.sios.apisl.handson.rollingdice.webapp.loadgen;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 負荷のモデルに従ってリクエストを送り、応答時間を記録する抽象クラスです。.
+ *
+ * <p>リクエストは1件ごとに仮想スレッド上で同期的に送るため、
+ * 数千件のリクエストが同時に応答を待っていてもプラットフォームスレッドを占有しません。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+public abstract class LoadRunner {
+
+  // {{{ public static LoadRunner of(LoadOptions options)
+  /**
+   * 負荷生成の条件で指定されたモデルのLoadRunnerを返します。.
+   *
+   * @param options 負荷生成の条件
+   * @return 開放型または閉鎖型のLoadRunner
+   */
+  public static LoadRunner of(final LoadOptions options) {
+    return switch (options.mode()) {
+      case OPEN -> new OpenModelRunner(
+          options.rate(), options.maxInFlight(), options.warmup(), options.duration());
+      case CLOSED -> new ClosedModelRunner(
+          options.concurrency(), options.rate(), options.warmup(), options.duration());
+    };
+  }
+  // }}}
+
+  /**
+   * 負荷をかけ、計測期間の応答時間を集計したレポートを返します。.
+   *
+   * @param client リクエストの送信に使用するHttpClient
+   * @param request 繰り返し送るリクエスト
+   * @return 計測期間の応答時間を集計したレポート
+   * @throws InterruptedException 負荷生成の途中で割り込まれた場合
+   */
+  public abstract LatencyReport run(HttpClient client, HttpRequest request)
+      throws InterruptedException;
+
+  // {{{ protected static void send(HttpClient client, HttpRequest request, ...)
+  /**
+   * リクエストを1件送り、計測期間であれば応答時間を記録します。.
+   *
+   * <p>応答のボディーは読み捨てますが、受信し終えるまでの時間を応答時間に含めます。</p>
+   *
+   * @param client リクエストの送信に使用するHttpClient
+   * @param request 送るリクエスト
+   * @param report 応答時間の記録先
+   * @param intendedNanos リクエストを送る予定だった時刻（{@link System#nanoTime()}の値）
+   * @param measured 計測期間のリクエストであれば{@code true}
+   */
+  protected static void send(
+      final HttpClient client, final HttpRequest request, final LatencyReport report,
+      final long intendedNanos, final boolean measured) {
+    final long startNanos = System.nanoTime();
+    try {
+      final HttpResponse<Void> response =
+          client.send(request, HttpResponse.BodyHandlers.discarding());
+      if (measured) {
+        report.recordResponse(intendedNanos, startNanos, System.nanoTime(), response.statusCode());
+      }
+    } catch (IOException ex) {
+      if (measured) {
+        report.recordFailure(intendedNanos, startNanos, System.nanoTime(), ex);
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+  // }}}
+
+  // {{{ protected static void parkUntil(long deadlineNanos)
+  /**
+   * 指定された時刻（{@link System#nanoTime()}の値）まで待機します。.
+   *
+   * @param deadlineNanos 待機を終える時刻
+   */
+  protected static void parkUntil(final long deadlineNanos) {
+    long remaining = deadlineNanos - System.nanoTime();
+    while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+      LockSupport.parkNanos(remaining);
+      remaining = deadlineNanos - System.nanoTime();
+    }
+  }
+  // }}}
+
+}
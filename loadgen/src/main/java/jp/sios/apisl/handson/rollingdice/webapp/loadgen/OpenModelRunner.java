@@ -0,0 +1,107 @@
+package jp.sios.apisl.handson.rollingdice.webapp.loadgen;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一定の到着率でリクエストを送る開放型のLoadRunnerです。.
+ *
+ * <p>i番目のリクエストの予定時刻を「開始時刻 + i / 到着率」として事前に決め、
+ * 前のリクエストの応答を待たずに予定時刻ごとに仮想スレッドを起動してリクエストを送ります。
+ * 応答時間は予定時刻から計測するため、サーバーが遅くなって送信が遅れた分も応答時間に含まれます。</p>
+ *
+ * <p>応答を待つリクエストの数が上限に達した場合は、空きが出るまで次の送信を待ちます。
+ * その場合も予定時刻は変えないため、待った時間は後続のリクエストの応答時間として記録されます。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+public class OpenModelRunner extends LoadRunner {
+
+  /**
+   * 1秒あたりのリクエスト数です。.
+   */
+  private final double rate;
+
+  /**
+   * 同時に応答を待つリクエストの上限です。.
+   */
+  private final int maxInFlight;
+
+  /**
+   * 計測を始める前に負荷をかける時間です。.
+   */
+  private final Duration warmup;
+
+  /**
+   * 計測する時間です。.
+   */
+  private final Duration duration;
+
+  // {{{ public OpenModelRunner(double rate, int maxInFlight, Duration warmup, ...)
+  /**
+   * OpenModelRunnerのコンストラクタです。.
+   *
+   * @param rate 1秒あたりのリクエスト数
+   * @param maxInFlight 同時に応答を待つリクエストの上限
+   * @param warmup 計測を始める前に負荷をかける時間
+   * @param duration 計測する時間
+   */
+  public OpenModelRunner(
+      final double rate, final int maxInFlight, final Duration warmup, final Duration duration) {
+    this.rate = rate;
+    this.maxInFlight = maxInFlight;
+    this.warmup = warmup;
+    this.duration = duration;
+  }
+  // }}}
+
+  // {{{ public LatencyReport run(HttpClient client, HttpRequest request)
+  /**
+   * 一定の到着率で負荷をかけ、計測期間の応答時間を集計したレポートを返します。.
+   *
+   * @param client リクエストの送信に使用するHttpClient
+   * @param request 繰り返し送るリクエスト
+   * @return 計測期間の応答時間を集計したレポート
+   * @throws InterruptedException 負荷生成の途中で割り込まれた場合
+   */
+  @Override
+  public LatencyReport run(final HttpClient client, final HttpRequest request)
+      throws InterruptedException {
+    final LatencyReport report = new LatencyReport(true);
+    final Semaphore inFlight = new Semaphore(this.maxInFlight);
+    final double intervalNanos = TimeUnit.SECONDS.toNanos(1) / this.rate;
+    final long warmupNanos = this.warmup.toNanos();
+    final long totalNanos = warmupNanos + this.duration.toNanos();
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      final long originNanos = System.nanoTime();
+      for (long i = 0; ; i++) {
+        // Derive each slot from the origin, so that a late dispatch never shifts the schedule
+        final long offsetNanos = (long) (i * intervalNanos);
+        if (offsetNanos >= totalNanos) {
+          break;
+        }
+        final long intendedNanos = originNanos + offsetNanos;
+        parkUntil(intendedNanos);
+        inFlight.acquire();
+        final boolean measured = offsetNanos >= warmupNanos;
+        executor.execute(() -> {
+          try {
+            send(client, request, report, intendedNanos, measured);
+          } finally {
+            inFlight.release();
+          }
+        });
+      }
+    }
+    return report;
+  }
+  // }}}
+
+}
@@ -0,0 +1,100 @@
+package jp.sios.apisl.handson.rollingdice.webapp.loadgen;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 負荷をかけるエンドポイントを表す列挙型です。.
+ *
+ * <p>いずれのエンドポイントも、負荷生成の間は同じリクエストを繰り返し送ります。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+public enum Target {
+
+  /**
+   * サイコロを振るwebapiのエンドポイント（POST /api/v1/dices）です。.
+   */
+  ROLL {
+    @Override
+    /* default */ URI uri(final LoadOptions options) {
+      return withQuery(options.apiUrl(), "/api/v1/dices", rollParameters(options));
+    }
+  },
+
+  /**
+   * サイコロの出目履歴を返すwebapiのエンドポイント（GET /api/v1/dices）です。.
+   */
+  LIST {
+    @Override
+    /* default */ URI uri(final LoadOptions options) {
+      final Map<String, Optional<?>> parameters = new LinkedHashMap<>();
+      parameters.put("limit", options.limit());
+      return withQuery(options.apiUrl(), "/api/v1/dices", parameters);
+    }
+  },
+
+  /**
+   * サイコロを振って結果と履歴を表示するwebuiのページ（GET /）です。.
+   */
+  UI {
+    @Override
+    /* default */ URI uri(final LoadOptions options) {
+      return withQuery(options.uiUrl(), "/", rollParameters(options));
+    }
+  };
+
+  // {{{ public HttpRequest request(LoadOptions options)
+  /**
+   * 負荷生成の条件に従って、このエンドポイントに送るリクエストを組み立てます。.
+   *
+   * @param options 負荷生成の条件
+   * @return 組み立てたリクエスト
+   */
+  public HttpRequest request(final LoadOptions options) {
+    final HttpRequest.Builder builder = HttpRequest.newBuilder(this.uri(options))
+        .timeout(options.timeout());
+    if (this == ROLL) {
+      builder.POST(HttpRequest.BodyPublishers.noBody());
+    } else {
+      builder.GET();
+    }
+    return builder.build();
+  }
+  // }}}
+
+  /**
+   * 負荷生成の条件に従って、このエンドポイントのURIを組み立てます。.
+   *
+   * @param options 負荷生成の条件
+   * @return クエリーパラメーターを含むURI
+   */
+  /* default */ abstract URI uri(LoadOptions options);
+
+  // {{{ private static Map<String, Optional<?>> rollParameters(LoadOptions options)
+  private static Map<String, Optional<?>> rollParameters(final LoadOptions options) {
+    final Map<String, Optional<?>> parameters = new LinkedHashMap<>();
+    parameters.put("sleep", options.sleep());
+    parameters.put("loop", options.loop());
+    parameters.put("error", options.error());
+    return parameters;
+  }
+  // }}}
+
+  // {{{ private static URI withQuery(URI baseUrl, String path, Map<String, Optional<?>> ...)
+  private static URI withQuery(
+      final URI baseUrl, final String path, final Map<String, Optional<?>> parameters) {
+    final String query = parameters.entrySet().stream()
+        .filter(entry -> entry.getValue().isPresent())
+        .map(entry -> entry.getKey() + "=" + entry.getValue().get())
+        .collect(Collectors.joining("&"));
+    return baseUrl.resolve(query.isEmpty() ? path : path + "?" + query);
+  }
+  // }}}
+
+}
@@ -0,0 +1,76 @@
+package jp.sios.apisl.handson.rollingdice.webapp.loadgen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code LatencyReportTest} クラスは、{@link LatencyReport} のユニットテストを提供します。.
+ *
+ * <p>予定時刻を基準とした応答時間の記録、エラーの集計、およびレポートの出力を検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class LatencyReportTest {
+
+  /**
+   * LatencyReportTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public LatencyReportTest() {
+    // Constructor for LatencyReportTest
+  }
+
+  @Test
+  void testRecordFromIntendedTime() {
+    final LatencyReport report = new LatencyReport(true);
+
+    report.recordResponse(0, millis(40), millis(50), 200);
+
+    assertEquals(50_000, report.responseTime().getMaxValue(), 50,
+        "The response time should include the delay before sending.");
+    assertEquals(10_000, report.serviceTime().getMaxValue(), 10,
+        "The service time should start when the request was sent.");
+  }
+
+  @Test
+  void testErrors() {
+    final LatencyReport report = new LatencyReport(true);
+
+    report.recordResponse(0, 0, millis(1), 200);
+    report.recordResponse(0, 0, millis(1), 500);
+    report.recordFailure(0, 0, millis(30), new HttpTimeoutException("request timed out"));
+
+    assertEquals(3, report.count(), "Every request should be counted.");
+    assertEquals(2, report.errors(), "The 5xx response and the timeout should be errors.");
+  }
+
+  @Test
+  void testPrint() {
+    final LatencyReport report = new LatencyReport(false);
+    report.recordResponse(0, 0, millis(2), 200);
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+      report.print(out, Duration.ofSeconds(1));
+    }
+    final String text = bytes.toString(StandardCharsets.UTF_8);
+
+    assertTrue(text.contains("p99.9"), "The tail percentiles should be printed.");
+    assertTrue(text.contains("{200=1}"), "The statuses should be printed.");
+    assertTrue(text.contains("not corrected"), "The uncorrected report should say so.");
+  }
+
+  private static long millis(final long value) {
+    return TimeUnit.MILLISECONDS.toNanos(value);
+  }
+
+}
@@ -0,0 +1,87 @@
+package jp.sios.apisl.handson.rollingdice.webapp.loadgen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code LoadOptionsTest} クラスは、{@link LoadOptions} と {@link Target} のユニットテストを提供します。.
+ *
+ * <p>コマンドライン引数の解析、不正な引数の検出、
+ * およびエンドポイントごとのリクエストの組み立てを検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class LoadOptionsTest {
+
+  /**
+   * LoadOptionsTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public LoadOptionsTest() {
+    // Constructor for LoadOptionsTest
+  }
+
+  @Test
+  void testParseDefaults() {
+    final LoadOptions options = LoadOptions.parse();
+
+    assertEquals(Target.ROLL, options.target(), "The roll endpoint should be the default.");
+    assertEquals(LoadOptions.Mode.OPEN, options.mode(), "The open model should be the default.");
+    assertEquals(50.0, options.rate(), "The open model should have a default rate.");
+    assertEquals(Duration.ofSeconds(30), options.duration(), "The default duration is 30s.");
+    assertTrue(options.sleep().isEmpty(), "No query parameter should be given by default.");
+  }
+
+  @Test
+  void testParseClosedModel() {
+    final LoadOptions options = LoadOptions.parse(
+        "--mode=closed", "--concurrency=8", "--duration=10", "--warmup=0");
+
+    assertEquals(LoadOptions.Mode.CLOSED, options.mode(), "The closed model should be selected.");
+    assertEquals(0.0, options.rate(), "The closed model should not be paced by default.");
+    assertEquals(8, options.concurrency(), "The number of users should be parsed.");
+    assertEquals(Duration.ZERO, options.warmup(), "The warmup can be skipped.");
+  }
+
+  @Test
+  void testParseInvalid() {
+    assertThrows(IllegalArgumentException.class, () -> LoadOptions.parse("--rps=10"),
+        "An unknown option should be rejected.");
+    assertThrows(IllegalArgumentException.class, () -> LoadOptions.parse("roll"),
+        "An argument without the prefix should be rejected.");
+    assertThrows(IllegalArgumentException.class, () -> LoadOptions.parse("--rate=0"),
+        "The open model needs a positive rate.");
+    assertThrows(IllegalArgumentException.class, () -> LoadOptions.parse("--target=delete"),
+        "An unknown target should be rejected.");
+  }
+
+  @Test
+  void testRequestRoll() {
+    final HttpRequest request = Target.ROLL.request(LoadOptions.parse(
+        "--sleep=1", "--loop=2", "--error=true", "--api-url=http://webapi:8182"));
+
+    assertEquals("POST", request.method(), "A dice should be rolled by POST.");
+    assertEquals(URI.create("http://webapi:8182/api/v1/dices?sleep=1&loop=2&error=true"),
+        request.uri(), "The query parameters should be passed through.");
+  }
+
+  @Test
+  void testRequestListAndUi() {
+    final LoadOptions options = LoadOptions.parse("--limit=20", "--sleep=3");
+
+    assertEquals(URI.create("http://localhost:8182/api/v1/dices?limit=20"),
+        Target.LIST.request(options).uri(), "Only the limit should be given to the list.");
+    final HttpRequest page = Target.UI.request(options);
+    assertEquals("GET", page.method(), "The page should be requested by GET.");
+    assertEquals(URI.create("http://localhost:8181/?sleep=3"), page.uri(),
+        "The roll parameters should be given to the page.");
+  }
+
+}
@@ -0,0 +1,149 @@
+package jp.sios.apisl.handson.rollingdice.webapp.loadgen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code LoadRunnerTest} クラスは、{@link OpenModelRunner} と {@link ClosedModelRunner} のユニットテストを提供します。.
+ *
+ * <p>JDK組み込みのHTTPサーバーを相手に負荷をかけ、予定どおりの件数が送られること、
+ * およびサーバーの停滞による待ち時間が応答時間に含まれることを検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class LoadRunnerTest {
+
+  /**
+   * 最初のリクエストだけを停滞させる時間（ミリ秒）です。.
+   */
+  private static final long STALL_MILLIS = 300;
+
+  /**
+   * 受け付けたリクエストの数です。.
+   */
+  private final AtomicInteger received = new AtomicInteger();
+
+  /**
+   * 応答を返すスタブのHTTPサーバーです。.
+   */
+  private HttpServer server;
+
+  /**
+   * スタブのHTTPサーバーがリクエストを処理するExecutorです。.
+   */
+  private ExecutorService serverExecutor;
+
+  /**
+   * 負荷生成に使用するHttpClientです。.
+   */
+  private HttpClient client;
+
+  /**
+   * LoadRunnerTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public LoadRunnerTest() {
+    // Constructor for LoadRunnerTest
+  }
+
+  @BeforeEach
+  void setUp() throws IOException {
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    this.server.createContext("/api/v1/dices", exchange -> {
+      if (received.incrementAndGet() == 1 && "stall".equals(exchange.getRequestURI().getQuery())) {
+        sleep(STALL_MILLIS);
+      }
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+    });
+    this.serverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    this.server.setExecutor(serverExecutor);
+    this.server.start();
+    this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.client.close();
+    this.server.stop(0);
+    this.serverExecutor.close();
+  }
+
+  @Test
+  void testOpenModelSendsEveryArrival() throws InterruptedException {
+    final LoadRunner runner = new OpenModelRunner(200, 100, Duration.ZERO, Duration.ofSeconds(1));
+
+    final LatencyReport report = runner.run(client, request(""));
+
+    assertEquals(200, report.count(), "Every scheduled arrival should be sent and measured.");
+    assertEquals(0, report.errors(), "The stub should answer every request.");
+  }
+
+  @Test
+  void testOpenModelCorrectsCoordinatedOmission() throws InterruptedException {
+    // Only one request may be outstanding, so the stalled response holds back the next ones
+    final LoadRunner runner = new OpenModelRunner(100, 1, Duration.ZERO, Duration.ofSeconds(1));
+
+    final LatencyReport report = runner.run(client, request("?stall"));
+
+    assertEquals(100, report.count(), "Every scheduled arrival should be measured.");
+    assertTrue(report.responseTime().getMaxValue() >= TimeUnit.MILLISECONDS.toMicros(250),
+        "The stall should be recorded in the response time.");
+    assertTrue(report.responseTime().getValueAtPercentile(90)
+        > report.serviceTime().getValueAtPercentile(90),
+        "The requests held back by the stall should be slower than their service time.");
+  }
+
+  @Test
+  void testClosedModelPaced() throws InterruptedException {
+    final LoadRunner runner =
+        new ClosedModelRunner(4, 100, Duration.ZERO, Duration.ofSeconds(1));
+
+    final LatencyReport report = runner.run(client, request(""));
+
+    assertEquals(100, report.count(), 5, "The paced users should follow the rate.");
+  }
+
+  @Test
+  void testClosedModelUnpaced() throws InterruptedException {
+    final LoadRunner runner =
+        new ClosedModelRunner(2, 0, Duration.ofMillis(100), Duration.ofMillis(300));
+
+    final LatencyReport report = runner.run(client, request(""));
+
+    assertTrue(report.count() > 0, "The users should send requests back to back.");
+    assertTrue(received.get() > report.count(), "The warmup requests should not be measured.");
+  }
+
+  private HttpRequest request(final String query) {
+    final URI uri = URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress()
+        + ":" + server.getAddress().getPort() + "/api/v1/dices" + query);
+    return HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.noBody()).build();
+  }
+
+  private static void sleep(final long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -24,6 +24,28 @@ case "$1" in
 		./gradlew test -x cyclonedxBom
 		finish_banner $S_TIME
 		;;
+	"bench")
+		start_banner
+		if [ -n "$2" ]; then
+			./gradlew jmh -x cyclonedxBom -PjmhIncludes="$2"
+		else
+			./gradlew jmh -x cyclonedxBom
+		fi
+		echo "Results: build/reports/jmh/results.json"
+		finish_banner $S_TIME
+		;;
+	"offline")
+		start_banner
+		install_jdk
+
+		echo "Test URL:"
+		echo "- http://localhost:8182/api/v1/dices"
+
+		# Use the embedded H2 database instead of MySQL, e.g. to drive it with ../loadgen
+		# ('memory' or 'mmap' as the 2nd argument replaces the database by another engine)
+		PROFILE=${2:-offline}
+		./gradlew bootRun -x cyclonedxBom --args="--spring.profiles.active=$PROFILE --management.otlp.metrics.export.enabled=false --otel.sdk.disabled=true"
+		;;
 	"")
 		start_banner
 		install_jdk
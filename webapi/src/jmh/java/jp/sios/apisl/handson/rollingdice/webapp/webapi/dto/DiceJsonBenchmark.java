@@ -0,0 +1,135 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link DiceValueDto}と{@link DiceEntity}のリストを、JacksonでJSONに変換する処理を計測するベンチマークです。.
+ *
+ * <p>ObjectMapperはSpring Bootの既定と同様に、検出されたモジュールを登録し、日時を文字列で出力する設定とします。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@SuppressWarnings("PMD.CommentSize")
+public class DiceJsonBenchmark {
+
+  /**
+   * Spring Bootの既定と同様に設定したObjectMapperです。.
+   */
+  private final ObjectMapper objectMapper = JsonMapper.builder()
+      .findAndAddModules()
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .build();
+
+  /**
+   * 出目の履歴のリストを変換するための、型を解決済みのObjectWriterです。.
+   */
+  private final ObjectWriter listWriter =
+      this.objectMapper.writerFor(new TypeReference<List<DiceEntity>>() { });
+
+  /**
+   * 変換対象のDiceValueDtoです。.
+   */
+  private final DiceValueDto diceValue = new DiceValueDto(3);
+
+  /**
+   * DiceJsonBenchmarkのコンストラクタです。.
+   */
+  public DiceJsonBenchmark() {
+    // Constructor for DiceJsonBenchmark
+  }
+
+  // {{{ public byte[] serializeDiceValue()
+  /**
+   * DiceValueDtoのJSONへの変換を計測します。.
+   *
+   * @return 変換したJSON
+   * @throws JsonProcessingException 変換に失敗した場合
+   */
+  @Benchmark
+  public byte[] serializeDiceValue() throws JsonProcessingException {
+    return this.objectMapper.writeValueAsBytes(this.diceValue);
+  }
+  // }}}
+
+  // {{{ public byte[] serializeDiceList(DiceList state)
+  /**
+   * DiceEntityのリストのJSONへの変換を計測します。.
+   *
+   * @param state 変換対象のリストを保持する状態
+   * @return 変換したJSON
+   * @throws JsonProcessingException 変換に失敗した場合
+   */
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public byte[] serializeDiceList(final DiceList state) throws JsonProcessingException {
+    return this.listWriter.writeValueAsBytes(state.dices);
+  }
+  // }}}
+
+  /**
+   * 変換対象となるDiceEntityのリストを保持する状態クラスです。.
+   */
+  @State(Scope.Benchmark)
+  public static class DiceList {
+
+    /**
+     * リストの件数です。履歴の1ページの既定値と最大値を含みます。.
+     */
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    /**
+     * 変換対象のDiceEntityのリストです。.
+     */
+    private List<DiceEntity> dices;
+
+    /**
+     * DiceListのコンストラクタです。.
+     */
+    public DiceList() {
+      // Constructor for DiceList
+    }
+
+    // {{{ public void setUp()
+    /**
+     * 指定された件数のリストを用意します。.
+     */
+    @Setup
+    public void setUp() {
+      final LocalDateTime now = LocalDateTime.now().withNano(0);
+      this.dices = IntStream.range(0, this.size)
+          .mapToObj(i -> new DiceEntity(this.size - i, i % 6 + 1, now.minusSeconds(i)))
+          .toList();
+    }
+    // }}}
+
+  }
+
+}
@@ -0,0 +1,128 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.repository;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link DiceRowMapper}による、結果セットの行から{@link DiceEntity}への変換を計測するベンチマークです。.
+ *
+ * <p>結果セットはメモリー上の配列を返すだけのプロキシで代用します。
+ * プロキシ経由で列の値を読み出すだけのベースラインとの差分が、変換そのもののコストとなります。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@SuppressWarnings("PMD.CommentSize")
+public class DiceRowMapperBenchmark {
+
+  /**
+   * メモリー上に用意する行の件数です。.
+   */
+  private static final int ROWS = 1024;
+
+  /**
+   * 各行のIDです。.
+   */
+  private final int[] ids = new int[ROWS];
+
+  /**
+   * 各行の出目です。.
+   */
+  private final int[] values = new int[ROWS];
+
+  /**
+   * 各行の更新日時です。.
+   */
+  private final LocalDateTime[] updatedAts = new LocalDateTime[ROWS];
+
+  /**
+   * 結果セットが現在指している行の位置です。.
+   */
+  private int row;
+
+  /**
+   * メモリー上の配列を返す結果セットです。.
+   */
+  private ResultSet resultSet;
+
+  /**
+   * DiceRowMapperBenchmarkのコンストラクタです。.
+   */
+  public DiceRowMapperBenchmark() {
+    // Constructor for DiceRowMapperBenchmark
+  }
+
+  // {{{ public void setUp()
+  /**
+   * 行の値と、それを返す結果セットを用意します。.
+   */
+  @Setup
+  public void setUp() {
+    final LocalDateTime now = LocalDateTime.now();
+    for (int i = 0; i < ROWS; i++) {
+      this.ids[i] = i + 1;
+      this.values[i] = i % 6 + 1;
+      this.updatedAts[i] = now.minusSeconds(i);
+    }
+    this.resultSet = (ResultSet) Proxy.newProxyInstance(
+        ResultSet.class.getClassLoader(),
+        new Class<?>[] {ResultSet.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "getInt" -> "id".equals(args[0]) ? this.ids[this.row] : this.values[this.row];
+          case "getObject" -> this.updatedAts[this.row];
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+  // }}}
+
+  // {{{ public DiceEntity mapRow()
+  /**
+   * 1行を{@link DiceEntity}に変換する処理を計測します。.
+   *
+   * @return 変換したDiceEntity
+   * @throws SQLException 列の値の取得に失敗した場合
+   */
+  @Benchmark
+  public DiceEntity mapRow() throws SQLException {
+    this.row = (this.row + 1) & (ROWS - 1);
+    return DiceRowMapper.INSTANCE.mapRow(this.resultSet, this.row);
+  }
+  // }}}
+
+  // {{{ public void readColumns(Blackhole blackhole)
+  /**
+   * 変換を行わずに、1行分の列の値を読み出す処理を計測します（ベースライン）。.
+   *
+   * @param blackhole 読み出した値を消費するBlackhole
+   * @throws SQLException 列の値の取得に失敗した場合
+   */
+  @Benchmark
+  public void readColumns(final Blackhole blackhole) throws SQLException {
+    this.row = (this.row + 1) & (ROWS - 1);
+    blackhole.consume(this.resultSet.getInt("id"));
+    blackhole.consume(this.resultSet.getInt("value"));
+    blackhole.consume(this.resultSet.getObject("updated_at", LocalDateTime.class));
+  }
+  // }}}
+
+}
@@ -0,0 +1,157 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 出目履歴を{@link DiceEntity}のリストと{@link DiceColumns}で保持した場合のメモリー使用量と走査を比較するベンチマークです。.
+ *
+ * <p>build系のベンチマークは、指定された件数の出目履歴を保持するコンテナーを1つ生成します。
+ * gcプロファイラーの{@code gc.alloc.rate.norm}（1回あたりの確保バイト数）が、
+ * 保持したままにした場合のメモリー使用量の目安となります。
+ * 日時は結果セットから読み出す場合と同じく、1件ごとに新しいオブジェクトを生成します。</p>
+ *
+ * <p>scan系のベンチマークは、生成済みのコンテナーからIDだけを読み出す処理
+ * （キャッシュの二分探索や範囲の判定に相当）を計測します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@SuppressWarnings("PMD.CommentSize")
+public class DiceColumnsBenchmark {
+
+  /**
+   * コンテナーに保持する出目履歴の件数です。.
+   */
+  @Param({"1000", "100000"})
+  private int rows;
+
+  /**
+   * 各行の更新日時（UTCのエポック秒）です。.
+   */
+  private long[] seconds;
+
+  /**
+   * 走査の計測に使用する、生成済みのリストです。.
+   */
+  private List<DiceEntity> list;
+
+  /**
+   * 走査の計測に使用する、生成済みのDiceColumnsです。.
+   */
+  private DiceColumns columns;
+
+  /**
+   * DiceColumnsBenchmarkのコンストラクタです。.
+   */
+  public DiceColumnsBenchmark() {
+    // Constructor for DiceColumnsBenchmark
+  }
+
+  // {{{ public void setUp()
+  /**
+   * 行の値と、走査の計測に使用するコンテナーを用意します。.
+   */
+  @Setup
+  public void setUp() {
+    final long now = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+    this.seconds = new long[this.rows];
+    for (int i = 0; i < this.rows; i++) {
+      this.seconds[i] = now - this.rows + i;
+    }
+    this.list = this.buildList();
+    this.columns = this.buildColumns();
+  }
+  // }}}
+
+  // {{{ public List<DiceEntity> buildList()
+  /**
+   * 出目履歴を{@link DiceEntity}のリストで保持する処理を計測します（現在の表現）。.
+   *
+   * @return 生成したリスト
+   */
+  @Benchmark
+  public List<DiceEntity> buildList() {
+    final List<DiceEntity> result = new ArrayList<>(this.rows);
+    for (int i = 0; i < this.rows; i++) {
+      result.add(new DiceEntity(i + 1, i % 6 + 1, this.time(i)));
+    }
+    return result;
+  }
+  // }}}
+
+  // {{{ public DiceColumns buildColumns()
+  /**
+   * 出目履歴を{@link DiceColumns}で保持する処理を計測します。.
+   *
+   * @return 生成したDiceColumns
+   */
+  @Benchmark
+  public DiceColumns buildColumns() {
+    final DiceColumns result = new DiceColumns(this.rows);
+    for (int i = 0; i < this.rows; i++) {
+      result.add(i + 1, i % 6 + 1, this.time(i));
+    }
+    return result;
+  }
+  // }}}
+
+  // {{{ public long scanList()
+  /**
+   * リストに保持した出目履歴のIDを全件読み出す処理を計測します。.
+   *
+   * @return IDの合計
+   */
+  @Benchmark
+  public long scanList() {
+    long sum = 0;
+    for (final DiceEntity dice : this.list) {
+      sum += dice.id();
+    }
+    return sum;
+  }
+  // }}}
+
+  // {{{ public long scanColumns()
+  /**
+   * DiceColumnsに保持した出目履歴のIDを全件読み出す処理を計測します。.
+   *
+   * @return IDの合計
+   */
+  @Benchmark
+  public long scanColumns() {
+    long sum = 0;
+    for (int i = 0; i < this.columns.size(); i++) {
+      sum += this.columns.id(i);
+    }
+    return sum;
+  }
+  // }}}
+
+  // {{{ private LocalDateTime time(int index)
+  private LocalDateTime time(final int index) {
+    return LocalDateTime.ofEpochSecond(this.seconds[index], 0, ZoneOffset.UTC);
+  }
+  // }}}
+
+}
@@ -0,0 +1,128 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.helpers.NOPAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link WebApiServiceImpl}の、データベースに依存しない処理を計測するベンチマークです。.
+ *
+ * <p>サイコロを振る処理（乱数の生成とログ出力を含む）と、乱数の生成のみを比較し、
+ * 併せてloopメソッドで繰り返し実行されるファイルの読み込みを計測します。
+ * ログの出力先は何もしないAppenderに差し替え、ログレベルが有効な場合と無効な場合のそれぞれで計測します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@SuppressWarnings("PMD.CommentSize")
+public class WebApiServiceBenchmark {
+
+  /**
+   * loopメソッドで読み込まれるファイルのパスです。.
+   */
+  private static final String FILE_PATH_IN_LOOP = "application.yml";
+
+  /**
+   * 計測時のログレベルです。.
+   */
+  @Param({"INFO", "OFF"})
+  public String level;
+
+  /**
+   * 計測対象のWebApiServiceImplインスタンスです。データベースに依存する処理は呼び出しません。.
+   */
+  private WebApiServiceImpl service;
+
+  /**
+   * WebApiServiceBenchmarkのコンストラクタです。.
+   */
+  public WebApiServiceBenchmark() {
+    // Constructor for WebApiServiceBenchmark
+  }
+
+  // {{{ public void setUp()
+  /**
+   * ログの出力先を差し替え、計測対象のインスタンスを生成します。.
+   */
+  @Setup
+  public void setUp() {
+    this.silence(WebApiServiceImpl.class);
+    this.silence(UtilEnvInfo.class);
+    this.service = new WebApiServiceImpl(
+        null, null, null, null, null, null, null, null, new SimpleMeterRegistry());
+  }
+  // }}}
+
+  // {{{ public int roll()
+  /**
+   * ログ出力を含む、サイコロを振る処理を計測します。.
+   *
+   * @return サイコロの出目
+   */
+  @Benchmark
+  public int roll() {
+    return this.service.roll();
+  }
+  // }}}
+
+  // {{{ public int rollKernel()
+  /**
+   * サイコロを振る処理のうち、乱数の生成のみを計測します。.
+   *
+   * @return サイコロの出目
+   */
+  @Benchmark
+  public int rollKernel() {
+    return ThreadLocalRandom.current().nextInt(1, 7);
+  }
+  // }}}
+
+  // {{{ public String readFile()
+  /**
+   * loopメソッドで繰り返し実行される、クラスパス上のファイルの読み込みを計測します。.
+   *
+   * @return 読み込んだ先頭の1行
+   */
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public String readFile() {
+    return this.service.readFile(FILE_PATH_IN_LOOP);
+  }
+  // }}}
+
+  // {{{ private void silence(Class<?> clazz)
+  private void silence(final Class<?> clazz) {
+    final ch.qos.logback.classic.Logger logger =
+        (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(clazz);
+    final NOPAppender<ILoggingEvent> appender = new NOPAppender<>();
+    appender.setContext(logger.getLoggerContext());
+    appender.start();
+    logger.detachAndStopAllAppenders();
+    logger.addAppender(appender);
+    logger.setAdditive(false);
+    logger.setLevel(Level.toLevel(this.level));
+  }
+  // }}}
+
+}
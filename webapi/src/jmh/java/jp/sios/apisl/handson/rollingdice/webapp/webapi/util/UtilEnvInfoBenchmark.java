@@ -0,0 +1,115 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.helpers.NOPAppender;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link UtilEnvInfo#logStartClassMethod()}のオーバーヘッドを計測するベンチマークです。.
+ *
+ * <p>スタックトレース全体を2回生成していた従来の実装と、
+ * {@link StackWalker}で呼び出し元のフレームのみを参照する現在の実装を、
+ * ログレベルが有効な場合と無効な場合のそれぞれで比較します。
+ * ログの出力先は何もしないAppenderに差し替え、呼び出し元の特定とイベント生成のコストのみを計測します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@SuppressWarnings({"PMD.CommentSize", "PMD.DoNotUseThreads"})
+public class UtilEnvInfoBenchmark {
+
+  /**
+   * 従来の実装と同じLoggerインスタンスです。.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(UtilEnvInfo.class);
+
+  /**
+   * 計測時のログレベルです。.
+   */
+  @Param({"INFO", "OFF"})
+  public String level;
+
+  /**
+   * UtilEnvInfoBenchmarkのコンストラクタです。.
+   */
+  public UtilEnvInfoBenchmark() {
+    // Constructor for UtilEnvInfoBenchmark
+  }
+
+  // {{{ public void setUp()
+  /**
+   * ログレベルを設定し、ログの出力先を何もしないAppenderに差し替えます。.
+   */
+  @Setup
+  public void setUp() {
+    final ch.qos.logback.classic.Logger logger = (ch.qos.logback.classic.Logger) LOGGER;
+    final NOPAppender<ILoggingEvent> appender = new NOPAppender<>();
+    appender.setContext(logger.getLoggerContext());
+    appender.start();
+    logger.detachAndStopAllAppenders();
+    logger.addAppender(appender);
+    logger.setAdditive(false);
+    logger.setLevel(Level.toLevel(this.level));
+  }
+  // }}}
+
+  // {{{ public void legacyStackTrace()
+  /**
+   * スタックトレース全体を2回生成する従来の実装を計測します。.
+   */
+  @Benchmark
+  public void legacyStackTrace() {
+    legacyLogStartClassMethod();
+  }
+  // }}}
+
+  // {{{ public void stackWalker()
+  /**
+   * StackWalkerで呼び出し元のフレームのみを参照する現在の実装を計測します。.
+   */
+  @Benchmark
+  public void stackWalker() {
+    UtilEnvInfo.logStartClassMethod();
+  }
+  // }}}
+
+  // {{{ private static void legacyLogStartClassMethod()
+  private static void legacyLogStartClassMethod() {
+    final String className = legacyGetClassName();
+    final String methodName = legacyGetMethodName();
+    LOGGER.info(">>> calling: {}#{}()", className, methodName);
+  }
+  // }}}
+
+  // {{{ private static String legacyGetClassName()
+  private static String legacyGetClassName() {
+    return Thread.currentThread().getStackTrace()[3].getClassName();
+  }
+  // }}}
+
+  // {{{ private static String legacyGetMethodName()
+  private static String legacyGetMethodName() {
+    return Thread.currentThread().getStackTrace()[3].getMethodName();
+  }
+  // }}}
+
+}
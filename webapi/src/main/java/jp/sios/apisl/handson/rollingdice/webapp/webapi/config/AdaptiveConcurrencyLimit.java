@@ -0,0 +1,221 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 応答時間の変化に合わせて同時実行数の上限を増減させるクラスです。.
+ *
+ * <p>応答時間の長期の移動平均と直近の応答時間の比（勾配）から上限を決める、Gradient方式の制御を行います。</p>
+ * <ul>
+ *   <li>直近の応答時間が長期の平均より長くなると（データベースの遅延などで待ちが生じると）、上限を下げます。</li>
+ *   <li>応答時間が長期の平均と同程度であれば、上限の平方根の分だけ余裕を持たせて上限を上げます。</li>
+ *   <li>上限に達している場合は、待たせずにすぐ断ります（呼び出し元でHTTP 503を返却します）。</li>
+ *   <li>上限、処理中の件数、および断った件数をメトリクスとして記録します。</li>
+ * </ul>
+ *
+ * <p>長期の平均が遅い状態に慣れてしまわないよう、直近の応答時間が平均の半分を下回った場合は平均を速めに戻します。
+ * また、処理中の件数が上限の半分に満たない間は、上限を使い切っていないため上限を上げません。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+public class AdaptiveConcurrencyLimit {
+
+  /**
+   * 同時実行数の上限を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_LIMIT = "dice.concurrency.limit";
+
+  /**
+   * 処理中のリクエストの件数を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_IN_FLIGHT = "dice.concurrency.inflight";
+
+  /**
+   * 上限に達していたために断ったリクエストの件数を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_REJECTED = "dice.concurrency.rejected";
+
+  /**
+   * 長期の平均より応答時間がどの程度長くなるまで、上限を下げずに許容するかを表す倍率です。.
+   */
+  private static final double RTT_TOLERANCE = 1.5;
+
+  /**
+   * 新しく算出した上限を、現在の上限へ反映させる割合です。.
+   */
+  private static final double SMOOTHING = 0.2;
+
+  /**
+   * 応答時間の長期の移動平均を算出する標本数です。.
+   */
+  private static final int LONG_WINDOW = 600;
+
+  /**
+   * 1回の算出で上限を下げる最大の割合です（1回で半分までしか下げません）。.
+   */
+  private static final double MIN_GRADIENT = 0.5;
+
+  /**
+   * 処理中のリクエストの件数です。.
+   */
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  /**
+   * 断ったリクエストの件数です。.
+   */
+  private final Counter rejectedCounter;
+
+  /**
+   * 上限の下限値です。.
+   */
+  private final int minLimit;
+
+  /**
+   * 上限の上限値です。.
+   */
+  private final int maxLimit;
+
+  /**
+   * 現在の同時実行数の上限です（整数に丸める前の値）。.
+   */
+  private volatile double limit;
+
+  /**
+   * 応答時間（ナノ秒）の長期の移動平均です。標本がまだ無い場合は0です。.
+   */
+  private double longRttNanos;
+
+  /**
+   * 長期の移動平均に取り込んだ標本数です（{@link #LONG_WINDOW}まで）。.
+   */
+  private int samples;
+
+  // {{{ public AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, ...)
+  /**
+   * AdaptiveConcurrencyLimitのコンストラクタです。.
+   *
+   * @param name 上限の対象を表す名前（メトリクスのendpointタグの値）
+   * @param initialLimit 上限の初期値
+   * @param minLimit 上限の下限値
+   * @param maxLimit 上限の上限値
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   */
+  public AdaptiveConcurrencyLimit(
+      final String name,
+      final int initialLimit,
+      final int minLimit,
+      final int maxLimit,
+      final MeterRegistry meterRegistry) {
+    if (minLimit < 1 || minLimit > maxLimit) {
+      throw new IllegalArgumentException(
+          "The limits must satisfy 1 <= min <= max: min=" + minLimit + ", max=" + maxLimit);
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    Gauge.builder(METRIC_LIMIT, this, AdaptiveConcurrencyLimit::getLimit)
+        .description("The current concurrency limit of the requests")
+        .tag("endpoint", name)
+        .register(meterRegistry);
+    Gauge.builder(METRIC_IN_FLIGHT, this.inFlight, AtomicInteger::get)
+        .description("The number of requests in flight")
+        .tag("endpoint", name)
+        .register(meterRegistry);
+    this.rejectedCounter = Counter.builder(METRIC_REJECTED)
+        .description("The number of requests rejected over the concurrency limit")
+        .tag("endpoint", name)
+        .register(meterRegistry);
+  }
+  // }}}
+
+  // {{{ public boolean tryAcquire()
+  /**
+   * 上限に達していなければ、リクエストを処理中として数えます。.
+   *
+   * <p>{@code true}を返した場合、処理の終了後に必ず{@link #release(long, boolean)}を呼び出します。</p>
+   *
+   * @return 処理してよい場合はtrue、上限に達しているため断る場合はfalse
+   */
+  public boolean tryAcquire() {
+    final int current = this.getLimit();
+    while (true) {
+      final int count = this.inFlight.get();
+      if (count >= current) {
+        this.rejectedCounter.increment();
+        return false;
+      }
+      if (this.inFlight.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+  // }}}
+
+  // {{{ public void release(long rttNanos, boolean succeeded)
+  /**
+   * 処理の終了を記録し、応答時間から上限を算出し直します。.
+   *
+   * <p>失敗した処理の応答時間は、データベースの処理時間を表していないため上限の算出には使用しません。</p>
+   *
+   * @param rttNanos 処理にかかった時間（ナノ秒）
+   * @param succeeded 処理が成功した場合はtrue
+   */
+  public void release(final long rttNanos, final boolean succeeded) {
+    final int count = this.inFlight.getAndDecrement();
+    if (succeeded && rttNanos > 0) {
+      this.update(rttNanos, count);
+    }
+  }
+  // }}}
+
+  // {{{ public int getLimit()
+  /**
+   * 現在の同時実行数の上限を返します。.
+   *
+   * @return 同時実行数の上限
+   */
+  public int getLimit() {
+    return (int) this.limit;
+  }
+  // }}}
+
+  // {{{ public int getInFlight()
+  /**
+   * 処理中のリクエストの件数を返します。.
+   *
+   * @return 処理中のリクエストの件数
+   */
+  public int getInFlight() {
+    return this.inFlight.get();
+  }
+  // }}}
+
+  // {{{ private synchronized void update(long rttNanos, int inFlightCount)
+  private synchronized void update(final long rttNanos, final int inFlightCount) {
+    if (this.samples < LONG_WINDOW) {
+      this.samples++;
+    }
+    this.longRttNanos += (rttNanos - this.longRttNanos) / this.samples;
+    if (this.longRttNanos / rttNanos > 2.0) {
+      // Recover quickly after the latency went back to normal.
+      this.longRttNanos *= 0.95;
+    }
+
+    final double current = this.limit;
+    if (inFlightCount < current / 2) {
+      // The limit is not the bottleneck, so the sample says nothing about it.
+      return;
+    }
+    final double gradient = Math.clamp(
+        RTT_TOLERANCE * this.longRttNanos / rttNanos, MIN_GRADIENT, 1.0);
+    final double target = current * gradient + Math.sqrt(current);
+    this.limit = Math.clamp(
+        current * (1 - SMOOTHING) + target * SMOOTHING, this.minLimit, this.maxLimit);
+  }
+  // }}}
+
+}
@@ -0,0 +1,87 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 種類の異なるリクエストが互いの処理能力を奪わないよう、バルクヘッドを構成するクラスです。.
+ *
+ * <p>障害を注入するリクエストの遅延やエラーが、計測の基準となる通常のリクエストへ波及しないよう、
+ * 以下の3つのバルクヘッドに分けて同時実行数と待ち行列を制限します。</p>
+ * <ul>
+ *   <li>{@code fault}: sleep、loop、またはerrorを指定してサイコロを振るリクエスト。
+ *       専用のスレッドプールで実行します（{@code app.dice.bulkhead.fault.*}）。</li>
+ *   <li>{@code roll}: 障害を注入せずにサイコロを振るリクエスト。
+ *       リクエストのスレッドで実行します（{@code app.dice.bulkhead.roll.*}）。</li>
+ *   <li>{@code read}: 出目履歴を取得するリクエスト。
+ *       リクエストのスレッドで実行します（{@code app.dice.bulkhead.read.*}）。</li>
+ * </ul>
+ *
+ * @author Toshiharu Konuma
+ */
+@Configuration
+@SuppressWarnings({"PMD.AtLeastOneConstructor", "PMD.CommentSize"})
+public class BulkheadConfig {
+
+  // {{{ public ThreadPoolBulkhead faultBulkhead(int maxConcurrent, int maxQueue, ...)
+  /**
+   * 障害を注入するリクエストのバルクヘッドを返します。.
+   *
+   * @param maxConcurrent 同時実行数の上限（専用のスレッドの数）
+   * @param maxQueue スリープの経過、またはスレッドの空きを待つことができるリクエストの件数の上限
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   * @return 障害を注入するリクエストのThreadPoolBulkhead
+   */
+  @Bean
+  public ThreadPoolBulkhead faultBulkhead(
+      @Value("${app.dice.bulkhead.fault.max-concurrent:10}") final int maxConcurrent,
+      @Value("${app.dice.bulkhead.fault.max-queue:100}") final int maxQueue,
+      final MeterRegistry meterRegistry) {
+    return new ThreadPoolBulkhead("fault", maxConcurrent, maxQueue, meterRegistry);
+  }
+  // }}}
+
+  // {{{ public SemaphoreBulkhead rollBulkhead(int maxConcurrent, int maxQueue, ...)
+  /**
+   * 障害を注入せずにサイコロを振るリクエストのバルクヘッドを返します。.
+   *
+   * @param maxConcurrent 同時実行数の上限
+   * @param maxQueue 空きを待つことができるリクエストの件数の上限
+   * @param maxWait 空きを待つ時間の上限
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   * @return サイコロを振るリクエストのSemaphoreBulkhead
+   */
+  @Bean
+  public SemaphoreBulkhead rollBulkhead(
+      @Value("${app.dice.bulkhead.roll.max-concurrent:100}") final int maxConcurrent,
+      @Value("${app.dice.bulkhead.roll.max-queue:100}") final int maxQueue,
+      @Value("${app.dice.bulkhead.roll.max-wait:500ms}") final Duration maxWait,
+      final MeterRegistry meterRegistry) {
+    return new SemaphoreBulkhead("roll", maxConcurrent, maxQueue, maxWait, meterRegistry);
+  }
+  // }}}
+
+  // {{{ public SemaphoreBulkhead readBulkhead(int maxConcurrent, int maxQueue, ...)
+  /**
+   * 出目履歴を取得するリクエストのバルクヘッドを返します。.
+   *
+   * @param maxConcurrent 同時実行数の上限
+   * @param maxQueue 空きを待つことができるリクエストの件数の上限
+   * @param maxWait 空きを待つ時間の上限
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   * @return 出目履歴を取得するリクエストのSemaphoreBulkhead
+   */
+  @Bean
+  public SemaphoreBulkhead readBulkhead(
+      @Value("${app.dice.bulkhead.read.max-concurrent:50}") final int maxConcurrent,
+      @Value("${app.dice.bulkhead.read.max-queue:100}") final int maxQueue,
+      @Value("${app.dice.bulkhead.read.max-wait:500ms}") final Duration maxWait,
+      final MeterRegistry meterRegistry) {
+    return new SemaphoreBulkhead("read", maxConcurrent, maxQueue, maxWait, meterRegistry);
+  }
+  // }}}
+
+}
@@ -0,0 +1,95 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Arrays;
+
+/**
+ * 仮想スレッドを実行するキャリアスレッドの使用状況をメトリクスとして登録するクラスです。.
+ *
+ * <p>JDK 21では仮想スレッドのスケジューラーを参照する公開APIが無いため、
+ * メトリクスの取得時にプラットフォームスレッドを列挙し、キャリアスレッドの状態を標本として集計します。</p>
+ * <ul>
+ *   <li>{@code jvm.threads.virtual.carrier.parallelism}: キャリアスレッドの最大並列数</li>
+ *   <li>{@code jvm.threads.virtual.carrier.count}: 生存しているキャリアスレッドの数</li>
+ *   <li>{@code jvm.threads.virtual.carrier.busy}: 仮想スレッドを実行中のキャリアスレッドの数</li>
+ *   <li>{@code jvm.threads.virtual.carrier.utilization}: 最大並列数に対する実行中の割合</li>
+ * </ul>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings({"PMD.CommentSize", "PMD.DoNotUseThreads"})
+public class CarrierThreadMetrics implements MeterBinder {
+
+  /**
+   * キャリアスレッドのクラス名です。.
+   */
+  private static final String CARRIER_THREAD_CLASS = "jdk.internal.misc.CarrierThread";
+
+  /**
+   * キャリアスレッドの最大並列数を指定するシステムプロパティ名です。.
+   */
+  private static final String PARALLELISM_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+
+  /**
+   * キャリアスレッドの最大並列数です。.
+   */
+  private final int parallelism;
+
+  // {{{ public CarrierThreadMetrics()
+  /**
+   * CarrierThreadMetricsのコンストラクタです。.
+   *
+   * <p>キャリアスレッドの最大並列数は、システムプロパティが未指定の場合はCPUのコア数となります。</p>
+   */
+  public CarrierThreadMetrics() {
+    this.parallelism = Integer.getInteger(
+        PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
+  }
+  // }}}
+
+  // {{{ public void bindTo(MeterRegistry registry)
+  /**
+   * キャリアスレッドの使用状況を表すゲージを登録します。.
+   *
+   * @param registry メトリクスの登録先となるMeterRegistry
+   */
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    Gauge.builder("jvm.threads.virtual.carrier.parallelism", () -> this.parallelism)
+        .description("The maximum number of carrier threads of the virtual thread scheduler")
+        .register(registry);
+    Gauge.builder("jvm.threads.virtual.carrier.count", () -> countCarriers(false))
+        .description("The number of live carrier threads")
+        .register(registry);
+    Gauge.builder("jvm.threads.virtual.carrier.busy", () -> countCarriers(true))
+        .description("The number of carrier threads running a virtual thread")
+        .register(registry);
+    Gauge.builder("jvm.threads.virtual.carrier.utilization",
+            () -> (double) countCarriers(true) / this.parallelism)
+        .description("The ratio of busy carrier threads to the parallelism")
+        .register(registry);
+  }
+  // }}}
+
+  // {{{ private static long countCarriers(boolean busyOnly)
+  private static long countCarriers(final boolean busyOnly) {
+    ThreadGroup root = Thread.currentThread().getThreadGroup();
+    while (root.getParent() != null) {
+      root = root.getParent();
+    }
+    Thread[] threads = new Thread[root.activeCount() + 16];
+    int size = root.enumerate(threads, true);
+    while (size == threads.length) {
+      threads = new Thread[threads.length * 2];
+      size = root.enumerate(threads, true);
+    }
+    return Arrays.stream(threads, 0, size)
+        .filter(thread -> CARRIER_THREAD_CLASS.equals(thread.getClass().getName()))
+        .filter(thread -> !busyOnly || thread.getState() == Thread.State.RUNNABLE)
+        .count();
+  }
+  // }}}
+
+}
@@ -0,0 +1,37 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * レスポンスをCBOR（application/cbor）で返却するための構成クラスです。.
+ *
+ * <p>Acceptヘッダーにapplication/cborを指定したクライアントには、同じ内容をJSONより小さいバイナリー形式で返却し、
+ * 解析の負荷を減らします。Acceptヘッダーを指定しないブラウザやFaroからの呼び出しには、従来どおりJSONを返却します。
+ * 日時などの書式はJSONと同じ設定を使用するため、どちらの形式でも同じ値を受け取れます。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@Configuration
+@SuppressWarnings({"PMD.AtLeastOneConstructor", "PMD.CommentSize"})
+public class CborConfig {
+
+  // {{{ public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(...)
+  /**
+   * Spring Bootの設定を反映したObjectMapperで、CBORを読み書きするメッセージコンバーターを返します。.
+   *
+   * @param builder Spring Bootの設定を反映したObjectMapperのビルダー
+   * @return CBORを読み書きする{@link MappingJackson2CborHttpMessageConverter}インスタンス
+   */
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+      final Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(
+        builder.factory(new CBORFactory()).build());
+  }
+  // }}}
+
+}
@@ -0,0 +1,97 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * サイコロWeb APIの同時実行数を、応答時間に合わせて制限する構成クラスです。.
+ *
+ * <p>データベースが遅くなった際に、リクエストがTomcatの待ち行列に溜まって全ての応答が一様に遅くなる前に、
+ * 上限を超えたリクエストをHTTP 503で断ります。{@code app.concurrency-limit.enabled=false}を指定すると無効になります。</p>
+ * <ul>
+ *   <li>サイコロを振るリクエストと履歴を取得するリクエストに、それぞれ独立した上限を設けます。</li>
+ *   <li>上限の初期値、下限値、および上限値は{@code app.concurrency-limit.roll.*}と
+ *       {@code app.concurrency-limit.list.*}で指定します。</li>
+ * </ul>
+ *
+ * @author Toshiharu Konuma
+ */
+@Configuration
+@ConditionalOnProperty(
+    prefix = "app.concurrency-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+@SuppressWarnings({"PMD.AtLeastOneConstructor", "PMD.CommentSize"})
+public class ConcurrencyLimitConfig {
+
+  // {{{ public AdaptiveConcurrencyLimit rollConcurrencyLimit(int initialLimit, ...)
+  /**
+   * サイコロを振るリクエストの同時実行数の上限を返します。.
+   *
+   * @param initialLimit 上限の初期値
+   * @param minLimit 上限の下限値
+   * @param maxLimit 上限の上限値
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   * @return サイコロを振るリクエストのAdaptiveConcurrencyLimit
+   */
+  @Bean
+  public AdaptiveConcurrencyLimit rollConcurrencyLimit(
+      @Value("${app.concurrency-limit.roll.initial-limit:20}") final int initialLimit,
+      @Value("${app.concurrency-limit.roll.min-limit:4}") final int minLimit,
+      @Value("${app.concurrency-limit.roll.max-limit:200}") final int maxLimit,
+      final MeterRegistry meterRegistry) {
+    return new AdaptiveConcurrencyLimit("roll", initialLimit, minLimit, maxLimit, meterRegistry);
+  }
+  // }}}
+
+  // {{{ public AdaptiveConcurrencyLimit listConcurrencyLimit(int initialLimit, ...)
+  /**
+   * 履歴を取得するリクエストの同時実行数の上限を返します。.
+   *
+   * @param initialLimit 上限の初期値
+   * @param minLimit 上限の下限値
+   * @param maxLimit 上限の上限値
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   * @return 履歴を取得するリクエストのAdaptiveConcurrencyLimit
+   */
+  @Bean
+  public AdaptiveConcurrencyLimit listConcurrencyLimit(
+      @Value("${app.concurrency-limit.list.initial-limit:20}") final int initialLimit,
+      @Value("${app.concurrency-limit.list.min-limit:4}") final int minLimit,
+      @Value("${app.concurrency-limit.list.max-limit:200}") final int maxLimit,
+      final MeterRegistry meterRegistry) {
+    return new AdaptiveConcurrencyLimit("list", initialLimit, minLimit, maxLimit, meterRegistry);
+  }
+  // }}}
+
+  // {{{ public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(...)
+  /**
+   * 同時実行数を制限するフィルターを、他のフィルターより先に実行されるよう登録します。.
+   *
+   * <p>断るリクエストには、トレースやリクエストのログなどの処理を行わずにすぐ応答します。</p>
+   *
+   * @param rollConcurrencyLimit サイコロを振るリクエストの同時実行数の上限
+   * @param listConcurrencyLimit 履歴を取得するリクエストの同時実行数の上限
+   * @param retryAfter 断ったリクエストに返却する、再送までの待ち時間
+   * @return ConcurrencyLimitFilterの登録情報
+   */
+  @Bean
+  public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+      @Qualifier("rollConcurrencyLimit") final AdaptiveConcurrencyLimit rollConcurrencyLimit,
+      @Qualifier("listConcurrencyLimit") final AdaptiveConcurrencyLimit listConcurrencyLimit,
+      @Value("${app.concurrency-limit.retry-after:1s}") final Duration retryAfter) {
+    final FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+        new FilterRegistrationBean<>(new ConcurrencyLimitFilter(
+            rollConcurrencyLimit, listConcurrencyLimit, Math.max(1L, retryAfter.toSeconds())));
+    registration.addUrlPatterns("/api/v1/dices", "/api/v1/dices/*");
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+  // }}}
+
+}
@@ -0,0 +1,230 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * サイコロを振るリクエストと履歴を取得するリクエストの同時実行数を、それぞれの上限で制限するフィルタークラスです。.
+ *
+ * <p>上限はそれぞれの{@link AdaptiveConcurrencyLimit}が応答時間に合わせて増減させます。
+ * 上限に達している場合は、Tomcatの待ち行列に溜めずにHTTP 503とRetry-Afterヘッダーをすぐに返却します。</p>
+ * <ul>
+ *   <li>サイコロを振るリクエスト: {@code POST /api/v1/dices}、{@code POST /api/v1/dices/bulk}</li>
+ *   <li>履歴を取得するリクエスト: {@code GET /api/v1/dices}、{@code GET /api/v1/dices/changes}</li>
+ * </ul>
+ *
+ * <p>非同期に応答するリクエストは、応答が完了した時点で処理の終了として数えます。
+ * それ以外のリクエスト（配信、エクスポート、統計情報など）は制限しません。
+ * 障害を注入するリクエスト（sleep, loop, errorのいずれかを指定）も、意図的な遅延やエラーで
+ * 通常のリクエストの上限を下げないよう、この上限ではなく専用のバルクヘッド（{@link BulkheadConfig}）で制限します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  /**
+   * 制限の対象とするAPIのパスです。.
+   */
+  private static final String DICES_PATH = "/api/v1/dices";
+
+  /**
+   * 障害を注入するリクエストパラメータの名前です。.
+   */
+  private static final List<String> FAULT_PARAMETERS = List.of("sleep", "loop", "error");
+
+  /**
+   * ログ出力を行うためのロガーインスタンスです。.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+  /**
+   * サイコロを振るリクエストの同時実行数の上限です。.
+   */
+  private final AdaptiveConcurrencyLimit rollLimit;
+
+  /**
+   * 履歴を取得するリクエストの同時実行数の上限です。.
+   */
+  private final AdaptiveConcurrencyLimit listLimit;
+
+  /**
+   * 断ったリクエストに返却する、再送までの待ち時間（秒）です。.
+   */
+  private final long retryAfterSeconds;
+
+  // {{{ public ConcurrencyLimitFilter(AdaptiveConcurrencyLimit rollLimit, ...)
+  /**
+   * ConcurrencyLimitFilterのコンストラクタです。.
+   *
+   * @param rollLimit サイコロを振るリクエストの同時実行数の上限
+   * @param listLimit 履歴を取得するリクエストの同時実行数の上限
+   * @param retryAfterSeconds 断ったリクエストに返却する、再送までの待ち時間（秒）
+   */
+  public ConcurrencyLimitFilter(
+      final AdaptiveConcurrencyLimit rollLimit,
+      final AdaptiveConcurrencyLimit listLimit,
+      final long retryAfterSeconds) {
+    super();
+    this.rollLimit = rollLimit;
+    this.listLimit = listLimit;
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+  // }}}
+
+  // {{{ protected void doFilterInternal(HttpServletRequest request, ...)
+  /**
+   * 対象のリクエストであれば同時実行数の上限を確認し、上限に達している場合はHTTP 503を返却します。.
+   *
+   * @param request HTTPリクエスト情報
+   * @param response HTTPレスポンス情報
+   * @param filterChain 後続のフィルターチェーン
+   * @throws ServletException 後続の処理でサーブレットの例外が発生した場合
+   * @throws IOException 後続の処理で入出力の例外が発生した場合
+   */
+  @Override
+  protected void doFilterInternal(
+      final HttpServletRequest request,
+      final HttpServletResponse response,
+      final FilterChain filterChain) throws ServletException, IOException {
+    final AdaptiveConcurrencyLimit limit = this.resolve(request);
+    if (limit == null) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    if (!limit.tryAcquire()) {
+      LOGGER.warn("The request was rejected over the concurrency limit: {} {} (limit={})",
+          request.getMethod(), request.getRequestURI(), limit.getLimit());
+      response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(this.retryAfterSeconds));
+      return;
+    }
+
+    final Release release = new Release(limit, response, System.nanoTime());
+    boolean succeeded = false;
+    boolean async = false;
+    try {
+      filterChain.doFilter(request, response);
+      succeeded = response.getStatus() < HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+      if (request.isAsyncStarted()) {
+        // The container completes the asynchronous request only after this dispatch returns.
+        request.getAsyncContext().addListener(release);
+        async = true;
+      }
+    } finally {
+      if (!async) {
+        release.run(succeeded);
+      }
+    }
+  }
+  // }}}
+
+  // {{{ private AdaptiveConcurrencyLimit resolve(HttpServletRequest request)
+  private AdaptiveConcurrencyLimit resolve(final HttpServletRequest request) {
+    final String path = request.getRequestURI().substring(request.getContextPath().length());
+    final String method = request.getMethod();
+    if (HttpMethod.POST.matches(method) && (DICES_PATH + "/bulk").equals(path)) {
+      return this.rollLimit;
+    }
+    if (HttpMethod.POST.matches(method) && DICES_PATH.equals(path)) {
+      final boolean faultInjected =
+          FAULT_PARAMETERS.stream().anyMatch(name -> request.getParameter(name) != null);
+      return faultInjected ? null : this.rollLimit;
+    }
+    if (HttpMethod.GET.matches(method)
+        && (DICES_PATH.equals(path) || (DICES_PATH + "/changes").equals(path))) {
+      return this.listLimit;
+    }
+    return null;
+  }
+  // }}}
+
+  /**
+   * 処理の終了を1回だけ上限へ通知するクラスです。.
+   *
+   * <p>非同期に応答するリクエストでは、応答の完了、エラー、またはタイムアウトの時点で通知します。</p>
+   */
+  private static final class Release implements AsyncListener {
+
+    /**
+     * 処理の終了を通知する上限です。.
+     */
+    private final AdaptiveConcurrencyLimit limit;
+
+    /**
+     * 応答のステータスコードを参照するHTTPレスポンスです。.
+     */
+    private final HttpServletResponse response;
+
+    /**
+     * 処理を開始した時刻（{@link System#nanoTime()}）です。.
+     */
+    private final long startNanos;
+
+    /**
+     * 通知を済ませたかどうかを表すフラグです。.
+     */
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    // {{{ Release(AdaptiveConcurrencyLimit limit, HttpServletResponse response, long startNanos)
+    private Release(
+        final AdaptiveConcurrencyLimit limit,
+        final HttpServletResponse response,
+        final long startNanos) {
+      this.limit = limit;
+      this.response = response;
+      this.startNanos = startNanos;
+    }
+    // }}}
+
+    // {{{ void run(boolean succeeded)
+    private void run(final boolean succeeded) {
+      if (this.released.compareAndSet(false, true)) {
+        this.limit.release(System.nanoTime() - this.startNanos, succeeded);
+      }
+    }
+    // }}}
+
+    // {{{ public void onComplete(AsyncEvent event)
+    @Override
+    public void onComplete(final AsyncEvent event) {
+      this.run(this.response.getStatus() < HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+    // }}}
+
+    // {{{ public void onTimeout(AsyncEvent event)
+    @Override
+    public void onTimeout(final AsyncEvent event) {
+      this.run(false);
+    }
+    // }}}
+
+    // {{{ public void onError(AsyncEvent event)
+    @Override
+    public void onError(final AsyncEvent event) {
+      this.run(false);
+    }
+    // }}}
+
+    // {{{ public void onStartAsync(AsyncEvent event)
+    @Override
+    public void onStartAsync(final AsyncEvent event) {
+      // The listener is registered after the asynchronous processing started.
+    }
+    // }}}
+
+  }
+
+}
@@ -0,0 +1,121 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * 読み取り専用の処理をレプリカへ振り分けるDataSourceの構成クラスです。.
+ *
+ * <p>{@code app.datasource.replica.enabled=true}を指定した場合にのみ有効になり、
+ * 自動構成のDataSourceの代わりに以下のDataSourceを登録します。</p>
+ * <ul>
+ *   <li>プライマリー: {@code spring.datasource.*}の設定で接続します。</li>
+ *   <li>レプリカ: {@code app.datasource.replica.*}の設定で接続します。
+ *       ユーザー名とパスワードは省略時にプライマリーと同じ値を使用します。</li>
+ *   <li>アプリケーションが使用するDataSource: 上記の2つを{@link ReplicaRoutingDataSource}で振り分けます。</li>
+ * </ul>
+ *
+ * <p>JdbcTemplateとトランザクションマネージャーは振り分け用のDataSourceを使用するため、
+ * {@code @Transactional(readOnly = true)}を付けた処理の問い合わせだけがレプリカで実行されます。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+@SuppressWarnings({"PMD.AtLeastOneConstructor", "PMD.CommentSize"})
+public class ReadReplicaConfig {
+
+  // {{{ public HikariDataSource primaryDataSource(DataSourceProperties properties)
+  /**
+   * 書き込みと読み取りに使用するプライマリーのDataSourceを返します。.
+   *
+   * @param properties {@code spring.datasource.*}の設定
+   * @return プライマリーに接続するDataSource
+   */
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(final DataSourceProperties properties) {
+    return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+  // }}}
+
+  // {{{ public HikariDataSource replicaDataSource(String url, String username, String password)
+  /**
+   * 読み取り専用の処理に使用するレプリカのDataSourceを返します。.
+   *
+   * @param url レプリカのJDBC URL
+   * @param username レプリカに接続するユーザー名
+   * @param password レプリカに接続するパスワード
+   * @return レプリカに接続するDataSource
+   */
+  @Bean
+  @ConfigurationProperties("app.datasource.replica.hikari")
+  public HikariDataSource replicaDataSource(
+      @Value("${app.datasource.replica.url}") final String url,
+      @Value("${app.datasource.replica.username:${spring.datasource.username:}}")
+      final String username,
+      @Value("${app.datasource.replica.password:${spring.datasource.password:}}")
+      final String password) {
+    return DataSourceBuilder.create()
+        .type(HikariDataSource.class)
+        .url(url)
+        .username(username)
+        .password(password)
+        .build();
+  }
+  // }}}
+
+  // {{{ public ReplicaLagMonitor replicaLagMonitor(DataSource replica, MeterRegistry ...)
+  /**
+   * レプリカの遅延を定期的に確認するReplicaLagMonitorを返します。.
+   *
+   * @param replica レプリカに接続するDataSource
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   * @return レプリカの使用可否を判定するReplicaLagMonitor
+   */
+  @Bean
+  public ReplicaLagMonitor replicaLagMonitor(
+      @Qualifier("replicaDataSource") final DataSource replica,
+      final MeterRegistry meterRegistry) {
+    return new ReplicaLagMonitor(new JdbcTemplate(replica), meterRegistry);
+  }
+  // }}}
+
+  // {{{ public DataSource dataSource(DataSource primary, DataSource replica, ...)
+  /**
+   * アプリケーションが使用する、接続をプライマリーとレプリカに振り分けるDataSourceを返します。.
+   *
+   * <p>トランザクションの開始時には接続を取得せず、最初の問い合わせの時点で
+   * 読み取り専用かどうかを判定して振り分け先を決めます。</p>
+   *
+   * @param primary プライマリーに接続するDataSource
+   * @param replica レプリカに接続するDataSource
+   * @param lagMonitor レプリカの使用可否を判定するReplicaLagMonitor
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   * @return 接続をプライマリーとレプリカに振り分けるDataSource
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      @Qualifier("primaryDataSource") final DataSource primary,
+      @Qualifier("replicaDataSource") final DataSource replica,
+      final ReplicaLagMonitor lagMonitor,
+      final MeterRegistry meterRegistry) {
+    return new LazyConnectionDataSourceProxy(
+        new ReplicaRoutingDataSource(primary, replica, lagMonitor, meterRegistry));
+  }
+  // }}}
+
+}
@@ -0,0 +1,180 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 読み取り専用レプリカの遅延を定期的に確認し、参照に使用できるかどうかを判定するクラスです。.
+ *
+ * <p>レプリカで{@code SHOW REPLICA STATUS}を実行し、{@code Seconds_Behind_Source}が
+ * 閾値以下の場合にのみレプリカを使用可能と判定します。</p>
+ * <ul>
+ *   <li>遅延が不明な場合（レプリケーションの停止中や確認の失敗時）は使用不可と判定します。</li>
+ *   <li>レプリケーションの状態が返らないサーバー（レプリカではないサーバー）は遅延なしと判定します。</li>
+ *   <li>直近の遅延（秒）をメトリクスとして記録します。遅延が不明な場合はNaNです。</li>
+ * </ul>
+ *
+ * <p>レプリカの接続ユーザーには{@code REPLICATION CLIENT}権限が必要です。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings({"PMD.CommentSize", "PMD.DoNotUseThreads"})
+public class ReplicaLagMonitor {
+
+  /**
+   * レプリカの遅延を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_LAG = "dice.datasource.replica.lag";
+
+  /**
+   * レプリケーションの状態を取得するSQLです。.
+   */
+  private static final String LAG_SQL = "SHOW REPLICA STATUS";
+
+  /**
+   * レプリケーションの遅延（秒）を表す列の名前です。.
+   */
+  private static final String LAG_COLUMN = "Seconds_Behind_Source";
+
+  /**
+   * ログ出力を行うためのロガーインスタンスです。.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+  /**
+   * レプリカに接続するJdbcTemplateインスタンスです。.
+   */
+  private final JdbcTemplate replicaJdbcTemplate;
+
+  /**
+   * レプリカを使用可能と判定する遅延の上限（秒）です。.
+   *
+   * <p>設定キー: {@code app.datasource.replica.max-lag-seconds}</p>
+   */
+  @Value("${app.datasource.replica.max-lag-seconds:5}")
+  private long maxLagSeconds = 5L;
+
+  /**
+   * 遅延を確認する間隔（ミリ秒）です。.
+   *
+   * <p>設定キー: {@code app.datasource.replica.lag-check-interval-millis}</p>
+   */
+  @Value("${app.datasource.replica.lag-check-interval-millis:1000}")
+  private long checkIntervalMillis = 1000L;
+
+  /**
+   * 直近に確認した遅延（秒）です。不明な場合はNaNです。.
+   */
+  private volatile double lagSeconds = Double.NaN;
+
+  /**
+   * レプリカを参照に使用できるかどうかのフラグです。最初の確認が終わるまでは使用不可です。.
+   */
+  private volatile boolean available;
+
+  /**
+   * 遅延を定期的に確認するスケジューラーです。.
+   */
+  private ScheduledExecutorService scheduler;
+
+  // {{{ public ReplicaLagMonitor(JdbcTemplate replicaJdbcTemplate, MeterRegistry meterRegistry)
+  /**
+   * ReplicaLagMonitorのコンストラクタです。.
+   *
+   * @param replicaJdbcTemplate レプリカに接続するJdbcTemplate
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   */
+  public ReplicaLagMonitor(
+      final JdbcTemplate replicaJdbcTemplate, final MeterRegistry meterRegistry) {
+    this.replicaJdbcTemplate = replicaJdbcTemplate;
+    Gauge.builder(METRIC_LAG, this, monitor -> monitor.lagSeconds)
+        .description("The replication lag of the read-only replica")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+  }
+  // }}}
+
+  // {{{ public void start()
+  /**
+   * 遅延の定期的な確認を開始します。.
+   */
+  @PostConstruct
+  public void start() {
+    UtilEnvInfo.logStartClassMethod();
+
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("replica-lag-monitor").daemon().factory());
+    this.scheduler.scheduleWithFixedDelay(
+        this::check, 0L, this.checkIntervalMillis, TimeUnit.MILLISECONDS);
+    LOGGER.info("The replica lag monitor was started: maxLagSeconds='{}', interval='{}'ms",
+        this.maxLagSeconds, this.checkIntervalMillis);
+  }
+  // }}}
+
+  // {{{ public void stop()
+  /**
+   * 遅延の定期的な確認を停止します。.
+   */
+  @PreDestroy
+  public void stop() {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (this.scheduler != null) {
+      this.scheduler.shutdownNow();
+    }
+  }
+  // }}}
+
+  // {{{ public boolean isAvailable()
+  /**
+   * レプリカを参照に使用できるかどうかを返します。.
+   *
+   * @return 直近に確認した遅延が上限以下の場合は{@code true}
+   */
+  public boolean isAvailable() {
+    return this.available;
+  }
+  // }}}
+
+  // {{{ /* default */ void check()
+  /**
+   * レプリカの遅延を確認し、使用可否の判定を更新します。.
+   */
+  /* default */ void check() {
+    Optional<Long> lag;
+    try {
+      lag = this.replicaJdbcTemplate.query(LAG_SQL, rs -> {
+        if (!rs.next()) {
+          // Not a replica of the binary log replication, so there is nothing to wait for
+          return Optional.of(0L);
+        }
+        return Optional.ofNullable(rs.getObject(LAG_COLUMN, Long.class));
+      });
+    } catch (DataAccessException ex) {
+      LOGGER.warn("Failed to check the replica lag: '{}'", ex.getMessage());
+      lag = Optional.empty();
+    }
+
+    final boolean wasAvailable = this.available;
+    this.lagSeconds = lag.map(Long::doubleValue).orElse(Double.NaN);
+    this.available = lag.filter(seconds -> seconds <= this.maxLagSeconds).isPresent();
+    if (wasAvailable != this.available) {
+      LOGGER.info("The replica is {} for reads: lag='{}'s, maxLagSeconds='{}'",
+          this.available ? "used" : "not used", lag.orElse(null), this.maxLagSeconds);
+    }
+  }
+  // }}}
+
+}
@@ -0,0 +1,106 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 読み取り専用の処理をレプリカへ、それ以外の処理をプライマリーへ振り分けるDataSourceです。.
+ *
+ * <p>{@code @Transactional(readOnly = true)}の範囲内で取得された接続のみをレプリカに振り分けます。
+ * ただし、{@link ReplicaLagMonitor}がレプリカの遅延を上限超過、または不明と判定している間は、
+ * 読み取り専用の処理もプライマリーで実行します。</p>
+ *
+ * <p>振り分けはトランザクションの開始時ではなく接続の取得時に行われるため、
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}で包んで使用します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  /**
+   * 接続の振り分け先を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_ROUTE = "dice.datasource.route";
+
+  /**
+   * プライマリーを表す振り分けのキーです。.
+   */
+  /* default */ static final String PRIMARY = "primary";
+
+  /**
+   * レプリカを表す振り分けのキーです。.
+   */
+  /* default */ static final String REPLICA = "replica";
+
+  /**
+   * レプリカの使用可否を判定するReplicaLagMonitorインスタンスです。.
+   */
+  private final ReplicaLagMonitor lagMonitor;
+
+  /**
+   * プライマリーに振り分けた接続の数です。.
+   */
+  private final Counter primaryCounter;
+
+  /**
+   * レプリカに振り分けた接続の数です。.
+   */
+  private final Counter replicaCounter;
+
+  // {{{ public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ...)
+  /**
+   * ReplicaRoutingDataSourceのコンストラクタです。.
+   *
+   * @param primary 書き込みと読み取りに使用するプライマリーのDataSource
+   * @param replica 読み取り専用の処理に使用するレプリカのDataSource
+   * @param lagMonitor レプリカの使用可否を判定するReplicaLagMonitor
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   */
+  public ReplicaRoutingDataSource(
+      final DataSource primary,
+      final DataSource replica,
+      final ReplicaLagMonitor lagMonitor,
+      final MeterRegistry meterRegistry) {
+    super();
+    this.lagMonitor = lagMonitor;
+    this.primaryCounter = routeCounter(meterRegistry, PRIMARY);
+    this.replicaCounter = routeCounter(meterRegistry, REPLICA);
+    this.setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+    this.setDefaultTargetDataSource(primary);
+    this.afterPropertiesSet();
+  }
+  // }}}
+
+  // {{{ protected Object determineCurrentLookupKey()
+  /**
+   * 現在のスレッドで取得する接続の振り分け先を返します。.
+   *
+   * @return 読み取り専用でレプリカが使用可能な場合は{@code replica}、それ以外は{@code primary}
+   */
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+        && this.lagMonitor.isAvailable()) {
+      this.replicaCounter.increment();
+      return REPLICA;
+    }
+    this.primaryCounter.increment();
+    return PRIMARY;
+  }
+  // }}}
+
+  // {{{ private static Counter routeCounter(MeterRegistry meterRegistry, String target)
+  private static Counter routeCounter(final MeterRegistry meterRegistry, final String target) {
+    return Counter.builder(METRIC_ROUTE)
+        .description("The number of connections routed to the primary or the replica")
+        .tag("target", target)
+        .register(meterRegistry);
+  }
+  // }}}
+
+}
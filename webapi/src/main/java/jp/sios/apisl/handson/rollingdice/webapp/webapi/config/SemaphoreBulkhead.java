@@ -0,0 +1,190 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.BulkheadFullException;
+
+/**
+ * 呼び出し元のスレッドで実行する処理の同時実行数を、セマフォで制限するバルクヘッドのクラスです。.
+ *
+ * <p>同時実行数が上限に達している場合、待ち行列の上限までは空きを待ち、それを超える場合は待たずに断ります。
+ * 待ち時間の上限を過ぎても空かない場合も断ります。断った処理は{@link BulkheadFullException}をスローします。</p>
+ * <ul>
+ *   <li>{@code dice.bulkhead.active}: 実行中の処理の件数</li>
+ *   <li>{@code dice.bulkhead.queued}: 空きを待っている処理の件数</li>
+ *   <li>{@code dice.bulkhead.saturation}: 同時実行数と待ち行列の上限に対する、実行中と待機中の件数の割合</li>
+ *   <li>{@code dice.bulkhead.rejected}: 断った処理の件数</li>
+ * </ul>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+public class SemaphoreBulkhead {
+
+  /**
+   * 実行中の処理の件数を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_ACTIVE = "dice.bulkhead.active";
+
+  /**
+   * 空きを待っている処理の件数を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_QUEUED = "dice.bulkhead.queued";
+
+  /**
+   * 上限に対する実行中と待機中の件数の割合を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_SATURATION = "dice.bulkhead.saturation";
+
+  /**
+   * 断った処理の件数を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_REJECTED = "dice.bulkhead.rejected";
+
+  /**
+   * バルクヘッドの名前です。.
+   */
+  private final String name;
+
+  /**
+   * 同時実行数の上限です。.
+   */
+  private final int maxConcurrent;
+
+  /**
+   * 空きを待つことができる処理の件数の上限です。.
+   */
+  private final int maxQueue;
+
+  /**
+   * 空きを待つ時間の上限（ナノ秒）です。.
+   */
+  private final long maxWaitNanos;
+
+  /**
+   * 実行中の処理に割り当てる許可です。.
+   */
+  private final Semaphore permits;
+
+  /**
+   * 空きを待っている処理の件数です。.
+   */
+  private final AtomicInteger waiting = new AtomicInteger();
+
+  /**
+   * 断った処理の件数です。.
+   */
+  private final Counter rejectedCounter;
+
+  // {{{ public SemaphoreBulkhead(String name, int maxConcurrent, int maxQueue, ...)
+  /**
+   * SemaphoreBulkheadのコンストラクタです。.
+   *
+   * @param name バルクヘッドの名前（メトリクスのbulkheadタグの値）
+   * @param maxConcurrent 同時実行数の上限
+   * @param maxQueue 空きを待つことができる処理の件数の上限
+   * @param maxWait 空きを待つ時間の上限
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   */
+  public SemaphoreBulkhead(
+      final String name,
+      final int maxConcurrent,
+      final int maxQueue,
+      final Duration maxWait,
+      final MeterRegistry meterRegistry) {
+    if (maxConcurrent < 1 || maxQueue < 0) {
+      throw new IllegalArgumentException("The bulkhead needs 1 or more calls and 0 or more queue: "
+          + name + " (max-concurrent=" + maxConcurrent + ", max-queue=" + maxQueue + ")");
+    }
+    this.name = name;
+    this.maxConcurrent = maxConcurrent;
+    this.maxQueue = maxQueue;
+    this.maxWaitNanos = maxWait.toNanos();
+    this.permits = new Semaphore(maxConcurrent);
+    Gauge.builder(METRIC_ACTIVE, this, SemaphoreBulkhead::getActive)
+        .description("The number of calls running in the bulkhead")
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+    Gauge.builder(METRIC_QUEUED, this.waiting, AtomicInteger::get)
+        .description("The number of calls waiting for the bulkhead")
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+    Gauge.builder(METRIC_SATURATION, this,
+            bulkhead -> (double) (bulkhead.getActive() + bulkhead.waiting.get())
+                / (bulkhead.maxConcurrent + bulkhead.maxQueue))
+        .description("The ratio of the running and waiting calls to the capacity of the bulkhead")
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+    this.rejectedCounter = Counter.builder(METRIC_REJECTED)
+        .description("The number of calls rejected by the full bulkhead")
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+  }
+  // }}}
+
+  // {{{ public <T> T execute(Supplier<T> task)
+  /**
+   * 同時実行数の空きを得てから、呼び出し元のスレッドで処理を実行します。.
+   *
+   * @param <T> 処理の結果の型
+   * @param task 実行する処理
+   * @return 処理の結果
+   * @throws BulkheadFullException 同時実行数と待ち行列が埋まっている、または待ち時間の上限を過ぎた場合
+   */
+  public <T> T execute(final Supplier<T> task) {
+    this.acquire();
+    try {
+      return task.get();
+    } finally {
+      this.permits.release();
+    }
+  }
+  // }}}
+
+  // {{{ public int getActive()
+  /**
+   * 実行中の処理の件数を返します。.
+   *
+   * @return 実行中の処理の件数
+   */
+  public int getActive() {
+    return this.maxConcurrent - this.permits.availablePermits();
+  }
+  // }}}
+
+  // {{{ private void acquire()
+  private void acquire() {
+    if (this.permits.tryAcquire()) {
+      return;
+    }
+    if (this.waiting.incrementAndGet() > this.maxQueue) {
+      this.waiting.decrementAndGet();
+      throw this.reject();
+    }
+    try {
+      if (!this.permits.tryAcquire(this.maxWaitNanos, TimeUnit.NANOSECONDS)) {
+        throw this.reject();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw this.reject();
+    } finally {
+      this.waiting.decrementAndGet();
+    }
+  }
+  // }}}
+
+  // {{{ private BulkheadFullException reject()
+  private BulkheadFullException reject() {
+    this.rejectedCounter.increment();
+    return new BulkheadFullException(this.name);
+  }
+  // }}}
+
+}
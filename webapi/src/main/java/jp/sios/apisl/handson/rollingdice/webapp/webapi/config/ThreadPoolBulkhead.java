@@ -0,0 +1,179 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.BulkheadFullException;
+
+/**
+ * 専用のスレッドプールで処理を実行し、他の処理とスレッドを共有しないバルクヘッドのクラスです。.
+ *
+ * <p>スレッドの数を同時実行数の上限とし、受け付けた処理の件数（遅延の経過を待っている処理、
+ * スレッドの空きを待っている処理、および実行中の処理の合計）を、同時実行数と待ち行列の上限の和までに制限します。
+ * それを超える処理は待たずに断り、{@link BulkheadFullException}をスローします。</p>
+ * <ul>
+ *   <li>{@code dice.bulkhead.active}: スレッドで実行中の処理の件数</li>
+ *   <li>{@code dice.bulkhead.queued}: 遅延の経過、またはスレッドの空きを待っている処理の件数</li>
+ *   <li>{@code dice.bulkhead.saturation}: 同時実行数と待ち行列の上限に対する、受け付けた処理の件数の割合</li>
+ *   <li>{@code dice.bulkhead.rejected}: 断った処理の件数</li>
+ * </ul>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings({"PMD.CommentSize", "PMD.DoNotUseThreads"})
+public class ThreadPoolBulkhead implements AutoCloseable {
+
+  /**
+   * 使用されていないスレッドを終了させるまでの時間（秒）です。.
+   */
+  private static final long KEEP_ALIVE_SECONDS = 60L;
+
+  /**
+   * バルクヘッドの名前です。.
+   */
+  private final String name;
+
+  /**
+   * 受け付けることができる処理の件数の上限です。.
+   */
+  private final int capacity;
+
+  /**
+   * 受け付けた処理に割り当てる許可です。.
+   */
+  private final Semaphore permits;
+
+  /**
+   * 処理を実行する専用のスレッドプールです。.
+   */
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * 断った処理の件数です。.
+   */
+  private final Counter rejectedCounter;
+
+  // {{{ public ThreadPoolBulkhead(String name, int maxConcurrent, int maxQueue, ...)
+  /**
+   * ThreadPoolBulkheadのコンストラクタです。.
+   *
+   * @param name バルクヘッドの名前（メトリクスのbulkheadタグとスレッド名に使用）
+   * @param maxConcurrent 同時実行数の上限（スレッドの数）
+   * @param maxQueue 遅延の経過、またはスレッドの空きを待つことができる処理の件数の上限
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   */
+  public ThreadPoolBulkhead(
+      final String name,
+      final int maxConcurrent,
+      final int maxQueue,
+      final MeterRegistry meterRegistry) {
+    if (maxConcurrent < 1 || maxQueue < 0) {
+      throw new IllegalArgumentException("The bulkhead needs 1 or more calls and 0 or more queue: "
+          + name + " (max-concurrent=" + maxConcurrent + ", max-queue=" + maxQueue + ")");
+    }
+    this.name = name;
+    this.capacity = maxConcurrent + maxQueue;
+    this.permits = new Semaphore(this.capacity);
+    // The permits bound the tasks, so the queue of the pool never grows over the capacity.
+    this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent,
+        KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory(name));
+    this.executor.allowCoreThreadTimeOut(true);
+    Gauge.builder(
+            SemaphoreBulkhead.METRIC_ACTIVE, this.executor, ThreadPoolExecutor::getActiveCount)
+        .description("The number of calls running in the bulkhead")
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+    Gauge.builder(SemaphoreBulkhead.METRIC_QUEUED, this,
+            bulkhead -> Math.max(0, bulkhead.getAccepted() - bulkhead.executor.getActiveCount()))
+        .description("The number of calls waiting for the bulkhead")
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+    Gauge.builder(SemaphoreBulkhead.METRIC_SATURATION, this,
+            bulkhead -> (double) bulkhead.getAccepted() / bulkhead.capacity)
+        .description("The ratio of the running and waiting calls to the capacity of the bulkhead")
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+    this.rejectedCounter = Counter.builder(SemaphoreBulkhead.METRIC_REJECTED)
+        .description("The number of calls rejected by the full bulkhead")
+        .tag("bulkhead", name)
+        .register(meterRegistry);
+  }
+  // }}}
+
+  // {{{ public <T> CompletableFuture<T> submit(long delaySeconds, Supplier<T> task)
+  /**
+   * 処理を受け付け、指定された遅延の経過後に専用のスレッドプールで実行します。.
+   *
+   * <p>遅延の間はスレッドを占有しませんが、受け付けた処理の件数には含めます。</p>
+   *
+   * @param <T> 処理の結果の型
+   * @param delaySeconds 実行するまでの遅延（秒、0以下の場合はすぐに実行）
+   * @param task 実行する処理
+   * @return 処理の結果を受け取るFuture
+   * @throws BulkheadFullException 受け付けた処理の件数が上限に達している場合
+   */
+  public <T> CompletableFuture<T> submit(final long delaySeconds, final Supplier<T> task) {
+    if (!this.permits.tryAcquire()) {
+      this.rejectedCounter.increment();
+      throw new BulkheadFullException(this.name);
+    }
+    final Executor target = delaySeconds > 0
+        ? CompletableFuture.delayedExecutor(delaySeconds, TimeUnit.SECONDS, this.executor)
+        : this.executor;
+    final CompletableFuture<T> future;
+    try {
+      future = CompletableFuture.supplyAsync(task, target);
+    } catch (RejectedExecutionException ex) {
+      this.permits.release();
+      this.rejectedCounter.increment();
+      throw new BulkheadFullException(this.name);
+    }
+    future.whenComplete((result, ex) -> this.permits.release());
+    return future;
+  }
+  // }}}
+
+  // {{{ public int getAccepted()
+  /**
+   * 受け付けて、まだ完了していない処理の件数を返します。.
+   *
+   * @return 受け付けた処理の件数
+   */
+  public int getAccepted() {
+    return this.capacity - this.permits.availablePermits();
+  }
+  // }}}
+
+  // {{{ public void close()
+  /**
+   * 専用のスレッドプールを終了します。実行中の処理は完了まで継続します。.
+   */
+  @Override
+  public void close() {
+    this.executor.shutdown();
+  }
+  // }}}
+
+  // {{{ private static ThreadFactory threadFactory(String name)
+  private static ThreadFactory threadFactory(final String name) {
+    final AtomicInteger sequence = new AtomicInteger();
+    return runnable -> {
+      final Thread thread =
+          new Thread(runnable, "bulkhead-" + name + "-" + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+  // }}}
+
+}
@@ -0,0 +1,47 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import io.micrometer.java21.instrument.binder.jdk.VirtualThreadMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 仮想スレッドでの実行モードに関する設定を行う構成クラスです。.
+ *
+ * <p>{@code spring.threads.virtual.enabled=true}を指定すると、
+ * Tomcatのリクエスト処理とSpringのタスク実行が仮想スレッドに切り替わります。
+ * このモードでは、仮想スレッドのピン留めとキャリアスレッドの使用状況をメトリクスとして登録します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+public class VirtualThreadConfig {
+
+  // {{{ public VirtualThreadMetrics virtualThreadMetrics()
+  /**
+   * 仮想スレッドのピン留め（{@code jdk.VirtualThreadPinned}）などのJFRイベントを集計するメトリクスを返します。.
+   *
+   * @return 仮想スレッドのメトリクスを登録する{@link VirtualThreadMetrics}インスタンス
+   */
+  @Bean(destroyMethod = "close")
+  public VirtualThreadMetrics virtualThreadMetrics() {
+    return new VirtualThreadMetrics();
+  }
+  // }}}
+
+  // {{{ public CarrierThreadMetrics carrierThreadMetrics()
+  /**
+   * キャリアスレッドの使用状況を集計するメトリクスを返します。.
+   *
+   * @return キャリアスレッドのメトリクスを登録する{@link CarrierThreadMetrics}インスタンス
+   */
+  @Bean
+  public CarrierThreadMetrics carrierThreadMetrics() {
+    return new CarrierThreadMetrics();
+  }
+  // }}}
+
+}
@@ -1,5 +1,6 @@
 package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
 
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.controller.WebApiController;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
@@ -30,7 +31,8 @@ public class WebConfig implements WebMvcConfigurer {
    * CORSマッピングの設定を追加します。.
    *
    * <p>外部設定ファイルで指定されたオリジンに対し、
-   * 全てのエンドポイント、主要なHTTPメソッド、および全てのヘッダー（トレースID含む）を許可します。</p>
+   * 全てのエンドポイント、主要なHTTPメソッド、および全てのヘッダー（トレースID含む）を許可します。
+   * また、履歴のページングに使用するカーソルのレスポンスヘッダーをブラウザから参照可能にします。</p>
    *
    * @param registry CORSレジストリ
    */
@@ -40,6 +42,7 @@ public class WebConfig implements WebMvcConfigurer {
         .allowedOrigins(allowedOrigins)
         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
         .allowedHeaders("*")
+        .exposedHeaders(WebApiController.HEADER_NEXT_CURSOR, WebApiController.HEADER_PREV_CURSOR)
         .allowCredentials(true);
   }
 }
@@ -0,0 +1,97 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.v3.oas.annotations.Hidden;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * ビルド時に生成したOpenAPI仕様書を返却するクラスです。.
+ *
+ * <p>{@value #PROFILE}プロファイルでは、springdocによるコントローラーの走査を無効にし、
+ * {@code generateOpenApiDocsNoServer}タスクが生成してjarに同梱した仕様書（{@value #SPEC_LOCATION}）を
+ * {@code /v3/api-docs}で返却します。Swagger UIも同じ仕様書を表示します。</p>
+ *
+ * <p>仕様書はMockMvcに対して生成されるため、serversには{@code http://localhost}が記載されています。
+ * Swagger UIがページと同じオリジンにリクエストを送信するよう、serversは取り除いて返却します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@RestController
+@Profile(PrebuiltOpenApiController.PROFILE)
+@Hidden
+@SuppressWarnings("PMD.CommentSize")
+public class PrebuiltOpenApiController {
+
+  /**
+   * ビルド時に生成した仕様書を返却するプロファイル名です。.
+   */
+  public static final String PROFILE = "openapi-prebuilt";
+
+  /**
+   * クラスパス上の仕様書の位置です。.
+   */
+  public static final String SPEC_LOCATION = "openapi/openapi.json";
+
+  /**
+   * ロガーインスタンス。PrebuiltOpenApiControllerクラスのログ出力に使用します。.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PrebuiltOpenApiController.class);
+
+  /**
+   * 返却する仕様書のJSONです。.
+   */
+  private final byte[] spec;
+
+  // {{{ public PrebuiltOpenApiController(ObjectMapper objectMapper)
+  /**
+   * クラスパス上の仕様書を読み込み、PrebuiltOpenApiControllerを生成します。.
+   *
+   * <p>仕様書が同梱されていない場合は、アプリケーションの起動を中断します。</p>
+   *
+   * @param objectMapper 仕様書の読み書きに使用するObjectMapperのインスタンス
+   */
+  public PrebuiltOpenApiController(final ObjectMapper objectMapper) {
+    final ClassPathResource resource = new ClassPathResource(SPEC_LOCATION);
+    try (InputStream in = resource.getInputStream()) {
+      final ObjectNode document = (ObjectNode) objectMapper.readTree(in);
+      document.remove("servers");
+      this.spec = objectMapper.writeValueAsBytes(document);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to read the prebuilt OpenAPI spec: '"
+          + SPEC_LOCATION + "' (build the jar with './gradlew assemble -PprebuiltOpenApi')", ex);
+    }
+    LOGGER.info("The prebuilt OpenAPI spec was loaded: '{}' ({} bytes)",
+        SPEC_LOCATION, this.spec.length);
+  }
+  // }}}
+
+  // {{{ public ResponseEntity<byte[]> getApiDocs()
+  /**
+   * ビルド時に生成したOpenAPI仕様書を返却します。.
+   *
+   * @return OpenAPI仕様書のJSON
+   */
+  @GetMapping(value = "${springdoc.api-docs.path:/v3/api-docs}",
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<byte[]> getApiDocs() {
+    UtilEnvInfo.logStartClassMethod();
+
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(this.spec);
+  }
+  // }}}
+
+}
@@ -1,41 +1,76 @@
 package jp.sios.apisl.handson.rollingdice.webapp.webapi.controller;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceBulkRequestDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceBulkResultDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceChangesDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DicePageDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceStatsDto;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceValueDto;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.service.DiceEventBroadcaster;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.service.IdempotencyCache;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.service.WebApiService;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * サイコロWeb APIのエンドポイントを管理するクラスです。.
  * 
  * <ul>
  *   <li>サイコロを振るAPI（/api/dice/v1/roll）</li>
+ *   <li>サイコロをまとめて振るAPI（/api/v1/dices/bulk）</li>
  *   <li>サイコロを振った履歴を一覧で取得するAPI（/api/dice/v1/list）</li>
+ *   <li>指定したIDより後に登録された履歴を取得するAPI（/api/v1/dices/changes）</li>
+ *   <li>サイコロを振った全履歴をエクスポートするAPI（/api/v1/dices/export）</li>
+ *   <li>新しく振ったサイコロの出目をServer-Sent Eventsで配信するAPI（/api/v1/dices/stream）</li>
+ *   <li>サイコロの出目の統計情報を取得するAPI（/api/v1/dices/stats）</li>
  * </ul>
  *
  * <p>各エンドポイントではサービス層への処理委譲を行います。
  * </p>
  *
+ * <p>レスポンスはAcceptヘッダーに応じて、JSONまたはCBOR（application/cbor）で返却します。
+ * 履歴のETagは表現ごとに異なる強いETag（例: {@code "<バージョン>-json"}、{@code "<バージョン>-cbor"}）とし、
+ * Vary: Acceptを付けて返却します。</p>
+ *
  * @author Toshiharu Konuma
  */
 @RestController
@@ -44,59 +79,139 @@ import org.springframework.web.bind.annotation.RestController;
 @SuppressWarnings("PMD.CommentSize")
 public class WebApiController {
 
+  /**
+   * より古い履歴を取得するためのカーソルを返却するレスポンスヘッダー名です。.
+   */
+  public static final String HEADER_NEXT_CURSOR = "X-Next-Cursor";
+
+  /**
+   * より新しい履歴を取得するためのカーソルを返却するレスポンスヘッダー名です。.
+   */
+  public static final String HEADER_PREV_CURSOR = "X-Prev-Cursor";
+
+  /**
+   * サイコロを振るリクエストの再送を識別するためのリクエストヘッダー名です。.
+   */
+  public static final String HEADER_IDEMPOTENCY_KEY = "Idempotency-Key";
+
+  /**
+   * Idempotency-Keyとして受け付ける最大の文字数です。.
+   */
+  private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
   /**
    * ロガーインスタンス。WebApiControllerクラスのログ出力に使用します。.
    */
   private static final Logger LOGGER = LoggerFactory.getLogger(WebApiController.class);
 
+  /**
+   * 配信の購読を断った際に、再接続までの待ち時間として返却する秒数です。.
+   */
+  private static final int STREAM_RETRY_AFTER_SECONDS = 5;
+
+  /**
+   * 履歴のETagに付与する、JSON表現を表す接尾辞です。.
+   */
+  private static final String REPRESENTATION_JSON = "json";
+
+  /**
+   * 履歴のETagに付与する、CBOR表現を表す接尾辞です。.
+   */
+  private static final String REPRESENTATION_CBOR = "cbor";
+
   /**
    * WebApiServiceのインスタンスを保持するフィールドです。
    * このサービスを利用してWeb APIの各種処理を実行します。.
    */
   private final WebApiService service;
 
-  // {{{ public WebApiController(WebApiService service)
+  /**
+   * 新しく振ったサイコロの出目を購読しているクライアントへ配信するDiceEventBroadcasterインスタンスです。.
+   */
+  private final DiceEventBroadcaster broadcaster;
+
+  /**
+   * 履歴のエクスポート時に、出目履歴をJSONへ書き出すためのObjectMapperインスタンスです。.
+   */
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Idempotency-Keyごとにサイコロを振った結果を保持するIdempotencyCacheインスタンスです。.
+   */
+  private final IdempotencyCache idempotencyCache;
+
+  // {{{ public WebApiController(WebApiService service, DiceEventBroadcaster broadcaster, ...)
   /**
    * WebApiControllerのコンストラクタです。.
    *
    * @param service WebApiServiceのインスタンス
+   * @param broadcaster 出目の配信に使用するDiceEventBroadcasterのインスタンス
+   * @param objectMapper JSONの書き出しに使用するObjectMapperのインスタンス
+   * @param idempotencyCache 再送されたリクエストの結果の返却に使用するIdempotencyCacheのインスタンス
    */
-  public WebApiController(final WebApiService service) {
+  public WebApiController(
+      final WebApiService service,
+      final DiceEventBroadcaster broadcaster,
+      final ObjectMapper objectMapper,
+      final IdempotencyCache idempotencyCache) {
     this.service = service;
+    this.broadcaster = broadcaster;
+    this.objectMapper = objectMapper;
+    this.idempotencyCache = idempotencyCache;
   }
   // }}}
 
-  // {{{ public ResponseEntity<Integer> rollDice(...)
+  // {{{ public CompletableFuture<DiceValueDto> rollDice(...)
   /**
    * サイコロを振る処理を扱います。.
    *
    * <p>通常はサイコロを振った結果の出目を返却しますが、リクエストボディに出目が指定されている場合には、
    * 振らずにその値を出目として採用します。
-   * また、リクエストパラメータ（sleep, loop, error）を指定することで処理の挙動を制御します。</p>
+   * また、リクエストパラメータ（sleep, loop, error）を指定することで処理の挙動を制御します。
+   * sleepが指定された場合は、待機中にリクエストのスレッドを占有しないよう非同期に応答します。</p>
+   *
+   * <p>Idempotency-Keyヘッダーが指定された場合、同じキーで再送されたリクエストにはサイコロを振り直さず、
+   * 最初のリクエストと同じ出目を返却します。同じキーのリクエストが同時に到着した場合も、
+   * サイコロを振るのは1回だけです。同じキーを異なる内容のリクエストで使用した場合はHTTP 422を返却します。</p>
    *
    * @param request   HTTPリクエスト情報
    * @param requestBody サイコロの出目を強制する場合に使用するリクエストボディ
    * @param optSleep  サイコロを振る前に意図的に遅延させる待機時間（秒、オプション）
    * @param optLoop   サイコロを振る前に意図的に遅延させるループ時間（秒、オプション）
    * @param optError  サイコロを振らずにエラーを発生させるフラグ（boolean、オプション）
-   * @return サイコロの出目（1～6）を含む{@link DiceValueDto}オブジェクト
+   * @param optIdempotencyKey 再送されたリクエストを識別するためのキー（オプション）
+   * @return サイコロの出目（1～6）を含む{@link DiceValueDto}オブジェクトを受け取るFuture
    */
   @PostMapping
   @Operation(
       summary = "サイコロを振ります。", 
       description = "通常はサイコロを振った結果の出目を返却しますが、"
           + "リクエストボディに出目が指定されている場合には、振らずにその値を出目として採用します。"
-          + "また、リクエストパラメータ（sleep, loop, error）を指定することで処理の挙動を制御します。")
+          + "また、リクエストパラメータ（sleep, loop, error）を指定することで処理の挙動を制御します。"
+          + "Idempotency-Keyヘッダーを指定した場合、同じキーで再送されたリクエストには最初の出目を返却します。")
   @ApiResponses({
       @ApiResponse(
           responseCode = "200", description = "リクエストが正常に処理",
-          content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-              schema = @Schema(implementation = DiceValueDto.class))),
+          content = {
+              @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                  schema = @Schema(implementation = DiceValueDto.class)),
+              @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+                  schema = @Schema(implementation = DiceValueDto.class))
+          }),
+      @ApiResponse(
+          responseCode = "400", description = "Idempotency-Keyヘッダーの値が不正",
+          content = @Content),
+      @ApiResponse(
+          responseCode = "422", description = "Idempotency-Keyが異なる内容のリクエストで使用済み",
+          content = @Content),
       @ApiResponse(
           responseCode = "500", description = "errorパラメータが指定されて例外が発生、もしくはサーバ内部でエラーが発生",
+          content = @Content),
+      @ApiResponse(
+          responseCode = "503", description = "保持しているIdempotency-Keyが上限に達し、すべて処理中",
           content = @Content)
   })
-  public DiceValueDto rollDice(
+  public CompletableFuture<DiceValueDto> rollDice(
       final HttpServletRequest request,
       @io.swagger.v3.oas.annotations.parameters.RequestBody(
           description = "サイコロの出目を強制したい場合に送信", required = false)
@@ -106,52 +221,458 @@ public class WebApiController {
       @Parameter(description = "サイコロを振る前に意図的に遅延させるループ時間（秒）", example = "15")
       @RequestParam(name = "loop", required = false) final Optional<Integer> optLoop,
       @Parameter(description = "サイコロを振らずにエラーを発生させるフラグ", example = "true")
-      @RequestParam(name = "error", required = false) final Optional<Boolean> optError) {
+      @RequestParam(name = "error", required = false) final Optional<Boolean> optError,
+      @Parameter(description = "再送されたリクエストを識別するためのキー",
+          example = "5f0c6c1e-7b7a-4d0e-9a57-3d8c1b0e2f4a")
+      @RequestHeader(name = HEADER_IDEMPOTENCY_KEY, required = false)
+      final Optional<String> optIdempotencyKey) {
 
     UtilEnvInfo.logStartRequest(request);
     UtilEnvInfo.logStartClassMethod();
     LOGGER.info(
-        "The received parameters are: body='{}', sleep='{}', loop='{}' and error='{}'",
-        requestBody, optSleep, optLoop, optError);
+        "The received parameters are: body='{}', sleep='{}', loop='{}', error='{}'"
+            + " and Idempotency-Key='{}'",
+        requestBody, optSleep, optLoop, optError, optIdempotencyKey);
+
+    final CompletableFuture<DiceValueDto> responseDto;
+    if (optIdempotencyKey.isPresent()) {
+      final String key = validIdempotencyKey(optIdempotencyKey.get());
+      final List<Object> fingerprint =
+          List.of(optSleep, optLoop, optError, Optional.ofNullable(requestBody));
+      responseDto = this.idempotencyCache.execute(key, fingerprint,
+          () -> service.rollDiceAsync(optSleep, optLoop, optError, requestBody));
+    } else {
+      responseDto = service.rollDiceAsync(optSleep, optLoop, optError, requestBody);
+    }
+
+    return responseDto.whenComplete((dto, ex) -> UtilEnvInfo.logFinishRequest(request));
+  }
+  // }}}
+
+  // {{{ public DiceBulkResultDto rollDiceBulk(...)
+  /**
+   * サイコロをまとめて振る処理を扱います。.
+   *
+   * <p>リクエストボディで指定された回数分のサイコロを一度に振り、出目をまとめて登録します。
+   * 出目のリストが指定されている場合には、振らずにその値を出目として採用します。</p>
+   *
+   * @param request     HTTPリクエスト情報
+   * @param requestBody 振る回数、または出目を強制する出目のリストを持つリクエストボディ
+   * @return 出目のリストと履歴IDの範囲を含む{@link DiceBulkResultDto}オブジェクト
+   */
+  @PostMapping("/bulk")
+  @Operation(
+      summary = "サイコロをまとめて振ります。",
+      description = "リクエストボディで指定された回数分のサイコロを一度に振り、"
+          + "出目のリストと採番された履歴IDの範囲を返却します。"
+          + "出目のリストが指定されている場合には、振らずにその値を出目として採用します。")
+  @ApiResponses({
+      @ApiResponse(
+          responseCode = "200", description = "リクエストが正常に処理",
+          content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+              schema = @Schema(implementation = DiceBulkResultDto.class))),
+      @ApiResponse(
+          responseCode = "400", description = "リクエストボディの値が不正",
+          content = @Content),
+      @ApiResponse(
+          responseCode = "500", description = "サーバ内部でエラーが発生",
+          content = @Content)
+  })
+  public DiceBulkResultDto rollDiceBulk(
+      final HttpServletRequest request,
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(
+          description = "振る回数、または出目を強制する出目のリスト", required = true)
+      @RequestBody @Validated final DiceBulkRequestDto requestBody) {
 
-    final DiceValueDto responseDto = service.rollDice(optSleep, optLoop, optError, requestBody);
+    UtilEnvInfo.logStartRequest(request);
+    UtilEnvInfo.logStartClassMethod();
+    LOGGER.info("The received parameters are: body='{}'", requestBody);
+
+    final DiceBulkResultDto responseDto = service.rollDiceBulk(requestBody);
 
     UtilEnvInfo.logFinishRequest(request);
     return responseDto;
   }
   // }}}
 
-  // {{{ public List<Dice> listDice(HttpServletRequest request)
+  // {{{ public ResponseEntity<List<DiceEntity>> listDice(...)
   /**
    * サイコロを振った履歴を一覧で取得する処理を扱います。.
    *
-   * <p>サイコロの出目履歴を、振った日時が新しい順（降順）で返却します。</p>
+   * <p>サイコロの出目履歴を、振った日時が新しい順（降順）で1ページ分返却します。
+   * ページングは主キー（ID）によるキーセット方式で行い、
+   * 続きのページを取得するためのカーソルをレスポンスヘッダーに設定します。</p>
    *
-   * @param request HTTPリクエスト情報
+   * <p>レスポンスには履歴のバージョンから作成したETagを設定します。
+   * リクエストのIf-None-Matchが現在のETagと一致する場合は、履歴を取得せずにHTTP 304を返却します。
+   * バージョンは履歴の取得より前に確定させるため、ETagが本文より新しくなることはありません。</p>
+   *
+   * @param request   HTTPリクエスト情報
+   * @param optLimit  1ページあたりの取得件数（オプション）
+   * @param optBefore 指定したIDより古い履歴を取得するためのカーソル（オプション）
+   * @param optAfter  指定したIDより新しい履歴を取得するためのカーソル（オプション）
    * @return サイコロを振った履歴を保持する{@link DiceEntity}オブジェクトのリスト
+   *     （履歴が更新されていない場合は本文のないHTTP 304）
    */
   @GetMapping
   @Operation(
       summary = "サイコロを振った履歴を一覧で取得します。",
-      description = "サイコロの出目履歴を、振った日時が新しい順（降順）で返却します。")
+      description = "サイコロの出目履歴を、振った日時が新しい順（降順）で1ページ分返却します。"
+          + "続きのページが存在する場合は、レスポンスヘッダー（" + HEADER_NEXT_CURSOR + ", "
+          + HEADER_PREV_CURSOR + "）の値をリクエストパラメータ（before, after）に指定します。"
+          + "前回のレスポンスのETagをIf-None-Matchに指定した場合、履歴が更新されていなければ304を返却します。")
   @ApiResponses({
       @ApiResponse(
           responseCode = "200", description = "リクエストが正常に処理",
-          content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+          headers = {
+              @Header(name = HEADER_NEXT_CURSOR,
+                  description = "より古い履歴を取得する際にbeforeへ指定するID"),
+              @Header(name = HEADER_PREV_CURSOR,
+                  description = "より新しい履歴を取得する際にafterへ指定するID")
+          },
+          content = {
+              @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                  schema = @Schema(implementation = DiceEntity.class)),
+              @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+                  schema = @Schema(implementation = DiceEntity.class))
+          }),
+      @ApiResponse(
+          responseCode = "304", description = "If-None-Matchに指定したETagから履歴が更新されていない",
+          content = @Content),
+      @ApiResponse(
+          responseCode = "500", description = "サーバ内部でエラーが発生",
+          content = @Content)
+  })
+  public ResponseEntity<List<DiceEntity>> listDice(
+      final HttpServletRequest request,
+      @Parameter(description = "1ページあたりの取得件数", example = "100")
+      @RequestParam(name = "limit", required = false) final Optional<Integer> optLimit,
+      @Parameter(description = "指定したIDより古い履歴を取得するためのカーソル", example = "120")
+      @RequestParam(name = "before", required = false) final Optional<Integer> optBefore,
+      @Parameter(description = "指定したIDより新しい履歴を取得するためのカーソル", example = "80")
+      @RequestParam(name = "after", required = false) final Optional<Integer> optAfter) {
+
+    UtilEnvInfo.logStartRequest(request);
+    UtilEnvInfo.logStartClassMethod();
+    LOGGER.info(
+        "The received parameters are: limit='{}', before='{}' and after='{}'",
+        optLimit, optBefore, optAfter);
+
+    final Optional<String> optETag = this.historyETag(request);
+    if (isNotModified(request, optETag)) {
+      UtilEnvInfo.logFinishRequest(request);
+      return notModified(optETag.get());
+    }
+
+    final DicePageDto page = service.listDice(optLimit, optBefore, optAfter);
+
+    final ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+    optETag.ifPresent(etag -> builder.eTag(etag).cacheControl(CacheControl.noCache())
+        .varyBy(HttpHeaders.ACCEPT));
+    if (page.nextCursor() != null) {
+      builder.header(HEADER_NEXT_CURSOR, String.valueOf(page.nextCursor()));
+    }
+    if (page.prevCursor() != null) {
+      builder.header(HEADER_PREV_CURSOR, String.valueOf(page.prevCursor()));
+    }
+
+    UtilEnvInfo.logFinishRequest(request);
+    return builder.body(page.dices());
+  }
+  // }}}
+
+  // {{{ public ResponseEntity<List<DiceEntity>> listDiceChanges(...)
+  /**
+   * 指定したIDより後に登録された履歴を取得する処理を扱います。.
+   *
+   * <p>{@code since}より大きいIDの出目履歴を、IDの昇順で返却します。
+   * 手元に保持している履歴の最新のIDを指定することで、差分だけを取得できます。
+   * 差分が{@code limit}件を超える場合は、続きを取得するためのカーソルをレスポンスヘッダーに設定します。
+   * 一覧の取得と同じETagを設定し、If-None-Matchが一致する場合はHTTP 304を返却します。</p>
+   *
+   * @param request  HTTPリクエスト情報
+   * @param sinceId  このIDより大きいIDの履歴を取得するためのカーソル
+   * @param optLimit 取得件数（オプション）
+   * @return IDの昇順に並んだ差分の履歴を保持する{@link DiceEntity}オブジェクトのリスト
+   *     （履歴が更新されていない場合は本文のないHTTP 304）
+   */
+  @GetMapping("/changes")
+  @Operation(
+      summary = "指定したIDより後に登録された履歴を取得します。",
+      description = "sinceに指定したIDより大きいIDの出目履歴を、IDの昇順で返却します。"
+          + "続きが存在する場合は、レスポンスヘッダー（" + HEADER_NEXT_CURSOR + "）の値を"
+          + "リクエストパラメータ（since）に指定します。"
+          + "前回のレスポンスのETagをIf-None-Matchに指定した場合、履歴が更新されていなければ304を返却します。")
+  @ApiResponses({
+      @ApiResponse(
+          responseCode = "200", description = "リクエストが正常に処理",
+          headers = {
+              @Header(name = HEADER_NEXT_CURSOR,
+                  description = "続きの差分を取得する際にsinceへ指定するID")
+          },
+          content = {
+              @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                  array = @ArraySchema(schema = @Schema(implementation = DiceEntity.class))),
+              @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+                  array = @ArraySchema(schema = @Schema(implementation = DiceEntity.class)))
+          }),
+      @ApiResponse(
+          responseCode = "304", description = "If-None-Matchに指定したETagから履歴が更新されていない",
+          content = @Content),
+      @ApiResponse(
+          responseCode = "400", description = "リクエストパラメータの値が不正",
+          content = @Content),
+      @ApiResponse(
+          responseCode = "500", description = "サーバ内部でエラーが発生",
+          content = @Content)
+  })
+  public ResponseEntity<List<DiceEntity>> listDiceChanges(
+      final HttpServletRequest request,
+      @Parameter(description = "このIDより大きいIDの履歴を取得するためのカーソル", example = "120")
+      @RequestParam(name = "since") final int sinceId,
+      @Parameter(description = "取得件数", example = "100")
+      @RequestParam(name = "limit", required = false) final Optional<Integer> optLimit) {
+
+    UtilEnvInfo.logStartRequest(request);
+    UtilEnvInfo.logStartClassMethod();
+    LOGGER.info("The received parameters are: since='{}' and limit='{}'", sinceId, optLimit);
+
+    final Optional<String> optETag = this.historyETag(request);
+    if (isNotModified(request, optETag)) {
+      UtilEnvInfo.logFinishRequest(request);
+      return notModified(optETag.get());
+    }
+
+    final DiceChangesDto changes = service.listDiceChanges(sinceId, optLimit);
+
+    final ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+    optETag.ifPresent(etag -> builder.eTag(etag).cacheControl(CacheControl.noCache())
+        .varyBy(HttpHeaders.ACCEPT));
+    if (changes.nextCursor() != null) {
+      builder.header(HEADER_NEXT_CURSOR, String.valueOf(changes.nextCursor()));
+    }
+
+    UtilEnvInfo.logFinishRequest(request);
+    return builder.body(changes.dices());
+  }
+  // }}}
+
+  // {{{ public ResponseEntity<SseEmitter> streamDice(...)
+  /**
+   * 新しく振ったサイコロの出目を配信する処理を扱います。.
+   *
+   * <p>接続している間、登録された出目履歴を{@code dice}イベントとして1件ずつ配信します。
+   * 各イベントのIDは出目履歴のIDで、再接続時に{@code Last-Event-ID}として送信されると、
+   * 取りこぼした出目履歴を直近のものから補って配信します。</p>
+   *
+   * @param request        HTTPリクエスト情報
+   * @param optLastEventId 最後に受け取ったイベントのID（再接続時のみ）
+   * @return 出目履歴を配信するSseEmitter（購読数が上限に達している場合はHTTP 503）
+   */
+  @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @Operation(
+      summary = "新しく振ったサイコロの出目を配信します。",
+      description = "登録された出目履歴を、Server-Sent Eventsのdiceイベントとして配信します。"
+          + "イベントのデータは出目履歴のJSONで、イベントのIDは出目履歴のIDです。")
+  @ApiResponses({
+      @ApiResponse(
+          responseCode = "200", description = "配信を開始",
+          content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
               schema = @Schema(implementation = DiceEntity.class))),
+      @ApiResponse(
+          responseCode = "503", description = "購読しているクライアントの数が上限に到達",
+          content = @Content)
+  })
+  public ResponseEntity<SseEmitter> streamDice(
+      final HttpServletRequest request,
+      @Parameter(description = "最後に受け取ったイベントのID", example = "120")
+      @RequestHeader(name = "Last-Event-ID", required = false)
+      final Optional<Integer> optLastEventId) {
+
+    UtilEnvInfo.logStartRequest(request);
+    UtilEnvInfo.logStartClassMethod();
+    LOGGER.info("The received parameters are: Last-Event-ID='{}'", optLastEventId);
+
+    final ResponseEntity<SseEmitter> response = this.broadcaster.subscribe(optLastEventId)
+        .map(emitter -> ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(emitter))
+        .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(STREAM_RETRY_AFTER_SECONDS))
+            .build());
+
+    UtilEnvInfo.logFinishRequest(request);
+    return response;
+  }
+  // }}}
+
+  // {{{ public ResponseEntity<StreamingResponseBody> exportDice(HttpServletRequest request)
+  /**
+   * サイコロを振った全履歴をエクスポートする処理を扱います。.
+   *
+   * <p>サイコロの出目履歴を、振った日時が新しい順（降順）でJSON配列として返却します。
+   * 全履歴をメモリ上に保持せず、データベースから読み込んだ行を1件ずつレスポンスへ書き出します。</p>
+   *
+   * @param request HTTPリクエスト情報
+   * @return 全履歴をJSON配列として書き出す{@link StreamingResponseBody}オブジェクト
+   */
+  @GetMapping("/export")
+  @Operation(
+      summary = "サイコロを振った全履歴をエクスポートします。",
+      description = "サイコロの出目履歴を、振った日時が新しい順（降順）でJSON配列としてストリーミングで返却します。")
+  @ApiResponses({
+      @ApiResponse(
+          responseCode = "200", description = "リクエストが正常に処理",
+          content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+              array = @ArraySchema(schema = @Schema(implementation = DiceEntity.class)))),
       @ApiResponse(
           responseCode = "500", description = "サーバ内部でエラーが発生",
           content = @Content)
   })
-  public List<DiceEntity> listDice(final HttpServletRequest request) {
+  public ResponseEntity<StreamingResponseBody> exportDice(final HttpServletRequest request) {
 
     UtilEnvInfo.logStartRequest(request);
     UtilEnvInfo.logStartClassMethod();
 
-    final List<DiceEntity> list = service.listDice();
+    final StreamingResponseBody body = outputStream -> {
+      try (JsonGenerator generator =
+          this.objectMapper.createGenerator(outputStream, JsonEncoding.UTF8)) {
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartArray();
+        final long count = service.exportDice(dice -> writeDice(generator, dice));
+        generator.writeEndArray();
+        LOGGER.info("The record count of the exported dice is: '{}'", count);
+      }
+    };
 
     UtilEnvInfo.logFinishRequest(request);
-    return list;
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(body);
+  }
+  // }}}
+
+  // {{{ public DiceStatsDto getDiceStats(HttpServletRequest request)
+  /**
+   * サイコロの出目の統計情報を取得する処理を扱います。.
+   *
+   * <p>総回数、出目ごとの回数、平均値、および最後にサイコロを振った日時を返却します。
+   * 統計情報は出目の登録に合わせて逐次更新されているため、履歴の件数に関わらず一定の時間で応答します。</p>
+   *
+   * @param request HTTPリクエスト情報
+   * @return サイコロの出目の統計情報を含む{@link DiceStatsDto}オブジェクト
+   */
+  @GetMapping("/stats")
+  @Operation(
+      summary = "サイコロの出目の統計情報を取得します。",
+      description = "総回数、出目ごとの回数、平均値、および最後にサイコロを振った日時を返却します。")
+  @ApiResponses({
+      @ApiResponse(
+          responseCode = "200", description = "リクエストが正常に処理",
+          content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+              schema = @Schema(implementation = DiceStatsDto.class))),
+      @ApiResponse(
+          responseCode = "500", description = "サーバ内部でエラーが発生",
+          content = @Content)
+  })
+  public DiceStatsDto getDiceStats(final HttpServletRequest request) {
+
+    UtilEnvInfo.logStartRequest(request);
+    UtilEnvInfo.logStartClassMethod();
+
+    final DiceStatsDto responseDto = service.getDiceStats();
+
+    UtilEnvInfo.logFinishRequest(request);
+    return responseDto;
+  }
+  // }}}
+
+  // {{{ private static String validIdempotencyKey(String key)
+  private static String validIdempotencyKey(final String key) {
+    if (key.isBlank() || key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "The Idempotency-Key must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+    }
+    return key;
+  }
+  // }}}
+
+  // {{{ private Optional<String> historyETag(HttpServletRequest request)
+  private Optional<String> historyETag(final HttpServletRequest request) {
+    // Strong, so the tag names the representation the Accept header selects as well.
+    final String representation = representation(request);
+    return service.getDiceHistoryVersion()
+        .map(version -> "\"" + version + "-" + representation + "\"");
+  }
+  // }}}
+
+  // {{{ private static String representation(HttpServletRequest request)
+  private static String representation(final HttpServletRequest request) {
+    final String accept = request.getHeader(HttpHeaders.ACCEPT);
+    if (accept == null) {
+      return REPRESENTATION_JSON;
+    }
+    final List<MediaType> mediaTypes;
+    try {
+      mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+    } catch (InvalidMediaTypeException ex) {
+      return REPRESENTATION_JSON;
+    }
+    // The converters prefer JSON, so a wildcard or an equal quality selects it first.
+    mediaTypes.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+    for (final MediaType mediaType : mediaTypes) {
+      if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+        return REPRESENTATION_JSON;
+      }
+      if (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+        return REPRESENTATION_CBOR;
+      }
+    }
+    return REPRESENTATION_JSON;
+  }
+  // }}}
+
+  // {{{ private static <T> ResponseEntity<T> notModified(String etag)
+  private static <T> ResponseEntity<T> notModified(final String etag) {
+    LOGGER.info("The history was not modified: ETag='{}'", etag);
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+        .eTag(etag)
+        .cacheControl(CacheControl.noCache())
+        .varyBy(HttpHeaders.ACCEPT)
+        .build();
+  }
+  // }}}
+
+  // {{{ private static boolean isNotModified(HttpServletRequest request, Optional<String> ...)
+  private static boolean isNotModified(
+      final HttpServletRequest request, final Optional<String> optETag) {
+    final String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    if (ifNoneMatch == null || optETag.isEmpty()) {
+      return false;
+    }
+    final String etag = opaqueTag(optETag.get());
+    // If-None-Match uses the weak comparison, so only the opaque tags are compared.
+    for (final String candidate : ifNoneMatch.split(",")) {
+      final String tag = candidate.trim();
+      if ("*".equals(tag) || etag.equals(opaqueTag(tag))) {
+        return true;
+      }
+    }
+    return false;
+  }
+  // }}}
+
+  // {{{ private static String opaqueTag(String etag)
+  private static String opaqueTag(final String etag) {
+    return etag.startsWith("W/") ? etag.substring(2) : etag;
+  }
+  // }}}
+
+  // {{{ private static void writeDice(JsonGenerator generator, DiceEntity dice)
+  private static void writeDice(final JsonGenerator generator, final DiceEntity dice) {
+    try {
+      generator.writeObject(dice);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to write a dice to the response", ex);
+    }
   }
   // }}}
 
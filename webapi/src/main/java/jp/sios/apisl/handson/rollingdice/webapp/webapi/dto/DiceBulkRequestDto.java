@@ -0,0 +1,64 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * サイコロをまとめて振る際のリクエスト情報を扱うデータクラスです。.
+ *
+ * <p>振る回数のみを指定した場合は、その回数分だけサイコロを振ります。
+ * 出目のリストを指定した場合は、振らずにその値を出目として採用します。</p>
+ *
+ * @param count  サイコロを振る回数（1～{@value #MAX_COUNT}の整数）
+ * @param values サイコロの出目を強制する場合の出目のリスト（各要素は1～6の整数）
+ */
+@SuppressWarnings("PMD.CommentSize")
+@Schema(description = "サイコロをまとめて振る際のリクエスト情報")
+public record DiceBulkRequestDto(
+    @Schema(description = "サイコロを振る回数", example = "10")
+    @Min(value = 1, message = "The count must be 1 or greater.")
+    @Max(value = DiceBulkRequestDto.MAX_COUNT,
+        message = "The count must be " + DiceBulkRequestDto.MAX_COUNT + " or less.")
+    Integer count,
+    @Schema(description = "サイコロの出目を強制する場合の出目のリスト（各要素は1～6の整数）",
+        example = "[1, 2, 3]")
+    @Size(max = DiceBulkRequestDto.MAX_COUNT,
+        message = "The number of values must be " + DiceBulkRequestDto.MAX_COUNT + " or less.")
+    List<
+        @NotNull(message = "The dice value must not be null.")
+        @Min(value = 1, message = "The dice value must be 1 or greater.")
+        @Max(value = 6, message = "The dice value must be 6 or less.")
+        Integer> values
+) {
+
+  /**
+   * 1回のリクエストで振ることができるサイコロの最大数です。.
+   */
+  public static final int MAX_COUNT = 1000;
+
+  // {{{ public boolean isCountConsistent()
+  /**
+   * 振る回数と出目のリストの指定が矛盾していないかを判定します。.
+   *
+   * <p>どちらか一方は必ず指定し、両方を指定する場合は件数を一致させる必要があります。</p>
+   *
+   * @return 指定が矛盾していない場合はtrue
+   */
+  @JsonIgnore
+  @Schema(hidden = true)
+  @AssertTrue(message = "Either count or values must be given, and they must agree in size.")
+  public boolean isCountConsistent() {
+    if (values == null || values.isEmpty()) {
+      return count != null;
+    }
+    return count == null || count == values.size();
+  }
+  // }}}
+
+}
@@ -0,0 +1,25 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+
+/**
+ * サイコロをまとめて振った結果を扱うデータクラスです。.
+ *
+ * <p>出目は登録順に並び、採番されたIDは{@code firstId}から{@code lastId}までの連続した範囲となります。</p>
+ *
+ * @param firstId 最初の出目に採番された履歴ID
+ * @param lastId  最後の出目に採番された履歴ID
+ * @param values  登録順に並んだサイコロの出目のリスト
+ */
+@SuppressWarnings("PMD.CommentSize")
+@Schema(description = "サイコロをまとめて振った結果")
+public record DiceBulkResultDto(
+    @Schema(description = "最初の出目に採番された履歴ID", example = "101")
+    int firstId,
+    @Schema(description = "最後の出目に採番された履歴ID", example = "103")
+    int lastId,
+    @Schema(description = "登録順に並んだサイコロの出目のリスト", example = "[4, 1, 6]")
+    List<Integer> values
+) {
+}
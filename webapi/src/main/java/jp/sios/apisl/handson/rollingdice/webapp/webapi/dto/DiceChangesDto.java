@@ -0,0 +1,19 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.dto;
+
+import java.util.List;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+
+/**
+ * 指定したIDより後に登録されたサイコロの出目履歴（差分）を扱うデータクラスです。.
+ *
+ * <p>差分が1回で返却しきれない場合、続きのカーソルはレスポンスヘッダーとして返却されます。</p>
+ *
+ * @param dices      IDの昇順に並んだ差分の出目履歴
+ * @param nextCursor 続きの差分を取得する際に{@code since}へ指定するID（存在しない場合はnull）
+ */
+@SuppressWarnings("PMD.CommentSize")
+public record DiceChangesDto(
+    List<DiceEntity> dices,
+    Integer nextCursor
+) {
+}
@@ -0,0 +1,22 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.dto;
+
+import java.util.List;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+
+/**
+ * サイコロの出目履歴を1ページ分だけ扱うデータクラスです。.
+ *
+ * <p>履歴は主キー（ID）によるキーセット方式でページングされます。
+ * 次ページ、および前ページのカーソルはレスポンスヘッダーとして返却されます。</p>
+ *
+ * @param dices      IDの降順に並んだ1ページ分の出目履歴
+ * @param nextCursor より古い履歴を取得する際に{@code before}へ指定するID（存在しない場合はnull）
+ * @param prevCursor より新しい履歴を取得する際に{@code after}へ指定するID（存在しない場合はnull）
+ */
+@SuppressWarnings("PMD.CommentSize")
+public record DicePageDto(
+    List<DiceEntity> dices,
+    Integer nextCursor,
+    Integer prevCursor
+) {
+}
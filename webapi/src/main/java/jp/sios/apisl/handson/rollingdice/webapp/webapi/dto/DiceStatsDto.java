@@ -0,0 +1,31 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * サイコロの出目の統計情報を扱うデータクラスです。.
+ *
+ * <p>統計情報は出目の登録に合わせて逐次更新されるため、履歴の件数に関わらず一定の時間で取得できます。</p>
+ *
+ * @param total        サイコロを振った総回数
+ * @param counts       出目ごとの回数（キーは1～6の出目）
+ * @param mean         出目の平均値（履歴が存在しない場合は0）
+ * @param lastRolledAt 最後にサイコロを振った日時（履歴が存在しない場合はnull）
+ */
+@SuppressWarnings("PMD.CommentSize")
+@Schema(description = "サイコロの出目の統計情報")
+public record DiceStatsDto(
+    @Schema(description = "サイコロを振った総回数", example = "12")
+    long total,
+    @Schema(description = "出目ごとの回数（キーは1～6の出目）",
+        example = "{\"1\": 2, \"2\": 1, \"3\": 3, \"4\": 2, \"5\": 1, \"6\": 3}")
+    Map<Integer, Long> counts,
+    @Schema(description = "出目の平均値（履歴が存在しない場合は0）", example = "3.58")
+    double mean,
+    @Schema(description = "最後にサイコロを振った日時（履歴が存在しない場合はnull）",
+        example = "2026-04-01T12:34:56")
+    LocalDateTime lastRolledAt
+) {
+}
@@ -0,0 +1,16 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.event;
+
+import java.util.List;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+
+/**
+ * サイコロの出目がデータベースに登録されたことを通知するイベントクラスです。.
+ *
+ * <p>登録のコミットが完了した後、呼び出し元に結果を返す前に発行されます。
+ * そのため、イベントを受け取った処理の結果は、呼び出し元がレスポンスを受け取った時点で反映済みとなります。</p>
+ *
+ * @param dices 登録された出目履歴のリスト（IDの昇順）
+ */
+@SuppressWarnings("PMD.CommentSize")
+public record DiceInsertedEvent(List<DiceEntity> dices) {
+}
@@ -0,0 +1,28 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * バルクヘッドの同時実行数と待ち行列が埋まっており、リクエストを受け付けられない場合の例外クラスです。.
+ *
+ * <p>他の種類のリクエストへ影響を広げないよう、待たせずにHTTP 503（Service Unavailable）を返却します。
+ * </p>
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class BulkheadFullException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  // {{{ public BulkheadFullException(String name)
+  /**
+   * 指定されたバルクヘッドの名前を持つBulkheadFullExceptionを生成します。.
+   *
+   * @param name リクエストを受け付けられなかったバルクヘッドの名前
+   */
+  public BulkheadFullException(final String name) {
+    super("The bulkhead is full: " + name);
+  }
+  // }}}
+
+}
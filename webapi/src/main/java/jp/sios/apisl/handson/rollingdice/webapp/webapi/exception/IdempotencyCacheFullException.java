@@ -0,0 +1,28 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 保持するIdempotency-Keyが上限に達し、実行中のキーしか残っていないため、新しいキーを受け付けられない場合の例外クラスです。.
+ *
+ * <p>実行中のキーを破棄すると同じキーの再送で処理が重複するため、破棄せずにHTTP 503（Service Unavailable）を返却します。
+ * </p>
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class IdempotencyCacheFullException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  // {{{ public IdempotencyCacheFullException(String key)
+  /**
+   * 指定されたキーを持つIdempotencyCacheFullExceptionを生成します。.
+   *
+   * @param key 受け付けられなかったIdempotency-Key
+   */
+  public IdempotencyCacheFullException(final String key) {
+    super("Too many Idempotency-Keys are in flight to accept a new one: " + key);
+  }
+  // }}}
+
+}
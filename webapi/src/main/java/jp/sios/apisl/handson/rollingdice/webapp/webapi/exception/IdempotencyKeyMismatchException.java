@@ -0,0 +1,29 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 使用済みのIdempotency-Keyが、異なる内容のリクエストで再び使用された場合の例外クラスです。.
+ *
+ * <p>同じキーで異なる処理を実行したり、先の結果を返却したりしないよう、
+ * HTTP 422（Unprocessable Content）を返却します。
+ * </p>
+ */
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  // {{{ public IdempotencyKeyMismatchException(String key)
+  /**
+   * 指定されたキーを持つIdempotencyKeyMismatchExceptionを生成します。.
+   *
+   * @param key 異なる内容のリクエストで再び使用されたIdempotency-Key
+   */
+  public IdempotencyKeyMismatchException(final String key) {
+    super("The Idempotency-Key was already used by a different request: " + key);
+  }
+  // }}}
+
+}
@@ -0,0 +1,16 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 出目履歴を出目ごとに集計した結果を表すレコードクラスです。.
+ *
+ * @param value        サイコロの出目
+ * @param count        出目の回数
+ * @param lastRolledAt その出目を最後に振った日時
+ * @param lastId       その出目の最新のID
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+public record DiceFaceCount(int value, long count, LocalDateTime lastRolledAt, int lastId) {
+}
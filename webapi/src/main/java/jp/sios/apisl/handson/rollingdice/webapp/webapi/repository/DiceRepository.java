@@ -0,0 +1,102 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+
+/**
+ * サイコロの出目履歴の保存先を抽象化する定義クラスです。.
+ *
+ * <p>サービス層はこのインターフェースだけを通して出目履歴を読み書きし、
+ * 保存先の実装はプロファイルで切り替えます。</p>
+ * <ul>
+ *   <li>{@link JdbcDiceRepository}: 既定の実装で、diceテーブルに保存します。</li>
+ *   <li>{@link InMemoryDiceRepository}: {@code memory}プロファイルで有効になり、ヒープ上に保存します。</li>
+ *   <li>{@link MappedDiceRepository}: {@code mmap}プロファイルで有効になり、
+ *       メモリーマップドファイルの固定長のログに追記します。</li>
+ * </ul>
+ *
+ * <p>どの実装も、IDは登録順に増加する正の整数で採番し、更新日時は秒の精度で記録します。
+ * {@code afterId}に0以下の値を指定した場合は、全ての履歴を対象とします。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+public interface DiceRepository {
+
+  /**
+   * 複数のサイコロの出目をまとめて登録し、登録されたレコードを登録順に返します。.
+   *
+   * <p>全ての出目が登録されるか、1件も登録されないかのいずれかとなります。</p>
+   *
+   * @param values 登録するサイコロの出目のリスト
+   * @return 採番されたIDと更新日時を含む、登録したレコードのリスト
+   */
+  List<DiceEntity> insertAll(List<Integer> values);
+
+  /**
+   * 指定されたIDの範囲の出目履歴を、指定された並びで最大{@code limit}件返します。.
+   *
+   * @param optBefore 指定したIDより古い履歴を取得するためのオプションのカーソル
+   * @param optAfter 指定したIDより新しい履歴を取得するためのオプションのカーソル
+   * @param ascending IDの昇順で取得する場合は{@code true}、降順で取得する場合は{@code false}
+   * @param limit 取得する最大件数
+   * @return 指定された並びの出目履歴のリスト
+   */
+  List<DiceEntity> find(
+      Optional<Integer> optBefore, Optional<Integer> optAfter, boolean ascending, int limit);
+
+  /**
+   * 指定したIDより大きいIDの出目履歴を、IDの降順で1件ずつ受け渡します。.
+   *
+   * <p>全件をメモリー上のリストに保持せず、読み込んだ順に受け渡します。</p>
+   *
+   * @param afterId このIDより大きいIDの履歴を受け渡す
+   * @param consumer 出目履歴を1件ずつ受け取る処理
+   * @return 受け渡した履歴の件数
+   */
+  long exportDescending(int afterId, Consumer<DiceEntity> consumer);
+
+  /**
+   * 出目履歴のバージョンを、最大のIDと件数から作成して返します。.
+   *
+   * @return 最大のIDと件数を連結したバージョン（例: {@code 12-10}）
+   */
+  String version();
+
+  /**
+   * 指定したIDより大きいIDの出目履歴を、出目ごとに集計して返します。.
+   *
+   * @param afterId このIDより大きいIDの履歴を集計する
+   * @return 1件以上登録された出目ごとの集計結果
+   */
+  List<DiceFaceCount> countFaces(int afterId);
+
+  /**
+   * 更新日時の記録に使用する時計の現在日時を返します。.
+   *
+   * @return 現在日時
+   */
+  LocalDateTime currentTime();
+
+  /**
+   * 指定したID以下の出目履歴を、最大{@code limit}件削除します。.
+   *
+   * @param upperId 削除する範囲の上限（このIDを含む）
+   * @param limit 削除する最大件数
+   * @return 削除した件数
+   */
+  int deleteUpTo(int upperId, int limit);
+
+  /**
+   * 指定されたIDの範囲の出目履歴を削除します。.
+   *
+   * @param firstId 削除する範囲の下限（このIDを含む）
+   * @param lastId 削除する範囲の上限（このIDを含む）
+   * @return 削除した件数
+   */
+  int deleteRange(int firstId, int lastId);
+
+}
@@ -0,0 +1,46 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * diceテーブルのレコードを{@link DiceEntity}オブジェクトに変換するクラスです。.
+ *
+ * <p>状態を持たないため、{@link #INSTANCE}を共有して利用します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+/* default */ final class DiceRowMapper implements RowMapper<DiceEntity> {
+
+  /**
+   * 共有して利用するDiceRowMapperのインスタンスです。.
+   */
+  /* default */ static final DiceRowMapper INSTANCE = new DiceRowMapper();
+
+  private DiceRowMapper() {
+    // Use INSTANCE instead.
+  }
+
+  // {{{ public DiceEntity mapRow(ResultSet rs, int rowNum)
+  /**
+   * 結果セットの現在の行を{@link DiceEntity}オブジェクトに変換します。.
+   *
+   * @param rs 変換対象の行を指す結果セット
+   * @param rowNum 行番号
+   * @return 変換した{@link DiceEntity}オブジェクト
+   * @throws SQLException 列の値の取得に失敗した場合
+   */
+  @Override
+  public DiceEntity mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+    return new DiceEntity(
+        rs.getInt("id"),
+        rs.getInt("value"),
+        rs.getObject("updated_at", LocalDateTime.class)
+    );
+  }
+  // }}}
+
+}
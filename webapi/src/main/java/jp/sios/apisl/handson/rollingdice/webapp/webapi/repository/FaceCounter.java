@@ -0,0 +1,90 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+
+/**
+ * データベースを使わない実装で、出目履歴を出目ごとに集計するクラスです。.
+ *
+ * <p>diceテーブルに対する{@code GROUP BY value}の集計と同じ結果を、履歴を1件ずつ加えて作成します。
+ * 1～6以外の出目は集計しません。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings({"PMD.AtLeastOneConstructor", "PMD.CommentSize"})
+/* default */ final class FaceCounter {
+
+  /**
+   * サイコロの面の数です。.
+   */
+  private static final int FACES = 6;
+
+  /**
+   * 出目ごとの回数です。添字0が出目1に対応します。.
+   */
+  private final long[] counts = new long[FACES];
+
+  /**
+   * 出目ごとの最新の更新日時です。.
+   */
+  private final LocalDateTime[] lastRolledAts = new LocalDateTime[FACES];
+
+  /**
+   * 出目ごとの最新のIDです。.
+   */
+  private final int[] lastIds = new int[FACES];
+
+  // {{{ void add(int id, int value, LocalDateTime updatedAt)
+  /**
+   * 出目履歴を1件集計に加えます。.
+   *
+   * @param id 出目の履歴ID
+   * @param value サイコロの出目
+   * @param updatedAt サイコロを振った日時
+   */
+  /* default */ void add(final int id, final int value, final LocalDateTime updatedAt) {
+    if (value < 1 || value > FACES) {
+      return;
+    }
+    final int face = value - 1;
+    this.counts[face]++;
+    this.lastIds[face] = Math.max(this.lastIds[face], id);
+    if (updatedAt != null
+        && (this.lastRolledAts[face] == null || updatedAt.isAfter(this.lastRolledAts[face]))) {
+      this.lastRolledAts[face] = updatedAt;
+    }
+  }
+  // }}}
+
+  // {{{ void add(DiceEntity dice)
+  /**
+   * 出目履歴を1件集計に加えます。.
+   *
+   * @param dice 集計に加える出目履歴
+   */
+  /* default */ void add(final DiceEntity dice) {
+    this.add(dice.id(), dice.value(), dice.updatedAt());
+  }
+  // }}}
+
+  // {{{ List<DiceFaceCount> toList()
+  /**
+   * 1件以上集計された出目ごとの集計結果を返します。.
+   *
+   * @return 出目の昇順に並んだ集計結果
+   */
+  /* default */ List<DiceFaceCount> toList() {
+    final List<DiceFaceCount> result = new ArrayList<>(FACES);
+    for (int face = 0; face < FACES; face++) {
+      if (this.counts[face] > 0) {
+        result.add(new DiceFaceCount(
+            face + 1, this.counts[face], this.lastRolledAts[face], this.lastIds[face]));
+      }
+    }
+    return result;
+  }
+  // }}}
+
+}
@@ -0,0 +1,247 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.repository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/**
+ * サイコロの出目履歴をヒープ上に保存するクラスです。.
+ *
+ * <p>{@code memory}プロファイルで有効になり、データベースを使わずに負荷試験やエッジでの実行を可能にします。
+ * 履歴はプロセスの終了とともに失われます。</p>
+ * <ul>
+ *   <li>IDは{@link AtomicInteger}で連続した範囲をまとめて確保し、ロックを取らずに採番します。</li>
+ *   <li>履歴はIDをキーとする{@link ConcurrentSkipListMap}に保持し、範囲検索もロックを取らずに行います。</li>
+ *   <li>件数は{@link LongAdder}で保持し、バージョンの作成時に全件を数えません。</li>
+ * </ul>
+ *
+ * <p>同時に登録された出目は、採番の順と異なる順で参照できるようになる場合があります。
+ * これはAUTO_INCREMENTの列に複数のトランザクションが同時に登録する場合と同じです。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@Repository
+@Profile("memory")
+@SuppressWarnings("PMD.CommentSize")
+public class InMemoryDiceRepository implements DiceRepository {
+
+  /**
+   * 出目履歴を、IDの昇順に保持するマップです。.
+   */
+  private final ConcurrentSkipListMap<Integer, DiceEntity> rows = new ConcurrentSkipListMap<>();
+
+  /**
+   * 最後に採番したIDです。.
+   */
+  private final AtomicInteger sequence = new AtomicInteger();
+
+  /**
+   * 保持している出目履歴の件数です。.
+   */
+  private final LongAdder count = new LongAdder();
+
+  // {{{ public InMemoryDiceRepository()
+  /**
+   * InMemoryDiceRepositoryのコンストラクタです。.
+   */
+  public InMemoryDiceRepository() {
+    // Constructor for InMemoryDiceRepository
+  }
+  // }}}
+
+  // {{{ public List<DiceEntity> insertAll(List<Integer> values)
+  /**
+   * 複数のサイコロの出目に連続したIDを採番して保存し、登録されたレコードを登録順に返します。.
+   *
+   * @param values 登録するサイコロの出目のリスト
+   * @return 採番されたIDと更新日時を含む、登録したレコードのリスト
+   */
+  @Override
+  public List<DiceEntity> insertAll(final List<Integer> values) {
+    UtilEnvInfo.logStartClassMethod();
+
+    final int firstId = this.sequence.getAndAdd(values.size()) + 1;
+    final LocalDateTime now = this.currentTime();
+    final List<DiceEntity> dices = new ArrayList<>(values.size());
+    for (int i = 0; i < values.size(); i++) {
+      final DiceEntity dice = new DiceEntity(firstId + i, values.get(i), now);
+      this.rows.put(dice.id(), dice);
+      dices.add(dice);
+    }
+    this.count.add(values.size());
+    return dices;
+  }
+  // }}}
+
+  // {{{ public List<DiceEntity> find(...)
+  /**
+   * 指定されたIDの範囲の出目履歴を、マップの部分ビューから最大{@code limit}件返します。.
+   *
+   * @param optBefore 指定したIDより古い履歴を取得するためのオプションのカーソル
+   * @param optAfter 指定したIDより新しい履歴を取得するためのオプションのカーソル
+   * @param ascending IDの昇順で取得する場合は{@code true}、降順で取得する場合は{@code false}
+   * @param limit 取得する最大件数
+   * @return 指定された並びの出目履歴のリスト
+   */
+  @Override
+  public List<DiceEntity> find(
+      final Optional<Integer> optBefore,
+      final Optional<Integer> optAfter,
+      final boolean ascending,
+      final int limit) {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (optBefore.isPresent() && optAfter.isPresent() && optBefore.get() <= optAfter.get()) {
+      return List.of();
+    }
+    NavigableMap<Integer, DiceEntity> range = this.rows;
+    if (optAfter.isPresent()) {
+      range = range.tailMap(optAfter.get(), false);
+    }
+    if (optBefore.isPresent()) {
+      range = range.headMap(optBefore.get(), false);
+    }
+
+    final List<DiceEntity> result = new ArrayList<>();
+    final Iterator<DiceEntity> iterator =
+        (ascending ? range : range.descendingMap()).values().iterator();
+    while (iterator.hasNext() && result.size() < limit) {
+      result.add(iterator.next());
+    }
+    return result;
+  }
+  // }}}
+
+  // {{{ public long exportDescending(int afterId, Consumer<DiceEntity> consumer)
+  /**
+   * 指定したIDより大きいIDの出目履歴を、IDの降順で1件ずつ受け渡します。.
+   *
+   * @param afterId このIDより大きいIDの履歴を受け渡す
+   * @param consumer 出目履歴を1件ずつ受け取る処理
+   * @return 受け渡した履歴の件数
+   */
+  @Override
+  public long exportDescending(final int afterId, final Consumer<DiceEntity> consumer) {
+    UtilEnvInfo.logStartClassMethod();
+
+    long exported = 0;
+    for (final DiceEntity dice : this.rows.tailMap(afterId, false).descendingMap().values()) {
+      consumer.accept(dice);
+      exported++;
+    }
+    return exported;
+  }
+  // }}}
+
+  // {{{ public String version()
+  /**
+   * 保持している最大のIDと件数から、出目履歴のバージョンを返します。.
+   *
+   * @return 最大のIDと件数を連結したバージョン
+   */
+  @Override
+  public String version() {
+    final Map.Entry<Integer, DiceEntity> last = this.rows.lastEntry();
+    return (last == null ? 0 : last.getKey()) + "-" + this.count.sum();
+  }
+  // }}}
+
+  // {{{ public List<DiceFaceCount> countFaces(int afterId)
+  /**
+   * 指定したIDより大きいIDの出目履歴を、出目ごとに集計して返します。.
+   *
+   * @param afterId このIDより大きいIDの履歴を集計する
+   * @return 1件以上登録された出目ごとの集計結果
+   */
+  @Override
+  public List<DiceFaceCount> countFaces(final int afterId) {
+    UtilEnvInfo.logStartClassMethod();
+
+    final FaceCounter counter = new FaceCounter();
+    this.rows.tailMap(afterId, false).values().forEach(counter::add);
+    return counter.toList();
+  }
+  // }}}
+
+  // {{{ public LocalDateTime currentTime()
+  /**
+   * 秒の精度に切り捨てた現在日時を返します。.
+   *
+   * @return 現在日時
+   */
+  @Override
+  public LocalDateTime currentTime() {
+    return LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+  }
+  // }}}
+
+  // {{{ public int deleteUpTo(int upperId, int limit)
+  /**
+   * 指定したID以下の出目履歴を、古い順に最大{@code limit}件削除します。.
+   *
+   * @param upperId 削除する範囲の上限（このIDを含む）
+   * @param limit 削除する最大件数
+   * @return 削除した件数
+   */
+  @Override
+  public int deleteUpTo(final int upperId, final int limit) {
+    int deleted = 0;
+    for (final Integer id : this.rows.headMap(upperId, true).keySet()) {
+      if (deleted >= limit) {
+        break;
+      }
+      if (this.remove(id)) {
+        deleted++;
+      }
+    }
+    return deleted;
+  }
+  // }}}
+
+  // {{{ public int deleteRange(int firstId, int lastId)
+  /**
+   * 指定されたIDの範囲の出目履歴を削除します。.
+   *
+   * @param firstId 削除する範囲の下限（このIDを含む）
+   * @param lastId 削除する範囲の上限（このIDを含む）
+   * @return 削除した件数
+   */
+  @Override
+  public int deleteRange(final int firstId, final int lastId) {
+    if (firstId > lastId) {
+      return 0;
+    }
+    int deleted = 0;
+    for (final Integer id : this.rows.subMap(firstId, true, lastId, true).keySet()) {
+      if (this.remove(id)) {
+        deleted++;
+      }
+    }
+    return deleted;
+  }
+  // }}}
+
+  // {{{ private boolean remove(int id)
+  private boolean remove(final int id) {
+    if (this.rows.remove(id) == null) {
+      return false;
+    }
+    this.count.decrement();
+    return true;
+  }
+  // }}}
+
+}
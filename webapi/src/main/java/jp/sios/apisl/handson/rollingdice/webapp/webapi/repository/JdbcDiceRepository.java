@@ -0,0 +1,346 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.HandsOnException;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * サイコロの出目履歴を、JdbcTemplateを使用してdiceテーブルに保存するクラスです。.
+ *
+ * <p>{@code memory}と{@code mmap}のいずれのプロファイルも指定されない場合に有効になる、既定の実装です。</p>
+ * <ul>
+ *   <li>複数の出目は、1つのトランザクション内で複数行のINSERT文としてまとめて登録します。</li>
+ *   <li>更新日時はデータベースの時計で記録されるため、登録後に同じトランザクション内で読み直します。</li>
+ *   <li>エクスポートでは、JDBCドライバーに行単位のストリーミング取得を指示します。</li>
+ * </ul>
+ *
+ * <p>読み取りの処理はトランザクションを開始しないため、
+ * 呼び出し元の{@code @Transactional(readOnly = true)}の範囲内で実行した場合はレプリカに振り分けられます。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@Repository
+@Profile("!memory & !mmap")
+@SuppressWarnings("PMD.CommentSize")
+public class JdbcDiceRepository implements DiceRepository {
+
+  /**
+   * 履歴のエクスポート時にJDBCドライバーへ指定するフェッチサイズです。.
+   *
+   * <p>MySQL Connector/Jでは、前方参照のみ・読み取り専用の文に{@link Integer#MIN_VALUE}を指定すると、
+   * 結果セットを一括で読み込まずに1行ずつストリーミングで取得します。</p>
+   */
+  private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+  /**
+   * ログ出力を行うためのロガーインスタンスです。.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(JdbcDiceRepository.class);
+
+  /**
+   * データベース操作を行うためのJdbcTemplateインスタンスです。.
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * まとめた登録を1つのトランザクションで実行するためのTransactionTemplateインスタンスです。.
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * 履歴のエクスポート時にJDBCドライバーへ指定するフェッチサイズです。.
+   *
+   * <p>既定値はMySQL Connector/Jのストリーミング取得を指示する値です。
+   * 負の値を受け付けないデータベースを使う場合は正の値を指定します。</p>
+   *
+   * <p>設定キー: {@code app.dice.export.fetch-size}</p>
+   */
+  @Value("${app.dice.export.fetch-size:" + STREAMING_FETCH_SIZE + "}")
+  private int exportFetchSize = STREAMING_FETCH_SIZE;
+
+  // {{{ public JdbcDiceRepository(JdbcTemplate jdbcTemplate, TransactionTemplate ...)
+  /**
+   * JdbcDiceRepositoryのコンストラクタです。.
+   *
+   * @param jdbcTemplate データベース操作に使用するJdbcTemplate
+   * @param transactionTemplate まとめた登録のトランザクション制御に使用するTransactionTemplate
+   */
+  public JdbcDiceRepository(
+      final JdbcTemplate jdbcTemplate, final TransactionTemplate transactionTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+  }
+  // }}}
+
+  // {{{ public List<DiceEntity> insertAll(List<Integer> values)
+  /**
+   * 複数のサイコロの出目を1つのINSERT文でまとめて登録し、登録されたレコードを登録順に返します。.
+   *
+   * @param values 登録するサイコロの出目のリスト
+   * @return 採番されたIDと更新日時を含む、登録したレコードのリスト
+   */
+  @Override
+  public List<DiceEntity> insertAll(final List<Integer> values) {
+    UtilEnvInfo.logStartClassMethod();
+
+    return this.transactionTemplate.execute(status -> {
+      final List<Integer> ids = this.insertRows(values);
+      return this.selectRows(ids);
+    });
+  }
+  // }}}
+
+  // {{{ private List<Integer> insertRows(List<Integer> values)
+  private List<Integer> insertRows(final List<Integer> values) {
+    final String sql = "INSERT INTO dice(value) VALUES"
+        + String.join(",", Collections.nCopies(values.size(), "(?)"));
+    LOGGER.info("The sql to execute is: '{}'. And the values to give are: '{}'", sql, values);
+
+    final KeyHolder keyHolder = new GeneratedKeyHolder();
+    final int number = this.jdbcTemplate.update(con -> {
+      final PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+      for (int i = 0; i < values.size(); i++) {
+        ps.setInt(i + 1, values.get(i));
+      }
+      return ps;
+    }, keyHolder);
+    LOGGER.info("The record count of the executed sql is: '{}'", number);
+
+    final List<Integer> ids = new ArrayList<>(values.size());
+    for (final Map<String, Object> keys : keyHolder.getKeyList()) {
+      ids.add(((Number) keys.values().iterator().next()).intValue());
+    }
+    if (ids.size() != values.size()) {
+      throw new HandsOnException("The number of generated keys did not match the inserted rows: "
+          + ids.size() + " / " + values.size());
+    }
+    return ids;
+  }
+  // }}}
+
+  // {{{ private List<DiceEntity> selectRows(List<Integer> ids)
+  private List<DiceEntity> selectRows(final List<Integer> ids) {
+    // The updated_at column is filled by the database clock, so read the rows back once per batch
+    // to hand the exact records to the callers and the event listeners.
+    final String sql = "SELECT id, value, updated_at FROM dice WHERE id BETWEEN ? AND ?;";
+    final int fromId = Collections.min(ids);
+    final int toId = Collections.max(ids);
+    LOGGER.info("The sql to execute is: '{}'. And the values to give are: '{}' - '{}'",
+        sql, fromId, toId);
+
+    final Map<Integer, DiceEntity> rows = this.jdbcTemplate
+        .query(sql, DiceRowMapper.INSTANCE, fromId, toId)
+        .stream()
+        .collect(Collectors.toMap(DiceEntity::id, Function.identity()));
+
+    final List<DiceEntity> dices = new ArrayList<>(ids.size());
+    for (final Integer id : ids) {
+      final DiceEntity dice = rows.get(id);
+      if (dice == null) {
+        throw new HandsOnException("The inserted row was not found: id=" + id);
+      }
+      dices.add(dice);
+    }
+    return dices;
+  }
+  // }}}
+
+  // {{{ public List<DiceEntity> find(...)
+  /**
+   * 指定されたIDの範囲の出目履歴を、主キーの範囲検索で最大{@code limit}件返します。.
+   *
+   * @param optBefore 指定したIDより古い履歴を取得するためのオプションのカーソル
+   * @param optAfter 指定したIDより新しい履歴を取得するためのオプションのカーソル
+   * @param ascending IDの昇順で取得する場合は{@code true}、降順で取得する場合は{@code false}
+   * @param limit 取得する最大件数
+   * @return 指定された並びの出目履歴のリスト
+   */
+  @Override
+  public List<DiceEntity> find(
+      final Optional<Integer> optBefore,
+      final Optional<Integer> optAfter,
+      final boolean ascending,
+      final int limit) {
+    UtilEnvInfo.logStartClassMethod();
+
+    final StringBuilder sql = new StringBuilder("SELECT id, value, updated_at FROM dice");
+    final List<Object> args = new ArrayList<>();
+    if (optBefore.isPresent() && optAfter.isPresent()) {
+      sql.append(" WHERE id < ? AND id > ?");
+      args.add(optBefore.get());
+      args.add(optAfter.get());
+    } else if (optBefore.isPresent()) {
+      sql.append(" WHERE id < ?");
+      args.add(optBefore.get());
+    } else if (optAfter.isPresent()) {
+      sql.append(" WHERE id > ?");
+      args.add(optAfter.get());
+    }
+    sql.append(ascending ? " ORDER BY id ASC LIMIT ?;" : " ORDER BY id DESC LIMIT ?;");
+    args.add(limit);
+    LOGGER.info("The sql to execute is '{}'. And the values to give are: '{}'", sql, args);
+
+    final List<DiceEntity> rows = this.jdbcTemplate.query(
+        sql.toString(), DiceRowMapper.INSTANCE, args.toArray());
+    LOGGER.info("The record count of the executed sql is: '{}'", rows.size());
+
+    return rows;
+  }
+  // }}}
+
+  // {{{ public long exportDescending(int afterId, Consumer<DiceEntity> consumer)
+  /**
+   * 指定したIDより大きいIDの出目履歴を、IDの降順で1件ずつ受け渡します。.
+   *
+   * <p>JDBCドライバーには行単位のストリーミング取得を指示するため、
+   * 件数に関わらずヒープの使用量は一定に保たれます。</p>
+   *
+   * @param afterId このIDより大きいIDの履歴を受け渡す
+   * @param consumer 出目履歴を1件ずつ受け取る処理
+   * @return 受け渡した履歴の件数
+   */
+  @Override
+  public long exportDescending(final int afterId, final Consumer<DiceEntity> consumer) {
+    UtilEnvInfo.logStartClassMethod();
+
+    final String sql = afterId > 0
+        ? "SELECT id, value, updated_at FROM dice WHERE id > ? ORDER BY id DESC;"
+        : "SELECT id, value, updated_at FROM dice ORDER BY id DESC;";
+    LOGGER.info("The sql to execute is '{}'. And the fetch size is: '{}'",
+        sql, this.exportFetchSize);
+
+    final AtomicLong count = new AtomicLong();
+    this.jdbcTemplate.query(
+        con -> {
+          final PreparedStatement ps = con.prepareStatement(
+              sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+          ps.setFetchSize(this.exportFetchSize);
+          if (afterId > 0) {
+            ps.setInt(1, afterId);
+          }
+          return ps;
+        },
+        (RowCallbackHandler) rs ->
+            consumer.accept(DiceRowMapper.INSTANCE.mapRow(rs, (int) count.getAndIncrement())));
+    LOGGER.info("The record count of the exported sql is: '{}'", count.get());
+
+    return count.get();
+  }
+  // }}}
+
+  // {{{ public String version()
+  /**
+   * diceテーブルの最大のIDと件数を問い合わせ、出目履歴のバージョンを返します。.
+   *
+   * @return 最大のIDと件数を連結したバージョン
+   */
+  @Override
+  public String version() {
+    UtilEnvInfo.logStartClassMethod();
+
+    final String sql = "SELECT MAX(id) AS last_id, COUNT(*) AS count FROM dice;";
+    LOGGER.info("The sql to execute is '{}'", sql);
+    final String version = this.jdbcTemplate.queryForObject(sql,
+        (rs, rowNum) -> rs.getInt("last_id") + "-" + rs.getLong("count"));
+    LOGGER.info("The version of the history is: '{}'", version);
+
+    return version;
+  }
+  // }}}
+
+  // {{{ public List<DiceFaceCount> countFaces(int afterId)
+  /**
+   * diceテーブルを出目ごとにGROUP BYで集計して返します。.
+   *
+   * @param afterId このIDより大きいIDの履歴を集計する
+   * @return 1件以上登録された出目ごとの集計結果
+   */
+  @Override
+  public List<DiceFaceCount> countFaces(final int afterId) {
+    UtilEnvInfo.logStartClassMethod();
+
+    final RowMapper<DiceFaceCount> mapper = (rs, rowNum) -> new DiceFaceCount(
+        rs.getInt("value"),
+        rs.getLong("count"),
+        rs.getObject("last_rolled_at", LocalDateTime.class),
+        rs.getInt("last_id"));
+
+    if (afterId <= 0) {
+      final String sql = "SELECT value, COUNT(*) AS count, MAX(updated_at) AS last_rolled_at, "
+          + "MAX(id) AS last_id FROM dice GROUP BY value;";
+      LOGGER.info("The sql to execute is '{}'", sql);
+      return this.jdbcTemplate.query(sql, mapper);
+    }
+    final String sql = "SELECT value, COUNT(*) AS count, MAX(updated_at) AS last_rolled_at, "
+        + "MAX(id) AS last_id FROM dice WHERE id > ? GROUP BY value;";
+    LOGGER.info("The sql to execute is '{}'. And the values to give are: '{}'", sql, afterId);
+    return this.jdbcTemplate.query(sql, mapper, afterId);
+  }
+  // }}}
+
+  // {{{ public LocalDateTime currentTime()
+  /**
+   * 更新日時と同じデータベースの時計の現在日時を返します。.
+   *
+   * @return データベースの現在日時
+   */
+  @Override
+  public LocalDateTime currentTime() {
+    return this.jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP;", LocalDateTime.class);
+  }
+  // }}}
+
+  // {{{ public int deleteUpTo(int upperId, int limit)
+  /**
+   * 指定したID以下の出目履歴を、最大{@code limit}件削除します。.
+   *
+   * @param upperId 削除する範囲の上限（このIDを含む）
+   * @param limit 削除する最大件数
+   * @return 削除した件数
+   */
+  @Override
+  public int deleteUpTo(final int upperId, final int limit) {
+    return this.jdbcTemplate.update("DELETE FROM dice WHERE id <= ? LIMIT ?;", upperId, limit);
+  }
+  // }}}
+
+  // {{{ public int deleteRange(int firstId, int lastId)
+  /**
+   * 指定されたIDの範囲の出目履歴を削除します。.
+   *
+   * @param firstId 削除する範囲の下限（このIDを含む）
+   * @param lastId 削除する範囲の上限（このIDを含む）
+   * @return 削除した件数
+   */
+  @Override
+  public int deleteRange(final int firstId, final int lastId) {
+    return this.jdbcTemplate.update(
+        "DELETE FROM dice WHERE id BETWEEN ? AND ?;", firstId, lastId);
+  }
+  // }}}
+
+}
@@ -0,0 +1,555 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/**
+ * サイコロの出目履歴を、メモリーマップドファイル上の固定長のログに追記するクラスです。.
+ *
+ * <p>{@code mmap}プロファイルで有効になり、データベースを使わずに履歴をプロセスの再起動後も保持します。
+ * ログは16バイトの見出しに続けて、以下の16バイトの固定長のレコードを登録順に並べます。</p>
+ * <ul>
+ *   <li>ID（4バイト）、出目（1バイト）、状態（1バイト: 未使用・有効・削除済み）、予備（2バイト）</li>
+ *   <li>更新日時（8バイト: UTCで符号化したエポックミリ秒）</li>
+ * </ul>
+ *
+ * <p>IDは1から始まる連番で、レコードの位置はIDから直接求められるため、範囲検索に索引を必要としません。
+ * 削除はレコードの状態を書き換えるだけで、ファイルを縮めることはありません。
+ * ファイルは設定された件数ごとに分けてマップし、容量が不足した場合に次の範囲をマップします。</p>
+ *
+ * <p>書き込みはこのインスタンス内で直列化し、読み取りはロックを取らずに、
+ * 書き込み済みの件数より前のレコードだけを参照します。
+ * 書き込みの都度ディスクへ同期しない既定の設定では、OSが異常終了した場合に直近の履歴が失われる場合があります。
+ * 起動時には、先頭から最初の未使用のレコードまでを有効な履歴として読み込みます。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@Repository
+@Profile("mmap")
+@SuppressWarnings("PMD.CommentSize")
+public class MappedDiceRepository implements DiceRepository {
+
+  /**
+   * 1件のレコードの大きさ（バイト）です。.
+   */
+  /* default */ static final int RECORD_SIZE = 16;
+
+  /**
+   * ファイルの先頭の見出しの大きさ（バイト）です。.
+   */
+  private static final int HEADER_SIZE = 16;
+
+  /**
+   * ログのファイルであることを示す識別子です。.
+   */
+  private static final int MAGIC = 0x444C_4F47;
+
+  /**
+   * ログの形式のバージョンです。.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * レコード内のIDの位置です。.
+   */
+  private static final int ID_OFFSET = 0;
+
+  /**
+   * レコード内の出目の位置です。.
+   */
+  private static final int VALUE_OFFSET = 4;
+
+  /**
+   * レコード内の状態の位置です。.
+   */
+  private static final int STATE_OFFSET = 5;
+
+  /**
+   * レコード内の更新日時の位置です。.
+   */
+  private static final int TIME_OFFSET = 8;
+
+  /**
+   * まだ書き込まれていないレコードの状態です。.
+   */
+  private static final byte STATE_EMPTY = 0;
+
+  /**
+   * 有効なレコードの状態です。.
+   */
+  private static final byte STATE_LIVE = 1;
+
+  /**
+   * 削除されたレコードの状態です。.
+   */
+  private static final byte STATE_DELETED = 2;
+
+  /**
+   * 1回でマップするレコードの既定の件数です（16MiB）。.
+   */
+  private static final int DEFAULT_CHUNK_RECORDS = 1 << 20;
+
+  /**
+   * ログ出力を行うためのロガーインスタンスです。.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(MappedDiceRepository.class);
+
+  /**
+   * ログのファイルのパスです。.
+   *
+   * <p>設定キー: {@code app.dice.repository.mmap.path}</p>
+   */
+  @Value("${app.dice.repository.mmap.path:dice.log}")
+  private String path = "dice.log";
+
+  /**
+   * 1回でマップするレコードの件数です。.
+   *
+   * <p>設定キー: {@code app.dice.repository.mmap.chunk-records}</p>
+   */
+  @Value("${app.dice.repository.mmap.chunk-records:" + DEFAULT_CHUNK_RECORDS + "}")
+  private int chunkRecords = DEFAULT_CHUNK_RECORDS;
+
+  /**
+   * 登録の都度、書き込んだ範囲をディスクに同期するかどうかのフラグです。.
+   *
+   * <p>設定キー: {@code app.dice.repository.mmap.sync}</p>
+   */
+  @Value("${app.dice.repository.mmap.sync:false}")
+  private boolean sync;
+
+  /**
+   * ログのファイルのチャネルです。.
+   */
+  private FileChannel channel;
+
+  /**
+   * ファイルを先頭から順にマップしたバッファーの配列です。.
+   */
+  private volatile MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+  /**
+   * 書き込み済みのレコードの件数（最後に採番したID）です。.
+   */
+  private volatile int size;
+
+  /**
+   * 有効なレコードの件数です。.
+   */
+  private volatile long liveCount;
+
+  /**
+   * 有効なレコードが存在し得る最初の位置です。これより前のレコードは全て削除済みです。.
+   */
+  private volatile int firstLive;
+
+  // {{{ public MappedDiceRepository()
+  /**
+   * MappedDiceRepositoryのコンストラクタです。.
+   */
+  public MappedDiceRepository() {
+    // Constructor for MappedDiceRepository
+  }
+  // }}}
+
+  // {{{ public void open()
+  /**
+   * ログのファイルを開き、書き込み済みのレコードを数えます。.
+   *
+   * <p>ファイルが存在しない場合は、見出しだけを持つ空のログを作成します。</p>
+   */
+  @PostConstruct
+  public synchronized void open() {
+    UtilEnvInfo.logStartClassMethod();
+
+    final Path file = Paths.get(this.path).toAbsolutePath();
+    try {
+      if (file.getParent() != null) {
+        Files.createDirectories(file.getParent());
+      }
+      this.channel = FileChannel.open(file,
+          StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      if (this.channel.size() < HEADER_SIZE) {
+        this.writeHeader();
+      } else {
+        this.checkHeader(file);
+      }
+      this.recover();
+    } catch (IOException ex) {
+      this.close();
+      throw new UncheckedIOException("Failed to open the dice log: " + file, ex);
+    }
+    LOGGER.info("The dice log was opened: path='{}', lastId='{}', count='{}'",
+        file, this.size, this.liveCount);
+  }
+  // }}}
+
+  // {{{ public void close()
+  /**
+   * マップした内容をディスクに同期し、ログのファイルを閉じます。.
+   */
+  @PreDestroy
+  public synchronized void close() {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (this.channel == null) {
+      return;
+    }
+    for (final MappedByteBuffer chunk : this.chunks) {
+      chunk.force();
+    }
+    try {
+      this.channel.close();
+    } catch (IOException ex) {
+      LOGGER.warn("!!! Failed to close the dice log !!!", ex);
+    }
+    this.channel = null;
+  }
+  // }}}
+
+  // {{{ public synchronized List<DiceEntity> insertAll(List<Integer> values)
+  /**
+   * 複数のサイコロの出目を、連続したIDのレコードとしてログの末尾に追記します。.
+   *
+   * <p>レコードの状態を最後に書き込み、書き込み済みの件数を更新してから読み取りに公開します。</p>
+   *
+   * @param values 登録するサイコロの出目のリスト
+   * @return 採番されたIDと更新日時を含む、登録したレコードのリスト
+   */
+  @Override
+  public synchronized List<DiceEntity> insertAll(final List<Integer> values) {
+    UtilEnvInfo.logStartClassMethod();
+
+    final int first = this.size;
+    final int end = Math.addExact(first, values.size());
+    this.ensureCapacity(end);
+
+    final LocalDateTime now = this.currentTime();
+    final long millis = now.toInstant(ZoneOffset.UTC).toEpochMilli();
+    final List<DiceEntity> dices = new ArrayList<>(values.size());
+    for (int index = first; index < end; index++) {
+      final int value = values.get(index - first);
+      final MappedByteBuffer chunk = this.chunk(index);
+      final int offset = this.offset(index);
+      chunk.putInt(offset + ID_OFFSET, index + 1);
+      chunk.put(offset + VALUE_OFFSET, (byte) value);
+      chunk.putLong(offset + TIME_OFFSET, millis);
+      chunk.put(offset + STATE_OFFSET, STATE_LIVE);
+      dices.add(new DiceEntity(index + 1, value, now));
+    }
+    if (this.sync && end > first) {
+      for (int k = first / this.chunkRecords; k <= (end - 1) / this.chunkRecords; k++) {
+        this.chunks[k].force();
+      }
+    }
+    this.liveCount += values.size();
+    this.size = end;
+    return dices;
+  }
+  // }}}
+
+  // {{{ public List<DiceEntity> find(...)
+  /**
+   * 指定されたIDの範囲の出目履歴を、IDから求めた位置のレコードを順に読んで最大{@code limit}件返します。.
+   *
+   * @param optBefore 指定したIDより古い履歴を取得するためのオプションのカーソル
+   * @param optAfter 指定したIDより新しい履歴を取得するためのオプションのカーソル
+   * @param ascending IDの昇順で取得する場合は{@code true}、降順で取得する場合は{@code false}
+   * @param limit 取得する最大件数
+   * @return 指定された並びの出目履歴のリスト
+   */
+  @Override
+  public List<DiceEntity> find(
+      final Optional<Integer> optBefore,
+      final Optional<Integer> optAfter,
+      final boolean ascending,
+      final int limit) {
+    UtilEnvInfo.logStartClassMethod();
+
+    // The record of id N is at index N - 1, so id > after means index >= after.
+    final int fromIndex = Math.max(optAfter.orElse(0), this.firstLive);
+    final int toIndex = Math.min(optBefore.map(before -> before - 1).orElse(Integer.MAX_VALUE),
+        this.size);
+    final List<DiceEntity> rows = new ArrayList<>();
+    if (ascending) {
+      for (int index = fromIndex; index < toIndex && rows.size() < limit; index++) {
+        this.readLive(index, rows::add);
+      }
+    } else {
+      for (int index = toIndex - 1; index >= fromIndex && rows.size() < limit; index--) {
+        this.readLive(index, rows::add);
+      }
+    }
+    return rows;
+  }
+  // }}}
+
+  // {{{ public long exportDescending(int afterId, Consumer<DiceEntity> consumer)
+  /**
+   * 指定したIDより大きいIDの出目履歴を、ログの末尾から1件ずつ受け渡します。.
+   *
+   * @param afterId このIDより大きいIDの履歴を受け渡す
+   * @param consumer 出目履歴を1件ずつ受け取る処理
+   * @return 受け渡した履歴の件数
+   */
+  @Override
+  public long exportDescending(final int afterId, final Consumer<DiceEntity> consumer) {
+    UtilEnvInfo.logStartClassMethod();
+
+    final int fromIndex = Math.max(afterId, this.firstLive);
+    long exported = 0;
+    for (int index = this.size - 1; index >= fromIndex; index--) {
+      if (this.readLive(index, consumer)) {
+        exported++;
+      }
+    }
+    return exported;
+  }
+  // }}}
+
+  // {{{ public String version()
+  /**
+   * 最後に採番したIDと有効なレコードの件数から、出目履歴のバージョンを返します。.
+   *
+   * @return 最大のIDと件数を連結したバージョン
+   */
+  @Override
+  public String version() {
+    return this.size + "-" + this.liveCount;
+  }
+  // }}}
+
+  // {{{ public List<DiceFaceCount> countFaces(int afterId)
+  /**
+   * 指定したIDより大きいIDの出目履歴を、ログを順に読んで出目ごとに集計します。.
+   *
+   * @param afterId このIDより大きいIDの履歴を集計する
+   * @return 1件以上登録された出目ごとの集計結果
+   */
+  @Override
+  public List<DiceFaceCount> countFaces(final int afterId) {
+    UtilEnvInfo.logStartClassMethod();
+
+    final FaceCounter counter = new FaceCounter();
+    final int end = this.size;
+    for (int index = Math.max(afterId, this.firstLive); index < end; index++) {
+      this.readLive(index, counter::add);
+    }
+    return counter.toList();
+  }
+  // }}}
+
+  // {{{ public LocalDateTime currentTime()
+  /**
+   * 秒の精度に切り捨てた現在日時を返します。.
+   *
+   * @return 現在日時
+   */
+  @Override
+  public LocalDateTime currentTime() {
+    return LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+  }
+  // }}}
+
+  // {{{ public synchronized int deleteUpTo(int upperId, int limit)
+  /**
+   * 指定したID以下の出目履歴を、古い順に最大{@code limit}件削除済みにします。.
+   *
+   * @param upperId 削除する範囲の上限（このIDを含む）
+   * @param limit 削除する最大件数
+   * @return 削除した件数
+   */
+  @Override
+  public synchronized int deleteUpTo(final int upperId, final int limit) {
+    final int end = Math.min(upperId, this.size);
+    int deleted = 0;
+    for (int index = this.firstLive; index < end && deleted < limit; index++) {
+      if (this.markDeleted(index)) {
+        deleted++;
+      }
+    }
+    this.afterDelete(deleted);
+    return deleted;
+  }
+  // }}}
+
+  // {{{ public synchronized int deleteRange(int firstId, int lastId)
+  /**
+   * 指定されたIDの範囲の出目履歴を削除済みにします。.
+   *
+   * @param firstId 削除する範囲の下限（このIDを含む）
+   * @param lastId 削除する範囲の上限（このIDを含む）
+   * @return 削除した件数
+   */
+  @Override
+  public synchronized int deleteRange(final int firstId, final int lastId) {
+    final int end = Math.min(lastId, this.size);
+    int deleted = 0;
+    for (int index = Math.max(firstId - 1, this.firstLive); index < end; index++) {
+      if (this.markDeleted(index)) {
+        deleted++;
+      }
+    }
+    this.afterDelete(deleted);
+    return deleted;
+  }
+  // }}}
+
+  // {{{ private void writeHeader()
+  private void writeHeader() throws IOException {
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+        .putInt(MAGIC)
+        .putInt(VERSION)
+        .putInt(RECORD_SIZE)
+        .putInt(0)
+        .flip();
+    this.channel.write(header, 0L);
+    this.channel.force(true);
+  }
+  // }}}
+
+  // {{{ private void checkHeader(Path file)
+  private void checkHeader(final Path file) throws IOException {
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    this.channel.read(header, 0L);
+    header.flip();
+    if (header.getInt() != MAGIC) {
+      throw new IOException("Not a dice log: " + file);
+    }
+    final int version = header.getInt();
+    if (version != VERSION || header.getInt() != RECORD_SIZE) {
+      throw new IOException("Unsupported version of the dice log: " + version);
+    }
+  }
+  // }}}
+
+  // {{{ private void recover()
+  private void recover() throws IOException {
+    final long capacity = Math.min(
+        (this.channel.size() - HEADER_SIZE) / RECORD_SIZE, Integer.MAX_VALUE);
+    this.ensureCapacity((int) capacity);
+
+    int index = 0;
+    long live = 0;
+    int first = -1;
+    while (index < capacity) {
+      final byte state = this.state(index);
+      if (state == STATE_EMPTY) {
+        break;
+      }
+      if (state == STATE_LIVE) {
+        live++;
+        if (first < 0) {
+          first = index;
+        }
+      }
+      index++;
+    }
+    this.liveCount = live;
+    this.firstLive = first < 0 ? index : first;
+    this.size = index;
+  }
+  // }}}
+
+  // {{{ private void ensureCapacity(int records)
+  private void ensureCapacity(final int records) {
+    MappedByteBuffer[] current = this.chunks;
+    if ((long) current.length * this.chunkRecords >= records) {
+      return;
+    }
+    final long chunkBytes = (long) this.chunkRecords * RECORD_SIZE;
+    try {
+      while ((long) current.length * this.chunkRecords < records) {
+        final MappedByteBuffer chunk = this.channel.map(FileChannel.MapMode.READ_WRITE,
+            HEADER_SIZE + current.length * chunkBytes, chunkBytes);
+        current = Arrays.copyOf(current, current.length + 1);
+        current[current.length - 1] = chunk;
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to extend the dice log", ex);
+    }
+    this.chunks = current;
+  }
+  // }}}
+
+  // {{{ private boolean readLive(int index, Consumer<DiceEntity> consumer)
+  private boolean readLive(final int index, final Consumer<DiceEntity> consumer) {
+    final MappedByteBuffer chunk = this.chunk(index);
+    final int offset = this.offset(index);
+    if (chunk.get(offset + STATE_OFFSET) != STATE_LIVE) {
+      return false;
+    }
+    consumer.accept(new DiceEntity(
+        chunk.getInt(offset + ID_OFFSET),
+        chunk.get(offset + VALUE_OFFSET),
+        LocalDateTime.ofInstant(
+            Instant.ofEpochMilli(chunk.getLong(offset + TIME_OFFSET)), ZoneOffset.UTC)));
+    return true;
+  }
+  // }}}
+
+  // {{{ private byte state(int index)
+  private byte state(final int index) {
+    return this.chunk(index).get(this.offset(index) + STATE_OFFSET);
+  }
+  // }}}
+
+  // {{{ private boolean markDeleted(int index)
+  private boolean markDeleted(final int index) {
+    if (this.state(index) != STATE_LIVE) {
+      return false;
+    }
+    this.chunk(index).put(this.offset(index) + STATE_OFFSET, STATE_DELETED);
+    return true;
+  }
+  // }}}
+
+  // {{{ private void afterDelete(int deleted)
+  private void afterDelete(final int deleted) {
+    this.liveCount -= deleted;
+    int first = this.firstLive;
+    while (first < this.size && this.state(first) != STATE_LIVE) {
+      first++;
+    }
+    this.firstLive = first;
+  }
+  // }}}
+
+  // {{{ private MappedByteBuffer chunk(int index)
+  private MappedByteBuffer chunk(final int index) {
+    return this.chunks[index / this.chunkRecords];
+  }
+  // }}}
+
+  // {{{ private int offset(int index)
+  private int offset(final int index) {
+    return index % this.chunkRecords * RECORD_SIZE;
+  }
+  // }}}
+
+}
@@ -0,0 +1,308 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * diceテーブルから移された古い出目履歴を、ローカルディスク上のセグメントファイルで保持するクラスです。.
+ *
+ * <p>{@link DiceRetentionJob}が古い出目履歴をIDの昇順にまとめて追記し、
+ * 履歴の取得処理はIDの範囲でdiceテーブルとこのアーカイブを組み合わせて参照します。</p>
+ * <ul>
+ *   <li>{@link #archivedUpTo()}以下のIDの履歴はアーカイブに、それより大きいIDの履歴はdiceテーブルにあります。</li>
+ *   <li>セグメントファイルの見出しだけをメモリー上の索引に保持し、出目履歴は参照時に展開します。</li>
+ *   <li>直近に展開したセグメントファイルの内容は、{@link DiceColumns}として設定された件数だけメモリー上に保持します。</li>
+ * </ul>
+ *
+ * <p>アーカイブの境界が変わる間に問い合わせた結果は不完全な場合があるため、
+ * 参照する側は問い合わせの前後で{@link #archivedUpTo()}が変わっていないことを確認します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@Component
+@SuppressWarnings("PMD.CommentSize")
+public class DiceArchive {
+
+  /**
+   * アーカイブが保持しているセグメントファイルの数を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_SEGMENTS = "dice.archive.segments";
+
+  /**
+   * 展開した内容をメモリー上に保持するセグメントファイルの既定の数です。.
+   */
+  private static final int DEFAULT_CACHE_SEGMENTS = 4;
+
+  /**
+   * ログ出力を行うためのロガーインスタンスです。.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiceArchive.class);
+
+  /**
+   * セグメントファイルの見出し情報を、最小のIDをキーとして保持する索引です。.
+   */
+  private final NavigableMap<Integer, DiceSegment> segments = new ConcurrentSkipListMap<>();
+
+  /**
+   * 直近に展開したセグメントファイルの内容を、参照の古い順に保持するマップです。.
+   */
+  private final Map<Path, DiceColumns> decoded = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * セグメントファイルを保存するディレクトリーです。.
+   *
+   * <p>設定キー: {@code app.dice.archive.directory}</p>
+   */
+  @Value("${app.dice.archive.directory:archive}")
+  private String directory = "archive";
+
+  /**
+   * 展開した内容をメモリー上に保持するセグメントファイルの数です。.
+   *
+   * <p>設定キー: {@code app.dice.archive.cache-segments}</p>
+   */
+  @Value("${app.dice.archive.cache-segments:" + DEFAULT_CACHE_SEGMENTS + "}")
+  private int cacheSegments = DEFAULT_CACHE_SEGMENTS;
+
+  /**
+   * アーカイブに移された出目履歴の最大のIDです。.
+   */
+  private volatile int archivedUpTo;
+
+  // {{{ public DiceArchive(MeterRegistry meterRegistry)
+  /**
+   * DiceArchiveのコンストラクタです。.
+   *
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   */
+  public DiceArchive(final MeterRegistry meterRegistry) {
+    Gauge.builder(METRIC_SEGMENTS, this.segments, Map::size)
+        .description("The number of segment files holding the archived dice rows")
+        .register(meterRegistry);
+  }
+  // }}}
+
+  // {{{ public void init()
+  /**
+   * ディレクトリー上のセグメントファイルの見出しを読み込み、索引を作成します。.
+   *
+   * <p>書き込み中に中断されたセグメントファイルは、内容が完全であれば
+   * diceテーブルから削除された後の可能性があるため復元し、不完全であれば削除される前のものであるため破棄します。</p>
+   */
+  @PostConstruct
+  public void init() {
+    UtilEnvInfo.logStartClassMethod();
+
+    final Path dir = this.directory();
+    if (!Files.isDirectory(dir)) {
+      LOGGER.info("The dice archive is empty, because the directory does not exist: '{}'", dir);
+      return;
+    }
+    try (Stream<Path> files = Files.list(dir)) {
+      for (final Path file : files.toList()) {
+        if (DiceSegmentFile.isTemporary(file)) {
+          final Optional<DiceSegment> recovered = DiceSegmentFile.recover(file);
+          if (recovered.isPresent()) {
+            LOGGER.warn("The interrupted segment file was recovered: '{}'", file);
+            this.segments.put(recovered.get().firstId(), recovered.get());
+          } else {
+            LOGGER.warn("The interrupted segment file was deleted: '{}'", file);
+            Files.delete(file);
+          }
+        } else if (DiceSegmentFile.isSegment(file)) {
+          final DiceSegment segment = DiceSegmentFile.readHeader(file);
+          this.segments.put(segment.firstId(), segment);
+        }
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to open the dice archive: " + dir, ex);
+    }
+    if (!this.segments.isEmpty()) {
+      this.archivedUpTo = this.segments.lastEntry().getValue().lastId();
+    }
+    LOGGER.info("The dice archive was opened: directory='{}', segments='{}', archivedUpTo='{}'",
+        dir, this.segments.size(), this.archivedUpTo);
+  }
+  // }}}
+
+  // {{{ public int archivedUpTo()
+  /**
+   * アーカイブに移された出目履歴の最大のIDを返します。.
+   *
+   * @return アーカイブに移された出目履歴の最大のID（アーカイブが空の場合は0）
+   */
+  public int archivedUpTo() {
+    return this.archivedUpTo;
+  }
+  // }}}
+
+  // {{{ public synchronized DiceSegment append(List<DiceEntity> rows)
+  /**
+   * 出目履歴を新しいセグメントファイルとしてアーカイブに追記します。.
+   *
+   * <p>セグメントファイルとその名前をディスクに同期してから索引に加えるため、
+   * このメソッドから戻った後であれば、diceテーブルから削除しても履歴は失われません。</p>
+   *
+   * @param rows IDの昇順に並んだ、{@link #archivedUpTo()}より大きいIDの1件以上の出目履歴
+   * @return 追記したセグメントファイルの見出し情報
+   * @throws IOException セグメントファイルの書き込みに失敗した場合
+   */
+  public synchronized DiceSegment append(final List<DiceEntity> rows) throws IOException {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (rows.isEmpty() || rows.get(0).id() <= this.archivedUpTo) {
+      throw new IllegalArgumentException(
+          "The rows must follow the archived id: '" + this.archivedUpTo + "'");
+    }
+    final Path dir = this.directory();
+    Files.createDirectories(dir);
+    final DiceSegment segment = DiceSegmentFile.write(dir, rows);
+    this.segments.put(segment.firstId(), segment);
+    this.archivedUpTo = segment.lastId();
+    LOGGER.info("The dice rows were archived: path='{}', count='{}'",
+        segment.path(), segment.count());
+    return segment;
+  }
+  // }}}
+
+  // {{{ public List<DiceEntity> find(long lowerId, long upperId, int limit, boolean ascending)
+  /**
+   * 指定されたIDの範囲に含まれるアーカイブ済みの出目履歴を返します。.
+   *
+   * @param lowerId 取得する範囲の下限（このIDは含まない）
+   * @param upperId 取得する範囲の上限（このIDは含まない）
+   * @param limit 取得する最大件数
+   * @param ascending IDの昇順で取得する場合は{@code true}、降順で取得する場合は{@code false}
+   * @return 指定された並びの出目履歴のリスト
+   */
+  public List<DiceEntity> find(
+      final long lowerId, final long upperId, final int limit, final boolean ascending) {
+    final List<DiceEntity> rows = new ArrayList<>();
+    for (final DiceSegment segment : this.overlapping(lowerId, upperId, ascending)) {
+      final DiceColumns columns = this.columns(segment);
+      for (int i = 0; i < columns.size() && rows.size() < limit; i++) {
+        final int index = ascending ? i : columns.size() - 1 - i;
+        final int id = columns.id(index);
+        if (id > lowerId && id < upperId) {
+          rows.add(columns.get(index));
+        }
+      }
+      if (rows.size() >= limit) {
+        break;
+      }
+    }
+    return rows;
+  }
+  // }}}
+
+  // {{{ public long export(long upperId, Consumer<DiceEntity> consumer)
+  /**
+   * 指定されたID以下のアーカイブ済みの出目履歴を、IDの降順で1件ずつ受け渡します。.
+   *
+   * <p>一度に展開するのは1つのセグメントファイルのみで、展開した内容はメモリー上に保持しません。</p>
+   *
+   * @param upperId 受け渡す範囲の上限（このIDを含む）
+   * @param consumer 出目履歴を1件ずつ受け取る処理
+   * @return 受け渡した履歴の件数
+   */
+  public long export(final long upperId, final Consumer<DiceEntity> consumer) {
+    long count = 0;
+    for (final DiceSegment segment : this.overlapping(Long.MIN_VALUE, upperId + 1, false)) {
+      final DiceColumns columns = this.read(segment);
+      for (int i = columns.size() - 1; i >= 0; i--) {
+        if (columns.id(i) <= upperId) {
+          consumer.accept(columns.get(i));
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+  // }}}
+
+  // {{{ public List<DiceSegment> segments()
+  /**
+   * アーカイブが保持しているセグメントファイルの見出し情報を、IDの昇順で返します。.
+   *
+   * @return セグメントファイルの見出し情報のリスト
+   */
+  public List<DiceSegment> segments() {
+    return List.copyOf(this.segments.values());
+  }
+  // }}}
+
+  // {{{ private Iterable<DiceSegment> overlapping(long lowerId, long upperId, boolean ascending)
+  private Iterable<DiceSegment> overlapping(
+      final long lowerId, final long upperId, final boolean ascending) {
+    final NavigableMap<Integer, DiceSegment> head = upperId > Integer.MAX_VALUE
+        ? this.segments : this.segments.headMap((int) upperId, false);
+    final List<DiceSegment> result = new ArrayList<>();
+    for (final DiceSegment segment : head.descendingMap().values()) {
+      if (segment.lastId() <= lowerId) {
+        break;
+      }
+      result.add(segment);
+    }
+    return ascending ? result.reversed() : result;
+  }
+  // }}}
+
+  // {{{ private DiceColumns columns(DiceSegment segment)
+  private DiceColumns columns(final DiceSegment segment) {
+    synchronized (this.decoded) {
+      final DiceColumns cached = this.decoded.get(segment.path());
+      if (cached != null) {
+        return cached;
+      }
+    }
+    final DiceColumns columns = this.read(segment);
+    if (this.cacheSegments > 0) {
+      synchronized (this.decoded) {
+        this.decoded.put(segment.path(), columns);
+        if (this.decoded.size() > this.cacheSegments) {
+          this.decoded.remove(this.decoded.keySet().iterator().next());
+        }
+      }
+    }
+    return columns;
+  }
+  // }}}
+
+  // {{{ private DiceColumns read(DiceSegment segment)
+  private DiceColumns read(final DiceSegment segment) {
+    try {
+      return DiceSegmentFile.readColumns(segment);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Failed to read the segment file: " + segment.path(), ex);
+    }
+  }
+  // }}}
+
+  // {{{ private Path directory()
+  private Path directory() {
+    return Paths.get(this.directory).toAbsolutePath();
+  }
+  // }}}
+
+}
@@ -0,0 +1,317 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+
+/**
+ * 出目履歴を、列ごとのプリミティブ型の配列で保持するクラスです。.
+ *
+ * <p>{@link DiceEntity}のリストでは1件ごとにレコードと{@link LocalDateTime}のオブジェクトを保持しますが、
+ * このクラスはIDを{@code int[]}、出目を{@code byte[]}、日時をエポックミリ秒の{@code long[]}で保持し、
+ * 1件あたり13バイトで済ませます。多くの履歴をメモリー上に保持するキャッシュなどで使用します。</p>
+ * <ul>
+ *   <li>{@link DiceEntity}は、{@link #get(int)}で取り出す時にだけ生成します。</li>
+ *   <li>IDの比較など、1つの列だけを参照する処理ではオブジェクトを生成しません。</li>
+ *   <li>JSONには{@link DiceEntity}のリストと同じ形式で、レコードを生成せずに直接書き出します。</li>
+ * </ul>
+ *
+ * <p>日時は時差を持たないため、UTCのエポックミリ秒として壁時計の時刻を符号化します。
+ * ミリ秒より細かい精度は保持しません（diceテーブルの日時は秒の精度です）。
+ * このクラスはスレッドセーフではないため、複数のスレッドから参照する場合は呼び出し元で排他制御を行います。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@JsonSerialize(using = DiceColumns.Serializer.class)
+@SuppressWarnings("PMD.CommentSize")
+public final class DiceColumns {
+
+  /**
+   * 日時が無いことを表す値です。.
+   */
+  private static final long NULL_TIME = Long.MIN_VALUE;
+
+  /**
+   * 配列を拡張する際の最小の容量です。.
+   */
+  private static final int MIN_CAPACITY = 16;
+
+  /**
+   * 出目履歴のIDの列です。.
+   */
+  private int[] ids;
+
+  /**
+   * サイコロの出目の列です。.
+   */
+  private byte[] values;
+
+  /**
+   * サイコロを振った日時（UTCのエポックミリ秒）の列です。.
+   */
+  private long[] updatedAtMillis;
+
+  /**
+   * 保持している出目履歴の件数です。.
+   */
+  private int size;
+
+  // {{{ public DiceColumns(int initialCapacity)
+  /**
+   * 空のDiceColumnsを生成します。.
+   *
+   * @param initialCapacity あらかじめ確保する件数
+   */
+  public DiceColumns(final int initialCapacity) {
+    this.ids = new int[initialCapacity];
+    this.values = new byte[initialCapacity];
+    this.updatedAtMillis = new long[initialCapacity];
+  }
+  // }}}
+
+  // {{{ public static DiceColumns ofSize(int size)
+  /**
+   * 指定された件数の空の行を持つDiceColumnsを生成します。.
+   *
+   * <p>固定長のバッファーとして、{@link #set(int, DiceEntity)}で任意の位置に書き込む場合に使用します。</p>
+   *
+   * @param size 行の件数
+   * @return IDと出目が0、日時が無い行を持つDiceColumns
+   */
+  public static DiceColumns ofSize(final int size) {
+    final DiceColumns columns = new DiceColumns(size);
+    Arrays.fill(columns.updatedAtMillis, NULL_TIME);
+    columns.size = size;
+    return columns;
+  }
+  // }}}
+
+  // {{{ public static DiceColumns of(List<DiceEntity> rows)
+  /**
+   * 出目履歴のリストと同じ並びのDiceColumnsを生成します。.
+   *
+   * @param rows 出目履歴のリスト
+   * @return 出目履歴のリストと同じ内容のDiceColumns
+   */
+  public static DiceColumns of(final List<DiceEntity> rows) {
+    final DiceColumns columns = new DiceColumns(rows.size());
+    rows.forEach(columns::add);
+    return columns;
+  }
+  // }}}
+
+  // {{{ public int size()
+  /**
+   * 保持している出目履歴の件数を返します。.
+   *
+   * @return 出目履歴の件数
+   */
+  public int size() {
+    return this.size;
+  }
+  // }}}
+
+  // {{{ public void add(int id, int value, LocalDateTime updatedAt)
+  /**
+   * 出目履歴を末尾に追加します。.
+   *
+   * @param id 出目の履歴ID
+   * @param value サイコロの出目（1～6の整数）
+   * @param updatedAt サイコロを振った日時（無い場合はnull）
+   */
+  public void add(final int id, final int value, final LocalDateTime updatedAt) {
+    if (this.size == this.ids.length) {
+      this.grow();
+    }
+    this.size++;
+    this.write(this.size - 1, id, value, updatedAt);
+  }
+  // }}}
+
+  // {{{ public void add(DiceEntity dice)
+  /**
+   * 出目履歴を末尾に追加します。.
+   *
+   * @param dice 追加する出目履歴
+   */
+  public void add(final DiceEntity dice) {
+    this.add(dice.id(), dice.value(), dice.updatedAt());
+  }
+  // }}}
+
+  // {{{ public void set(int index, DiceEntity dice)
+  /**
+   * 指定された位置の出目履歴を置き換えます。.
+   *
+   * @param index 置き換える位置
+   * @param dice 新しい出目履歴
+   */
+  public void set(final int index, final DiceEntity dice) {
+    Objects.checkIndex(index, this.size);
+    this.write(index, dice.id(), dice.value(), dice.updatedAt());
+  }
+  // }}}
+
+  // {{{ public void copy(int from, int to)
+  /**
+   * ある位置の出目履歴を、オブジェクトを生成せずに別の位置へ複写します。.
+   *
+   * @param from 複写元の位置
+   * @param to 複写先の位置
+   */
+  public void copy(final int from, final int to) {
+    Objects.checkIndex(from, this.size);
+    Objects.checkIndex(to, this.size);
+    this.ids[to] = this.ids[from];
+    this.values[to] = this.values[from];
+    this.updatedAtMillis[to] = this.updatedAtMillis[from];
+  }
+  // }}}
+
+  // {{{ public int id(int index)
+  /**
+   * 指定された位置の出目履歴のIDを返します。.
+   *
+   * @param index 位置
+   * @return 出目の履歴ID
+   */
+  public int id(final int index) {
+    Objects.checkIndex(index, this.size);
+    return this.ids[index];
+  }
+  // }}}
+
+  // {{{ public int value(int index)
+  /**
+   * 指定された位置の出目履歴の出目を返します。.
+   *
+   * @param index 位置
+   * @return サイコロの出目
+   */
+  public int value(final int index) {
+    Objects.checkIndex(index, this.size);
+    return this.values[index];
+  }
+  // }}}
+
+  // {{{ public LocalDateTime updatedAt(int index)
+  /**
+   * 指定された位置の出目履歴の日時を返します。.
+   *
+   * @param index 位置
+   * @return サイコロを振った日時（無い場合はnull）
+   */
+  public LocalDateTime updatedAt(final int index) {
+    Objects.checkIndex(index, this.size);
+    final long millis = this.updatedAtMillis[index];
+    return millis == NULL_TIME
+        ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+  }
+  // }}}
+
+  // {{{ public DiceEntity get(int index)
+  /**
+   * 指定された位置の出目履歴を{@link DiceEntity}として返します。.
+   *
+   * @param index 位置
+   * @return 出目履歴
+   */
+  public DiceEntity get(final int index) {
+    return new DiceEntity(this.id(index), this.value(index), this.updatedAt(index));
+  }
+  // }}}
+
+  // {{{ public List<DiceEntity> toList()
+  /**
+   * 保持している出目履歴を、同じ並びの{@link DiceEntity}のリストで返します。.
+   *
+   * @return 出目履歴のリスト
+   */
+  public List<DiceEntity> toList() {
+    final List<DiceEntity> rows = new ArrayList<>(this.size);
+    for (int i = 0; i < this.size; i++) {
+      rows.add(this.get(i));
+    }
+    return rows;
+  }
+  // }}}
+
+  // {{{ private void write(int index, int id, int value, LocalDateTime updatedAt)
+  private void write(
+      final int index, final int id, final int value, final LocalDateTime updatedAt) {
+    if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+      throw new IllegalArgumentException("The dice value is out of range: '" + value + "'");
+    }
+    this.ids[index] = id;
+    this.values[index] = (byte) value;
+    this.updatedAtMillis[index] = updatedAt == null
+        ? NULL_TIME : updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+  }
+  // }}}
+
+  // {{{ private void grow()
+  private void grow() {
+    final int capacity = Math.max(MIN_CAPACITY, this.ids.length + (this.ids.length >> 1));
+    this.ids = Arrays.copyOf(this.ids, capacity);
+    this.values = Arrays.copyOf(this.values, capacity);
+    this.updatedAtMillis = Arrays.copyOf(this.updatedAtMillis, capacity);
+  }
+  // }}}
+
+  /**
+   * DiceColumnsを、{@link DiceEntity}の配列と同じ形式のJSONに書き出すクラスです。.
+   */
+  public static final class Serializer extends StdSerializer<DiceColumns> {
+
+    private static final long serialVersionUID = 1L;
+
+    // {{{ public Serializer()
+    /**
+     * Serializerのコンストラクタです。.
+     */
+    public Serializer() {
+      super(DiceColumns.class);
+    }
+    // }}}
+
+    // {{{ public void serialize(DiceColumns columns, JsonGenerator generator, ...)
+    /**
+     * 出目履歴を1件ずつJSONのオブジェクトとして書き出します。.
+     *
+     * <p>日時はObjectMapperに設定された{@link LocalDateTime}の形式で書き出します。</p>
+     *
+     * @param columns 書き出すDiceColumns
+     * @param generator 書き出し先のJsonGenerator
+     * @param provider 日時の書き出しに使用するSerializerProvider
+     * @throws IOException 書き出しに失敗した場合
+     */
+    @Override
+    public void serialize(
+        final DiceColumns columns,
+        final JsonGenerator generator,
+        final SerializerProvider provider) throws IOException {
+      generator.writeStartArray(columns, columns.size);
+      for (int i = 0; i < columns.size; i++) {
+        generator.writeStartObject();
+        generator.writeNumberField("id", columns.ids[i]);
+        generator.writeNumberField("value", columns.values[i]);
+        provider.defaultSerializeField("updatedAt", columns.updatedAt(i), generator);
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+    }
+    // }}}
+
+  }
+
+}
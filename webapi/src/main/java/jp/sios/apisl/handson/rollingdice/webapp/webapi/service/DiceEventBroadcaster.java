@@ -0,0 +1,488 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.event.DiceInsertedEvent;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 登録された出目履歴を、Server-Sent Eventsで購読しているクライアントへ配信するクラスです。.
+ *
+ * <p>{@link DiceInsertedEvent}を受け取るたびに、出目履歴を1件ずつ{@code dice}イベントとして配信します。</p>
+ * <ul>
+ *   <li>購読しているクライアントごとに、設定された件数までのイベントを保持するバッファーを持ちます。</li>
+ *   <li>購読者への振り分けは配信用の単一のスレッドで行い、登録処理のスレッドは購読者の数によらず待ちません。</li>
+ *   <li>イベントの送信は購読者ごとに配信用の仮想スレッドで行い、他の処理のスレッドを占有しません。</li>
+ *   <li>バッファーが溢れた、または送信が一定時間終わらない遅いクライアントは切断し、
+ *       再接続時に取りこぼしを補わせます。</li>
+ *   <li>待機中の接続はスレッドを占有せず、一定の間隔で送信するハートビートで切断を検知します。</li>
+ * </ul>
+ *
+ * <p>再接続時の{@code Last-Event-ID}より後の出目履歴は、{@link RecentDiceCache}が保持している範囲で
+ * バッファーの件数まで、新たに登録された出目履歴より先に再送します。キャッシュが保持していない場合は、
+ * 履歴を読み直すよう{@code reset}イベントを送信します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@Component
+@SuppressWarnings({"PMD.CommentSize", "PMD.DoNotUseThreads"})
+public class DiceEventBroadcaster {
+
+  /**
+   * 購読しているクライアントの数を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_SUBSCRIBERS = "dice.stream.subscribers";
+
+  /**
+   * バッファーが溢れて切断したクライアントの数を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_DROPPED = "dice.stream.dropped";
+
+  /**
+   * 出目履歴を配信するイベントの名前です。.
+   */
+  public static final String EVENT_NAME = "dice";
+
+  /**
+   * 取りこぼした出目履歴を再送できないことを通知するイベントの名前です。.
+   */
+  public static final String RESET_EVENT_NAME = "reset";
+
+  /**
+   * クライアントごとに保持するイベントの既定の件数です。.
+   */
+  private static final int DEFAULT_BUFFER_SIZE = 64;
+
+  /**
+   * 同時に購読できるクライアントの既定の数です。.
+   */
+  private static final int DEFAULT_MAX_SUBSCRIBERS = 10_000;
+
+  /**
+   * 接続を維持するために送信するハートビートです。.
+   */
+  private static final Set<DataWithMediaType> HEARTBEAT =
+      Collections.unmodifiableSet(SseEmitter.event().comment("heartbeat").build());
+
+  /**
+   * ログ出力を行うためのロガーインスタンスです。.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiceEventBroadcaster.class);
+
+  /**
+   * 購読しているクライアントの集合です。.
+   */
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+  /**
+   * 再接続時に取りこぼした出目履歴を取得するRecentDiceCacheインスタンスです。.
+   */
+  private final RecentDiceCache recentDiceCache;
+
+  /**
+   * 出目履歴をJSONへ書き出すためのObjectMapperインスタンスです。.
+   */
+  private final ObjectMapper objectMapper;
+
+  /**
+   * 出目履歴を購読者のバッファーへ登録の順に振り分ける、単一のスレッドのExecutorです。.
+   */
+  private Executor dispatcher = Executors.newSingleThreadExecutor(
+      Thread.ofPlatform().name("dice-stream-dispatcher").daemon().factory());
+
+  /**
+   * イベントの送信を購読者ごとに仮想スレッドで実行するExecutorです。.
+   *
+   * <p>アプリケーションのタスク実行用のExecutorと分け、送信の遅いクライアントが
+   * 他の非同期処理のスレッドを占有しないようにします。</p>
+   */
+  private Executor sender = Executors.newThreadPerTaskExecutor(
+      Thread.ofVirtual().name("dice-stream-sender-", 0).factory());
+
+  /**
+   * バッファーが溢れて切断したクライアントの数です。.
+   */
+  private final Counter droppedCounter;
+
+  /**
+   * クライアントごとに保持するイベントの件数です。.
+   *
+   * <p>設定キー: {@code app.dice.stream.buffer-size}</p>
+   */
+  @Value("${app.dice.stream.buffer-size:" + DEFAULT_BUFFER_SIZE + "}")
+  private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+  /**
+   * 同時に購読できるクライアントの数です。.
+   *
+   * <p>設定キー: {@code app.dice.stream.max-subscribers}</p>
+   */
+  @Value("${app.dice.stream.max-subscribers:" + DEFAULT_MAX_SUBSCRIBERS + "}")
+  private int maxSubscribers = DEFAULT_MAX_SUBSCRIBERS;
+
+  /**
+   * 1つの接続を維持する時間です。経過するとクライアントが再接続します。.
+   *
+   * <p>設定キー: {@code app.dice.stream.timeout}</p>
+   */
+  @Value("${app.dice.stream.timeout:30m}")
+  private Duration timeout = Duration.ofMinutes(30);
+
+  /**
+   * ハートビートを送信する間隔です。.
+   *
+   * <p>設定キー: {@code app.dice.stream.heartbeat-interval}</p>
+   */
+  @Value("${app.dice.stream.heartbeat-interval:30s}")
+  private Duration heartbeatInterval = Duration.ofSeconds(30);
+
+  /**
+   * 1回の送信を待つ時間です。経過してもクライアントが受け取らない場合は切断します。.
+   *
+   * <p>設定キー: {@code app.dice.stream.send-timeout}</p>
+   */
+  @Value("${app.dice.stream.send-timeout:10s}")
+  private Duration sendTimeout = Duration.ofSeconds(10);
+
+  /**
+   * ハートビートを定期的に送信するスケジューラーです。.
+   */
+  private ScheduledExecutorService scheduler;
+
+  // {{{ public DiceEventBroadcaster(RecentDiceCache recentDiceCache, ...)
+  /**
+   * DiceEventBroadcasterのコンストラクタです。.
+   *
+   * @param recentDiceCache 取りこぼした出目履歴の取得に使用するRecentDiceCache
+   * @param objectMapper 出目履歴をJSONへ書き出すためのObjectMapper
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   */
+  public DiceEventBroadcaster(
+      final RecentDiceCache recentDiceCache,
+      final ObjectMapper objectMapper,
+      final MeterRegistry meterRegistry) {
+    this.recentDiceCache = recentDiceCache;
+    this.objectMapper = objectMapper;
+    Gauge.builder(METRIC_SUBSCRIBERS, this.subscribers, Set::size)
+        .description("The number of clients subscribing to the dice stream")
+        .register(meterRegistry);
+    this.droppedCounter = Counter.builder(METRIC_DROPPED)
+        .description("The number of slow clients disconnected from the dice stream")
+        .register(meterRegistry);
+  }
+  // }}}
+
+  // {{{ public void start()
+  /**
+   * ハートビートの定期的な送信と、送信が終わらないクライアントの検知を開始します。.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    UtilEnvInfo.logStartClassMethod();
+
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("dice-stream-heartbeat").daemon().factory());
+    final long intervalMillis = this.heartbeatInterval.toMillis();
+    this.scheduler.scheduleWithFixedDelay(
+        this::sendHeartbeat, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    final long timeoutMillis = this.sendTimeout.toMillis();
+    this.scheduler.scheduleWithFixedDelay(
+        this::closeStalled, timeoutMillis, timeoutMillis, TimeUnit.MILLISECONDS);
+  }
+  // }}}
+
+  // {{{ public void stop()
+  /**
+   * ハートビートの送信と振り分けを停止し、すべての購読を終了します。.
+   */
+  @PreDestroy
+  public void stop() {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (this.scheduler != null) {
+      this.scheduler.shutdownNow();
+    }
+    if (this.dispatcher instanceof ExecutorService service) {
+      service.shutdownNow();
+    }
+    this.subscribers.forEach(this::close);
+    // Let the sends already scheduled complete their emitters.
+    if (this.sender instanceof ExecutorService service) {
+      service.shutdown();
+    }
+  }
+  // }}}
+
+  // {{{ public Optional<SseEmitter> subscribe(Optional<Integer> optLastEventId)
+  /**
+   * 出目履歴の配信を購読する接続を作成します。.
+   *
+   * @param optLastEventId クライアントが最後に受け取ったイベントのID（再接続時のみ）
+   * @return 出目履歴を配信するSseEmitter（購読しているクライアントが上限に達している場合は空）
+   */
+  public Optional<SseEmitter> subscribe(final Optional<Integer> optLastEventId) {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (this.subscribers.size() >= this.maxSubscribers) {
+      LOGGER.warn("The dice stream is full, the subscription was refused: subscribers='{}'",
+          this.subscribers.size());
+      return Optional.empty();
+    }
+
+    final SseEmitter emitter = new SseEmitter(this.timeout.toMillis());
+    final Subscriber subscriber =
+        new Subscriber(emitter, this.bufferSize, optLastEventId.orElse(0));
+    emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(ex -> this.subscribers.remove(subscriber));
+
+    // Hold the rolls inserted meanwhile until the replay is queued, so that they follow it.
+    synchronized (subscriber) {
+      this.subscribers.add(subscriber);
+      optLastEventId.ifPresent(lastId -> this.replay(subscriber, lastId));
+    }
+    LOGGER.info("The dice stream was subscribed: lastEventId='{}', subscribers='{}'",
+        optLastEventId, this.subscribers.size());
+    return Optional.of(emitter);
+  }
+  // }}}
+
+  // {{{ public void onDiceInserted(DiceInsertedEvent event)
+  /**
+   * 登録された出目履歴を、購読しているすべてのクライアントのバッファーに追加するよう依頼します。.
+   *
+   * <p>購読者への振り分けは配信用のスレッドで行うため、登録処理のスレッドは購読者の数によらず待ちません。</p>
+   *
+   * @param event 登録された出目履歴を保持する{@link DiceInsertedEvent}オブジェクト
+   */
+  @EventListener
+  public void onDiceInserted(final DiceInsertedEvent event) {
+    if (this.subscribers.isEmpty()) {
+      return;
+    }
+    this.dispatcher.execute(() -> this.dispatch(event.dices()));
+  }
+  // }}}
+
+  // {{{ /* default */ int subscriberCount()
+  /**
+   * 購読しているクライアントの数を返します。.
+   *
+   * @return 購読しているクライアントの数
+   */
+  /* default */ int subscriberCount() {
+    return this.subscribers.size();
+  }
+  // }}}
+
+  // {{{ private void dispatch(List<DiceEntity> dices)
+  private void dispatch(final List<DiceEntity> dices) {
+    for (final DiceEntity dice : dices) {
+      // Serialize once and share the frame between the subscribers.
+      this.toEvent(dice).ifPresent(
+          frame -> this.subscribers.forEach(s -> this.offerDice(s, dice.id(), frame)));
+    }
+  }
+  // }}}
+
+  // {{{ private void sendHeartbeat()
+  private void sendHeartbeat() {
+    this.subscribers.forEach(subscriber -> this.offer(subscriber, HEARTBEAT));
+  }
+  // }}}
+
+  // {{{ private void closeStalled()
+  private void closeStalled() {
+    final long now = System.nanoTime();
+    final long timeoutNanos = this.sendTimeout.toNanos();
+    for (final Subscriber subscriber : this.subscribers) {
+      final long sendingSince = subscriber.sendingSince;
+      if (sendingSince != 0L && now - sendingSince > timeoutNanos) {
+        LOGGER.warn("The stalled subscriber was disconnected, because a send took over: '{}'",
+            this.sendTimeout);
+        this.droppedCounter.increment();
+        // The blocked send ends when the connection times out, and then completes the emitter.
+        this.close(subscriber);
+      }
+    }
+  }
+  // }}}
+
+  // {{{ private void replay(Subscriber subscriber, int lastId)
+  private void replay(final Subscriber subscriber, final int lastId) {
+    final Optional<List<DiceEntity>> optRows =
+        this.recentDiceCache.find(Optional.empty(), Optional.of(lastId), this.bufferSize);
+    if (optRows.isEmpty()) {
+      LOGGER.info("The missed dices are not cached, the subscriber was asked to reset: "
+          + "lastEventId='{}'", lastId);
+      this.offer(subscriber, Collections.unmodifiableSet(SseEmitter.event()
+          .name(RESET_EVENT_NAME)
+          .data(String.valueOf(lastId))
+          .build()));
+      return;
+    }
+    for (final DiceEntity dice : optRows.get()) {
+      this.toEvent(dice).ifPresent(frame -> this.offerDice(subscriber, dice.id(), frame));
+    }
+  }
+  // }}}
+
+  // {{{ private Optional<Set<DataWithMediaType>> toEvent(DiceEntity dice)
+  private Optional<Set<DataWithMediaType>> toEvent(final DiceEntity dice) {
+    try {
+      return Optional.of(Collections.unmodifiableSet(SseEmitter.event()
+          .id(String.valueOf(dice.id()))
+          .name(EVENT_NAME)
+          .data(this.objectMapper.writeValueAsString(dice))
+          .build()));
+    } catch (JsonProcessingException ex) {
+      LOGGER.warn("!!! Failed to write a dice to the stream: id='{}' !!!", dice.id(), ex);
+      return Optional.empty();
+    }
+  }
+  // }}}
+
+  // {{{ private void offerDice(Subscriber subscriber, int id, Set<DataWithMediaType> event)
+  private void offerDice(final Subscriber subscriber, final int id,
+      final Set<DataWithMediaType> event) {
+    synchronized (subscriber) {
+      // Skip the rolls already queued by the replay, the client ignores them out of order.
+      if (id <= subscriber.lastId) {
+        return;
+      }
+      subscriber.lastId = id;
+      this.offer(subscriber, event);
+    }
+  }
+  // }}}
+
+  // {{{ private void offer(Subscriber subscriber, Set<DataWithMediaType> event)
+  private void offer(final Subscriber subscriber, final Set<DataWithMediaType> event) {
+    if (!subscriber.queue.offer(event)) {
+      LOGGER.warn("The slow subscriber was disconnected, because its buffer was full: size='{}'",
+          this.bufferSize);
+      this.droppedCounter.increment();
+      this.close(subscriber);
+      return;
+    }
+    this.schedule(subscriber);
+  }
+  // }}}
+
+  // {{{ private void close(Subscriber subscriber)
+  private void close(final Subscriber subscriber) {
+    // Never complete the emitter here, it waits for a send blocked on the slow client.
+    subscriber.closed = true;
+    this.subscribers.remove(subscriber);
+    this.schedule(subscriber);
+  }
+  // }}}
+
+  // {{{ private void schedule(Subscriber subscriber)
+  private void schedule(final Subscriber subscriber) {
+    if (subscriber.draining.compareAndSet(false, true)) {
+      this.sender.execute(() -> this.drain(subscriber));
+    }
+  }
+  // }}}
+
+  // {{{ private void drain(Subscriber subscriber)
+  private void drain(final Subscriber subscriber) {
+    do {
+      Set<DataWithMediaType> event;
+      while (!subscriber.closed && (event = subscriber.queue.poll()) != null) {
+        subscriber.sendingSince = System.nanoTime();
+        try {
+          subscriber.emitter.send(event);
+        } catch (IOException | IllegalStateException ex) {
+          LOGGER.debug("The subscriber was disconnected: {}", ex.getMessage());
+          subscriber.closed = true;
+          this.subscribers.remove(subscriber);
+        } finally {
+          subscriber.sendingSince = 0L;
+        }
+      }
+      if (subscriber.closed) {
+        // Keep the draining flag, so that the emitter is completed only once.
+        subscriber.queue.clear();
+        subscriber.emitter.complete();
+        return;
+      }
+      subscriber.draining.set(false);
+    } while ((subscriber.closed || !subscriber.queue.isEmpty())
+        && subscriber.draining.compareAndSet(false, true));
+  }
+  // }}}
+
+  /**
+   * 購読しているクライアントごとの接続とバッファーを保持するクラスです。.
+   */
+  private static final class Subscriber {
+
+    /**
+     * クライアントへイベントを送信するSseEmitterです。.
+     */
+    private final SseEmitter emitter;
+
+    /**
+     * 送信を待っているイベントのバッファーです。.
+     */
+    private final BlockingQueue<Set<DataWithMediaType>> queue;
+
+    /**
+     * バッファーのイベントを送信する処理が実行中かどうかのフラグです。.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * 購読が終了したかどうかのフラグです。.
+     */
+    private volatile boolean closed;
+
+    /**
+     * 実行中の送信を開始した時刻（{@link System#nanoTime()}）です。送信中でない場合は0です。.
+     */
+    private volatile long sendingSince;
+
+    /**
+     * バッファーに追加した出目履歴の最大のIDです。このインスタンスのロックで保護します。.
+     */
+    private int lastId;
+
+    private Subscriber(final SseEmitter emitter, final int bufferSize, final int lastId) {
+      this.emitter = emitter;
+      this.queue = new ArrayBlockingQueue<>(bufferSize);
+      this.lastId = lastId;
+    }
+
+  }
+
+}
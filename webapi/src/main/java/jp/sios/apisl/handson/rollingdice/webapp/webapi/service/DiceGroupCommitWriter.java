@@ -0,0 +1,399 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.event.DiceInsertedEvent;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.HandsOnException;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.repository.DiceRepository;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * サイコロの出目をまとめて保存先へ登録するグループコミットの書き込みクラスです。.
+ *
+ * <p>同時に到着した登録要求を、最大待機時間、または最大件数に達するまでキューに集め、
+ * {@link DiceRepository#insertAll(List)}で1回の書き込みとしてまとめて登録します。
+ * 呼び出し元には、コミットが完了した後に登録されたレコードが返却されます。</p>
+ * <ul>
+ *   <li>グループコミットが無効な場合は、呼び出し元のスレッドで1件ずつ登録します。</li>
+ *   <li>既にまとまった複数の出目は、キューを経由せずに1回の書き込みで登録します。</li>
+ *   <li>1回の書き込み件数と、キューでの待機時間をメトリクスとして記録します。</li>
+ *   <li>コミットの完了後、{@link DiceInsertedEvent}を発行してから呼び出し元へ返却するため、
+ *       呼び出し元は直後の取得で自身の出目を読み出せます。
+ *       イベントの受信側で例外が発生しても、登録済みの出目を失敗として返却しません。</li>
+ *   <li>キューへの追加とコミットの完了は、いずれも最大待機時間までしか待ちません。</li>
+ *   <li>停止時や書き込みスレッドの中断時にキューに残っている登録要求は、書き込むか失敗として完了させ、
+ *       呼び出し元を待たせたままにしません。</li>
+ * </ul>
+ *
+ * @author Toshiharu Konuma
+ */
+@Component
+@SuppressWarnings({"PMD.CommentSize", "PMD.DoNotUseThreads"})
+public class DiceGroupCommitWriter {
+
+  /**
+   * 1回の書き込みでまとめた件数を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_BATCH_SIZE = "dice.insert.batch.size";
+
+  /**
+   * 登録要求がキューで待機した時間を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_BATCH_WAIT = "dice.insert.batch.wait";
+
+  /**
+   * 書き込みスレッドがキューを確認する間隔（ミリ秒）です。.
+   */
+  private static final long POLL_INTERVAL_MILLIS = 100L;
+
+  /**
+   * 停止時に、書き込みスレッドの終了を待つ最大時間（ミリ秒）です。.
+   */
+  private static final long STOP_TIMEOUT_MILLIS = 10_000L;
+
+  /**
+   * ログ出力を行うためのロガーインスタンスです。.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiceGroupCommitWriter.class);
+
+  /**
+   * 出目履歴を保存するためのDiceRepositoryインスタンスです。.
+   */
+  private final DiceRepository diceRepository;
+
+  /**
+   * 登録の完了を通知するイベントを発行するためのApplicationEventPublisherインスタンスです。.
+   */
+  private final ApplicationEventPublisher eventPublisher;
+
+  /**
+   * 1回の書き込みでまとめた件数の分布です。.
+   */
+  private final DistributionSummary batchSizeSummary;
+
+  /**
+   * 登録要求がキューで待機した時間の分布です。.
+   */
+  private final Timer batchWaitTimer;
+
+  /**
+   * グループコミットを有効にするかどうかのフラグです。.
+   *
+   * <p>設定キー: {@code app.dice.group-commit.enabled}</p>
+   */
+  @Value("${app.dice.group-commit.enabled:true}")
+  private boolean enabled = true;
+
+  /**
+   * 1回の書き込みでまとめる最大件数です。.
+   *
+   * <p>設定キー: {@code app.dice.group-commit.max-batch-size}</p>
+   */
+  @Value("${app.dice.group-commit.max-batch-size:100}")
+  private int maxBatchSize = 100;
+
+  /**
+   * 最初の登録要求が到着してから書き込みを開始するまでの最大待機時間（ミリ秒）です。.
+   *
+   * <p>設定キー: {@code app.dice.group-commit.max-wait-millis}</p>
+   */
+  @Value("${app.dice.group-commit.max-wait-millis:5}")
+  private long maxWaitMillis = 5L;
+
+  /**
+   * 書き込み待ちの登録要求を保持するキューの容量です。.
+   *
+   * <p>設定キー: {@code app.dice.group-commit.queue-capacity}</p>
+   */
+  @Value("${app.dice.group-commit.queue-capacity:10000}")
+  private int queueCapacity = 10_000;
+
+  /**
+   * 登録要求をキューに追加する際と、コミットの完了を待つ際の最大待機時間（ミリ秒）です。.
+   *
+   * <p>設定キー: {@code app.dice.group-commit.insert-timeout-millis}</p>
+   */
+  @Value("${app.dice.group-commit.insert-timeout-millis:10000}")
+  private long insertTimeoutMillis = 10_000L;
+
+  /**
+   * 書き込み待ちの登録要求を保持するキューです。.
+   */
+  private BlockingQueue<PendingDice> queue;
+
+  /**
+   * キューから登録要求を取り出して書き込むスレッドです。.
+   */
+  private Thread worker;
+
+  /**
+   * 書き込みスレッドが登録要求を受け付けているかどうかのフラグです。.
+   */
+  private volatile boolean running;
+
+  // {{{ public DiceGroupCommitWriter(...)
+  /**
+   * DiceGroupCommitWriterのコンストラクタです。.
+   *
+   * @param diceRepository 出目履歴の保存に使用するDiceRepository
+   * @param eventPublisher 登録の完了を通知するイベントの発行に使用するApplicationEventPublisher
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   */
+  public DiceGroupCommitWriter(
+      final DiceRepository diceRepository,
+      final ApplicationEventPublisher eventPublisher,
+      final MeterRegistry meterRegistry) {
+    this.diceRepository = diceRepository;
+    this.eventPublisher = eventPublisher;
+    this.batchSizeSummary = DistributionSummary.builder(METRIC_BATCH_SIZE)
+        .description("The number of dice rows written by one group commit")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.batchWaitTimer = Timer.builder(METRIC_BATCH_WAIT)
+        .description("The time an insert request waited in the group commit queue")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+  // }}}
+
+  // {{{ public void start()
+  /**
+   * グループコミットが有効な場合に、書き込みスレッドを開始します。.
+   */
+  @PostConstruct
+  public void start() {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (!this.enabled) {
+      LOGGER.info("The group commit is disabled, each dice is inserted on the caller thread.");
+      return;
+    }
+    this.queue = new LinkedBlockingQueue<>(this.queueCapacity);
+    this.running = true;
+    this.worker = Thread.ofPlatform()
+        .name("dice-group-commit")
+        .daemon()
+        .start(this::runWorker);
+    LOGGER.info("The group commit was started: maxBatchSize='{}', maxWaitMillis='{}'",
+        this.maxBatchSize, this.maxWaitMillis);
+  }
+  // }}}
+
+  // {{{ public void stop()
+  /**
+   * 書き込みスレッドを停止します。キューに残っている登録要求は停止前に書き込まれます。.
+   *
+   * <p>書き込みスレッドの終了後に残っている登録要求は、このスレッドで書き込みます。
+   * 書き込みスレッドが時間内に終了しなかった場合は、残っている登録要求を失敗として完了させます。</p>
+   */
+  @PreDestroy
+  public void stop() {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (this.worker == null) {
+      return;
+    }
+    this.running = false;
+    try {
+      this.worker.join(STOP_TIMEOUT_MILLIS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+
+    final List<PendingDice> leftovers = new ArrayList<>();
+    this.queue.drainTo(leftovers);
+    if (!leftovers.isEmpty()) {
+      if (this.worker.isAlive()) {
+        LOGGER.warn("!!! The group commit worker did not stop, '{}' inserts were failed !!!",
+            leftovers.size());
+        this.fail(leftovers, new HandsOnException("The group commit was stopped"));
+      } else {
+        LOGGER.info("The inserts left in the queue are written on stop: '{}'", leftovers.size());
+        this.flush(leftovers);
+      }
+    }
+    LOGGER.info("The group commit was stopped.");
+  }
+  // }}}
+
+  // {{{ public DiceEntity insert(int value)
+  /**
+   * サイコロの出目を登録し、コミットの完了後に登録されたレコードを返します。.
+   *
+   * <p>キューが埋まっている場合と、コミットが完了しない場合は、最大待機時間の経過後に例外をスローします。</p>
+   *
+   * @param value 登録するサイコロの出目
+   * @return 採番されたIDと更新日時を含む、登録したレコード
+   */
+  public DiceEntity insert(final int value) {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (!this.running) {
+      return this.writeBatch(List.of(value)).get(0);
+    }
+
+    final PendingDice pending =
+        new PendingDice(value, System.nanoTime(), new CompletableFuture<>());
+    try {
+      if (!this.queue.offer(pending, this.insertTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        throw new HandsOnException("The queue of the group commit is full");
+      }
+      // The worker may have exited after its last look at the queue; take the request back then.
+      if (!this.running && this.queue.remove(pending)) {
+        return this.writeBatch(List.of(value)).get(0);
+      }
+      return pending.future().get(this.insertTimeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new HandsOnException("Interrupted while waiting for the group commit", ex);
+    } catch (TimeoutException ex) {
+      throw new HandsOnException("Timed out while waiting for the group commit", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new HandsOnException("Failed to insert a dice by the group commit", ex.getCause());
+    }
+  }
+  // }}}
+
+  // {{{ public List<DiceEntity> insertAll(List<Integer> values)
+  /**
+   * 複数のサイコロの出目を1回の書き込みでまとめて登録し、登録されたレコードを登録順に返します。.
+   *
+   * <p>呼び出し元で既に件数がまとまっているため、キューを経由せずに呼び出し元のスレッドで登録します。</p>
+   *
+   * @param values 登録するサイコロの出目のリスト
+   * @return 登録したレコードのリスト
+   */
+  public List<DiceEntity> insertAll(final List<Integer> values) {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (values.isEmpty()) {
+      return List.of();
+    }
+    this.batchSizeSummary.record(values.size());
+    return this.writeBatch(values);
+  }
+  // }}}
+
+  // {{{ private void runWorker()
+  private void runWorker() {
+    final List<PendingDice> batch = new ArrayList<>(this.maxBatchSize);
+    while (this.running || !this.queue.isEmpty()) {
+      try {
+        final PendingDice first = this.queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        final long deadline =
+            first.enqueuedNanos() + TimeUnit.MILLISECONDS.toNanos(this.maxWaitMillis);
+        while (batch.size() < this.maxBatchSize) {
+          final long remaining = deadline - System.nanoTime();
+          final PendingDice next = remaining > 0
+              ? this.queue.poll(remaining, TimeUnit.NANOSECONDS)
+              : this.queue.poll();
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        this.running = false;
+        this.queue.drainTo(batch);
+        LOGGER.error("!!! The group commit was interrupted, '{}' inserts were failed !!!",
+            batch.size());
+        this.fail(batch, new HandsOnException("The group commit was interrupted", ex));
+        return;
+      }
+      this.flush(batch);
+      batch.clear();
+    }
+  }
+  // }}}
+
+  // {{{ private void flush(List<PendingDice> batch)
+  @SuppressWarnings("PMD.AvoidCatchingThrowable")
+  private void flush(final List<PendingDice> batch) {
+    final long startNanos = System.nanoTime();
+    batch.forEach(pending ->
+        this.batchWaitTimer.record(startNanos - pending.enqueuedNanos(), TimeUnit.NANOSECONDS));
+    this.batchSizeSummary.record(batch.size());
+
+    final List<DiceEntity> dices;
+    try {
+      dices = this.diceRepository.insertAll(batch.stream().map(PendingDice::value).toList());
+    } catch (Throwable ex) {
+      // Even an Error must not leave the callers waiting, and the worker goes on with the next.
+      LOGGER.error("!!! The group commit failed to write a batch !!!", ex);
+      this.fail(batch, ex);
+      return;
+    }
+    try {
+      // Let the cache and the statistics see the rows first, so that the callers read them back.
+      this.publish(dices);
+    } finally {
+      for (int i = 0; i < batch.size(); i++) {
+        batch.get(i).future().complete(dices.get(i));
+      }
+    }
+  }
+  // }}}
+
+  // {{{ private List<DiceEntity> writeBatch(List<Integer> values)
+  private List<DiceEntity> writeBatch(final List<Integer> values) {
+    final List<DiceEntity> dices = this.diceRepository.insertAll(values);
+    this.publish(dices);
+    return dices;
+  }
+  // }}}
+
+  // {{{ private void publish(List<DiceEntity> dices)
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  private void publish(final List<DiceEntity> dices) {
+    try {
+      this.eventPublisher.publishEvent(new DiceInsertedEvent(dices));
+    } catch (RuntimeException ex) {
+      // The rows are committed; a failed listener must not turn them into a failed insert.
+      LOGGER.error("!!! A listener failed on the inserted dice: '{}' rows !!!", dices.size(), ex);
+    }
+  }
+  // }}}
+
+  // {{{ private void fail(List<PendingDice> pendings, Throwable cause)
+  private void fail(final List<PendingDice> pendings, final Throwable cause) {
+    pendings.forEach(pending -> pending.future().completeExceptionally(cause));
+  }
+  // }}}
+
+  /**
+   * 書き込み待ちの登録要求を表すレコードクラスです。.
+   *
+   * @param value        登録するサイコロの出目
+   * @param enqueuedNanos キューに追加された時刻（{@link System#nanoTime()}）
+   * @param future       コミットの完了時に登録されたレコードを受け取るFuture
+   */
+  private record PendingDice(
+      int value, long enqueuedNanos, CompletableFuture<DiceEntity> future) {
+  }
+
+}
@@ -0,0 +1,246 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.repository.DiceRepository;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * 一定の期間が経過した出目履歴を、diceテーブルから{@link DiceArchive}へ定期的に移すクラスです。.
+ *
+ * <p>設定された間隔で以下の処理を繰り返し、diceテーブルの件数が際限なく増えることを防ぎます。</p>
+ * <ul>
+ *   <li>アーカイブ済みのIDより大きい履歴を、IDの昇順に設定された件数ずつ読み込みます。</li>
+ *   <li>先頭から連続して保持期間を過ぎた履歴をセグメントファイルに追記し、diceテーブルから削除します。</li>
+ *   <li>追記の後、削除の前に中断された場合は、次回の実行時にアーカイブ済みの履歴を削除し直します。</li>
+ * </ul>
+ *
+ * <p>保持期間の判定には、{@link DiceRepository#currentTime()}で更新日時と同じ時計を使用します。
+ * アーカイブはインスタンスのローカルディスクに作成されるため、
+ * 複数のインスタンスで同じテーブルを使用する構成では、1つのインスタンスでのみ有効にしてください。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@Component
+@SuppressWarnings({"PMD.CommentSize", "PMD.DoNotUseThreads"})
+public class DiceRetentionJob {
+
+  /**
+   * アーカイブに移した出目履歴の件数を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_ARCHIVED = "dice.retention.archived";
+
+  /**
+   * 1回の読み込みと削除で扱う出目履歴の既定の件数です。.
+   */
+  private static final int DEFAULT_BATCH_SIZE = 10_000;
+
+  /**
+   * ログ出力を行うためのロガーインスタンスです。.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiceRetentionJob.class);
+
+  /**
+   * 出目履歴の読み込みと削除を行うためのDiceRepositoryインスタンスです。.
+   */
+  private final DiceRepository diceRepository;
+
+  /**
+   * 出目履歴の移し先となるDiceArchiveインスタンスです。.
+   */
+  private final DiceArchive diceArchive;
+
+  /**
+   * アーカイブに移した出目履歴の件数です。.
+   */
+  private final Counter archivedCounter;
+
+  /**
+   * 古い出目履歴をアーカイブに移すかどうかのフラグです。.
+   *
+   * <p>設定キー: {@code app.dice.retention.enabled}</p>
+   */
+  @Value("${app.dice.retention.enabled:false}")
+  private boolean enabled;
+
+  /**
+   * 出目履歴をdiceテーブルに保持する期間です。.
+   *
+   * <p>設定キー: {@code app.dice.retention.max-age}</p>
+   */
+  @Value("${app.dice.retention.max-age:30d}")
+  private Duration maxAge = Duration.ofDays(30);
+
+  /**
+   * 1回の読み込みと削除で扱う出目履歴の件数です。.
+   *
+   * <p>設定キー: {@code app.dice.retention.batch-size}</p>
+   */
+  @Value("${app.dice.retention.batch-size:" + DEFAULT_BATCH_SIZE + "}")
+  private int batchSize = DEFAULT_BATCH_SIZE;
+
+  /**
+   * アーカイブへの移動を実行する間隔です。.
+   *
+   * <p>設定キー: {@code app.dice.retention.interval}</p>
+   */
+  @Value("${app.dice.retention.interval:1m}")
+  private Duration interval = Duration.ofMinutes(1);
+
+  /**
+   * アーカイブへの移動を定期的に実行するスケジューラーです。.
+   */
+  private ScheduledExecutorService scheduler;
+
+  // {{{ public DiceRetentionJob(DiceRepository diceRepository, DiceArchive diceArchive, ...)
+  /**
+   * DiceRetentionJobのコンストラクタです。.
+   *
+   * @param diceRepository 出目履歴の読み込みと削除に使用するDiceRepository
+   * @param diceArchive 出目履歴の移し先となるDiceArchive
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   */
+  public DiceRetentionJob(
+      final DiceRepository diceRepository,
+      final DiceArchive diceArchive,
+      final MeterRegistry meterRegistry) {
+    this.diceRepository = diceRepository;
+    this.diceArchive = diceArchive;
+    this.archivedCounter = Counter.builder(METRIC_ARCHIVED)
+        .description("The number of dice rows moved from the table to the archive")
+        .register(meterRegistry);
+  }
+  // }}}
+
+  // {{{ public void start()
+  /**
+   * アーカイブへの移動の定期的な実行を開始します。.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (!this.enabled) {
+      LOGGER.info("The dice retention is disabled, the history is kept in the table.");
+      return;
+    }
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("dice-retention").daemon().factory());
+    this.scheduler.scheduleWithFixedDelay(
+        this::runQuietly, 0L, this.interval.toMillis(), TimeUnit.MILLISECONDS);
+    LOGGER.info("The dice retention was started: maxAge='{}', batchSize='{}', interval='{}'",
+        this.maxAge, this.batchSize, this.interval);
+  }
+  // }}}
+
+  // {{{ public void stop()
+  /**
+   * アーカイブへの移動の定期的な実行を停止します。.
+   */
+  @PreDestroy
+  public void stop() {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (this.scheduler != null) {
+      this.scheduler.shutdownNow();
+    }
+  }
+  // }}}
+
+  // {{{ /* default */ long run()
+  /**
+   * 保持期間を過ぎた出目履歴を、なくなるまでアーカイブに移します。.
+   *
+   * @return アーカイブに移した出目履歴の件数
+   * @throws IOException セグメントファイルの書き込みに失敗した場合
+   */
+  /* default */ long run() throws IOException {
+    UtilEnvInfo.logStartClassMethod();
+
+    this.purgeArchived();
+
+    final LocalDateTime cutoff = this.diceRepository.currentTime().minus(this.maxAge);
+    long total = 0;
+    int archived;
+    do {
+      archived = this.archiveBatch(cutoff);
+      total += archived;
+    } while (archived >= this.batchSize);
+
+    if (total > 0) {
+      LOGGER.info("The dice rows older than '{}' were archived: count='{}', archivedUpTo='{}'",
+          cutoff, total, this.diceArchive.archivedUpTo());
+    }
+    return total;
+  }
+  // }}}
+
+  // {{{ private void runQuietly()
+  private void runQuietly() {
+    try {
+      this.run();
+    } catch (DataAccessException | IOException | UncheckedIOException ex) {
+      LOGGER.warn("!!! Failed to archive the dice rows, it will be retried on the next run !!!",
+          ex);
+    }
+  }
+  // }}}
+
+  // {{{ private void purgeArchived()
+  private void purgeArchived() {
+    final int archivedUpTo = this.diceArchive.archivedUpTo();
+    if (archivedUpTo <= 0) {
+      return;
+    }
+    int deleted;
+    do {
+      deleted = this.diceRepository.deleteUpTo(archivedUpTo, this.batchSize);
+      if (deleted > 0) {
+        LOGGER.warn("The dice rows left after the archiving were deleted: count='{}'", deleted);
+      }
+    } while (deleted >= this.batchSize);
+  }
+  // }}}
+
+  // {{{ private int archiveBatch(LocalDateTime cutoff)
+  private int archiveBatch(final LocalDateTime cutoff) throws IOException {
+    final List<DiceEntity> rows = this.diceRepository.find(
+        Optional.empty(), Optional.of(this.diceArchive.archivedUpTo()), true, this.batchSize);
+
+    // Stop at the first recent row so that the archive always ends below the table.
+    int expired = 0;
+    while (expired < rows.size() && rows.get(expired).updatedAt() != null
+        && rows.get(expired).updatedAt().isBefore(cutoff)) {
+      expired++;
+    }
+    if (expired == 0) {
+      return 0;
+    }
+
+    final List<DiceEntity> batch = rows.subList(0, expired);
+    final DiceSegment segment = this.diceArchive.append(batch);
+    this.diceRepository.deleteRange(segment.firstId(), segment.lastId());
+    this.archivedCounter.increment(expired);
+    return expired;
+  }
+  // }}}
+
+}
@@ -0,0 +1,29 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * アーカイブされた出目履歴を保持するセグメントファイルの見出し情報を表すレコードクラスです。.
+ *
+ * <p>セグメントファイルを展開せずに、IDの範囲による検索と統計情報の集計ができるよう、
+ * ファイルの先頭に書き込まれた見出しの内容を保持します。</p>
+ *
+ * @param path         セグメントファイルのパス
+ * @param firstId      セグメントに含まれる最小のID
+ * @param lastId       セグメントに含まれる最大のID
+ * @param count        セグメントに含まれる出目履歴の件数
+ * @param faceCounts   出目ごとの回数（添字0が出目1に対応）
+ * @param lastRolledAt セグメントに含まれる出目履歴の最新の更新日時
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings({
+    "PMD.CommentSize", "PMD.ArrayIsStoredDirectly", "PMD.MethodReturnsInternalArray"})
+/* default */ record DiceSegment(
+    Path path,
+    int firstId,
+    int lastId,
+    int count,
+    long[] faceCounts,
+    LocalDateTime lastRolledAt) {
+}
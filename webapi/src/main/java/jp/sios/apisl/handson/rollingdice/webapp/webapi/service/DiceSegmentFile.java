@@ -0,0 +1,301 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+
+/**
+ * アーカイブされた出目履歴のセグメントファイルを読み書きするクラスです。.
+ *
+ * <p>セグメントファイルはgzipで圧縮した追記専用のファイルで、以下の順に書き込みます。
+ * 書き込み中のファイルは一時的な名前で作成し、ディスクへの同期の後に正式な名前へ置き換えるため、
+ * 正式な名前のファイルは常に完全な内容を保持します。名前の置き換えもディレクトリーを同期して確定させます。</p>
+ * <ul>
+ *   <li>見出し: 識別子、形式のバージョン、IDの範囲、件数、出目ごとの回数、最新の更新日時</li>
+ *   <li>出目履歴: IDの昇順に、ID、出目、更新日時</li>
+ * </ul>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+/* default */ final class DiceSegmentFile {
+
+  /**
+   * セグメントファイルの名前の接尾辞です。.
+   */
+  /* default */ static final String SUFFIX = ".seg.gz";
+
+  /**
+   * 書き込み中のセグメントファイルの名前の接尾辞です。.
+   */
+  /* default */ static final String TEMPORARY_SUFFIX = ".tmp";
+
+  /**
+   * セグメントファイルであることを示す識別子（"DSEG"）です。.
+   */
+  private static final int MAGIC = 0x4453_4547;
+
+  /**
+   * セグメントファイルの形式のバージョンです。.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * サイコロの面の数です。.
+   */
+  private static final int FACES = 6;
+
+  /**
+   * 更新日時がnullであることを示す値です。.
+   */
+  private static final long NULL_TIME = Long.MIN_VALUE;
+
+  /**
+   * 読み書きに使用するバッファーのサイズです。.
+   */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private DiceSegmentFile() {
+    // Use the static methods instead.
+  }
+
+  // {{{ static DiceSegment write(Path directory, List<DiceEntity> rows)
+  /**
+   * IDの昇順に並んだ出目履歴を、新しいセグメントファイルとして書き込みます。.
+   *
+   * @param directory セグメントファイルを作成するディレクトリー
+   * @param rows IDの昇順に並んだ、1件以上の出目履歴
+   * @return 書き込んだセグメントファイルの見出し情報
+   * @throws IOException 書き込みに失敗した場合
+   */
+  /* default */ static DiceSegment write(final Path directory, final List<DiceEntity> rows)
+      throws IOException {
+    final int firstId = rows.get(0).id();
+    final int lastId = rows.get(rows.size() - 1).id();
+    final long[] faceCounts = new long[FACES];
+    LocalDateTime lastRolledAt = null;
+    for (final DiceEntity dice : rows) {
+      if (dice.value() >= 1 && dice.value() <= FACES) {
+        faceCounts[dice.value() - 1]++;
+      }
+      if (dice.updatedAt() != null
+          && (lastRolledAt == null || dice.updatedAt().isAfter(lastRolledAt))) {
+        lastRolledAt = dice.updatedAt();
+      }
+    }
+    final DiceSegment segment = new DiceSegment(
+        directory.resolve(String.format("dice-%010d-%010d%s", firstId, lastId, SUFFIX)),
+        firstId, lastId, rows.size(), faceCounts, lastRolledAt);
+
+    final Path temporary = directory.resolve(segment.path().getFileName() + TEMPORARY_SUFFIX);
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel),
+            BUFFER_SIZE);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip, BUFFER_SIZE))) {
+      writeHeader(out, segment);
+      for (final DiceEntity dice : rows) {
+        out.writeInt(dice.id());
+        out.writeByte(dice.value());
+        writeTime(out, dice.updatedAt());
+      }
+      out.flush();
+      gzip.finish();
+      channel.force(true);
+    }
+    Files.move(temporary, segment.path(), StandardCopyOption.ATOMIC_MOVE);
+    syncDirectory(directory);
+    return segment;
+  }
+  // }}}
+
+  // {{{ static Optional<DiceSegment> recover(Path temporary)
+  /**
+   * 書き込み中に中断されたセグメントファイルを検証し、完全な内容であれば正式な名前へ置き換えます。.
+   *
+   * <p>正式な名前への置き換えがディスクに同期される前に中断された場合、
+   * 一時的な名前のファイルが完全な内容のまま残ります。識別子、件数分の出目履歴、
+   * およびgzipの末尾（CRCとサイズ）を検証し、欠けていなければ正式な名前へ置き換えます。</p>
+   *
+   * @param temporary 書き込み中のセグメントファイルのパス
+   * @return 復元したセグメントファイルの見出し情報（内容が不完全な場合は空）
+   * @throws IOException 名前の置き換えに失敗した場合
+   */
+  /* default */ static Optional<DiceSegment> recover(final Path temporary) throws IOException {
+    final String name = temporary.getFileName().toString();
+    final Path path = temporary.resolveSibling(
+        name.substring(0, name.length() - TEMPORARY_SUFFIX.length()));
+    try (DataInputStream in = open(temporary)) {
+      final DiceSegment header = readHeader(in, path);
+      for (int i = 0; i < header.count(); i++) {
+        in.readInt();
+        in.readByte();
+        readTime(in);
+      }
+      // Reading to the end makes GZIPInputStream check the trailer of the stream.
+      if (in.read() != -1) {
+        return Optional.empty();
+      }
+    } catch (IOException ex) {
+      return Optional.empty();
+    }
+    Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+    syncDirectory(path.getParent());
+    return Optional.of(readHeader(path));
+  }
+  // }}}
+
+  // {{{ static DiceSegment readHeader(Path path)
+  /**
+   * セグメントファイルの見出しだけを読み込みます。.
+   *
+   * @param path セグメントファイルのパス
+   * @return セグメントファイルの見出し情報
+   * @throws IOException 読み込みに失敗した場合、またはセグメントファイルの形式でない場合
+   */
+  /* default */ static DiceSegment readHeader(final Path path) throws IOException {
+    try (DataInputStream in = open(path)) {
+      return readHeader(in, path);
+    }
+  }
+  // }}}
+
+  // {{{ static DiceColumns readColumns(DiceSegment segment)
+  /**
+   * セグメントファイルに含まれる全ての出目履歴を、IDの昇順に列ごとの配列へ読み込みます。.
+   *
+   * <p>出目履歴ごとのオブジェクトを生成しないため、展開した内容をメモリー上に保持する場合に使用します。
+   * 更新日時はミリ秒の精度で保持します。</p>
+   *
+   * @param segment 読み込むセグメントファイルの見出し情報
+   * @return IDの昇順に出目履歴を保持するDiceColumns
+   * @throws IOException 読み込みに失敗した場合、またはセグメントファイルの形式でない場合
+   */
+  /* default */ static DiceColumns readColumns(final DiceSegment segment) throws IOException {
+    try (DataInputStream in = open(segment.path())) {
+      final DiceSegment header = readHeader(in, segment.path());
+      final DiceColumns columns = new DiceColumns(header.count());
+      for (int i = 0; i < header.count(); i++) {
+        final int id = in.readInt();
+        final int value = in.readByte();
+        columns.add(id, value, readTime(in));
+      }
+      return columns;
+    }
+  }
+  // }}}
+
+  // {{{ static boolean isSegment(Path path)
+  /**
+   * 指定されたファイルがセグメントファイルかどうかを名前から判定します。.
+   *
+   * @param path 判定するファイルのパス
+   * @return セグメントファイルの場合は{@code true}
+   */
+  /* default */ static boolean isSegment(final Path path) {
+    return path.getFileName().toString().endsWith(SUFFIX);
+  }
+  // }}}
+
+  // {{{ static boolean isTemporary(Path path)
+  /**
+   * 指定されたファイルが書き込み中に中断されたセグメントファイルかどうかを名前から判定します。.
+   *
+   * @param path 判定するファイルのパス
+   * @return 書き込み中のセグメントファイルの場合は{@code true}
+   */
+  /* default */ static boolean isTemporary(final Path path) {
+    return path.getFileName().toString().endsWith(SUFFIX + TEMPORARY_SUFFIX);
+  }
+  // }}}
+
+  // {{{ private static DataInputStream open(Path path)
+  private static DataInputStream open(final Path path) throws IOException {
+    return new DataInputStream(new BufferedInputStream(
+        new GZIPInputStream(Files.newInputStream(path), BUFFER_SIZE), BUFFER_SIZE));
+  }
+  // }}}
+
+  // {{{ private static void syncDirectory(Path directory)
+  private static void syncDirectory(final Path directory) throws IOException {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    }
+  }
+  // }}}
+
+  // {{{ private static void writeHeader(DataOutputStream out, DiceSegment segment)
+  private static void writeHeader(final DataOutputStream out, final DiceSegment segment)
+      throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(segment.firstId());
+    out.writeInt(segment.lastId());
+    out.writeInt(segment.count());
+    for (final long count : segment.faceCounts()) {
+      out.writeLong(count);
+    }
+    writeTime(out, segment.lastRolledAt());
+  }
+  // }}}
+
+  // {{{ private static DiceSegment readHeader(DataInputStream in, Path path)
+  private static DiceSegment readHeader(final DataInputStream in, final Path path)
+      throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a dice segment file: " + path);
+    }
+    final int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported version of the dice segment file: " + version);
+    }
+    final int firstId = in.readInt();
+    final int lastId = in.readInt();
+    final int count = in.readInt();
+    final long[] faceCounts = new long[FACES];
+    for (int i = 0; i < FACES; i++) {
+      faceCounts[i] = in.readLong();
+    }
+    return new DiceSegment(path, firstId, lastId, count, faceCounts, readTime(in));
+  }
+  // }}}
+
+  // {{{ private static void writeTime(DataOutputStream out, LocalDateTime time)
+  private static void writeTime(final DataOutputStream out, final LocalDateTime time)
+      throws IOException {
+    // The column has no time zone, so UTC here only serves to encode the wall-clock time.
+    if (time == null) {
+      out.writeLong(NULL_TIME);
+      return;
+    }
+    out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+    out.writeInt(time.getNano());
+  }
+  // }}}
+
+  // {{{ private static LocalDateTime readTime(DataInputStream in)
+  private static LocalDateTime readTime(final DataInputStream in) throws IOException {
+    final long seconds = in.readLong();
+    if (seconds == NULL_TIME) {
+      return null;
+    }
+    return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+  }
+  // }}}
+
+}
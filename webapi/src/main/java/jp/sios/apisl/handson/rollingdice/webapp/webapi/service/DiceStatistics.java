@@ -0,0 +1,256 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceStatsDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.event.DiceInsertedEvent;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.repository.DiceFaceCount;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.repository.DiceRepository;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * サイコロの出目の統計情報を逐次集計するクラスです。.
+ *
+ * <p>起動時に{@link DiceRepository}の履歴を一度だけ集計し、以降は{@link DiceInsertedEvent}を受け取るたびに加算します。
+ * 統計情報の取得時にはデータベースを参照しないため、履歴の件数に関わらず一定の時間で応答します。</p>
+ * <ul>
+ *   <li>出目ごとの回数は、同時に加算されても競合しにくい{@link LongAdder}で保持します。</li>
+ *   <li>総回数と平均値は、出目ごとの回数から算出するため互いに矛盾しません。</li>
+ *   <li>最新のIDと総回数から、出目履歴が更新されたかどうかを判定するバージョンを返します。</li>
+ *   <li>起動時の集計に失敗した場合は、統計情報の取得時に集計を再試行します。
+ *       再試行中に登録された出目は、集計に含まれない場合があります。</li>
+ * </ul>
+ *
+ * <p>{@link DiceArchive}に移された履歴は、セグメントファイルの見出しに記録された出目ごとの回数を加算します。
+ * このインスタンス以外からdiceテーブルに登録された履歴は、次回の起動まで反映されません。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@Component
+@SuppressWarnings("PMD.CommentSize")
+public class DiceStatistics {
+
+  /**
+   * サイコロの面の数です。.
+   */
+  private static final int FACES = 6;
+
+  /**
+   * ログ出力を行うためのロガーインスタンスです。.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiceStatistics.class);
+
+  /**
+   * 起動時に出目履歴を集計するためのDiceRepositoryインスタンスです。.
+   */
+  private final DiceRepository diceRepository;
+
+  /**
+   * diceテーブルから移された古い出目履歴を保持するDiceArchiveインスタンスです。.
+   */
+  private final DiceArchive diceArchive;
+
+  /**
+   * 出目ごとの回数です。添字0が出目1に対応します。.
+   */
+  private final LongAdder[] faceCounts = new LongAdder[FACES];
+
+  /**
+   * 最後にサイコロを振った日時です。.
+   */
+  private final AtomicReference<LocalDateTime> lastRolledAt = new AtomicReference<>();
+
+  /**
+   * 最後に登録された出目履歴のIDです。.
+   */
+  private final AtomicInteger lastId = new AtomicInteger();
+
+  /**
+   * 集計の読み込みを1つのスレッドに限定するためのロックです。.
+   */
+  private final Lock loadLock = new ReentrantLock();
+
+  /**
+   * 起動時の集計が完了し、加算と取得が可能かどうかのフラグです。.
+   */
+  private volatile boolean loaded;
+
+  // {{{ public DiceStatistics(DiceRepository diceRepository, DiceArchive diceArchive)
+  /**
+   * DiceStatisticsのコンストラクタです。.
+   *
+   * @param diceRepository 起動時の集計に使用するDiceRepository
+   * @param diceArchive アーカイブ済みの出目の集計に使用するDiceArchive
+   */
+  public DiceStatistics(final DiceRepository diceRepository, final DiceArchive diceArchive) {
+    this.diceRepository = diceRepository;
+    this.diceArchive = diceArchive;
+    for (int i = 0; i < FACES; i++) {
+      this.faceCounts[i] = new LongAdder();
+    }
+  }
+  // }}}
+
+  // {{{ public void init()
+  /**
+   * {@link DiceRepository}の履歴を集計し、統計情報の初期値を読み込みます。.
+   *
+   * <p>Webサーバーがリクエストの受け付けを開始する前に実行されるため、集計中の登録と重複しません。
+   * 集計に失敗した場合は、統計情報の取得時に再試行します。</p>
+   */
+  @PostConstruct
+  public void init() {
+    UtilEnvInfo.logStartClassMethod();
+
+    try {
+      this.load();
+    } catch (DataAccessException ex) {
+      LOGGER.warn("!!! Failed to load the dice statistics, it will be retried on the next "
+          + "request !!!", ex);
+    }
+  }
+  // }}}
+
+  // {{{ public void onDiceInserted(DiceInsertedEvent event)
+  /**
+   * 登録された出目を統計情報に加算します。.
+   *
+   * @param event 登録された出目履歴を保持する{@link DiceInsertedEvent}オブジェクト
+   */
+  @EventListener
+  public void onDiceInserted(final DiceInsertedEvent event) {
+    if (!this.loaded) {
+      return;
+    }
+    event.dices().forEach(this::add);
+  }
+  // }}}
+
+  // {{{ public DiceStatsDto snapshot()
+  /**
+   * 現在の統計情報を返します。.
+   *
+   * @return 総回数、出目ごとの回数、平均値、および最後にサイコロを振った日時を含む{@link DiceStatsDto}オブジェクト
+   */
+  public DiceStatsDto snapshot() {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (!this.loaded) {
+      this.load();
+    }
+
+    final Map<Integer, Long> counts = new LinkedHashMap<>();
+    long total = 0;
+    long sum = 0;
+    for (int face = 1; face <= FACES; face++) {
+      final long count = this.faceCounts[face - 1].sum();
+      counts.put(face, count);
+      total += count;
+      sum += count * face;
+    }
+    final double mean = total == 0 ? 0.0 : (double) sum / total;
+
+    return new DiceStatsDto(total, counts, mean, this.lastRolledAt.get());
+  }
+  // }}}
+
+  // {{{ public Optional<String> version()
+  /**
+   * 出目履歴のバージョンを、最新のIDと総回数から作成して返します。.
+   *
+   * <p>出目が登録されるたびに最新のIDと総回数の両方が増えるため、
+   * 同じバージョンを返す間は出目履歴が更新されていないと判定できます。</p>
+   *
+   * @return 最新のIDと総回数を連結したバージョン（起動時の集計が完了していない場合は空）
+   */
+  public Optional<String> version() {
+    if (!this.loaded) {
+      return Optional.empty();
+    }
+    final int id = this.lastId.get();
+    long total = 0;
+    for (final LongAdder adder : this.faceCounts) {
+      total += adder.sum();
+    }
+    return Optional.of(id + "-" + total);
+  }
+  // }}}
+
+  // {{{ private void load()
+  private void load() {
+    this.loadLock.lock();
+    try {
+      if (this.loaded) {
+        return;
+      }
+      // Rows moving to the archive in the meantime may be missed on both sides, so count again.
+      int archivedUpTo;
+      List<DiceFaceCount> rows;
+      do {
+        archivedUpTo = this.diceArchive.archivedUpTo();
+        rows = this.diceRepository.countFaces(archivedUpTo);
+      } while (archivedUpTo != this.diceArchive.archivedUpTo());
+
+      for (final LongAdder adder : this.faceCounts) {
+        adder.reset();
+      }
+      this.lastRolledAt.set(null);
+      this.lastId.set(0);
+      for (final DiceFaceCount row : rows) {
+        this.add(row.value(), row.count(), row.lastRolledAt());
+        this.lastId.accumulateAndGet(row.lastId(), Math::max);
+      }
+      for (final DiceSegment segment : this.diceArchive.segments()) {
+        if (segment.lastId() <= archivedUpTo) {
+          this.lastId.accumulateAndGet(segment.lastId(), Math::max);
+          for (int face = 1; face <= FACES; face++) {
+            this.add(face, segment.faceCounts()[face - 1], segment.lastRolledAt());
+          }
+        }
+      }
+      this.loaded = true;
+      LOGGER.info("The dice statistics were loaded: '{}'", rows);
+    } finally {
+      this.loadLock.unlock();
+    }
+  }
+  // }}}
+
+  // {{{ private void add(DiceEntity dice)
+  private void add(final DiceEntity dice) {
+    this.add(dice.value(), 1L, dice.updatedAt());
+    this.lastId.accumulateAndGet(dice.id(), Math::max);
+  }
+  // }}}
+
+  // {{{ private void add(int value, long count, LocalDateTime rolledAt)
+  private void add(final int value, final long count, final LocalDateTime rolledAt) {
+    if (value < 1 || value > FACES) {
+      LOGGER.warn("The value out of the dice faces was ignored: '{}'", value);
+      return;
+    }
+    this.faceCounts[value - 1].add(count);
+    if (rolledAt != null) {
+      this.lastRolledAt.accumulateAndGet(rolledAt,
+          (current, candidate) -> current == null || candidate.isAfter(current)
+              ? candidate : current);
+    }
+  }
+  // }}}
+
+}
@@ -0,0 +1,252 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceValueDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.IdempotencyCacheFullException;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.IdempotencyKeyMismatchException;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Idempotency-Keyごとに、サイコロを振った結果を一定の期間保持するキャッシュクラスです。.
+ *
+ * <p>タイムアウトの後に同じキーで再送されたリクエストには、サイコロを振り直さずに最初の結果を返却します。</p>
+ * <ul>
+ *   <li>同じキーのリクエストが同時に到着した場合は、最初のリクエストの処理だけを実行し、結果を共有します。</li>
+ *   <li>処理が失敗した場合は結果を保持せず、再送されたリクエストで改めて実行します。</li>
+ *   <li>同じキーが異なる内容のリクエストで使用された場合は、{@link IdempotencyKeyMismatchException}をスローします。</li>
+ *   <li>保持する件数には上限があり、期限切れ、または上限を超えた場合は古いキーから破棄します。
+ *       実行中のキーは破棄せず、実行中のキーだけで上限に達している場合は
+ *       {@link IdempotencyCacheFullException}をスローします。</li>
+ *   <li>期限切れのキーは、結果を再利用するリクエストを含め、キーを伴うリクエストのたびに破棄します。</li>
+ *   <li>処理の実行と結果の再利用の件数、および保持している件数をメトリクスとして記録します。</li>
+ * </ul>
+ *
+ * <p>キーはこのインスタンスのメモリー上にだけ保持するため、
+ * 複数のインスタンスに振り分けられた再送や、再起動をまたいだ再送は重複を防げません。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@Component
+@SuppressWarnings("PMD.CommentSize")
+public class IdempotencyCache {
+
+  /**
+   * Idempotency-Keyを伴うリクエストの件数を、結果（executed / replayed）ごとに記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_REQUESTS = "dice.idempotency.requests";
+
+  /**
+   * 保持しているIdempotency-Keyの件数を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_SIZE = "dice.idempotency.size";
+
+  /**
+   * 保持するIdempotency-Keyの既定の上限件数です。.
+   */
+  private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+  /**
+   * ログ出力を行うためのロガーインスタンスです。.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyCache.class);
+
+  /**
+   * Idempotency-Keyごとの実行結果です。.
+   */
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * 実行結果を登録した順の待ち行列です。期限は登録順に訪れるため、先頭から破棄します。.
+   */
+  private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+
+  /**
+   * 期限切れの実行結果の破棄を1つのスレッドに限定するためのロックです。.
+   */
+  private final Lock purgeLock = new ReentrantLock();
+
+  /**
+   * 処理を実行したリクエストの件数です。.
+   */
+  private final Counter executedCounter;
+
+  /**
+   * 保持していた結果を返却したリクエストの件数です。.
+   */
+  private final Counter replayedCounter;
+
+  /**
+   * 実行結果を保持する期間です。.
+   *
+   * <p>設定キー: {@code app.dice.idempotency.ttl}</p>
+   */
+  @Value("${app.dice.idempotency.ttl:24h}")
+  private Duration ttl = Duration.ofHours(24);
+
+  /**
+   * 保持するIdempotency-Keyの上限件数です。.
+   *
+   * <p>設定キー: {@code app.dice.idempotency.max-entries}</p>
+   */
+  @Value("${app.dice.idempotency.max-entries:" + DEFAULT_MAX_ENTRIES + "}")
+  private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+  // {{{ public IdempotencyCache(MeterRegistry meterRegistry)
+  /**
+   * IdempotencyCacheのコンストラクタです。.
+   *
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   */
+  public IdempotencyCache(final MeterRegistry meterRegistry) {
+    this.executedCounter = Counter.builder(METRIC_REQUESTS)
+        .description("The number of requests with an Idempotency-Key")
+        .tag("result", "executed")
+        .register(meterRegistry);
+    this.replayedCounter = Counter.builder(METRIC_REQUESTS)
+        .description("The number of requests with an Idempotency-Key")
+        .tag("result", "replayed")
+        .register(meterRegistry);
+    Gauge.builder(METRIC_SIZE, this.entries, Map::size)
+        .description("The number of Idempotency-Keys held in memory")
+        .register(meterRegistry);
+  }
+  // }}}
+
+  // {{{ public CompletableFuture<DiceValueDto> execute(...)
+  /**
+   * Idempotency-Keyに対応する結果を返し、まだ無い場合は指定された処理を実行します。.
+   *
+   * @param key リクエストに付けられたIdempotency-Key
+   * @param fingerprint 同じキーのリクエストが同じ内容かどうかを判定するための値
+   * @param action サイコロを振る処理
+   * @return サイコロの出目を受け取るFuture（同じキーの先のリクエストと同じ結果）
+   * @throws IdempotencyKeyMismatchException 同じキーが異なる内容のリクエストで使用された場合
+   * @throws IdempotencyCacheFullException 実行中のキーだけで上限に達している場合
+   */
+  public CompletableFuture<DiceValueDto> execute(
+      final String key,
+      final Object fingerprint,
+      final Supplier<CompletableFuture<DiceValueDto>> action) {
+    UtilEnvInfo.logStartClassMethod();
+
+    final long now = System.nanoTime();
+    this.purge(now);
+    final Entry created = new Entry(key, fingerprint, now + this.ttl.toNanos());
+    final Entry entry = this.entries.compute(key,
+        (k, current) -> current == null || current.isExpired(now) && current.future().isDone()
+            ? created : current);
+
+    if (entry != created) {
+      if (!entry.fingerprint().equals(fingerprint)) {
+        throw new IdempotencyKeyMismatchException(key);
+      }
+      LOGGER.info("The result of the Idempotency-Key is replayed: '{}'", key);
+      this.replayedCounter.increment();
+      return entry.future().copy();
+    }
+
+    this.purge(now);
+    if (this.entries.size() > this.maxEntries) {
+      // Only the keys in flight are left, and evicting one would let its retry roll again.
+      LOGGER.warn("The Idempotency-Key was refused, because '{}' keys are held: '{}'",
+          this.entries.size(), key);
+      final IdempotencyCacheFullException ex = new IdempotencyCacheFullException(key);
+      this.fail(created, ex);
+      throw ex;
+    }
+    this.order.add(created);
+    this.executedCounter.increment();
+    final CompletableFuture<DiceValueDto> result;
+    try {
+      result = action.get();
+    } catch (RuntimeException ex) {
+      this.fail(created, ex);
+      throw ex;
+    }
+    result.whenComplete((dto, ex) -> {
+      if (ex == null) {
+        created.future().complete(dto);
+      } else {
+        this.fail(created, ex);
+      }
+    });
+    return created.future().copy();
+  }
+  // }}}
+
+  // {{{ private void fail(Entry entry, Throwable ex)
+  private void fail(final Entry entry, final Throwable ex) {
+    // Forget the failure so that a retry executes the action again.
+    this.entries.remove(entry.key(), entry);
+    entry.future().completeExceptionally(ex);
+  }
+  // }}}
+
+  // {{{ private void purge(long now)
+  private void purge(final long now) {
+    final Entry head = this.order.peek();
+    if (head == null || (!head.isExpired(now) && this.entries.size() <= this.maxEntries)) {
+      return;
+    }
+    this.purgeLock.lock();
+    try {
+      final Iterator<Entry> iterator = this.order.iterator();
+      while (iterator.hasNext()) {
+        final Entry entry = iterator.next();
+        if (!entry.isExpired(now) && this.entries.size() <= this.maxEntries) {
+          break;
+        }
+        // Keep the keys in flight, so that a concurrent retry shares the result.
+        if (entry.future().isDone()) {
+          iterator.remove();
+          this.entries.remove(entry.key(), entry);
+        }
+      }
+    } finally {
+      this.purgeLock.unlock();
+    }
+  }
+  // }}}
+
+  /**
+   * Idempotency-Keyに対応する実行結果を表すレコードクラスです。.
+   *
+   * @param key         Idempotency-Key
+   * @param fingerprint リクエストの内容を判定するための値
+   * @param expiresAt   結果を破棄する時刻（{@link System#nanoTime()}）
+   * @param future      サイコロの出目を受け取るFuture
+   */
+  private record Entry(
+      String key, Object fingerprint, long expiresAt, CompletableFuture<DiceValueDto> future) {
+
+    // {{{ Entry(String key, Object fingerprint, long expiresAt)
+    private Entry(final String key, final Object fingerprint, final long expiresAt) {
+      this(key, fingerprint, expiresAt, new CompletableFuture<>());
+    }
+    // }}}
+
+    // {{{ boolean isExpired(long now)
+    private boolean isExpired(final long now) {
+      return now - this.expiresAt >= 0;
+    }
+    // }}}
+
+  }
+
+}
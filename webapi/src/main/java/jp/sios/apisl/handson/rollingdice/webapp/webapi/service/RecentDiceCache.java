@@ -0,0 +1,455 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.event.DiceInsertedEvent;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.repository.DiceRepository;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * 直近のサイコロの出目履歴をメモリー上に保持するリングバッファーのキャッシュクラスです。.
+ *
+ * <p>起動時に{@link DiceRepository}から最新の履歴を読み込み、以降は{@link DiceInsertedEvent}を受け取るたびに追記します。
+ * 履歴の取得要求のうち、キャッシュの保持範囲だけで結果が確定するページはデータベースを参照せずに返却します。</p>
+ * <ul>
+ *   <li>出目履歴はIDの昇順で固定長の{@link DiceColumns}に保持し、容量を超えた場合は最も古い履歴から破棄します。</li>
+ *   <li>複数のスレッドから順不同で追記されても、ID順の並びと重複の排除を保証します。</li>
+ *   <li>直前に追記したIDの次ではないIDが届いた場合は、間のIDが欠けている可能性があるため、
+ *       データベースから読み込み直すまで全ての問い合わせをデータベースに委ねます。</li>
+ *   <li>キャッシュで結果が確定しないページは空を返し、呼び出し元はデータベースから取得します。</li>
+ *   <li>キャッシュのヒット・ミスの件数と、保持している件数をメトリクスとして記録します。</li>
+ * </ul>
+ *
+ * <p>容量に満たない件数しか読み込めなかった場合は、{@link DiceArchive}に移された範囲を除く
+ * 全ての履歴を保持しているものとして扱います。</p>
+ *
+ * <p>このインスタンス以外からdiceテーブルに登録された履歴は反映されないため、
+ * 複数のインスタンスで同じテーブルを更新する構成では無効にしてください。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@Component
+@SuppressWarnings("PMD.CommentSize")
+public class RecentDiceCache {
+
+  /**
+   * キャッシュへの問い合わせ件数を、結果（hit / miss）ごとに記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_REQUESTS = "dice.history.cache.requests";
+
+  /**
+   * キャッシュが保持している出目履歴の件数を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_SIZE = "dice.history.cache.size";
+
+  /**
+   * キャッシュに保持する出目履歴の既定の件数です。.
+   */
+  private static final int DEFAULT_CAPACITY = 1000;
+
+  /**
+   * ログ出力を行うためのロガーインスタンスです。.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(RecentDiceCache.class);
+
+  /**
+   * 起動時に出目履歴を読み込むためのDiceRepositoryインスタンスです。.
+   */
+  private final DiceRepository diceRepository;
+
+  /**
+   * diceテーブルから移された古い出目履歴を保持するDiceArchiveインスタンスです。.
+   */
+  private final DiceArchive diceArchive;
+
+  /**
+   * キャッシュで結果が確定した問い合わせの件数です。.
+   */
+  private final Counter hitCounter;
+
+  /**
+   * キャッシュで結果が確定せず、データベースの参照が必要になった問い合わせの件数です。.
+   */
+  private final Counter missCounter;
+
+  /**
+   * 出目履歴の配列と保持範囲を保護する読み書きロックです。.
+   */
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * キャッシュを有効にするかどうかのフラグです。.
+   *
+   * <p>設定キー: {@code app.dice.history.cache.enabled}</p>
+   */
+  @Value("${app.dice.history.cache.enabled:true}")
+  private boolean enabled = true;
+
+  /**
+   * キャッシュに保持する出目履歴の最大件数です。.
+   *
+   * <p>設定キー: {@code app.dice.history.cache.capacity}</p>
+   */
+  @Value("${app.dice.history.cache.capacity:" + DEFAULT_CAPACITY + "}")
+  private int capacity = DEFAULT_CAPACITY;
+
+  /**
+   * IDの昇順に出目履歴を保持するリングバッファーです。.
+   *
+   * <p>履歴ごとのオブジェクトを保持しないよう列ごとの配列で保持し、
+   * {@link DiceEntity}は問い合わせの結果を返す時にだけ生成します。</p>
+   */
+  private DiceColumns entries;
+
+  /**
+   * リングバッファー上で最も古い出目履歴の位置です。.
+   */
+  private int head;
+
+  /**
+   * リングバッファーが保持している出目履歴の件数です。.
+   */
+  private int size;
+
+  /**
+   * キャッシュが全ての出目履歴を漏れなく保持しているIDの下限です。.
+   *
+   * <p>このID以上の履歴は、データベースと同じ内容をキャッシュが保持しています。</p>
+   */
+  private int coveredFromId;
+
+  /**
+   * 起動時の読み込みが完了し、問い合わせに応答できるかどうかのフラグです。.
+   */
+  private boolean loaded;
+
+  /**
+   * 欠けたIDを埋めるために、データベースから読み込み直す必要があるかどうかのフラグです。.
+   */
+  private boolean stale;
+
+  /**
+   * 途中のIDが欠けた追記を検出した回数です。.
+   *
+   * <p>読み込み直している間に新たな欠けを検出した場合に、その読み込みで応答を再開しないために使用します。</p>
+   */
+  private int gaps;
+
+  /**
+   * 欠けなく追記できた出目履歴のうち、最も新しいIDです。.
+   */
+  private int lastId;
+
+  // {{{ public RecentDiceCache(DiceRepository diceRepository, DiceArchive diceArchive, ...)
+  /**
+   * RecentDiceCacheのコンストラクタです。.
+   *
+   * @param diceRepository 起動時の読み込みに使用するDiceRepository
+   * @param diceArchive アーカイブ済みの範囲の判定に使用するDiceArchive
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
+   */
+  public RecentDiceCache(
+      final DiceRepository diceRepository,
+      final DiceArchive diceArchive,
+      final MeterRegistry meterRegistry) {
+    this.diceRepository = diceRepository;
+    this.diceArchive = diceArchive;
+    this.hitCounter = Counter.builder(METRIC_REQUESTS)
+        .description("The number of history queries answered by the recent dice cache")
+        .tag("result", "hit")
+        .register(meterRegistry);
+    this.missCounter = Counter.builder(METRIC_REQUESTS)
+        .description("The number of history queries answered by the recent dice cache")
+        .tag("result", "miss")
+        .register(meterRegistry);
+    Gauge.builder(METRIC_SIZE, this, cache -> cache.size)
+        .description("The number of dice rows held by the recent dice cache")
+        .register(meterRegistry);
+  }
+  // }}}
+
+  // {{{ public void init()
+  /**
+   * 設定された容量でリングバッファーを確保します。.
+   *
+   * <p>起動時の読み込みより前に登録された出目履歴も取りこぼさないよう、読み込みとは分けて確保します。</p>
+   */
+  @PostConstruct
+  public void init() {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (this.capacity <= 0) {
+      LOGGER.warn("The recent dice cache was disabled, because the capacity was: '{}'",
+          this.capacity);
+      this.enabled = false;
+    }
+    if (!this.enabled) {
+      return;
+    }
+    this.entries = DiceColumns.ofSize(this.capacity);
+  }
+  // }}}
+
+  // {{{ public void load()
+  /**
+   * {@link DiceRepository}から最新の出目履歴を容量分だけ読み込み、問い合わせへの応答を開始します。.
+   *
+   * <p>読み込みに失敗した場合は、全ての問い合わせをデータベースに委ねたまま動作を継続します。</p>
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (!this.enabled) {
+      LOGGER.info("The recent dice cache is disabled, the history is read from the database.");
+      return;
+    }
+
+    final int gapsAtQuery;
+    this.lock.readLock().lock();
+    try {
+      gapsAtQuery = this.gaps;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+
+    int archivedUpTo;
+    List<DiceEntity> rows;
+    try {
+      do {
+        archivedUpTo = this.diceArchive.archivedUpTo();
+        rows = this.queryRecent(archivedUpTo);
+      } while (archivedUpTo != this.diceArchive.archivedUpTo());
+    } catch (DataAccessException ex) {
+      LOGGER.warn("!!! Failed to load the recent dice cache, the history is read from the database "
+          + "instead !!!", ex);
+      return;
+    }
+
+    this.lock.writeLock().lock();
+    try {
+      for (int i = rows.size() - 1; i >= 0; i--) {
+        this.addLocked(rows.get(i));
+      }
+      if (rows.size() >= this.capacity) {
+        this.coveredFromId = Math.max(this.coveredFromId, rows.get(rows.size() - 1).id());
+      } else if (archivedUpTo > 0) {
+        this.coveredFromId = Math.max(this.coveredFromId, archivedUpTo + 1);
+      }
+      this.lastId = this.size > 0 ? Math.max(archivedUpTo, this.idAt(this.size - 1)) : archivedUpTo;
+      // Another gap found during the query may hide rows the query did not see yet.
+      if (this.gaps == gapsAtQuery) {
+        this.stale = false;
+        this.loaded = true;
+      }
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+    LOGGER.info("The recent dice cache was loaded: size='{}', coveredFromId='{}', lastId='{}'",
+        this.size, this.coveredFromId, this.lastId);
+  }
+  // }}}
+
+  // {{{ private List<DiceEntity> queryRecent(int archivedUpTo)
+  private List<DiceEntity> queryRecent(final int archivedUpTo) {
+    final Optional<Integer> optAfter =
+        archivedUpTo > 0 ? Optional.of(archivedUpTo) : Optional.empty();
+    return this.diceRepository.find(Optional.empty(), optAfter, false, this.capacity);
+  }
+  // }}}
+
+  // {{{ public void onDiceInserted(DiceInsertedEvent event)
+  /**
+   * 登録された出目履歴をキャッシュに追記します。.
+   *
+   * <p>配信の購読者がキャッシュから再送を受ける際に取りこぼさないよう、
+   * {@link DiceEventBroadcaster}が配信するより先に追記します。
+   * 直前に追記したIDの次ではないIDが届いた場合は、応答を止めてデータベースから読み込み直します。</p>
+   *
+   * @param event 登録された出目履歴を保持する{@link DiceInsertedEvent}オブジェクト
+   */
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onDiceInserted(final DiceInsertedEvent event) {
+    if (!this.enabled) {
+      return;
+    }
+    final boolean reload;
+    this.lock.writeLock().lock();
+    try {
+      for (final DiceEntity dice : event.dices()) {
+        // The writers may publish out of ID order, so a row between may be committed but unseen.
+        if (this.loaded && dice.id() > this.lastId + 1) {
+          LOGGER.info("The recent dice cache became stale: lastId='{}', id='{}'",
+              this.lastId, dice.id());
+          this.loaded = false;
+          this.stale = true;
+          this.gaps++;
+        }
+        this.addLocked(dice);
+        if (this.loaded) {
+          this.lastId = Math.max(this.lastId, dice.id());
+        }
+      }
+      reload = this.stale;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+    if (reload) {
+      this.load();
+    }
+  }
+  // }}}
+
+  // {{{ public Optional<List<DiceEntity>> find(...)
+  /**
+   * 履歴の取得要求に対する結果を、キャッシュの保持範囲だけで確定できる場合に返します。.
+   *
+   * <p>結果の並びはデータベースから取得した場合と同じで、
+   * {@code after}のみが指定された場合はIDの昇順、それ以外の場合はIDの降順となります。</p>
+   *
+   * @param optBefore 指定したIDより古い履歴を取得するためのオプションのカーソル
+   * @param optAfter 指定したIDより新しい履歴を取得するためのオプションのカーソル
+   * @param fetchSize 取得する最大件数
+   * @return キャッシュで結果が確定した場合は出目履歴のリスト、確定しない場合は空
+   */
+  public Optional<List<DiceEntity>> find(
+      final Optional<Integer> optBefore,
+      final Optional<Integer> optAfter,
+      final int fetchSize) {
+    if (!this.enabled) {
+      return Optional.empty();
+    }
+
+    final boolean ascending = optBefore.isEmpty() && optAfter.isPresent();
+    final long upperId = optBefore.map(Long::valueOf).orElse(Long.MAX_VALUE);
+    // The ids start at 1, so no cursor means above 0, and a page may reach the oldest row.
+    final long lowerId = optAfter.map(Long::valueOf).orElse(0L);
+    final List<DiceEntity> rows = new ArrayList<>();
+    final boolean hit;
+
+    this.lock.readLock().lock();
+    try {
+      if (!this.loaded) {
+        hit = false;
+      } else {
+        final boolean complete = lowerId + 1 >= this.coveredFromId;
+        if (ascending) {
+          for (int i = this.lowerBound(lowerId + 1); i < this.size && rows.size() < fetchSize;
+              i++) {
+            rows.add(this.get(i));
+          }
+          hit = complete;
+        } else {
+          for (int i = this.lowerBound(upperId) - 1; i >= 0 && rows.size() < fetchSize; i--) {
+            if (this.idAt(i) <= lowerId) {
+              break;
+            }
+            rows.add(this.get(i));
+          }
+          hit = complete || rows.size() >= fetchSize;
+        }
+      }
+    } finally {
+      this.lock.readLock().unlock();
+    }
+
+    if (hit) {
+      this.hitCounter.increment();
+      LOGGER.debug("The recent dice cache hit: before='{}', after='{}', rows='{}'",
+          optBefore, optAfter, rows.size());
+      return Optional.of(rows);
+    }
+    this.missCounter.increment();
+    LOGGER.debug("The recent dice cache missed: before='{}', after='{}'", optBefore, optAfter);
+    return Optional.empty();
+  }
+  // }}}
+
+  // {{{ private void addLocked(DiceEntity dice)
+  private void addLocked(final DiceEntity dice) {
+    if (dice.id() < this.coveredFromId) {
+      return;
+    }
+    int pos = this.lowerBound(dice.id());
+    if (pos < this.size && this.idAt(pos) == dice.id()) {
+      this.set(pos, dice);
+      return;
+    }
+    if (this.size == this.entries.size()) {
+      if (pos == 0) {
+        return;
+      }
+      final int evictedId = this.entries.id(this.head);
+      this.head = (this.head + 1) % this.entries.size();
+      this.size--;
+      this.coveredFromId = Math.max(this.coveredFromId, evictedId + 1);
+      pos--;
+    }
+    // Rows usually arrive in ID order, so the shift below runs only for late arrivals.
+    for (int i = this.size; i > pos; i--) {
+      this.entries.copy(this.slot(i - 1), this.slot(i));
+    }
+    this.set(pos, dice);
+    this.size++;
+  }
+  // }}}
+
+  // {{{ private int lowerBound(long id)
+  private int lowerBound(final long id) {
+    int low = 0;
+    int high = this.size;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (this.idAt(mid) < id) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+  // }}}
+
+  // {{{ private int slot(int index)
+  private int slot(final int index) {
+    return (this.head + index) % this.entries.size();
+  }
+  // }}}
+
+  // {{{ private int idAt(int index)
+  private int idAt(final int index) {
+    return this.entries.id(this.slot(index));
+  }
+  // }}}
+
+  // {{{ private DiceEntity get(int index)
+  private DiceEntity get(final int index) {
+    return this.entries.get(this.slot(index));
+  }
+  // }}}
+
+  // {{{ private void set(int index, DiceEntity dice)
+  private void set(final int index, final DiceEntity dice) {
+    this.entries.set(this.slot(index), dice);
+  }
+  // }}}
+
+}
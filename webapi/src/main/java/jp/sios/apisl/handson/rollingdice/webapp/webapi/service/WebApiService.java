@@ -1,7 +1,13 @@
 package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
 
-import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceBulkRequestDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceBulkResultDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceChangesDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DicePageDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceStatsDto;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceValueDto;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
 
@@ -31,10 +37,83 @@ public interface WebApiService {
       DiceValueDto fixedDiceRequest);
 
   /**
-   * サイコロを振った履歴を一覧で返します。.
+   * サイコロを振り、出目を非同期に返します。.
    *
-   * @return サイコロを振った履歴を保持する{@link DiceEntity}オブジェクトのリスト
+   * <p>障害を注入するリクエスト（sleep, loop, errorのいずれかを指定）は、専用のスレッドで処理します。
+   * スリープ時間が指定された場合は、呼び出し元のスレッドを待機させずにタイマーで遅延させ、
+   * 指定時間の経過後に残りの処理（ループ、エラー、出目の決定と登録）を実行します。
+   * 障害を注入しない場合は、呼び出し元のスレッドで処理して完了済みのFutureを返します。</p>
+   *
+   * @param optSleep サイコロを振る前にスリープする時間（秒）を指定するオプションの整数
+   * @param optLoop サイコロを振る前にループで遅延する時間（秒）を指定するオプションの整数
+   * @param optError エラーを発生させるかどうかを指定するオプションの真偽値
+   * @param fixedDiceRequest サイコロの出目を強制する情報を持つオプションの{@link DiceValueDto}オブジェクト
+   * @return サイコロの出目（1～6）を含む{@link DiceValueDto}オブジェクトを受け取るFuture
+   */
+  CompletableFuture<DiceValueDto> rollDiceAsync(
+      Optional<Integer> optSleep,
+      Optional<Integer> optLoop,
+      Optional<Boolean> optError,
+      DiceValueDto fixedDiceRequest);
+
+  /**
+   * サイコロをまとめて振り、出目と採番された履歴IDの範囲を返します。.
+   *
+   * @param bulkRequest 振る回数、または出目を強制する出目のリストを持つ{@link DiceBulkRequestDto}オブジェクト
+   * @return 出目のリストと履歴IDの範囲を含む{@link DiceBulkResultDto}オブジェクト
+   */
+  DiceBulkResultDto rollDiceBulk(DiceBulkRequestDto bulkRequest);
+
+  /**
+   * サイコロを振った履歴を、主キーによるキーセット方式で1ページ分返します。.
+   *
+   * @param optLimit 1ページあたりの取得件数を指定するオプションの整数
+   * @param optBefore 指定したIDより古い履歴を取得するためのオプションのカーソル
+   * @param optAfter 指定したIDより新しい履歴を取得するためのオプションのカーソル
+   * @return 1ページ分の履歴と前後のカーソルを保持する{@link DicePageDto}オブジェクト
+   */
+  DicePageDto listDice(
+      Optional<Integer> optLimit,
+      Optional<Integer> optBefore,
+      Optional<Integer> optAfter);
+
+  /**
+   * 指定したIDより後に登録された履歴を、IDの昇順で返します。.
+   *
+   * <p>手元に保持している履歴との差分だけを取得するために使用します。</p>
+   *
+   * @param sinceId このIDより大きいIDの履歴を取得するためのカーソル
+   * @param optLimit 取得件数を指定するオプションの整数
+   * @return 差分の履歴と、続きが存在する場合のカーソルを保持する{@link DiceChangesDto}オブジェクト
+   */
+  DiceChangesDto listDiceChanges(int sinceId, Optional<Integer> optLimit);
+
+  /**
+   * サイコロを振った履歴のバージョンを返します。.
+   *
+   * <p>出目が登録されるたびに変わる値で、同じ値を返す間は履歴の各ページの内容が変わりません。</p>
+   *
+   * @return 最新のIDと件数から作成したバージョン（判定できない場合は空）
+   */
+  Optional<String> getDiceHistoryVersion();
+
+  /**
+   * サイコロを振った全履歴を、1件ずつ指定された処理に受け渡します。.
+   *
+   * <p>全履歴をメモリ上のリストに保持せず、データベースから読み込んだ順に受け渡します。</p>
+   *
+   * @param consumer 読み込んだ{@link DiceEntity}オブジェクトを1件ずつ受け取る処理
+   * @return 受け渡した履歴の件数
+   */
+  long exportDice(Consumer<DiceEntity> consumer);
+
+  /**
+   * サイコロの出目の統計情報を返します。.
+   *
+   * <p>統計情報は出目の登録に合わせて逐次更新されており、取得時に履歴を集計しません。</p>
+   *
+   * @return 総回数、出目ごとの回数、平均値、および最後にサイコロを振った日時を含む{@link DiceStatsDto}オブジェクト
    */
-  List<DiceEntity> listDice();
+  DiceStatsDto getDiceStats();
 
 }
@@ -1,35 +1,82 @@
 package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.context.Context;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.config.SemaphoreBulkhead;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.config.ThreadPoolBulkhead;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceBulkRequestDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceBulkResultDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceChangesDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DicePageDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceStatsDto;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceValueDto;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.HandsOnException;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.repository.DiceRepository;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.util.UtilEnvInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * サイコロの操作に関するサービスの実装クラスです。.
  *
  * <p>このクラスは、サイコロを振ったり履歴を一覧で返す処理を提供します。</p>
  * <ul>
- *   <li>rollDiceメソッドでサイコロを振り、結果をデータベースに保存します。</li>
+ *   <li>rollDiceメソッドでサイコロを振り、結果を{@link DiceRepository}に保存します。</li>
+ *   <li>rollDiceAsyncメソッドでスリープをタイマーに委ね、スレッドを占有せずにサイコロを振ります。
+ *       障害を注入するリクエストは、通常のリクエストとは別のバルクヘッドで実行します。</li>
+ *   <li>rollDiceBulkメソッドでサイコロをまとめて振り、結果を1回の書き込みで保存します。</li>
  *   <li>sleepメソッドで指定時間のスリープを行います。</li>
  *   <li>loopメソッドで指定時間ループをしながらファイル読み込みを繰り返します。</li>
  *   <li>errorメソッドで意図的に例外を発生させます。</li>
- *   <li>listDiceメソッドで保存されたサイコロの出目履歴を一覧で取得します。</li>
+ *   <li>listDiceメソッドで保存されたサイコロの出目履歴をキーセット方式で1ページずつ取得します。
+ *       直近の履歴は{@link RecentDiceCache}から返却します。</li>
+ *   <li>listDiceChangesメソッドで指定したIDより後に登録された出目履歴だけを返します。</li>
+ *   <li>サイコロを振る処理と出目履歴を取得する処理は、それぞれのバルクヘッドで同時実行数を制限します。</li>
+ *   <li>getDiceHistoryVersionメソッドで出目履歴が更新されたかどうかを判定するバージョンを返します。</li>
+ *   <li>exportDiceメソッドで保存されたサイコロの出目履歴を1件ずつストリーミングで受け渡します。</li>
+ *   <li>getDiceStatsメソッドで逐次集計されたサイコロの出目の統計情報を返します。</li>
  * </ul>
+ *
+ * <p>{@link DiceRetentionJob}によって古い履歴が{@link DiceArchive}へ移されている場合、
+ * listDiceメソッドとexportDiceメソッドは、IDの範囲でdiceテーブルとアーカイブを組み合わせて返します。</p>
+ *
+ * <p>listDiceメソッドとexportDiceメソッドは読み取り専用として実行するため、
+ * レプリカが構成されている場合は、その問い合わせがレプリカに振り分けられます
+ * （{@link jp.sios.apisl.handson.rollingdice.webapp.webapi.config.ReadReplicaConfig}を参照）。</p>
  * 
+ * <p>データベースへの書き込みと読み込みの時間、出目ごとの回数、返却した履歴の件数、
+ * 注入したスリープとループの時間をメトリクスとして記録します。
+ * サイコロを振る処理のメトリクスには、注入した障害の種類（{@value #TAG_FAULT_MODE}）をタグとして付け、
+ * 障害による遅延とデータベースの処理時間を区別できるようにします。
+ * 記録はリクエストのトレースのコンテキストで行うため、ヒストグラムにはトレースへのExemplarが付与されます。</p>
+ *
  * <p>デバッグや運用時のトラブルシューティングを容易にするため、詳細なログ出力や例外制御を行っています。</p>
  *
  * @author Toshiharu Konuma
@@ -38,6 +85,56 @@ import org.springframework.stereotype.Service;
 @SuppressWarnings("PMD.CommentSize")
 public class WebApiServiceImpl implements WebApiService {
 
+  /**
+   * サイコロを振った回数を出目ごとに記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_ROLLS = "dice.rolls";
+
+  /**
+   * 出目の登録にかかった時間を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_INSERT = "dice.insert";
+
+  /**
+   * 出目履歴の取得で保存先の問い合わせにかかった時間を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_LIST_QUERY = "dice.list.query";
+
+  /**
+   * 直近に返却した1ページ分の出目履歴の件数を表すメトリクスの名前です。.
+   */
+  public static final String METRIC_LIST_ROWS = "dice.list.rows";
+
+  /**
+   * 注入したスリープとループの時間を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_FAULT_DURATION = "dice.fault.duration";
+
+  /**
+   * ループで1秒あたりにファイルを読み込んだ回数を記録するメトリクスの名前です。.
+   */
+  public static final String METRIC_LOOP_RATE = "dice.fault.loop.rate";
+
+  /**
+   * 注入した障害の種類を表すタグの名前です。.
+   */
+  public static final String TAG_FAULT_MODE = "fault.mode";
+
+  /**
+   * 障害を注入していないことを表す{@value #TAG_FAULT_MODE}タグの値です。.
+   */
+  public static final String FAULT_MODE_NONE = "none";
+
+  /**
+   * 注入した障害の種類を表すタグの名前です（sleepまたはloop）。.
+   */
+  private static final String TAG_FAULT_TYPE = "type";
+
+  /**
+   * サイコロの出目を表すタグの名前です。.
+   */
+  private static final String TAG_VALUE = "value";
+
   /**
    * ループ内で使用される設定ファイル「application.yml」のパスを表す定数です。.
    */
@@ -48,6 +145,16 @@ public class WebApiServiceImpl implements WebApiService {
    */
   private static final String FLOAT_FORMAT = "%.2f";
 
+  /**
+   * 履歴の取得件数が指定されなかった場合に使用する、1ページあたりの既定の件数です。.
+   */
+  private static final int DEFAULT_LIST_LIMIT = 100;
+
+  /**
+   * 履歴の取得件数として指定可能な、1ページあたりの最大件数です。.
+   */
+  private static final int MAX_LIST_LIMIT = 1000;
+
   /**
    * ログ出力を行うためのロガーインスタンスです。
    * このサービスクラス内の処理状況やエラー情報を記録します。.
@@ -55,20 +162,153 @@ public class WebApiServiceImpl implements WebApiService {
   private static final Logger LOGGER = LoggerFactory.getLogger(WebApiServiceImpl.class);
 
   /**
-   * データベース操作を行うためのJdbcTemplateインスタンス。
-   * SQLクエリの実行やデータの取得・更新などに使用します。.
+   * サイコロの出目履歴を保存先から取得するためのDiceRepositoryインスタンス。
+   * 保存先はプロファイルによってデータベース、ヒープ、またはメモリーマップドファイルに切り替わります。.
+   */
+  private final DiceRepository diceRepository;
+
+  /**
+   * サイコロの出目をまとめて保存先へ登録するためのDiceGroupCommitWriterインスタンス。.
+   */
+  private final DiceGroupCommitWriter groupCommitWriter;
+
+  /**
+   * 直近のサイコロの出目履歴をメモリー上に保持するRecentDiceCacheインスタンス。.
+   */
+  private final RecentDiceCache recentDiceCache;
+
+  /**
+   * サイコロの出目の統計情報を逐次集計するDiceStatisticsインスタンス。.
+   */
+  private final DiceStatistics diceStatistics;
+
+  /**
+   * diceテーブルから移された古い出目履歴を保持するDiceArchiveインスタンス。.
+   */
+  private final DiceArchive diceArchive;
+
+  /**
+   * 障害を注入するリクエスト（sleep, loop, error）を専用のスレッドで実行するバルクヘッドです。.
+   */
+  private final ThreadPoolBulkhead faultBulkhead;
+
+  /**
+   * 障害を注入せずにサイコロを振るリクエストの同時実行数を制限するバルクヘッドです。.
+   */
+  private final SemaphoreBulkhead rollBulkhead;
+
+  /**
+   * 出目履歴を取得するリクエストの同時実行数を制限するバルクヘッドです。.
+   */
+  private final SemaphoreBulkhead readBulkhead;
+
+  /**
+   * メトリクスの登録先となるMeterRegistryインスタンスです。.
+   */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * 直近に返却した1ページ分の出目履歴の件数です。.
+   */
+  private final AtomicInteger listRows = new AtomicInteger();
+
+  /**
+   * 出目と障害の種類の組ごとに、振った回数を記録するカウンターです。.
+   *
+   * <p>リクエストのたびにメーターのIDを作成して検索しないよう、初めて使用した時に登録して保持します。
+   * 他のメーターも同様です。</p>
    */
-  private final JdbcTemplate jdbcTemplate;
+  private final Map<String, Counter> rollCounters = new ConcurrentHashMap<>();
 
-  // {{{ public WebApiServiceImpl(JdbcTemplate jdbcTemplate)
+  /**
+   * メトリクスの名前と障害の種類の組ごとに、出目の登録と履歴の取得の時間を記録するタイマーです。.
+   */
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+  /**
+   * 注入した障害と障害の種類の組ごとに、障害の継続時間を記録するタイマーです。.
+   */
+  private final Map<String, Timer> faultTimers = new ConcurrentHashMap<>();
+
+  /**
+   * 障害の種類ごとに、注入したループの1秒あたりの実行回数を記録するメーターです。.
+   */
+  private final Map<String, DistributionSummary> loopRates = new ConcurrentHashMap<>();
+
+  /**
+   * スリープをタイマーに委ね、リクエストのスレッドを待機させないかどうかのフラグです。.
+   *
+   * <p>設定キー: {@code app.dice.sleep.async}</p>
+   */
+  @Value("${app.dice.sleep.async:true}")
+  private boolean asyncSleep = true;
+
+  /**
+   * 履歴の取得件数が指定されなかった場合に使用する、1ページあたりの件数です。.
+   *
+   * <p>設定キー: {@code app.dice.history.default-limit}</p>
+   */
+  @Value("${app.dice.history.default-limit:" + DEFAULT_LIST_LIMIT + "}")
+  private int defaultLimit = DEFAULT_LIST_LIMIT;
+
+  /**
+   * 履歴の取得件数として指定可能な、1ページあたりの最大件数です。.
+   *
+   * <p>設定キー: {@code app.dice.history.max-limit}</p>
+   */
+  @Value("${app.dice.history.max-limit:" + MAX_LIST_LIMIT + "}")
+  private int maxLimit = MAX_LIST_LIMIT;
+
+  /**
+   * 出目履歴のバージョンを、データベースを参照せずに逐次集計の値から作成するかどうかのフラグです。.
+   *
+   * <p>このインスタンス以外からの登録は逐次集計に反映されないため、
+   * 既定値は同じ前提に立つ直近の履歴のキャッシュの設定に従います。</p>
+   *
+   * <p>設定キー: {@code app.dice.history.version-in-memory}</p>
+   */
+  @Value("${app.dice.history.version-in-memory:${app.dice.history.cache.enabled:true}}")
+  private boolean versionInMemory = true;
+
+  // {{{ public WebApiServiceImpl(DiceRepository diceRepository, DiceGroupCommitWriter ...)
   /**
    * WebApiServiceImplのコンストラクタです。.
-   * 指定されたJdbcTemplateを使用してインスタンスを初期化します。
+   * 指定されたDiceRepository、DiceGroupCommitWriter、RecentDiceCache、DiceStatistics、
+   * DiceArchive、バルクヘッド、およびMeterRegistryを使用してインスタンスを初期化します。
    *
-   * @param jdbcTemplate データベース操作に使用するJdbcTemplate
+   * @param diceRepository 出目履歴の取得に使用するDiceRepository
+   * @param groupCommitWriter サイコロの出目の登録に使用するDiceGroupCommitWriter
+   * @param recentDiceCache 直近の出目履歴の取得に使用するRecentDiceCache
+   * @param diceStatistics 出目の統計情報の取得に使用するDiceStatistics
+   * @param diceArchive アーカイブ済みの出目履歴の取得に使用するDiceArchive
+   * @param faultBulkhead 障害を注入するリクエストを実行するバルクヘッド
+   * @param rollBulkhead 障害を注入せずにサイコロを振るリクエストのバルクヘッド
+   * @param readBulkhead 出目履歴を取得するリクエストのバルクヘッド
+   * @param meterRegistry メトリクスの登録先となるMeterRegistry
    */
-  public WebApiServiceImpl(final JdbcTemplate jdbcTemplate) {
-    this.jdbcTemplate = jdbcTemplate;
+  public WebApiServiceImpl(
+      final DiceRepository diceRepository,
+      final DiceGroupCommitWriter groupCommitWriter,
+      final RecentDiceCache recentDiceCache,
+      final DiceStatistics diceStatistics,
+      final DiceArchive diceArchive,
+      final ThreadPoolBulkhead faultBulkhead,
+      @Qualifier("rollBulkhead") final SemaphoreBulkhead rollBulkhead,
+      @Qualifier("readBulkhead") final SemaphoreBulkhead readBulkhead,
+      final MeterRegistry meterRegistry) {
+    this.diceRepository = diceRepository;
+    this.groupCommitWriter = groupCommitWriter;
+    this.recentDiceCache = recentDiceCache;
+    this.diceStatistics = diceStatistics;
+    this.diceArchive = diceArchive;
+    this.faultBulkhead = faultBulkhead;
+    this.rollBulkhead = rollBulkhead;
+    this.readBulkhead = readBulkhead;
+    this.meterRegistry = meterRegistry;
+    Gauge.builder(METRIC_LIST_ROWS, this.listRows, AtomicInteger::get)
+        .description("The number of dice rows returned by the last page of the history")
+        .tag(TAG_FAULT_MODE, FAULT_MODE_NONE)
+        .register(meterRegistry);
   }
   // }}}
 
@@ -100,8 +340,19 @@ public class WebApiServiceImpl implements WebApiService {
         "The received parameters are: sleep='{}', loop='{}', error='{}' and fixedDiceRequest='{}'", 
         optSleep, optLoop, optError, fixedDiceRequest);
 
-    this.sleep(optSleep);
-    this.loop(optLoop);
+    final String faultMode = faultMode(optSleep, optLoop, optError);
+    this.sleep(optSleep, faultMode);
+    return this.rollAfterSleep(optLoop, optError, fixedDiceRequest, faultMode);
+  }
+  // }}}
+
+  // {{{ private DiceValueDto rollAfterSleep(...)
+  private DiceValueDto rollAfterSleep(
+      final Optional<Integer> optLoop,
+      final Optional<Boolean> optError,
+      final DiceValueDto fixedDiceRequest,
+      final String faultMode) {
+    this.loop(optLoop, faultMode);
     this.error(optError);
 
     final int resultValue;
@@ -111,14 +362,122 @@ public class WebApiServiceImpl implements WebApiService {
     } else {
       resultValue = this.roll();
     }
-    this.insertDice(resultValue);
+    this.rollCounters.computeIfAbsent(resultValue + ":" + faultMode,
+        key -> Counter.builder(METRIC_ROLLS)
+            .description("The number of rolled dice by the value")
+            .tag(TAG_VALUE, String.valueOf(resultValue))
+            .tag(TAG_FAULT_MODE, faultMode)
+            .register(this.meterRegistry))
+        .increment();
+    this.insertDice(resultValue, faultMode);
     return new DiceValueDto(resultValue);
   }
   // }}}
 
-  // {{{ private void sleep(Optional<Integer> optSleep)
+  // {{{ public CompletableFuture<DiceValueDto> rollDiceAsync(...)
+  /**
+   * サイコロを振り、出目を非同期に返します。.
+   *
+   * <p>障害を注入するリクエスト（sleep, loop, errorのいずれかを指定）は、通常のリクエストと処理能力を奪い合わないよう、
+   * 専用のスレッドプールを持つバルクヘッドで実行します。
+   * スリープ時間が指定された場合は、{@link Thread#sleep(long)}でスレッドを待機させる代わりにタイマーで遅延させ、
+   * 指定時間の経過後に、ループ、エラー、出目の決定と登録をバルクヘッドのスレッドで処理し、Futureを完了させます。
+   * そのため、遅延中のリクエストの件数に関わらず、リクエストを処理するスレッドは占有されません。
+   * 非同期のスリープが無効な場合は、バルクヘッドのスレッドでスリープします。
+   * トレースのコンテキストは、バルクヘッドでの処理へ引き継がれます。
+   * </p>
+   *
+   * <p>障害を注入しないリクエストは、{@link #rollDice(Optional, Optional, Optional, DiceValueDto)}を
+   * 呼び出し元のスレッドで同時実行数を制限しながら実行し、完了済みのFutureを返します。
+   * バルクヘッドが埋まっている場合は、{@link
+   * jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.BulkheadFullException}をスローします。</p>
+   *
+   * @param optSleep サイコロを振る前にスリープする時間（秒）を指定するオプションの整数
+   * @param optLoop サイコロを振る前にループで遅延する時間（秒）を指定するオプションの整数
+   * @param optError エラーを発生させるかどうかを指定するオプションの真偽値
+   * @param fixedDiceRequest サイコロの出目を強制する情報を持つオプションの{@link DiceValueDto}オブジェクト
+   * @return サイコロの出目（1～6）を含む{@link DiceValueDto}オブジェクトを受け取るFuture
+   */
+  @Override
   @SuppressWarnings("PMD.GuardLogStatement")
-  private void sleep(final Optional<Integer> optSleep) {
+  public CompletableFuture<DiceValueDto> rollDiceAsync(
+      final Optional<Integer> optSleep,
+      final Optional<Integer> optLoop,
+      final Optional<Boolean> optError,
+      final DiceValueDto fixedDiceRequest) {
+
+    UtilEnvInfo.logStartClassMethod();
+
+    if (optSleep.isEmpty() && optLoop.isEmpty() && optError.isEmpty()) {
+      return CompletableFuture.completedFuture(this.rollBulkhead.execute(
+          () -> this.rollDice(optSleep, optLoop, optError, fixedDiceRequest)));
+    }
+
+    final int sleepSeconds = optSleep.orElse(0);
+    if (!this.asyncSleep || sleepSeconds <= 0) {
+      return this.faultBulkhead.submit(0L, Context.current().wrapSupplier(
+          () -> this.rollDice(optSleep, optLoop, optError, fixedDiceRequest)));
+    }
+
+    final String faultMode = faultMode(optSleep, optLoop, optError);
+    LOGGER.warn("!!! Scheduling the roll after: {} seconds without holding the thread !!!",
+        String.format(FLOAT_FORMAT, (double) sleepSeconds));
+    final long scheduledNanos = System.nanoTime();
+    return this.faultBulkhead.submit(sleepSeconds, Context.current().wrapSupplier(() -> {
+      LOGGER.warn("!!! Sleep finished !!!");
+      this.faultTimer("sleep", faultMode)
+          .record(System.nanoTime() - scheduledNanos, TimeUnit.NANOSECONDS);
+      return this.rollAfterSleep(optLoop, optError, fixedDiceRequest, faultMode);
+    }));
+  }
+  // }}}
+
+  // {{{ public DiceBulkResultDto rollDiceBulk(DiceBulkRequestDto bulkRequest)
+  /**
+   * サイコロをまとめて振り、出目と採番された履歴IDの範囲を返します。.
+   *
+   * <p>出目のリストが指定された場合はその値を採用し、それ以外の場合は指定された回数分の出目を一度に生成します。
+   * 全ての出目は1回の書き込みでまとめて保存します。
+   * </p>
+   *
+   * @param bulkRequest 振る回数、または出目を強制する出目のリストを持つ{@link DiceBulkRequestDto}オブジェクト
+   * @return 出目のリストと履歴IDの範囲を含む{@link DiceBulkResultDto}オブジェクト
+   */
+  @Override
+  public DiceBulkResultDto rollDiceBulk(final DiceBulkRequestDto bulkRequest) {
+    UtilEnvInfo.logStartClassMethod();
+    LOGGER.info("The received parameters are: bulkRequest='{}'", bulkRequest);
+
+    return this.rollBulkhead.execute(() -> this.insertBulk(bulkRequest));
+  }
+  // }}}
+
+  // {{{ private DiceBulkResultDto insertBulk(DiceBulkRequestDto bulkRequest)
+  private DiceBulkResultDto insertBulk(final DiceBulkRequestDto bulkRequest) {
+    final List<Integer> values;
+    if (bulkRequest.values() != null && !bulkRequest.values().isEmpty()) {
+      values = List.copyOf(bulkRequest.values());
+      LOGGER.info("The fixed values of dice are: '{}'", values);
+    } else {
+      values = ThreadLocalRandom.current()
+          .ints(bulkRequest.count(), 1, 7)
+          .boxed()
+          .toList();
+      LOGGER.info("The values of dice are: '{}'", values);
+    }
+
+    final List<DiceEntity> dices = this.groupCommitWriter.insertAll(values);
+    final int firstId = dices.get(0).id();
+    final int lastId = dices.get(dices.size() - 1).id();
+    LOGGER.info("The ids of the inserted dice are: '{}' - '{}'", firstId, lastId);
+
+    return new DiceBulkResultDto(firstId, lastId, values);
+  }
+  // }}}
+
+  // {{{ private void sleep(Optional<Integer> optSleep, String faultMode)
+  @SuppressWarnings("PMD.GuardLogStatement")
+  private void sleep(final Optional<Integer> optSleep, final String faultMode) {
 
     UtilEnvInfo.logStartClassMethod();
 
@@ -134,7 +493,10 @@ public class WebApiServiceImpl implements WebApiService {
           String.format(FLOAT_FORMAT, (double) sleepSeconds));
       try {
         final long sleepMillis = sleepSeconds * 1000L;
+        final long startNanos = System.nanoTime();
         Thread.sleep(sleepMillis);
+        this.faultTimer("sleep", faultMode)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
         LOGGER.warn("!!! Sleep finished !!!");
       } catch (InterruptedException ex) {
         LOGGER.error("The exception was happened with sleep()", ex);
@@ -145,9 +507,9 @@ public class WebApiServiceImpl implements WebApiService {
   }
   // }}}
 
-  // {{{ private void loop(Optional<Integer> optLoop)
+  // {{{ private void loop(Optional<Integer> optLoop, String faultMode)
   @SuppressWarnings("PMD.GuardLogStatement")
-  private void loop(final Optional<Integer> optLoop) {
+  private void loop(final Optional<Integer> optLoop, final String faultMode) {
 
     UtilEnvInfo.logStartClassMethod();
 
@@ -193,12 +555,30 @@ public class WebApiServiceImpl implements WebApiService {
           "!!! Loop finished !!! (Total executions: {}) : The read text is: '{}'",
           String.format("%,d", executionCount), line);
 
+      final long elapsedMillis = System.currentTimeMillis() - startTime;
+      this.faultTimer("loop", faultMode).record(elapsedMillis, TimeUnit.MILLISECONDS);
+      this.loopRates.computeIfAbsent(faultMode,
+          mode -> DistributionSummary.builder(METRIC_LOOP_RATE)
+              .description("The number of file reads per second in the injected loop")
+              .baseUnit("iterations.per.second")
+              .tag(TAG_FAULT_MODE, mode)
+              .register(this.meterRegistry))
+          .record(executionCount * 1000.0 / Math.max(elapsedMillis, 1L));
+
     });
   }
   // }}}
 
-  // {{{ private String readFile(String filePath)
-  private String readFile(final String filePath) {
+  // {{{ String readFile(String filePath)
+  /**
+   * クラスパス上のファイルを開き、先頭の1行を読み込みます。.
+   *
+   * <p>loopメソッドで繰り返し実行する処理です。ベンチマークから計測できるようパッケージプライベートとしています。</p>
+   *
+   * @param filePath 読み込むファイルのクラスパス上のパス
+   * @return 読み込んだ先頭の1行（読み込みに失敗した場合はnull）
+   */
+  /* default */ String readFile(final String filePath) {
     String line = null;
     try (InputStream inputStream = new ClassPathResource(filePath).getInputStream();
         BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
@@ -228,8 +608,15 @@ public class WebApiServiceImpl implements WebApiService {
   }
   // }}}
 
-  // {{{ private int roll()
-  private int roll() {
+  // {{{ int roll()
+  /**
+   * サイコロを振り、1～6の出目を返します。.
+   *
+   * <p>ベンチマークから計測できるようパッケージプライベートとしています。</p>
+   *
+   * @return サイコロの出目（1～6）
+   */
+  /* default */ int roll() {
     UtilEnvInfo.logStartClassMethod();
 
     final int value = this.getRandomNumber(1, 6);
@@ -246,45 +633,354 @@ public class WebApiServiceImpl implements WebApiService {
   }
   // }}}
 
-  // {{{ private void insertDice(int value)
-  private void insertDice(final int value) {
+  // {{{ private DiceEntity insertDice(int value, String faultMode)
+  private DiceEntity insertDice(final int value, final String faultMode) {
     UtilEnvInfo.logStartClassMethod();
 
-    final String sql = "INSERT INTO dice(value) VALUES(?)";
-    LOGGER.info("The sql to execute is: '{}'. And the value to give is: '{}'", sql, value);
-    final int number = this.jdbcTemplate.update(sql, value);
-    LOGGER.info("The record count of the executed sql is: '{}'", number);
+    LOGGER.info("The value to insert is: '{}'", value);
+    final DiceEntity dice = this.timer(METRIC_INSERT,
+        "The time to insert a rolled dice, including the group commit", faultMode)
+        .record(() -> this.groupCommitWriter.insert(value));
+    LOGGER.info("The id of the inserted dice is: '{}'", dice.id());
+
+    return dice;
   }
   // }}}
 
-  // {{{ public List<Dice> listDice()
+  // {{{ public DicePageDto listDice(...)
   /**
-   * サイコロを振った履歴を一覧で返します。.
+   * サイコロを振った履歴を、主キーによるキーセット方式で1ページ分返します。.
    *
-   * <p>diceテーブルから全レコードをIDの降順で取得し、
-   * {@link DiceEntity}オブジェクトのリストで返却します。
+   * <p>diceテーブルから、カーソルで指定された範囲のレコードをIDの降順で最大{@code limit}件取得し、
+   * {@link DicePageDto}オブジェクトで返却します。
+   * 件数の判定のために1件多く取得し、続きが存在する場合にのみ次ページのカーソルを設定します。
+   * 直近の履歴だけで結果が確定するページは、データベースを参照せずに{@link RecentDiceCache}から取得します。
+   * {@code after}のみが指定された場合は、カーソルに近い新しい履歴から昇順で取得した上で降順に並べ替えます。
+   * アーカイブ済みの範囲にかかるページは、不足する件数を{@link DiceArchive}から補います。
    * </p>
    *
-   * @return サイコロを振った履歴を保持する{@link DiceEntity}オブジェクトのリスト
+   * @param optLimit 1ページあたりの取得件数を指定するオプションの整数
+   * @param optBefore 指定したIDより古い履歴を取得するためのオプションのカーソル
+   * @param optAfter 指定したIDより新しい履歴を取得するためのオプションのカーソル
+   * @return 1ページ分の履歴と前後のカーソルを保持する{@link DicePageDto}オブジェクト
    */
   @Override
+  @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
   @SuppressWarnings("PMD.GuardLogStatement")
-  public List<DiceEntity> listDice() {
+  public DicePageDto listDice(
+      final Optional<Integer> optLimit,
+      final Optional<Integer> optBefore,
+      final Optional<Integer> optAfter) {
     UtilEnvInfo.logStartClassMethod();
+    LOGGER.info("The received parameters are: limit='{}', before='{}' and after='{}'",
+        optLimit, optBefore, optAfter);
+
+    return this.readBulkhead.execute(() -> this.findPage(optLimit, optBefore, optAfter));
+  }
+  // }}}
 
-    final String sql = "SELECT id, value, updated_at FROM dice ORDER BY id DESC;";
-    LOGGER.info("The sql to execute is '{}'", sql);
+  // {{{ private DicePageDto findPage(...)
+  @SuppressWarnings("PMD.GuardLogStatement")
+  private DicePageDto findPage(
+      final Optional<Integer> optLimit,
+      final Optional<Integer> optBefore,
+      final Optional<Integer> optAfter) {
+    final int limit = this.resolveLimit(optLimit);
+    final boolean ascending = optBefore.isEmpty() && optAfter.isPresent();
+
+    final List<DiceEntity> rows = this.recentDiceCache.find(optBefore, optAfter, limit + 1)
+        .orElseGet(() -> this.queryDice(optBefore, optAfter, ascending, limit + 1));
+
+    final boolean hasMore = rows.size() > limit;
+    final List<DiceEntity> list = new ArrayList<>(hasMore ? rows.subList(0, limit) : rows);
+    if (ascending) {
+      Collections.reverse(list);
+    }
+
+    Integer nextCursor = null;
+    Integer prevCursor = null;
+    if (!list.isEmpty()) {
+      final int newestId = list.get(0).id();
+      final int oldestId = list.get(list.size() - 1).id();
+      if (ascending) {
+        nextCursor = oldestId;
+        prevCursor = hasMore ? newestId : null;
+      } else {
+        nextCursor = hasMore ? oldestId : null;
+        prevCursor = optBefore.isPresent() ? newestId : null;
+      }
+    }
+    LOGGER.info("The cursors of the page are: next='{}' and prev='{}'", nextCursor, prevCursor);
+    this.listRows.set(list.size());
 
-    final List<DiceEntity> list = this.jdbcTemplate.query(sql, (rs, rowNum) -> 
-        new DiceEntity(
-          rs.getInt("id"),
-          rs.getInt("value"),
-          rs.getObject("updated_at", LocalDateTime.class)
-        )
-    );
-    LOGGER.info("The record count of the executed sql is: '{}'", list.size());
+    return new DicePageDto(list, nextCursor, prevCursor);
+  }
+  // }}}
 
-    return list;
+  // {{{ public DiceChangesDto listDiceChanges(int sinceId, Optional<Integer> optLimit)
+  /**
+   * 指定したIDより後に登録された履歴を、IDの昇順で最大{@code limit}件返します。.
+   *
+   * <p>主キーの範囲検索で{@code sinceId}より大きいIDの履歴だけを取得するため、
+   * 処理量は全履歴の件数ではなく差分の件数に比例します。
+   * 直近の差分は、データベースを参照せずに{@link RecentDiceCache}から取得します。
+   * 続きが存在する場合は、返却した最新のIDを次のカーソルに設定します。
+   * </p>
+   *
+   * @param sinceId このIDより大きいIDの履歴を取得するためのカーソル
+   * @param optLimit 取得件数を指定するオプションの整数
+   * @return IDの昇順の差分の履歴と、続きを取得するためのカーソルを保持する{@link DiceChangesDto}オブジェクト
+   */
+  @Override
+  @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+  public DiceChangesDto listDiceChanges(final int sinceId, final Optional<Integer> optLimit) {
+    UtilEnvInfo.logStartClassMethod();
+    LOGGER.info("The received parameters are: since='{}' and limit='{}'", sinceId, optLimit);
+
+    return this.readBulkhead.execute(() -> this.findChanges(sinceId, optLimit));
+  }
+  // }}}
+
+  // {{{ private DiceChangesDto findChanges(int sinceId, Optional<Integer> optLimit)
+  private DiceChangesDto findChanges(final int sinceId, final Optional<Integer> optLimit) {
+    final int limit = this.resolveLimit(optLimit);
+    final Optional<Integer> optAfter = Optional.of(sinceId);
+
+    final List<DiceEntity> rows = this.recentDiceCache.find(Optional.empty(), optAfter, limit + 1)
+        .orElseGet(() -> this.queryDice(Optional.empty(), optAfter, true, limit + 1));
+
+    final boolean hasMore = rows.size() > limit;
+    final List<DiceEntity> list = hasMore ? List.copyOf(rows.subList(0, limit)) : rows;
+    final Integer nextCursor = hasMore ? list.get(list.size() - 1).id() : null;
+    LOGGER.info("The count of the changes is: '{}', next='{}'", list.size(), nextCursor);
+
+    return new DiceChangesDto(list, nextCursor);
+  }
+  // }}}
+
+  // {{{ private List<DiceEntity> queryDice(...)
+  private List<DiceEntity> queryDice(
+      final Optional<Integer> optBefore,
+      final Optional<Integer> optAfter,
+      final boolean ascending,
+      final int fetchSize) {
+    UtilEnvInfo.logStartClassMethod();
+
+    // Rows moving to the archive in the meantime may be missed on both sides, so query again.
+    int archivedUpTo;
+    List<DiceEntity> rows;
+    do {
+      archivedUpTo = this.diceArchive.archivedUpTo();
+      rows = this.queryDice(optBefore, optAfter, ascending, fetchSize, archivedUpTo);
+    } while (archivedUpTo != this.diceArchive.archivedUpTo());
+
+    return rows;
+  }
+  // }}}
+
+  // {{{ private List<DiceEntity> queryDice(..., int archivedUpTo)
+  private List<DiceEntity> queryDice(
+      final Optional<Integer> optBefore,
+      final Optional<Integer> optAfter,
+      final boolean ascending,
+      final int fetchSize,
+      final int archivedUpTo) {
+    if (archivedUpTo <= 0) {
+      return this.selectDice(optBefore, optAfter, ascending, fetchSize);
+    }
+
+    final long upperId = optBefore.map(Long::valueOf).orElse(Long.MAX_VALUE);
+    final long lowerId = optAfter.map(Long::valueOf).orElse(Long.MIN_VALUE);
+    final long archiveUpperId = Math.min(upperId, archivedUpTo + 1L);
+    final Optional<Integer> tableAfter = Optional.of(Math.max(optAfter.orElse(0), archivedUpTo));
+    final boolean coversTable = upperId > archivedUpTo + 1L;
+
+    final List<DiceEntity> rows = new ArrayList<>();
+    if (ascending) {
+      rows.addAll(this.diceArchive.find(lowerId, archiveUpperId, fetchSize, true));
+      if (rows.size() < fetchSize && coversTable) {
+        rows.addAll(this.selectDice(optBefore, tableAfter, true, fetchSize - rows.size()));
+      }
+    } else {
+      if (coversTable) {
+        rows.addAll(this.selectDice(optBefore, tableAfter, false, fetchSize));
+      }
+      if (rows.size() < fetchSize && lowerId < archivedUpTo) {
+        rows.addAll(
+            this.diceArchive.find(lowerId, archiveUpperId, fetchSize - rows.size(), false));
+      }
+    }
+    LOGGER.info("The record count merged with the archive is: '{}'", rows.size());
+
+    return rows;
+  }
+  // }}}
+
+  // {{{ private List<DiceEntity> selectDice(...)
+  private List<DiceEntity> selectDice(
+      final Optional<Integer> optBefore,
+      final Optional<Integer> optAfter,
+      final boolean ascending,
+      final int fetchSize) {
+    UtilEnvInfo.logStartClassMethod();
+
+    final List<DiceEntity> rows = this.timer(METRIC_LIST_QUERY,
+        "The time to query the dice history the cache could not answer", FAULT_MODE_NONE)
+        .record(() -> this.diceRepository.find(optBefore, optAfter, ascending, fetchSize));
+    LOGGER.info("The record count found in the repository is: '{}'", rows.size());
+
+    return rows;
+  }
+  // }}}
+
+  // {{{ public Optional<String> getDiceHistoryVersion()
+  /**
+   * サイコロを振った履歴のバージョンを、最新のIDと件数から作成して返します。.
+   *
+   * <p>逐次集計の値を使用できる場合は{@link DiceStatistics}から返却し、データベースを参照しません。
+   * それ以外の場合は、{@link DiceRepository}に最大のIDと件数を問い合わせます。
+   * アーカイブへの移動で件数が減った場合もバージョンは変わりますが、その場合は履歴を取得し直すだけです。
+   * </p>
+   *
+   * @return 最新のIDと件数を連結したバージョン（判定できない場合は空）
+   */
+  @Override
+  @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+  public Optional<String> getDiceHistoryVersion() {
+    UtilEnvInfo.logStartClassMethod();
+
+    if (this.versionInMemory) {
+      final Optional<String> version = this.diceStatistics.version();
+      if (version.isPresent()) {
+        return version;
+      }
+    }
+
+    final String version = this.diceRepository.version();
+    LOGGER.info("The version of the history is: '{}'", version);
+
+    return Optional.ofNullable(version);
+  }
+  // }}}
+
+  // {{{ public long exportDice(Consumer<DiceEntity> consumer)
+  /**
+   * サイコロを振った全履歴を、1件ずつ指定された処理に受け渡します。.
+   *
+   * <p>{@link DiceRepository}の全履歴をIDの降順で1件ずつ読み込みます。
+   * 保存先は履歴をまとめて読み込まないため、件数に関わらずヒープの使用量は一定に保たれます。
+   * 続けて、diceテーブルから移された古い履歴を{@link DiceArchive}からIDの降順で読み込みます。
+   * </p>
+   *
+   * @param consumer 読み込んだ{@link DiceEntity}オブジェクトを1件ずつ受け取る処理
+   * @return 受け渡した履歴の件数
+   */
+  @Override
+  @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+  public long exportDice(final Consumer<DiceEntity> consumer) {
+    UtilEnvInfo.logStartClassMethod();
+
+    final int archivedUpTo = this.diceArchive.archivedUpTo();
+    final AtomicInteger oldestId = new AtomicInteger(Integer.MAX_VALUE);
+    final AtomicLong count = new AtomicLong(
+        this.diceRepository.exportDescending(archivedUpTo, dice -> {
+          oldestId.set(dice.id());
+          consumer.accept(dice);
+        }));
+    LOGGER.info("The record count exported from the repository is: '{}'", count.get());
+
+    // Rows archived while streaming were either exported above or are found below the oldest one.
+    final long archiveUpperId = Math.min(this.diceArchive.archivedUpTo(), oldestId.get() - 1L);
+    if (archiveUpperId > 0) {
+      final long archived = this.diceArchive.export(archiveUpperId, consumer);
+      LOGGER.info("The record count exported from the archive is: '{}'", archived);
+      count.addAndGet(archived);
+    }
+
+    return count.get();
+  }
+  // }}}
+
+  // {{{ public DiceStatsDto getDiceStats()
+  /**
+   * サイコロの出目の統計情報を返します。.
+   *
+   * <p>統計情報は{@link DiceStatistics}が出目の登録に合わせて逐次更新しているため、
+   * 履歴の件数に関わらずデータベースを参照せずに返却します。</p>
+   *
+   * @return 総回数、出目ごとの回数、平均値、および最後にサイコロを振った日時を含む{@link DiceStatsDto}オブジェクト
+   */
+  @Override
+  public DiceStatsDto getDiceStats() {
+    UtilEnvInfo.logStartClassMethod();
+
+    final DiceStatsDto stats = this.diceStatistics.snapshot();
+    LOGGER.info("The statistics of dice are: '{}'", stats);
+
+    return stats;
+  }
+  // }}}
+
+  // {{{ private int resolveLimit(Optional<Integer> optLimit)
+  private int resolveLimit(final Optional<Integer> optLimit) {
+    UtilEnvInfo.logStartClassMethod();
+
+    int limit = this.defaultLimit;
+    if (optLimit.isPresent()) {
+      limit = optLimit.get();
+      if (limit <= 0) {
+        LOGGER.warn(
+            "The default limit was used, "
+            + "because the value of parameter was not a positive integer: '{}'", limit);
+        limit = this.defaultLimit;
+      } else if (limit > this.maxLimit) {
+        LOGGER.warn(
+            "The limit was capped to the maximum: '{}' -> '{}'", limit, this.maxLimit);
+        limit = this.maxLimit;
+      }
+    }
+    return limit;
+  }
+  // }}}
+
+  // {{{ private Timer timer(String name, String description, String faultMode)
+  private Timer timer(final String name, final String description, final String faultMode) {
+    return this.timers.computeIfAbsent(name + ":" + faultMode, key -> Timer.builder(name)
+        .description(description)
+        .tag(TAG_FAULT_MODE, faultMode)
+        .publishPercentileHistogram()
+        .register(this.meterRegistry));
+  }
+  // }}}
+
+  // {{{ private Timer faultTimer(String type, String faultMode)
+  private Timer faultTimer(final String type, final String faultMode) {
+    return this.faultTimers.computeIfAbsent(type + ":" + faultMode,
+        key -> Timer.builder(METRIC_FAULT_DURATION)
+            .description("The time spent in the injected sleep or loop")
+            .tag(TAG_FAULT_TYPE, type)
+            .tag(TAG_FAULT_MODE, faultMode)
+            .publishPercentileHistogram()
+            .register(this.meterRegistry));
+  }
+  // }}}
+
+  // {{{ private static String faultMode(...)
+  private static String faultMode(
+      final Optional<Integer> optSleep,
+      final Optional<Integer> optLoop,
+      final Optional<Boolean> optError) {
+    final List<String> modes = new ArrayList<>(3);
+    if (optSleep.filter(seconds -> seconds > 0).isPresent()) {
+      modes.add("sleep");
+    }
+    if (optLoop.filter(seconds -> seconds > 0).isPresent()) {
+      modes.add("loop");
+    }
+    if (optError.orElse(false)) {
+      modes.add("error");
+    }
+    return modes.isEmpty() ? FAULT_MODE_NONE : String.join("_", modes);
   }
   // }}}
 
@@ -0,0 +1,6 @@
+-- The same table as mysql/init/init.sql, created in the embedded database of the 'offline' profile
+CREATE TABLE IF NOT EXISTS dice(
+  id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  value INT NOT NULL,
+  updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
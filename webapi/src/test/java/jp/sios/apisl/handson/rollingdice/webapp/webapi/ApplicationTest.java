@@ -1,11 +1,15 @@
 package jp.sios.apisl.handson.rollingdice.webapp.webapi;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.Mockito.mockStatic;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.verify;
 
 import org.junit.jupiter.api.Test;
-import org.mockito.MockedStatic;
+import org.mockito.MockedConstruction;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 /**
  * {@code ApplicationTest} クラスは、{@link Application} クラスのユニットテストを提供します。.
@@ -18,7 +22,7 @@ import org.springframework.boot.SpringApplication;
  *   <li>コンストラクタのテストによるカバレッジ向上</li>
  * </ul>
  *
- * <p>モックを利用して SpringApplication の静的メソッド呼び出しを検証しています。</p>
+ * <p>モックを利用して SpringApplication の生成と起動の呼び出しを検証しています。</p>
  */
 @SuppressWarnings("PMD.CommentSize")
 class ApplicationTest {
@@ -35,29 +39,32 @@ class ApplicationTest {
   void testMainRunsSpringApplication() {
     // Arrange
     final String[] args = {};
-    try (MockedStatic<SpringApplication> mocked = mockStatic(SpringApplication.class)) {
+    try (MockedConstruction<SpringApplication> mocked =
+        mockConstruction(SpringApplication.class)) {
       // Act
       Application.main(args);
       // Assert
-      mocked.verify(() -> SpringApplication.run(Application.class, args));
+      verifyRun(mocked, args);
     }
   }
 
   @Test
   void mainRunsWithoutArguments() {
     final String[] args = {};
-    try (MockedStatic<SpringApplication> mocked = mockStatic(SpringApplication.class)) {
+    try (MockedConstruction<SpringApplication> mocked =
+        mockConstruction(SpringApplication.class)) {
       Application.main(args);
-      mocked.verify(() -> SpringApplication.run(Application.class, args));
+      verifyRun(mocked, args);
     }
   }
 
   @Test
   void mainRunsWithArguments() {
     final String[] args = {"--spring.profiles.active=test"};
-    try (MockedStatic<SpringApplication> mocked = mockStatic(SpringApplication.class)) {
+    try (MockedConstruction<SpringApplication> mocked =
+        mockConstruction(SpringApplication.class)) {
       Application.main(args);
-      mocked.verify(() -> SpringApplication.run(Application.class, args));
+      verifyRun(mocked, args);
     }
   }
 
@@ -67,4 +74,13 @@ class ApplicationTest {
     assertNotNull(application, "Application instance should not be null");
   }
 
+  private static void verifyRun(
+      final MockedConstruction<SpringApplication> mocked, final String... args) {
+    assertEquals(1, mocked.constructed().size(),
+        "SpringApplication should be constructed exactly once");
+    final SpringApplication application = mocked.constructed().get(0);
+    verify(application).setApplicationStartup(any(BufferingApplicationStartup.class));
+    verify(application).run(args);
+  }
+
 }
\ No newline at end of file
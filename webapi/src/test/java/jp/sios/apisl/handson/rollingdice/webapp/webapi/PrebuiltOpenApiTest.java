@@ -0,0 +1,121 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Hidden;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.controller.PrebuiltOpenApiController;
+import org.junit.jupiter.api.Test;
+import org.springdoc.webmvc.api.OpenApiWebMvcResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * ビルド時に生成したOpenAPI仕様書が、コントローラーと一致しているかを検証するクラスです。.
+ *
+ * <p>{@code generateOpenApiDocsNoServer}タスクが生成した仕様書をクラスパスに加えて、
+ * {@code checkOpenApiDocs}タスクから実行します。{@value PrebuiltOpenApiController#PROFILE}
+ * プロファイルで返却される仕様書のパスとHTTPメソッドの組が、コントローラーのリクエストマッピングと
+ * 過不足なく一致することと、springdocによる走査が無効になっていることを検証します。</p>
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"prod", PrebuiltOpenApiController.PROFILE})
+@SuppressWarnings("PMD.CommentSize")
+class PrebuiltOpenApiTest {
+
+  /**
+   * 実際のHTTPサーバーを起動せずにHTTPリクエストとレスポンスをシミュレートします。.
+   */
+  @Autowired
+  private MockMvc mockMvc;
+
+  /**
+   * 仕様書の読み込みに使用するObjectMapperインスタンスです。.
+   */
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /**
+   * コントローラーのリクエストマッピングを保持するRequestMappingHandlerMappingインスタンスです。.
+   */
+  @Autowired
+  @Qualifier("requestMappingHandlerMapping")
+  private RequestMappingHandlerMapping handlerMapping;
+
+  /**
+   * 登録されたBeanの確認に使用するApplicationContextインスタンスです。.
+   */
+  @Autowired
+  private ApplicationContext context;
+
+  /**
+   * {@link PrebuiltOpenApiTest}のコンストラクタです。
+   * このクラスのインスタンスを生成する際に呼び出されます。.
+   */
+  public PrebuiltOpenApiTest() {
+    // Constructor for PrebuiltOpenApiTest
+  }
+
+  @Test
+  void testRuntimeScanningIsDisabled() {
+    assertEquals(0, context.getBeanNamesForType(OpenApiWebMvcResource.class).length,
+        "springdoc should not serve the api-docs in the prebuilt mode");
+  }
+
+  @Test
+  @SuppressWarnings("PMD.LawOfDemeter")
+  void testPrebuiltSpecMatchesControllers() throws Exception {
+    final JsonNode spec = objectMapper.readTree(mockMvc.perform(get("/v3/api-docs"))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsByteArray());
+
+    final Set<String> documented = new TreeSet<>();
+    spec.get("paths").properties().forEach(path -> {
+      for (final RequestMethod method : RequestMethod.values()) {
+        if (path.getValue().has(method.name().toLowerCase(Locale.ROOT))) {
+          documented.add(method.name() + " " + path.getKey());
+        }
+      }
+    });
+
+    final Set<String> mapped = new TreeSet<>();
+    for (final Map.Entry<RequestMappingInfo, HandlerMethod> entry
+        : handlerMapping.getHandlerMethods().entrySet()) {
+      final Class<?> type = entry.getValue().getBeanType();
+      if (!type.getPackageName().startsWith(Application.class.getPackageName())
+          || type.isAnnotationPresent(Hidden.class)) {
+        continue;
+      }
+      for (final String pattern : entry.getKey().getPatternValues()) {
+        for (final RequestMethod method : entry.getKey().getMethodsCondition().getMethods()) {
+          mapped.add(method.name() + " " + pattern);
+        }
+      }
+    }
+
+    assertFalse(mapped.isEmpty(), "The controllers should have request mappings");
+    assertEquals(mapped, documented,
+        "The prebuilt spec should document exactly the request mappings of the controllers");
+    assertFalse(spec.has("servers"), "The servers of MockMvc should be removed from the spec");
+  }
+}
@@ -0,0 +1,127 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code AdaptiveConcurrencyLimitTest} クラスは、{@link AdaptiveConcurrencyLimit} のユニットテストを提供します。.
+ *
+ * <p>上限に達した場合の拒否、応答時間が延びた場合の上限の縮小、
+ * および応答時間が安定している場合の上限の拡大を検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class AdaptiveConcurrencyLimitTest {
+
+  /**
+   * 標準の応答時間（ナノ秒）。.
+   */
+  private static final long FAST_RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+  /**
+   * 遅延が生じた場合の応答時間（ナノ秒）。.
+   */
+  private static final long SLOW_RTT = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /**
+   * メトリクスの記録先となるMeterRegistryインスタンス。.
+   */
+  private SimpleMeterRegistry meterRegistry;
+
+  /**
+   * テスト対象となるAdaptiveConcurrencyLimitのインスタンス。.
+   */
+  private AdaptiveConcurrencyLimit limit;
+
+  /**
+   * AdaptiveConcurrencyLimitTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public AdaptiveConcurrencyLimitTest() {
+    // Constructor for AdaptiveConcurrencyLimitTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.limit = new AdaptiveConcurrencyLimit("roll", 10, 2, 100, meterRegistry);
+  }
+
+  @Test
+  void testRejectOverLimit() {
+    for (int i = 0; i < 10; i++) {
+      assertTrue(limit.tryAcquire(), "The requests within the limit should be accepted.");
+    }
+    assertFalse(limit.tryAcquire(), "The request over the limit should be rejected.");
+    assertEquals(1.0, meterRegistry.get(AdaptiveConcurrencyLimit.METRIC_REJECTED)
+        .tag("endpoint", "roll").counter().count(), "The rejection should be counted.");
+    assertEquals(10.0, meterRegistry.get(AdaptiveConcurrencyLimit.METRIC_IN_FLIGHT)
+        .tag("endpoint", "roll").gauge().value(), "The requests in flight should be recorded.");
+
+    limit.release(0L, false);
+    assertTrue(limit.tryAcquire(), "A released slot should be reused.");
+  }
+
+  @Test
+  void testShrinkWhenLatencyGrows() {
+    this.saturate(FAST_RTT, 5);
+    final int before = limit.getLimit();
+
+    this.saturate(SLOW_RTT, 5);
+
+    assertTrue(limit.getLimit() < before,
+        "The limit should shrink while the latency is over its long-term average.");
+    assertEquals(limit.getLimit(), (int) meterRegistry.get(AdaptiveConcurrencyLimit.METRIC_LIMIT)
+        .tag("endpoint", "roll").gauge().value(), "The limit should be recorded.");
+  }
+
+  @Test
+  void testGrowWhenLatencyIsSteady() {
+    this.saturate(FAST_RTT, 5);
+
+    assertTrue(limit.getLimit() > 10, "The limit should grow while the latency is steady.");
+  }
+
+  @Test
+  void testKeepLimitWhenNotSaturated() {
+    for (int i = 0; i < 10; i++) {
+      assertTrue(limit.tryAcquire(), "The request should be accepted.");
+      limit.release(FAST_RTT, true);
+    }
+
+    assertEquals(10, limit.getLimit(), "The limit should not grow while it is not used up.");
+  }
+
+  @Test
+  void testIgnoreFailedRequests() {
+    for (int i = 0; i < 10; i++) {
+      limit.tryAcquire();
+    }
+    for (int i = 0; i < 10; i++) {
+      limit.release(SLOW_RTT, false);
+    }
+
+    assertEquals(10, limit.getLimit(), "The latency of the failures should not move the limit.");
+    assertEquals(0, limit.getInFlight(), "The failures should still release their slots.");
+  }
+
+  private void saturate(final long rttNanos, final int rounds) {
+    for (int round = 0; round < rounds; round++) {
+      int acquired = 0;
+      while (limit.tryAcquire()) {
+        acquired++;
+      }
+      for (int i = 0; i < acquired; i++) {
+        limit.release(rttNanos, true);
+      }
+    }
+  }
+
+}
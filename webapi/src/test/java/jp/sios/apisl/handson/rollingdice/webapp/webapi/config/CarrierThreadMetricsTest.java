@@ -0,0 +1,75 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code CarrierThreadMetricsTest} クラスは、{@link CarrierThreadMetrics} クラスのユニットテストを提供します。.
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings({"PMD.CommentSize", "PMD.DoNotUseThreads"})
+class CarrierThreadMetricsTest {
+
+  /**
+   * メトリクスの登録先となるMeterRegistryインスタンス。.
+   */
+  private SimpleMeterRegistry registry;
+
+  /**
+   * CarrierThreadMetricsTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public CarrierThreadMetricsTest() {
+    // Constructor for CarrierThreadMetricsTest
+  }
+
+  /**
+   * 各テストメソッド実行前に、テスト対象のメトリクスを登録します.
+   */
+  @BeforeEach
+  void setUp() {
+    this.registry = new SimpleMeterRegistry();
+    new CarrierThreadMetrics().bindTo(this.registry);
+  }
+
+  @Test
+  @DisplayName("最大並列数のゲージが、既定ではCPUのコア数であること")
+  void testParallelism() {
+    assertEquals(Runtime.getRuntime().availableProcessors(),
+        registry.get("jvm.threads.virtual.carrier.parallelism").gauge().value(),
+        "The parallelism should default to the number of available processors");
+  }
+
+  @Test
+  @DisplayName("仮想スレッドの実行中に、キャリアスレッドが集計されること")
+  void testCarrierCountWhileVirtualThreadRuns() throws Exception {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final Thread thread = Thread.ofVirtual().start(() -> {
+      started.countDown();
+      while (release.getCount() > 0) {
+        Thread.onSpinWait();
+      }
+    });
+    try {
+      started.await();
+      assertTrue(registry.get("jvm.threads.virtual.carrier.count").gauge().value() >= 1,
+          "At least one carrier thread should be alive");
+      final double utilization =
+          registry.get("jvm.threads.virtual.carrier.utilization").gauge().value();
+      assertTrue(utilization > 0 && utilization <= 1,
+          "The utilization should be a ratio while a virtual thread is running");
+    } finally {
+      release.countDown();
+      thread.join();
+    }
+  }
+
+}
@@ -0,0 +1,89 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import java.time.LocalDateTime;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * {@link CborConfig} の単体テストクラス.
+ *
+ * <p>MockMvcを使用して、Acceptヘッダーに応じてCBORとJSONが切り替わるかを検証します。</p>
+ */
+@WebMvcTest(controllers = CborConfigTest.DummyController.class)
+@Import(CborConfig.class)
+@TestPropertySource(properties = "app.cors.allowed-origins=http://localhost:8181")
+@SuppressWarnings("PMD.AtLeastOneConstructor")
+class CborConfigTest {
+
+  /**
+   * Spring MVCのコントローラーをテストするためのツールで、HTTPリクエストをシミュレートし、レスポンスを検証できます.
+   */
+  @Autowired
+  private MockMvc mockMvc;
+
+  /**
+   * CBORを要求した場合、JSONと同じ書式の値がCBORで返却されることを検証します.
+   */
+  @Test
+  @DisplayName("application/cborを要求した場合、CBORで返却されること")
+  @SuppressWarnings("PMD.LawOfDemeter")
+  void testCborWhenRequested() throws Exception {
+    final MvcResult result = mockMvc.perform(get("/test-endpoint")
+        .accept(MediaType.APPLICATION_CBOR, MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+        .andReturn();
+
+    final JsonNode dice = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+    assertEquals(3, dice.get("value").asInt(), "出目の値がCBORから読み取れる必要があります");
+    assertEquals("2026-04-01T12:34:56", dice.get("updatedAt").asText(),
+        "日時はJSONと同じ書式である必要があります");
+  }
+
+  /**
+   * Acceptヘッダーを指定しない場合、JSONで返却されることを検証します.
+   */
+  @Test
+  @DisplayName("Acceptヘッダーを指定しない場合、JSONで返却されること")
+  @SuppressWarnings("PMD.LawOfDemeter")
+  void testJsonByDefault() throws Exception {
+    mockMvc.perform(get("/test-endpoint"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+  }
+
+  /**
+   * テスト用のダミーコントローラー.
+   *
+   * <p>レスポンスの形式を検証するためのエンドポイントを提供します。</p>
+   */
+  @RestController
+  /* default */ static class DummyController {
+    /**
+     * 出目履歴を返却するダミーのエンドポイント.
+     *
+     * @return 出目履歴
+     */
+    @GetMapping("/test-endpoint")
+    public DiceEntity dummyEndpoint() {
+      return new DiceEntity(1, 3, LocalDateTime.of(2026, 4, 1, 12, 34, 56));
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * {@code ConcurrencyLimitFilterTest} クラスは、{@link ConcurrencyLimitFilter} のユニットテストを提供します。.
+ *
+ * <p>上限に達した場合のHTTP 503の返却、サイコロを振るリクエストと履歴を取得するリクエストの上限の振り分け、
+ * および非同期に応答するリクエストの終了の扱いを検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class ConcurrencyLimitFilterTest {
+
+  /**
+   * サイコロを振るリクエストの同時実行数の上限。.
+   */
+  private AdaptiveConcurrencyLimit rollLimit;
+
+  /**
+   * 履歴を取得するリクエストの同時実行数の上限。.
+   */
+  private AdaptiveConcurrencyLimit listLimit;
+
+  /**
+   * テスト対象となるConcurrencyLimitFilterのインスタンス。.
+   */
+  private ConcurrencyLimitFilter filter;
+
+  /**
+   * ConcurrencyLimitFilterTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public ConcurrencyLimitFilterTest() {
+    // Constructor for ConcurrencyLimitFilterTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    this.rollLimit = new AdaptiveConcurrencyLimit("roll", 1, 1, 1, meterRegistry);
+    this.listLimit = new AdaptiveConcurrencyLimit("list", 1, 1, 1, meterRegistry);
+    this.filter = new ConcurrencyLimitFilter(rollLimit, listLimit, 2L);
+  }
+
+  @Test
+  void testRejectOverLimit() throws Exception {
+    rollLimit.tryAcquire();
+    final AtomicBoolean called = new AtomicBoolean();
+    final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/dices"), response,
+        (req, res) -> called.set(true));
+
+    assertEquals(503, response.getStatus(), "The request over the limit should get 503.");
+    assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER),
+        "The rejected request should be told when to retry.");
+    assertFalse(called.get(), "The rejected request should not reach the controller.");
+  }
+
+  @Test
+  void testSeparateLimits() throws Exception {
+    rollLimit.tryAcquire();
+    final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/dices"), response,
+        (req, res) -> assertEquals(1, listLimit.getInFlight(), "The list should be counted."));
+
+    assertEquals(200, response.getStatus(), "The list should not share the limit of the rolls.");
+    assertEquals(0, listLimit.getInFlight(), "The finished request should be released.");
+  }
+
+  @Test
+  void testNotLimitOtherRequests() throws Exception {
+    rollLimit.tryAcquire();
+    listLimit.tryAcquire();
+    final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/dices/stats"), response,
+        (req, res) -> { });
+
+    assertEquals(200, response.getStatus(), "The statistics should not be limited.");
+  }
+
+  @Test
+  void testNotLimitFaultInjectedRolls() throws Exception {
+    rollLimit.tryAcquire();
+    final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/dices");
+    request.setParameter("sleep", "3");
+    final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(request, response, (req, res) -> { });
+
+    assertEquals(200, response.getStatus(),
+        "The fault-injected roll should be left to its bulkhead instead of the limit.");
+  }
+
+  @Test
+  void testReleaseAsyncRequestOnComplete() throws Exception {
+    final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/dices");
+    request.setAsyncSupported(true);
+    final FilterChain chain = (req, res) -> req.startAsync();
+
+    filter.doFilter(request, new MockHttpServletResponse(), chain);
+    assertEquals(1, rollLimit.getInFlight(), "The asynchronous request should stay in flight.");
+
+    ((MockAsyncContext) request.getAsyncContext()).complete();
+    assertEquals(0, rollLimit.getInFlight(), "The completed request should be released.");
+    assertTrue(rollLimit.tryAcquire(), "The released slot should be reused.");
+  }
+
+}
@@ -0,0 +1,112 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+/**
+ * {@code ReplicaLagMonitorTest} クラスは、{@link ReplicaLagMonitor} のユニットテストを提供します。.
+ *
+ * <p>遅延が閾値以下の場合、閾値を超えた場合、不明な場合、
+ * および確認に失敗した場合のレプリカの使用可否を検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class ReplicaLagMonitorTest {
+
+  /**
+   * レプリカに接続するJdbcTemplateインスタンス。.
+   */
+  @Mock
+  private JdbcTemplate replicaJdbcTemplate;
+
+  /**
+   * メトリクスの記録先となるMeterRegistryインスタンス。.
+   */
+  private SimpleMeterRegistry meterRegistry;
+
+  /**
+   * テスト対象となるReplicaLagMonitorのインスタンス。.
+   */
+  private ReplicaLagMonitor monitor;
+
+  /**
+   * ReplicaLagMonitorTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public ReplicaLagMonitorTest() {
+    // Constructor for ReplicaLagMonitorTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.monitor = new ReplicaLagMonitor(replicaJdbcTemplate, meterRegistry);
+  }
+
+  @Test
+  void testAvailableBeforeCheck() {
+    assertFalse(monitor.isAvailable(), "The replica should not be used until it is checked.");
+  }
+
+  @Test
+  void testCheckWithinThreshold() {
+    givenLag(Optional.of(2L));
+    monitor.check();
+
+    assertTrue(monitor.isAvailable(), "A replica within the threshold should be used.");
+    assertEquals(2.0, meterRegistry.get(ReplicaLagMonitor.METRIC_LAG).gauge().value(),
+        "The lag should be recorded.");
+  }
+
+  @Test
+  void testCheckBeyondThreshold() {
+    givenLag(Optional.of(2L));
+    monitor.check();
+    givenLag(Optional.of(30L));
+    monitor.check();
+
+    assertFalse(monitor.isAvailable(), "A lagging replica should not be used.");
+  }
+
+  @Test
+  void testCheckWithUnknownLag() {
+    givenLag(Optional.empty());
+    monitor.check();
+
+    assertFalse(monitor.isAvailable(), "A replica with a stopped replication should not be used.");
+    assertTrue(Double.isNaN(meterRegistry.get(ReplicaLagMonitor.METRIC_LAG).gauge().value()),
+        "The unknown lag should be recorded as NaN.");
+  }
+
+  @Test
+  void testCheckFailure() {
+    givenLag(Optional.of(0L));
+    monitor.check();
+    when(replicaJdbcTemplate.query(anyString(), any(ResultSetExtractor.class)))
+        .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+    monitor.check();
+
+    assertFalse(monitor.isAvailable(), "An unreachable replica should not be used.");
+  }
+
+  private void givenLag(final Optional<Long> lag) {
+    when(replicaJdbcTemplate.query(anyString(), any(ResultSetExtractor.class))).thenReturn(lag);
+  }
+
+}
@@ -0,0 +1,112 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@code ReplicaRoutingDataSourceTest} クラスは、{@link ReplicaRoutingDataSource} のユニットテストを提供します。.
+ *
+ * <p>読み取り専用の処理だけがレプリカに振り分けられること、
+ * およびレプリカが使用できない間はプライマリーに戻ることを検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class ReplicaRoutingDataSourceTest {
+
+  /**
+   * プライマリーのDataSourceインスタンス。.
+   */
+  @Mock
+  private DataSource primary;
+
+  /**
+   * レプリカのDataSourceインスタンス。.
+   */
+  @Mock
+  private DataSource replica;
+
+  /**
+   * レプリカの使用可否を返すReplicaLagMonitorインスタンス。.
+   */
+  @Mock
+  private ReplicaLagMonitor lagMonitor;
+
+  /**
+   * メトリクスの記録先となるMeterRegistryインスタンス。.
+   */
+  private SimpleMeterRegistry meterRegistry;
+
+  /**
+   * テスト対象となるReplicaRoutingDataSourceのインスタンス。.
+   */
+  private ReplicaRoutingDataSource dataSource;
+
+  /**
+   * ReplicaRoutingDataSourceTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public ReplicaRoutingDataSourceTest() {
+    // Constructor for ReplicaRoutingDataSourceTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.dataSource = new ReplicaRoutingDataSource(primary, replica, lagMonitor, meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+  }
+
+  @Test
+  void testRouteWrite() throws SQLException {
+    when(lagMonitor.isAvailable()).thenReturn(true);
+
+    dataSource.getConnection();
+
+    verify(primary).getConnection();
+    verify(replica, never()).getConnection();
+  }
+
+  @Test
+  void testRouteReadOnly() throws SQLException {
+    when(lagMonitor.isAvailable()).thenReturn(true);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    dataSource.getConnection();
+
+    verify(replica).getConnection();
+    verify(primary, never()).getConnection();
+    assertEquals(1.0, meterRegistry.get(ReplicaRoutingDataSource.METRIC_ROUTE)
+        .tag("target", ReplicaRoutingDataSource.REPLICA).counter().count(),
+        "The routing should be counted.");
+  }
+
+  @Test
+  void testRouteReadOnlyWhileLagging() throws SQLException {
+    when(lagMonitor.isAvailable()).thenReturn(false);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    dataSource.getConnection();
+
+    verify(primary).getConnection();
+    verify(replica, never()).getConnection();
+  }
+
+}
@@ -0,0 +1,122 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.BulkheadFullException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code SemaphoreBulkheadTest} クラスは、{@link SemaphoreBulkhead} のユニットテストを提供します。.
+ *
+ * <p>同時実行数の上限、待ち行列の上限、待ち時間の上限、およびメトリクスの記録を検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class SemaphoreBulkheadTest {
+
+  /**
+   * メトリクスの記録先となるMeterRegistryインスタンス。.
+   */
+  private SimpleMeterRegistry meterRegistry;
+
+  /**
+   * SemaphoreBulkheadTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public SemaphoreBulkheadTest() {
+    // Constructor for SemaphoreBulkheadTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void testExecuteWithinLimit() {
+    final SemaphoreBulkhead bulkhead =
+        new SemaphoreBulkhead("read", 1, 0, Duration.ZERO, meterRegistry);
+
+    assertEquals(3, bulkhead.execute(() -> 3), "The result of the task should be returned.");
+    assertEquals(0, bulkhead.getActive(), "The permit should be released after the task.");
+  }
+
+  @Test
+  void testRejectWhenFull() throws Exception {
+    final SemaphoreBulkhead bulkhead =
+        new SemaphoreBulkhead("read", 1, 0, Duration.ZERO, meterRegistry);
+    final CountDownLatch running = new CountDownLatch(1);
+    final CountDownLatch finish = new CountDownLatch(1);
+    final CompletableFuture<Boolean> holder = CompletableFuture.supplyAsync(
+        () -> bulkhead.execute(() -> {
+          running.countDown();
+          return await(finish);
+        }));
+    running.await(5, TimeUnit.SECONDS);
+
+    assertThrows(BulkheadFullException.class, () -> bulkhead.execute(() -> 1),
+        "The task over the limit without a queue should be rejected.");
+    assertEquals(1.0, meterRegistry.get(SemaphoreBulkhead.METRIC_SATURATION)
+        .tag("bulkhead", "read").gauge().value(), "The bulkhead should be saturated.");
+    assertEquals(1.0, meterRegistry.get(SemaphoreBulkhead.METRIC_REJECTED)
+        .tag("bulkhead", "read").counter().count(), "The rejection should be counted.");
+
+    finish.countDown();
+    holder.join();
+  }
+
+  @Test
+  void testWaitInQueue() throws Exception {
+    final SemaphoreBulkhead bulkhead =
+        new SemaphoreBulkhead("roll", 1, 1, Duration.ofSeconds(5), meterRegistry);
+    final CountDownLatch running = new CountDownLatch(1);
+    final CountDownLatch finish = new CountDownLatch(1);
+    final CompletableFuture<Boolean> holder = CompletableFuture.supplyAsync(
+        () -> bulkhead.execute(() -> {
+          running.countDown();
+          return await(finish);
+        }));
+    running.await(5, TimeUnit.SECONDS);
+
+    final CompletableFuture<Integer> waiter =
+        CompletableFuture.supplyAsync(() -> bulkhead.execute(() -> 2));
+    while (meterRegistry.get(SemaphoreBulkhead.METRIC_QUEUED).gauge().value() < 1.0) {
+      Thread.onSpinWait();
+    }
+    assertThrows(BulkheadFullException.class, () -> bulkhead.execute(() -> 1),
+        "The task over the queue should be rejected.");
+
+    finish.countDown();
+    holder.join();
+    assertEquals(2, waiter.join(), "The queued task should run after the permit is released.");
+  }
+
+  @Test
+  void testRejectAfterMaxWait() {
+    final SemaphoreBulkhead bulkhead =
+        new SemaphoreBulkhead("roll", 1, 1, Duration.ofMillis(50), meterRegistry);
+
+    assertThrows(BulkheadFullException.class,
+        () -> bulkhead.execute(() -> bulkhead.execute(() -> 1)),
+        "The task waiting longer than the limit should be rejected.");
+    assertEquals(0, bulkhead.getActive(), "The permits should be released after the rejection.");
+  }
+
+  private static boolean await(final CountDownLatch latch) {
+    try {
+      return latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+}
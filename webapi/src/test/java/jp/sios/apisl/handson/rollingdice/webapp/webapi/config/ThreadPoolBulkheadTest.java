@@ -0,0 +1,83 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.BulkheadFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code ThreadPoolBulkheadTest} クラスは、{@link ThreadPoolBulkhead} のユニットテストを提供します。.
+ *
+ * <p>専用のスレッドでの実行、遅延中の処理を含めた受け付け件数の上限、およびメトリクスの記録を検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class ThreadPoolBulkheadTest {
+
+  /**
+   * メトリクスの記録先となるMeterRegistryインスタンス。.
+   */
+  private SimpleMeterRegistry meterRegistry;
+
+  /**
+   * テスト対象となるThreadPoolBulkheadのインスタンス。.
+   */
+  private ThreadPoolBulkhead bulkhead;
+
+  /**
+   * ThreadPoolBulkheadTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public ThreadPoolBulkheadTest() {
+    // Constructor for ThreadPoolBulkheadTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.bulkhead = new ThreadPoolBulkhead("fault", 1, 1, meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.bulkhead.close();
+  }
+
+  @Test
+  void testRunOnOwnThread() {
+    final String threadName =
+        bulkhead.submit(0L, () -> Thread.currentThread().getName()).join();
+
+    assertTrue(threadName.startsWith("bulkhead-fault-"),
+        "The task should run on the thread of the bulkhead.");
+  }
+
+  @Test
+  void testRejectOverCapacity() {
+    final CompletableFuture<Integer> first = bulkhead.submit(1L, () -> 1);
+    final CompletableFuture<Integer> second = bulkhead.submit(1L, () -> 2);
+
+    assertFalse(first.isDone(), "The delayed task should not run before the delay.");
+    assertThrows(BulkheadFullException.class, () -> bulkhead.submit(0L, () -> 3),
+        "The task over the capacity should be rejected, counting the delayed tasks.");
+    assertEquals(1.0, meterRegistry.get(SemaphoreBulkhead.METRIC_SATURATION)
+        .tag("bulkhead", "fault").gauge().value(), "The bulkhead should be saturated.");
+    assertEquals(1.0, meterRegistry.get(SemaphoreBulkhead.METRIC_REJECTED)
+        .tag("bulkhead", "fault").counter().count(), "The rejection should be counted.");
+
+    assertEquals(3, first.join() + second.join(), "The accepted tasks should complete.");
+    while (bulkhead.getAccepted() > 0) {
+      Thread.onSpinWait();
+    }
+    assertEquals(4, bulkhead.submit(0L, () -> 4).join(), "The capacity should be released.");
+  }
+
+}
@@ -1,22 +1,50 @@
 package jp.sios.apisl.handson.rollingdice.webapp.webapi.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import jakarta.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceBulkRequestDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceBulkResultDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceChangesDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DicePageDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceStatsDto;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceValueDto;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.service.DiceEventBroadcaster;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.service.IdempotencyCache;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.service.WebApiService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * {@link WebApiController} の単体テストを行うクラスです。.
@@ -55,6 +83,25 @@ class WebApiControllerTest {
   @Mock
   private HttpServletRequest request;
 
+  /**
+   * 出目の配信を扱うDiceEventBroadcasterのモック。.
+   */
+  @Mock
+  private DiceEventBroadcaster broadcaster;
+
+  /**
+   * Idempotency-Keyごとの結果を保持するIdempotencyCacheのモック。.
+   */
+  @Mock
+  private IdempotencyCache idempotencyCache;
+
+  /**
+   * 履歴のエクスポートで使用するObjectMapperのインスタンス。
+   * 日時型を扱うモジュールを登録した実物を使用します。.
+   */
+  @Spy
+  private ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
   /**
    * テスト対象となるWebApiControllerのインスタンス。.
    */
@@ -83,16 +130,17 @@ class WebApiControllerTest {
     final DiceValueDto mockResponse = new DiceValueDto(6);
 
     when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL));
-    when(service.rollDice(optSleep, optLoop, optError, null)).thenReturn(mockResponse);
+    when(service.rollDiceAsync(optSleep, optLoop, optError, null))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
 
     // Act
     final DiceValueDto response = controller.rollDice(
-        request, null, optSleep, optLoop, optError);
+        request, null, optSleep, optLoop, optError, Optional.empty()).join();
 
     // Assert
     assertEquals(6, response.value(), 
         "The response value should match the expected dice value");
-    verify(service, times(1)).rollDice(optSleep, optLoop, optError, null);
+    verify(service, times(1)).rollDiceAsync(optSleep, optLoop, optError, null);
   }
 
   @Test
@@ -105,16 +153,17 @@ class WebApiControllerTest {
     final DiceValueDto mockResponse = new DiceValueDto(4);
 
     when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL));
-    when(service.rollDice(optSleep, optLoop, optError, requestBody)).thenReturn(mockResponse);
+    when(service.rollDiceAsync(optSleep, optLoop, optError, requestBody))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
 
     // Act
     final DiceValueDto response = controller.rollDice(
-        request, requestBody, optSleep, optLoop, optError);
+        request, requestBody, optSleep, optLoop, optError, Optional.empty()).join();
 
     // Assert
     assertEquals(4, response.value(), 
         "The response value should match the fixed dice value from request body");
-    verify(service, times(1)).rollDice(optSleep, optLoop, optError, requestBody);
+    verify(service, times(1)).rollDiceAsync(optSleep, optLoop, optError, requestBody);
   }
 
   @Test
@@ -127,16 +176,80 @@ class WebApiControllerTest {
     final DiceValueDto mockResponse = new DiceValueDto(2);
 
     when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL));
-    when(service.rollDice(optSleep, optLoop, optError, requestBody)).thenReturn(mockResponse);
+    when(service.rollDiceAsync(optSleep, optLoop, optError, requestBody))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
 
     // Act
     final DiceValueDto response = controller.rollDice(
-        request, requestBody, optSleep, optLoop, optError);
+        request, requestBody, optSleep, optLoop, optError, Optional.empty()).join();
 
     // Assert
     assertEquals(2, response.value(), 
         "The response value should match the expected dice value");
-    verify(service, times(1)).rollDice(optSleep, optLoop, optError, requestBody);
+    verify(service, times(1)).rollDiceAsync(optSleep, optLoop, optError, requestBody);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testRollDiceWithIdempotencyKey() {
+    // Arrange
+    final Optional<Integer> optSleep = Optional.empty();
+    final Optional<Integer> optLoop = Optional.empty();
+    final Optional<Boolean> optError = Optional.empty();
+    final DiceValueDto mockResponse = new DiceValueDto(5);
+    final ArgumentCaptor<Supplier<CompletableFuture<DiceValueDto>>> action =
+        ArgumentCaptor.forClass(Supplier.class);
+
+    when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL));
+    when(service.rollDiceAsync(optSleep, optLoop, optError, null))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+    when(idempotencyCache.execute(eq("key-1"), any(), action.capture()))
+        .thenAnswer(invocation -> action.getValue().get());
+
+    // Act
+    final DiceValueDto response = controller.rollDice(
+        request, null, optSleep, optLoop, optError, Optional.of("key-1")).join();
+
+    // Assert
+    assertEquals(5, response.value(),
+        "The response value should be the result executed through the idempotency cache");
+    verify(idempotencyCache, times(1)).execute(eq("key-1"),
+        eq(List.of(optSleep, optLoop, optError, Optional.empty())), any());
+    verify(service, times(1)).rollDiceAsync(optSleep, optLoop, optError, null);
+  }
+
+  @Test
+  void testRollDiceWithBlankIdempotencyKey() {
+    // Arrange
+    when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL));
+    final Optional<String> optKey = Optional.of(" ");
+
+    // Act & Assert
+    final ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+        () -> controller.rollDice(request, null, Optional.empty(), Optional.empty(),
+            Optional.empty(), optKey));
+    assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode(),
+        "A blank Idempotency-Key should be rejected as a bad request");
+    verify(idempotencyCache, never()).execute(any(), any(), any());
+    verify(service, never()).rollDiceAsync(any(), any(), any(), any());
+  }
+
+  @Test
+  void testRollDiceBulk() {
+    // Arrange
+    final DiceBulkRequestDto requestBody = new DiceBulkRequestDto(3, null);
+    final DiceBulkResultDto mockResponse = new DiceBulkResultDto(7, 9, List.of(1, 2, 3));
+
+    when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL + "/bulk"));
+    when(service.rollDiceBulk(requestBody)).thenReturn(mockResponse);
+
+    // Act
+    final DiceBulkResultDto response = controller.rollDiceBulk(request, requestBody);
+
+    // Assert
+    assertEquals(7, response.firstId(), "The first id should match the service result");
+    assertEquals(3, response.values().size(), "The number of values should match the count");
+    verify(service, times(1)).rollDiceBulk(requestBody);
   }
 
   @Test
@@ -146,16 +259,223 @@ class WebApiControllerTest {
         new DiceEntity(3, 1, LocalDateTime.of(2026, 3, 1, 12, 34, 56)), 
         new DiceEntity(2, 3, LocalDateTime.of(2026, 2, 1, 12, 34, 56)), 
         new DiceEntity(1, 5, LocalDateTime.of(2026, 1, 1, 12, 34, 56)));
+    final Optional<Integer> optEmpty = Optional.empty();
+
+    when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL));
+    when(service.listDice(optEmpty, optEmpty, optEmpty))
+        .thenReturn(new DicePageDto(mockDiceList, null, null));
+
+    // Act
+    final ResponseEntity<List<DiceEntity>> result = controller.listDice(
+        request, optEmpty, optEmpty, optEmpty);
+
+    // Assert
+    assertEquals(3, result.getBody().size(), "The result list size should be 3");
+    assertFalse(result.getHeaders().containsKey(WebApiController.HEADER_NEXT_CURSOR),
+        "The next cursor header should not be set on the last page");
+    verify(service, times(1)).listDice(optEmpty, optEmpty, optEmpty);
+  }
+
+  @Test
+  void testListDiceWithCursors() {
+    // Arrange
+    final List<DiceEntity> mockDiceList = List.of(
+        new DiceEntity(5, 2, LocalDateTime.of(2026, 3, 1, 12, 34, 56)), 
+        new DiceEntity(4, 4, LocalDateTime.of(2026, 2, 1, 12, 34, 56)));
+    final Optional<Integer> optLimit = Optional.of(2);
+    final Optional<Integer> optBefore = Optional.of(6);
+    final Optional<Integer> optAfter = Optional.empty();
+
+    when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL));
+    when(service.listDice(optLimit, optBefore, optAfter))
+        .thenReturn(new DicePageDto(mockDiceList, 4, 5));
+
+    // Act
+    final ResponseEntity<List<DiceEntity>> result = controller.listDice(
+        request, optLimit, optBefore, optAfter);
+
+    // Assert
+    assertEquals(2, result.getBody().size(), "The result list size should be 2");
+    assertEquals("4", result.getHeaders().getFirst(WebApiController.HEADER_NEXT_CURSOR),
+        "The next cursor header should be the id of the oldest row");
+    assertEquals("5", result.getHeaders().getFirst(WebApiController.HEADER_PREV_CURSOR),
+        "The prev cursor header should be the id of the newest row");
+    verify(service, times(1)).listDice(optLimit, optBefore, optAfter);
+  }
+
+  @Test
+  void testListDiceWithETag() {
+    // Arrange
+    final Optional<Integer> optEmpty = Optional.empty();
 
     when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL));
-    when(service.listDice()).thenReturn(mockDiceList);
+    when(service.getDiceHistoryVersion()).thenReturn(Optional.of("3-3"));
+    when(service.listDice(optEmpty, optEmpty, optEmpty))
+        .thenReturn(new DicePageDto(List.of(), null, null));
+
+    // Act
+    final ResponseEntity<List<DiceEntity>> result = controller.listDice(
+        request, optEmpty, optEmpty, optEmpty);
+
+    // Assert
+    assertEquals("\"3-3-json\"", result.getHeaders().getETag(),
+        "The ETag should be the strong, quoted version of the JSON history");
+    assertEquals(List.of(HttpHeaders.ACCEPT), result.getHeaders().getVary(),
+        "The response should vary by the requested format");
+  }
+
+  @Test
+  void testListDiceNotModified() {
+    // Arrange
+    final Optional<Integer> optEmpty = Optional.empty();
+
+    when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL));
+    when(request.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn("\"2-2-json\", W/\"3-3-json\"");
+    when(service.getDiceHistoryVersion()).thenReturn(Optional.of("3-3"));
+
+    // Act
+    final ResponseEntity<List<DiceEntity>> result = controller.listDice(
+        request, optEmpty, optEmpty, optEmpty);
+
+    // Assert
+    assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode(),
+        "A matching If-None-Match should be answered with 304");
+    verify(service, never()).listDice(any(), any(), any());
+  }
+
+  @Test
+  void testListDiceChanges() {
+    // Arrange
+    final Optional<Integer> optLimit = Optional.of(2);
+
+    when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL + "/changes"));
+    when(service.getDiceHistoryVersion()).thenReturn(Optional.of("9-9"));
+    when(service.listDiceChanges(5, optLimit)).thenReturn(new DiceChangesDto(
+        List.of(new DiceEntity(6, 1, null), new DiceEntity(7, 2, null)), 7));
+
+    // Act
+    final ResponseEntity<List<DiceEntity>> result =
+        controller.listDiceChanges(request, 5, optLimit);
+
+    // Assert
+    assertEquals(2, result.getBody().size(), "The changes size should be 2");
+    assertEquals("7", result.getHeaders().getFirst(WebApiController.HEADER_NEXT_CURSOR),
+        "The next cursor header should be the id of the newest row in the changes");
+    assertEquals("\"9-9-json\"", result.getHeaders().getETag(),
+        "The ETag should be shared with the list of the history");
+  }
+
+  @Test
+  void testListDiceChangesCborETag() {
+    // Arrange
+    when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL + "/changes"));
+    when(request.getHeader(HttpHeaders.ACCEPT))
+        .thenReturn("application/json;q=0.5, application/cbor");
+    when(request.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn("\"9-9-json\"");
+    when(service.getDiceHistoryVersion()).thenReturn(Optional.of("9-9"));
+    when(service.listDiceChanges(9, Optional.empty()))
+        .thenReturn(new DiceChangesDto(List.of(), 9));
+
+    // Act
+    final ResponseEntity<List<DiceEntity>> result =
+        controller.listDiceChanges(request, 9, Optional.empty());
+
+    // Assert
+    assertEquals(HttpStatus.OK, result.getStatusCode(),
+        "The ETag of the JSON representation should not match the CBOR one");
+    assertEquals("\"9-9-cbor\"", result.getHeaders().getETag(),
+        "The ETag should name the CBOR representation");
+    assertEquals(List.of(HttpHeaders.ACCEPT), result.getHeaders().getVary(),
+        "The response should vary by the requested format");
+  }
+
+  @Test
+  void testListDiceChangesNotModified() {
+    // Arrange
+    when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL + "/changes"));
+    when(request.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn("\"9-9-json\"");
+    when(service.getDiceHistoryVersion()).thenReturn(Optional.of("9-9"));
+
+    // Act
+    final ResponseEntity<List<DiceEntity>> result =
+        controller.listDiceChanges(request, 9, Optional.empty());
+
+    // Assert
+    assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode(),
+        "A matching If-None-Match should be answered with 304");
+    verify(service, never()).listDiceChanges(anyInt(), any());
+  }
+
+  @Test
+  void testStreamDice() {
+    // Arrange
+    final SseEmitter emitter = new SseEmitter();
+    when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL + "/stream"));
+    when(broadcaster.subscribe(Optional.of(12))).thenReturn(Optional.of(emitter));
+
+    // Act
+    final ResponseEntity<SseEmitter> result = controller.streamDice(request, Optional.of(12));
+
+    // Assert
+    assertEquals(HttpStatus.OK, result.getStatusCode(), "The stream should be opened");
+    assertEquals(emitter, result.getBody(), "The emitter of the subscription should be returned");
+  }
+
+  @Test
+  void testStreamDiceWhenFull() {
+    // Arrange
+    when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL + "/stream"));
+    when(broadcaster.subscribe(Optional.empty())).thenReturn(Optional.empty());
+
+    // Act
+    final ResponseEntity<SseEmitter> result = controller.streamDice(request, Optional.empty());
+
+    // Assert
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, result.getStatusCode(),
+        "A refused subscription should be answered with 503");
+    assertEquals("5", result.getHeaders().getFirst(HttpHeaders.RETRY_AFTER),
+        "The client should be told when to retry");
+  }
+
+  @Test
+  void testExportDice() throws Exception {
+    // Arrange
+    when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL + "/export"));
+    when(service.exportDice(any())).thenAnswer(invocation -> {
+      final Consumer<DiceEntity> consumer = invocation.getArgument(0);
+      consumer.accept(new DiceEntity(2, 6, LocalDateTime.of(2026, 2, 1, 12, 34, 56)));
+      consumer.accept(new DiceEntity(1, 4, LocalDateTime.of(2026, 1, 1, 12, 34, 56)));
+      return 2L;
+    });
+
+    // Act
+    final ResponseEntity<StreamingResponseBody> result = controller.exportDice(request);
+    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    result.getBody().writeTo(outputStream);
+
+    // Assert
+    final DiceEntity[] exported = objectMapper.readValue(
+        outputStream.toByteArray(), DiceEntity[].class);
+    assertEquals(2, exported.length, "The exported array size should be 2");
+    assertEquals(6, exported[0].value(), "The first exported value should be 6");
+    verify(service, times(1)).exportDice(any());
+  }
+
+  @Test
+  void testGetDiceStats() {
+    // Arrange
+    final DiceStatsDto mockResponse = new DiceStatsDto(
+        3L, Map.of(1, 1L, 2, 0L, 3, 0L, 4, 0L, 5, 0L, 6, 2L), 4.33, LocalDateTime.now());
+
+    when(request.getRequestURL()).thenReturn(new StringBuffer(MOCK_CURRENT_URL + "/stats"));
+    when(service.getDiceStats()).thenReturn(mockResponse);
 
     // Act
-    final List<DiceEntity> result = controller.listDice(request);
+    final DiceStatsDto response = controller.getDiceStats(request);
 
     // Assert
-    assertEquals(3, result.size(), "The result list size should be 3");
-    verify(service, times(1)).listDice();
+    assertEquals(3L, response.total(), "The total should match the service result");
+    verify(service, times(1)).getDiceStats();
   }
 
-}
\ No newline at end of file
+}
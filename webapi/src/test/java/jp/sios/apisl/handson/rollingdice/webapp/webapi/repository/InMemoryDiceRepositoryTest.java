@@ -0,0 +1,112 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code InMemoryDiceRepositoryTest} クラスは、{@link InMemoryDiceRepository} のユニットテストを提供します。.
+ *
+ * <p>連続したIDの採番、カーソルによる範囲検索、エクスポート、集計、
+ * および削除後のバージョンと同時登録時の採番を検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class InMemoryDiceRepositoryTest {
+
+  /**
+   * テスト対象となるInMemoryDiceRepositoryのインスタンス。.
+   */
+  private InMemoryDiceRepository repository;
+
+  /**
+   * InMemoryDiceRepositoryTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public InMemoryDiceRepositoryTest() {
+    // Constructor for InMemoryDiceRepositoryTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    this.repository = new InMemoryDiceRepository();
+  }
+
+  @Test
+  void testInsertAll() {
+    final List<DiceEntity> dices = repository.insertAll(List.of(3, 1, 6));
+
+    assertEquals(List.of(1, 2, 3), ids(dices), "Consecutive ids should be generated in order.");
+    assertEquals(6, dices.get(2).value(), "The values should be kept in order.");
+    assertEquals(0, dices.get(0).updatedAt().getNano(),
+        "The update time should have the precision of seconds like the table.");
+    assertEquals("3-3", repository.version(), "The version should be the last id and the count.");
+  }
+
+  @Test
+  void testFind() {
+    repository.insertAll(List.of(1, 2, 3, 4, 5, 6, 1, 2));
+
+    assertEquals(List.of(8, 7, 6),
+        ids(repository.find(Optional.empty(), Optional.empty(), false, 3)),
+        "The newest rows should be found in descending order.");
+    assertEquals(List.of(4, 3), ids(repository.find(Optional.of(5), Optional.of(2), false, 10)),
+        "The rows between the cursors should be found.");
+    assertEquals(List.of(6, 7), ids(repository.find(Optional.empty(), Optional.of(5), true, 2)),
+        "The rows after the cursor should be found in ascending order.");
+    assertTrue(repository.find(Optional.of(3), Optional.of(3), false, 10).isEmpty(),
+        "No row should be found in an empty range.");
+  }
+
+  @Test
+  void testExportAndCountAfterDelete() {
+    repository.insertAll(List.of(6, 6, 1, 2, 6));
+
+    assertEquals(2, repository.deleteUpTo(4, 2), "At most the given number should be deleted.");
+    assertEquals(1, repository.deleteRange(4, 4), "The rows in the range should be deleted.");
+    assertEquals("5-2", repository.version(), "The count should exclude the deleted rows.");
+
+    final List<DiceEntity> exported = new ArrayList<>();
+    assertEquals(2L, repository.exportDescending(0, exported::add), "The live rows should count.");
+    assertEquals(List.of(5, 3), ids(exported), "The live rows should be exported descending.");
+
+    final List<DiceFaceCount> faces = repository.countFaces(0);
+    assertEquals(2, faces.size(), "Only the faces rolled should be listed.");
+    assertEquals(6, faces.get(1).value(), "The faces should be listed in ascending order.");
+    assertEquals(5, faces.get(1).lastId(), "The newest id of the face should be kept.");
+  }
+
+  @Test
+  void testInsertConcurrently() throws Exception {
+    final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      final List<Future<List<DiceEntity>>> futures = IntStream.range(0, 100)
+          .mapToObj(i -> executor.submit(() -> repository.insertAll(List.of(1, 2, 3))))
+          .toList();
+      for (final Future<List<DiceEntity>> future : futures) {
+        future.get().forEach(dice -> ids.add(dice.id()));
+      }
+    }
+
+    assertEquals(300, ids.size(), "Every row should receive its own id.");
+    assertEquals("300-300", repository.version(), "No row should be lost.");
+  }
+
+  private static List<Integer> ids(final List<DiceEntity> rows) {
+    return rows.stream().map(DiceEntity::id).toList();
+  }
+
+}
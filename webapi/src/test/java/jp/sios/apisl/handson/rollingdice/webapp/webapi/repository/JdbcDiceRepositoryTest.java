@@ -0,0 +1,199 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@code JdbcDiceRepositoryTest} クラスは、{@link JdbcDiceRepository} のユニットテストを提供します。.
+ *
+ * <p>検索条件に応じたSQLの組み立て、複数行のINSERT文による登録、
+ * ストリーミングでのエクスポート、および出目ごとの集計の読み込みを検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class JdbcDiceRepositoryTest {
+
+  /**
+   * データベース操作を行うためのJdbcTemplateインスタンス。.
+   */
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  /**
+   * テスト対象となるJdbcDiceRepositoryのインスタンス。.
+   */
+  private JdbcDiceRepository repository;
+
+  /**
+   * JdbcDiceRepositoryTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public JdbcDiceRepositoryTest() {
+    // Constructor for JdbcDiceRepositoryTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    this.repository = new JdbcDiceRepository(
+        jdbcTemplate, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+  }
+
+  @Test
+  void testFindNewest() {
+    when(jdbcTemplate.query(
+        eq("SELECT id, value, updated_at FROM dice ORDER BY id DESC LIMIT ?;"),
+        any(RowMapper.class), eq(101)))
+        .thenReturn(rows());
+
+    assertEquals(1, repository.find(Optional.empty(), Optional.empty(), false, 101).size(),
+        "The newest rows should be queried without a condition.");
+  }
+
+  @Test
+  void testFindBefore() {
+    when(jdbcTemplate.query(
+        eq("SELECT id, value, updated_at FROM dice WHERE id < ? ORDER BY id DESC LIMIT ?;"),
+        any(RowMapper.class), eq(5), eq(3)))
+        .thenReturn(rows());
+
+    assertEquals(1, repository.find(Optional.of(5), Optional.empty(), false, 3).size(),
+        "The rows older than the cursor should be queried.");
+  }
+
+  @Test
+  void testFindAfterInAscendingOrder() {
+    when(jdbcTemplate.query(
+        eq("SELECT id, value, updated_at FROM dice WHERE id > ? ORDER BY id ASC LIMIT ?;"),
+        any(RowMapper.class), eq(5), eq(3)))
+        .thenReturn(rows());
+
+    assertEquals(1, repository.find(Optional.empty(), Optional.of(5), true, 3).size(),
+        "The rows newer than the cursor should be queried in ascending order.");
+  }
+
+  @Test
+  void testFindBetween() {
+    when(jdbcTemplate.query(
+        eq("SELECT id, value, updated_at FROM dice WHERE id < ? AND id > ? "
+            + "ORDER BY id DESC LIMIT ?;"),
+        any(RowMapper.class), eq(9), eq(5), eq(3)))
+        .thenReturn(rows());
+
+    assertEquals(1, repository.find(Optional.of(9), Optional.of(5), false, 3).size(),
+        "The rows between the cursors should be queried.");
+  }
+
+  @Test
+  void testInsertAll() throws Exception {
+    final Connection connection = mock(Connection.class);
+    when(connection.prepareStatement(anyString(), anyInt()))
+        .thenReturn(mock(PreparedStatement.class));
+    when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class)))
+        .thenAnswer(invocation -> {
+          final PreparedStatementCreator creator = invocation.getArgument(0);
+          final KeyHolder keyHolder = invocation.getArgument(1);
+          creator.createPreparedStatement(connection);
+          for (int id = 7; id <= 9; id++) {
+            keyHolder.getKeyList().add(Map.of("GENERATED_KEY", BigInteger.valueOf(id)));
+          }
+          return 3;
+        });
+    when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(7), eq(9)))
+        .thenReturn(IntStream.of(9, 8, 7)
+            .mapToObj(id -> new DiceEntity(id, id % 6 + 1, LocalDateTime.now()))
+            .toList());
+
+    final List<DiceEntity> dices = repository.insertAll(List.of(2, 3, 4));
+
+    assertEquals(List.of(7, 8, 9), dices.stream().map(DiceEntity::id).toList(),
+        "The inserted rows should be returned in the order of the values.");
+    verify(connection).prepareStatement(
+        eq("INSERT INTO dice(value) VALUES(?),(?),(?)"), anyInt());
+  }
+
+  @Test
+  void testExportDescending() throws Exception {
+    final ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getInt("id")).thenReturn(2, 1);
+    when(resultSet.getInt("value")).thenReturn(3, 6);
+    when(resultSet.getObject("updated_at", LocalDateTime.class)).thenReturn(LocalDateTime.now());
+
+    doAnswer(invocation -> {
+      final RowCallbackHandler handler = invocation.getArgument(1);
+      handler.processRow(resultSet);
+      handler.processRow(resultSet);
+      return null;
+    }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+    final List<DiceEntity> exported = new ArrayList<>();
+    final long count = repository.exportDescending(0, exported::add);
+
+    assertEquals(2L, count, "The exported count should match the streamed rows.");
+    assertEquals(2, exported.get(0).id(), "The rows should be passed in the streamed order.");
+    assertEquals(6, exported.get(1).value(), "The value of the second row should be 6.");
+  }
+
+  @Test
+  void testVersion() {
+    when(jdbcTemplate.queryForObject(
+        eq("SELECT MAX(id) AS last_id, COUNT(*) AS count FROM dice;"), any(RowMapper.class)))
+        .thenReturn("12-10");
+
+    assertEquals("12-10", repository.version(), "The version should be queried from the table.");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testCountFaces() {
+    final LocalDateTime rolledAt = LocalDateTime.of(2026, 4, 1, 12, 0, 0);
+    when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(3))).thenAnswer(invocation -> {
+      final RowMapper<DiceFaceCount> mapper = invocation.getArgument(1);
+      final ResultSet rs = mock(ResultSet.class);
+      when(rs.getInt("value")).thenReturn(6);
+      when(rs.getLong("count")).thenReturn(4L);
+      when(rs.getObject("last_rolled_at", LocalDateTime.class)).thenReturn(rolledAt);
+      when(rs.getInt("last_id")).thenReturn(12);
+      return List.of(mapper.mapRow(rs, 0));
+    });
+
+    assertEquals(List.of(new DiceFaceCount(6, 4L, rolledAt, 12)), repository.countFaces(3),
+        "The counts after the given id should be mapped per face.");
+  }
+
+  private static List<DiceEntity> rows() {
+    return List.of(new DiceEntity(1, 5, LocalDateTime.now()));
+  }
+
+}
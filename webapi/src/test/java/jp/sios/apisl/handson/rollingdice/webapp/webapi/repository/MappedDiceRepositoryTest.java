@@ -0,0 +1,146 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * {@code MappedDiceRepositoryTest} クラスは、{@link MappedDiceRepository} のユニットテストを提供します。.
+ *
+ * <p>固定長のレコードへの追記、マップする範囲の拡張、カーソルによる範囲検索、
+ * 削除済みのレコードの読み飛ばし、および開き直した場合の履歴の復元を検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class MappedDiceRepositoryTest {
+
+  /**
+   * ログのファイルを作成する一時ディレクトリー。.
+   */
+  @TempDir
+  private Path directory;
+
+  /**
+   * テスト対象となるMappedDiceRepositoryのインスタンス。.
+   */
+  private MappedDiceRepository repository;
+
+  /**
+   * MappedDiceRepositoryTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public MappedDiceRepositoryTest() {
+    // Constructor for MappedDiceRepositoryTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    this.repository = this.open();
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.repository.close();
+  }
+
+  @Test
+  void testInsertAllAcrossChunks() {
+    final List<DiceEntity> dices = repository.insertAll(List.of(1, 2, 3, 4, 5, 6, 1, 2, 3, 4));
+
+    assertEquals(10, dices.get(9).id(), "Consecutive ids should be generated in order.");
+    assertEquals(0, dices.get(0).updatedAt().getNano(),
+        "The update time should have the precision of seconds like the table.");
+    assertEquals(dices, repository.find(Optional.empty(), Optional.empty(), true, 20),
+        "The rows written across the chunks should be read back as they were inserted.");
+    assertEquals("10-10", repository.version(), "The version should be the last id and the count.");
+  }
+
+  @Test
+  void testFind() {
+    repository.insertAll(List.of(1, 2, 3, 4, 5, 6, 1, 2));
+
+    assertEquals(List.of(8, 7, 6),
+        ids(repository.find(Optional.empty(), Optional.empty(), false, 3)),
+        "The newest rows should be found in descending order.");
+    assertEquals(List.of(4, 3), ids(repository.find(Optional.of(5), Optional.of(2), false, 10)),
+        "The rows between the cursors should be found.");
+    assertEquals(List.of(6, 7), ids(repository.find(Optional.empty(), Optional.of(5), true, 2)),
+        "The rows after the cursor should be found in ascending order.");
+    assertTrue(repository.find(Optional.of(3), Optional.of(3), false, 10).isEmpty(),
+        "No row should be found in an empty range.");
+  }
+
+  @Test
+  void testDeleteSkipsRecords() {
+    repository.insertAll(List.of(6, 6, 1, 2, 6));
+
+    assertEquals(2, repository.deleteUpTo(4, 2), "At most the given number should be deleted.");
+    assertEquals(1, repository.deleteRange(4, 4), "The rows in the range should be deleted.");
+    assertEquals("5-2", repository.version(), "The count should exclude the deleted rows.");
+
+    final List<DiceEntity> exported = new ArrayList<>();
+    assertEquals(2L, repository.exportDescending(0, exported::add), "The live rows should count.");
+    assertEquals(List.of(5, 3), ids(exported), "The live rows should be exported descending.");
+    assertEquals(List.of(3, 5), ids(repository.find(Optional.empty(), Optional.of(1), true, 10)),
+        "The deleted rows should be skipped.");
+
+    final List<DiceFaceCount> faces = repository.countFaces(0);
+    assertEquals(2, faces.size(), "Only the faces rolled should be listed.");
+    assertEquals(1L, faces.get(1).count(), "The deleted rows should not be counted.");
+  }
+
+  @Test
+  void testReopen() {
+    final List<DiceEntity> dices = repository.insertAll(List.of(1, 2, 3, 4, 5, 6, 1));
+    repository.deleteUpTo(2, 10);
+    repository.close();
+
+    this.repository = this.open();
+
+    assertEquals("7-5", repository.version(), "The last id and the count should be recovered.");
+    assertEquals(dices.subList(2, 7),
+        repository.find(Optional.empty(), Optional.empty(), true, 10),
+        "The live rows should be read back from the file.");
+    assertEquals(8, repository.insertAll(List.of(2)).get(0).id(),
+        "The ids should continue after the recovered rows.");
+  }
+
+  @Test
+  void testOpenRejectsForeignFile() throws IOException {
+    final Path file = directory.resolve("foreign.log");
+    Files.write(file, new byte[32]);
+    final MappedDiceRepository foreign = new MappedDiceRepository();
+    ReflectionTestUtils.setField(foreign, "path", file.toString());
+
+    assertThrows(UncheckedIOException.class, foreign::open,
+        "A file without the header of the dice log should be rejected.");
+  }
+
+  private MappedDiceRepository open() {
+    final MappedDiceRepository opened = new MappedDiceRepository();
+    ReflectionTestUtils.setField(opened, "path", directory.resolve("dice.log").toString());
+    ReflectionTestUtils.setField(opened, "chunkRecords", 4);
+    opened.open();
+    return opened;
+  }
+
+  private static List<Integer> ids(final List<DiceEntity> rows) {
+    return rows.stream().map(DiceEntity::id).toList();
+  }
+
+}
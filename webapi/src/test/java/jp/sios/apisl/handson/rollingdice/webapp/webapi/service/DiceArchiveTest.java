@@ -0,0 +1,195 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * {@code DiceArchiveTest} クラスは、{@link DiceArchive} のユニットテストを提供します。.
+ *
+ * <p>セグメントファイルの読み書き、IDの範囲による検索とエクスポート、
+ * および再起動時の索引の復元を検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class DiceArchiveTest {
+
+  /**
+   * セグメントファイルを保存する一時ディレクトリー。.
+   */
+  @TempDir
+  private Path directory;
+
+  /**
+   * メトリクスの記録先となるMeterRegistryインスタンス。.
+   */
+  private SimpleMeterRegistry meterRegistry;
+
+  /**
+   * テスト対象となるDiceArchiveのインスタンス。.
+   */
+  private DiceArchive archive;
+
+  /**
+   * DiceArchiveTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public DiceArchiveTest() {
+    // Constructor for DiceArchiveTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.archive = this.open();
+  }
+
+  @Test
+  void testWriteAndRead() throws IOException {
+    final LocalDateTime rolledAt = LocalDateTime.of(2026, 1, 2, 3, 4, 5, 600_000_000);
+    final List<DiceEntity> rows = List.of(
+        new DiceEntity(1, 6, rolledAt), new DiceEntity(2, 1, null), new DiceEntity(4, 6, null));
+
+    final DiceSegment segment = DiceSegmentFile.write(directory, rows);
+
+    assertEquals(segment.path(), DiceSegmentFile.readHeader(segment.path()).path(),
+        "The header should be read back from the file.");
+    assertEquals(2L, DiceSegmentFile.readHeader(segment.path()).faceCounts()[5],
+        "The count of face 6 should be kept in the header.");
+    assertEquals(rows, DiceSegmentFile.readColumns(segment).toList(),
+        "The rows should be read back in the written order.");
+    assertFalse(Files.exists(directory.resolve(
+        segment.path().getFileName() + DiceSegmentFile.TEMPORARY_SUFFIX)),
+        "The temporary file should be renamed.");
+  }
+
+  @Test
+  void testFind() throws IOException {
+    archive.append(dices(1, 10));
+    archive.append(dices(11, 20));
+
+    assertEquals(20, archive.archivedUpTo(), "The archived id should follow the last append.");
+    assertEquals(List.of(12, 11, 10), ids(archive.find(Long.MIN_VALUE, 13, 3, false)),
+        "The rows should be found across the segments in descending order.");
+    assertEquals(List.of(9, 10, 11), ids(archive.find(8, Long.MAX_VALUE, 3, true)),
+        "The rows should be found across the segments in ascending order.");
+    assertEquals(List.of(), archive.find(20, Long.MAX_VALUE, 3, true),
+        "There should be no row after the archived id.");
+  }
+
+  @Test
+  void testExport() throws IOException {
+    archive.append(dices(1, 10));
+    archive.append(dices(11, 20));
+    final List<DiceEntity> exported = new ArrayList<>();
+
+    final long count = archive.export(15, exported::add);
+
+    assertEquals(15L, count, "The rows up to the given id should be exported.");
+    assertEquals(15, exported.get(0).id(), "The rows should be exported in descending order.");
+    assertEquals(1, exported.get(exported.size() - 1).id(), "The oldest row should be last.");
+  }
+
+  @Test
+  void testAppendOutOfOrder() throws IOException {
+    archive.append(dices(1, 10));
+
+    assertThrows(IllegalArgumentException.class, () -> archive.append(dices(5, 15)),
+        "The rows overlapping the archive should be rejected.");
+  }
+
+  @Test
+  void testInitRestoresIndex() throws IOException {
+    archive.append(dices(1, 10));
+    archive.append(dices(11, 20));
+    Files.writeString(directory.resolve("dice-0000000021-0000000030.seg.gz.tmp"), "partial");
+
+    final DiceArchive reopened = this.open();
+
+    assertEquals(20, reopened.archivedUpTo(), "The archived id should be restored.");
+    assertEquals(2, reopened.segments().size(), "The segments should be restored.");
+    assertFalse(Files.exists(directory.resolve("dice-0000000021-0000000030.seg.gz.tmp")),
+        "The interrupted segment file should be deleted.");
+    assertEquals(2.0, meterRegistry.get(DiceArchive.METRIC_SEGMENTS).gauge().value(),
+        "The number of segments should be recorded.");
+  }
+
+  @Test
+  void testInitRecoversCompleteSegment() throws IOException {
+    archive.append(dices(1, 10));
+    final DiceSegment written = archive.append(dices(11, 20));
+    final Path temporary = directory.resolve(
+        written.path().getFileName() + DiceSegmentFile.TEMPORARY_SUFFIX);
+    Files.move(written.path(), temporary);
+
+    final DiceArchive reopened = this.open();
+
+    assertEquals(20, reopened.archivedUpTo(), "The complete segment file should be recovered.");
+    assertTrue(Files.exists(written.path()), "The segment file should be renamed.");
+    assertFalse(Files.exists(temporary), "The temporary file should be gone.");
+    assertEquals(List.of(11, 12), ids(reopened.find(10, Long.MAX_VALUE, 2, true)),
+        "The rows of the recovered segment should be found.");
+  }
+
+  @Test
+  void testInitDeletesTruncatedSegment() throws IOException {
+    archive.append(dices(1, 10));
+    final DiceSegment written = archive.append(dices(11, 20));
+    final byte[] content = Files.readAllBytes(written.path());
+    final Path temporary = directory.resolve(
+        written.path().getFileName() + DiceSegmentFile.TEMPORARY_SUFFIX);
+    Files.write(temporary, Arrays.copyOf(content, content.length - 4));
+    Files.delete(written.path());
+
+    final DiceArchive reopened = this.open();
+
+    assertEquals(10, reopened.archivedUpTo(), "The truncated segment file should be ignored.");
+    assertFalse(Files.exists(temporary), "The truncated segment file should be deleted.");
+    assertFalse(Files.exists(written.path()), "The truncated segment file should not be renamed.");
+  }
+
+  @Test
+  void testInitWithoutDirectory() {
+    ReflectionTestUtils.setField(archive, "directory", directory.resolve("missing").toString());
+    archive.init();
+
+    assertEquals(0, archive.archivedUpTo(), "A missing directory should be an empty archive.");
+    assertTrue(archive.find(Long.MIN_VALUE, Long.MAX_VALUE, 1, false).isEmpty(),
+        "There should be no archived row.");
+  }
+
+  private DiceArchive open() {
+    final DiceArchive opened = new DiceArchive(meterRegistry);
+    ReflectionTestUtils.setField(opened, "directory", directory.toString());
+    opened.init();
+    return opened;
+  }
+
+  private static List<DiceEntity> dices(final int firstId, final int lastId) {
+    return IntStream.rangeClosed(firstId, lastId)
+        .mapToObj(id -> new DiceEntity(id, id % 6 + 1, LocalDateTime.of(2026, 1, 1, 0, 0)))
+        .toList();
+  }
+
+  private static List<Integer> ids(final List<DiceEntity> rows) {
+    return rows.stream().map(DiceEntity::id).toList();
+  }
+
+}
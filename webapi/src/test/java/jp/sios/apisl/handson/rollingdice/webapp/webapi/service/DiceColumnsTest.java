@@ -0,0 +1,98 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.time.LocalDateTime;
+import java.util.List;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@code DiceColumnsTest} クラスは、{@link DiceColumns} のユニットテストを提供します。.
+ *
+ * <p>出目履歴の出し入れ、配列の拡張、固定長での置き換え、
+ * および{@link DiceEntity}のリストと同じ形式のJSONへの書き出しを検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class DiceColumnsTest {
+
+  /**
+   * 出目履歴をJSONへ書き出すためのObjectMapperインスタンス。.
+   */
+  private ObjectMapper objectMapper;
+
+  /**
+   * DiceColumnsTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public DiceColumnsTest() {
+    // Constructor for DiceColumnsTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    this.objectMapper = JsonMapper.builder()
+        .findAndAddModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+  }
+
+  @Test
+  void testRoundTrip() {
+    final List<DiceEntity> rows = List.of(
+        new DiceEntity(1, 6, LocalDateTime.of(2026, 1, 2, 3, 4, 5, 600_000_000)),
+        new DiceEntity(2, 1, null));
+
+    final DiceColumns columns = DiceColumns.of(rows);
+
+    assertEquals(2, columns.size(), "All rows should be held.");
+    assertEquals(rows, columns.toList(), "The rows should be restored as they were.");
+    assertNull(columns.updatedAt(1), "A missing time should stay null.");
+  }
+
+  @Test
+  void testAddGrowsTheArrays() {
+    final DiceColumns columns = new DiceColumns(0);
+    for (int id = 1; id <= 100; id++) {
+      columns.add(id, id % 6 + 1, null);
+    }
+
+    assertEquals(100, columns.size(), "The arrays should grow as the rows are added.");
+    assertEquals(100, columns.id(99), "The last row should be kept.");
+    assertEquals(5, columns.value(99), "The value of the last row should be kept.");
+  }
+
+  @Test
+  void testSetAndCopyOnFixedSlots() {
+    final DiceColumns columns = DiceColumns.ofSize(3);
+    columns.set(0, new DiceEntity(7, 3, LocalDateTime.of(2026, 1, 1, 0, 0)));
+
+    columns.copy(0, 2);
+
+    assertEquals(new DiceEntity(7, 3, LocalDateTime.of(2026, 1, 1, 0, 0)), columns.get(2),
+        "The copied slot should hold the same row.");
+    assertNull(columns.updatedAt(1), "An empty slot should have no time.");
+    assertThrows(IndexOutOfBoundsException.class, () -> columns.id(3),
+        "A slot over the size should be rejected.");
+  }
+
+  @Test
+  void testSerializeLikeList() throws Exception {
+    final List<DiceEntity> rows = List.of(
+        new DiceEntity(1, 6, LocalDateTime.of(2026, 4, 1, 12, 34, 56)),
+        new DiceEntity(2, 1, null));
+
+    assertEquals(objectMapper.writeValueAsString(rows),
+        objectMapper.writeValueAsString(DiceColumns.of(rows)),
+        "The columns should be written in the same JSON as the list of rows.");
+  }
+
+}
@@ -0,0 +1,231 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.event.DiceInsertedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+/**
+ * {@code DiceEventBroadcasterTest} クラスは、{@link DiceEventBroadcaster} のユニットテストを提供します。.
+ *
+ * <p>購読数の上限、送信の遅いクライアントの切断、登録処理のスレッドと分けた振り分け、
+ * 再接続時の取りこぼしの再送の順序、およびキャッシュが保持していない場合のリセットを検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class DiceEventBroadcasterTest {
+
+  /**
+   * 取りこぼした出目履歴の取得に使用するRecentDiceCacheのモック。.
+   */
+  @Mock
+  private RecentDiceCache recentDiceCache;
+
+  /**
+   * 出目履歴をJSONへ書き出すためのObjectMapperインスタンス。.
+   */
+  private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+  /**
+   * 実行されずに残っている送信処理のリスト。.
+   */
+  private final List<Runnable> pendingTasks = new ArrayList<>();
+
+  /**
+   * メトリクスの記録先となるMeterRegistryインスタンス。.
+   */
+  private SimpleMeterRegistry meterRegistry;
+
+  /**
+   * DiceEventBroadcasterTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public DiceEventBroadcasterTest() {
+    // Constructor for DiceEventBroadcasterTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    this.meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void testSubscribeUpToMaxSubscribers() {
+    final DiceEventBroadcaster broadcaster = this.broadcaster(Runnable::run);
+    ReflectionTestUtils.setField(broadcaster, "maxSubscribers", 1);
+
+    assertTrue(broadcaster.subscribe(Optional.empty()).isPresent(),
+        "The first subscription should be accepted.");
+    assertTrue(broadcaster.subscribe(Optional.empty()).isEmpty(),
+        "The subscription over the limit should be refused.");
+    assertEquals(1.0, meterRegistry.get(DiceEventBroadcaster.METRIC_SUBSCRIBERS).gauge().value(),
+        "The number of subscribers should be recorded.");
+  }
+
+  @Test
+  void testDeliverToFastSubscriber() {
+    final DiceEventBroadcaster broadcaster = this.broadcaster(Runnable::run);
+    broadcaster.subscribe(Optional.empty());
+
+    broadcaster.onDiceInserted(new DiceInsertedEvent(dices(1, 10)));
+
+    assertEquals(1, broadcaster.subscriberCount(),
+        "A subscriber keeping up with the events should stay connected.");
+    assertEquals(0.0, meterRegistry.get(DiceEventBroadcaster.METRIC_DROPPED).counter().count(),
+        "No subscriber should be dropped.");
+  }
+
+  @Test
+  void testDropSlowSubscriber() {
+    final DiceEventBroadcaster broadcaster = this.broadcaster(pendingTasks::add);
+    broadcaster.subscribe(Optional.empty());
+
+    broadcaster.onDiceInserted(new DiceInsertedEvent(dices(1, 3)));
+
+    assertEquals(0, broadcaster.subscriberCount(),
+        "A subscriber whose buffer overflowed should be disconnected.");
+    assertEquals(1.0, meterRegistry.get(DiceEventBroadcaster.METRIC_DROPPED).counter().count(),
+        "The dropped subscriber should be counted.");
+    assertEquals(1, pendingTasks.size(), "Only one send task should be scheduled at a time.");
+  }
+
+  @Test
+  void testDispatchOffTheInsertingThread() {
+    final List<Runnable> dispatches = new ArrayList<>();
+    final DiceEventBroadcaster broadcaster = this.broadcaster(pendingTasks::add);
+    ReflectionTestUtils.setField(broadcaster, "dispatcher", (Executor) dispatches::add);
+    broadcaster.subscribe(Optional.empty());
+
+    broadcaster.onDiceInserted(new DiceInsertedEvent(dices(1, 2)));
+    assertEquals(1, dispatches.size(), "The event should be handed over to the dispatcher.");
+    assertEquals(List.of(), this.queuedIds(broadcaster),
+        "The inserting thread should not fan out to the subscribers.");
+
+    dispatches.get(0).run();
+    assertEquals(List.of("id:1", "id:2"), this.queuedIds(broadcaster),
+        "The dispatcher should queue the rows for the subscriber.");
+  }
+
+  @Test
+  void testCloseStalledSubscriber() {
+    final DiceEventBroadcaster broadcaster = this.broadcaster(pendingTasks::add);
+    broadcaster.subscribe(Optional.empty());
+    final Set<?> subscribers = (Set<?>) ReflectionTestUtils.getField(broadcaster, "subscribers");
+    ReflectionTestUtils.setField(subscribers.iterator().next(), "sendingSince",
+        System.nanoTime() - Duration.ofMinutes(1).toNanos());
+
+    ReflectionTestUtils.invokeMethod(broadcaster, "closeStalled");
+
+    assertEquals(0, broadcaster.subscriberCount(),
+        "A subscriber whose send is blocked too long should be disconnected.");
+    assertEquals(1.0, meterRegistry.get(DiceEventBroadcaster.METRIC_DROPPED).counter().count(),
+        "The stalled subscriber should be counted as dropped.");
+  }
+
+  @Test
+  void testReplayAfterLastEventId() {
+    final DiceEventBroadcaster broadcaster = this.broadcaster(pendingTasks::add);
+    when(recentDiceCache.find(Optional.empty(), Optional.of(5), 2))
+        .thenReturn(Optional.of(dices(6, 7)));
+
+    broadcaster.subscribe(Optional.of(5));
+    verify(recentDiceCache).find(Optional.empty(), Optional.of(5), 2);
+    assertEquals(1, broadcaster.subscriberCount(), "The replayed rows should fit the buffer.");
+
+    broadcaster.onDiceInserted(new DiceInsertedEvent(dices(8, 8)));
+    assertEquals(0, broadcaster.subscriberCount(),
+        "The replayed rows should take the room of the buffer.");
+  }
+
+  @Test
+  void testReplayBeforeRollsInsertedMeanwhile() throws InterruptedException {
+    final DiceEventBroadcaster broadcaster = this.broadcaster(pendingTasks::add);
+    ReflectionTestUtils.setField(broadcaster, "bufferSize", 4);
+    final Thread inserter = new Thread(
+        () -> broadcaster.onDiceInserted(new DiceInsertedEvent(dices(7, 8))));
+    when(recentDiceCache.find(Optional.empty(), Optional.of(5), 4)).thenAnswer(invocation -> {
+      // Insert the rolls 7 and 8 after the subscriber joined, before the replay is queued.
+      inserter.start();
+      while (inserter.getState() != Thread.State.BLOCKED && inserter.isAlive()) {
+        Thread.sleep(1);
+      }
+      return Optional.of(dices(6, 7));
+    });
+
+    broadcaster.subscribe(Optional.of(5));
+    inserter.join();
+
+    assertEquals(List.of("id:6", "id:7", "id:8"), this.queuedIds(broadcaster),
+        "The replayed rows should be sent first, and each row only once.");
+  }
+
+  @Test
+  void testResetWhenNotCached() {
+    final DiceEventBroadcaster broadcaster = this.broadcaster(pendingTasks::add);
+    when(recentDiceCache.find(Optional.empty(), Optional.of(5), 2)).thenReturn(Optional.empty());
+
+    broadcaster.subscribe(Optional.of(5));
+
+    assertEquals(List.of("event:" + DiceEventBroadcaster.RESET_EVENT_NAME),
+        this.queuedIds(broadcaster), "The subscriber should be asked to reset.");
+    assertEquals(1, broadcaster.subscriberCount(), "The subscriber should stay connected.");
+  }
+
+  private DiceEventBroadcaster broadcaster(final Executor executor) {
+    final DiceEventBroadcaster broadcaster =
+        new DiceEventBroadcaster(recentDiceCache, objectMapper, meterRegistry);
+    ReflectionTestUtils.setField(broadcaster, "dispatcher", (Executor) Runnable::run);
+    ReflectionTestUtils.setField(broadcaster, "sender", executor);
+    ReflectionTestUtils.setField(broadcaster, "bufferSize", 2);
+    return broadcaster;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<String> queuedIds(final DiceEventBroadcaster broadcaster) {
+    final Set<?> subscribers = (Set<?>) ReflectionTestUtils.getField(broadcaster, "subscribers");
+    final Queue<Set<DataWithMediaType>> queue = (Queue<Set<DataWithMediaType>>)
+        ReflectionTestUtils.getField(subscribers.iterator().next(), "queue");
+    final List<String> ids = new ArrayList<>();
+    for (final Set<DataWithMediaType> frame : queue) {
+      for (final DataWithMediaType part : frame) {
+        for (final String line : String.valueOf(part.getData()).split("\n")) {
+          if (line.startsWith("id:") || line.startsWith("event:reset")) {
+            ids.add(line);
+          }
+        }
+      }
+    }
+    return ids;
+  }
+
+  private static List<DiceEntity> dices(final int firstId, final int lastId) {
+    final List<DiceEntity> rows = new ArrayList<>();
+    for (int id = firstId; id <= lastId; id++) {
+      rows.add(new DiceEntity(id, id % 6 + 1, LocalDateTime.of(2026, 1, 1, 0, 0)));
+    }
+    return rows;
+  }
+
+}
@@ -0,0 +1,233 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.event.DiceInsertedEvent;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.HandsOnException;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.repository.DiceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * {@code DiceGroupCommitWriterTest} クラスは、{@link DiceGroupCommitWriter} のユニットテストを提供します。.
+ *
+ * <p>呼び出し元のスレッドでの登録、同時に到着した登録要求のまとめ書き、
+ * および書き込み失敗時の例外の伝播を検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class DiceGroupCommitWriterTest {
+
+  /**
+   * 出目履歴の保存先となるDiceRepositoryのモック。.
+   */
+  @Mock
+  private DiceRepository diceRepository;
+
+  /**
+   * 登録の完了を通知するイベントの発行先となるApplicationEventPublisherインスタンス。.
+   */
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  /**
+   * 直近の出目履歴のキャッシュと統計情報が参照するDiceArchiveのモック。.
+   */
+  @Mock
+  private DiceArchive diceArchive;
+
+  /**
+   * メトリクスの記録先となるMeterRegistryインスタンス。.
+   */
+  private SimpleMeterRegistry meterRegistry;
+
+  /**
+   * テスト対象となるDiceGroupCommitWriterのインスタンス。.
+   */
+  private DiceGroupCommitWriter writer;
+
+  /**
+   * 疑似的に採番するIDの連番。.
+   */
+  private final AtomicInteger sequence = new AtomicInteger();
+
+  /**
+   * DiceGroupCommitWriterTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public DiceGroupCommitWriterTest() {
+    // Constructor for DiceGroupCommitWriterTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.writer = new DiceGroupCommitWriter(diceRepository, eventPublisher, meterRegistry);
+
+    when(diceRepository.insertAll(anyList())).thenAnswer(invocation -> {
+      final List<Integer> values = invocation.getArgument(0);
+      return values.stream()
+          .map(value -> new DiceEntity(sequence.incrementAndGet(), value, LocalDateTime.now()))
+          .toList();
+    });
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.writer.stop();
+  }
+
+  @Test
+  void testInsertWithoutStart() {
+    final DiceEntity dice = writer.insert(3);
+
+    assertEquals(1, dice.id(), "The generated id should be returned to the caller.");
+    verify(eventPublisher, times(1)).publishEvent(new DiceInsertedEvent(List.of(dice)));
+  }
+
+  @Test
+  void testInsertAll() {
+    final List<DiceEntity> dices = writer.insertAll(List.of(1, 2, 3));
+
+    assertEquals(List.of(1, 2, 3), dices.stream().map(DiceEntity::id).toList(),
+        "The generated ids should be returned in order.");
+    assertEquals(1L, meterRegistry.get(DiceGroupCommitWriter.METRIC_BATCH_SIZE)
+        .summary().count(), "The rows should be written at once.");
+    verify(diceRepository, times(1)).insertAll(List.of(1, 2, 3));
+  }
+
+  @Test
+  void testInsertConcurrently() throws Exception {
+    ReflectionTestUtils.setField(writer, "maxWaitMillis", 50L);
+    writer.start();
+
+    final int callers = 20;
+    final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+    try (ExecutorService executor = Executors.newFixedThreadPool(callers)) {
+      final List<Future<DiceEntity>> futures = IntStream.range(0, callers)
+          .mapToObj(i -> executor.submit(() -> writer.insert(i % 6 + 1)))
+          .toList();
+      for (final Future<DiceEntity> future : futures) {
+        ids.add(future.get().id());
+      }
+    }
+
+    assertEquals(callers, ids.size(), "Every caller should receive its own generated id.");
+    assertEquals(callers, (int) meterRegistry.get(DiceGroupCommitWriter.METRIC_BATCH_SIZE)
+        .summary().totalAmount(), "The batch size metric should count every written row.");
+    assertEquals(callers, meterRegistry.get(DiceGroupCommitWriter.METRIC_BATCH_WAIT)
+        .timer().count(), "The wait time should be recorded for every caller.");
+  }
+
+  @Test
+  void testInsertFailure() {
+    writer.start();
+    when(diceRepository.insertAll(anyList()))
+        .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+    assertThrows(DataAccessResourceFailureException.class, () -> writer.insert(5),
+        "The failure of the batch should be propagated to the caller.");
+  }
+
+  @Test
+  void testInsertSucceedsWhenListenerFails() {
+    writer.start();
+    doThrow(new IllegalStateException("Listener failed"))
+        .when(eventPublisher).publishEvent(any(Object.class));
+
+    assertEquals(5, writer.insert(5).value(),
+        "The committed dice should be returned even if a listener fails.");
+    verify(diceRepository, times(1)).insertAll(List.of(5));
+  }
+
+  @Test
+  void testListenersSeeInsertBeforeCallerReturns() {
+    final RecentDiceCache cache = new RecentDiceCache(diceRepository, diceArchive, meterRegistry);
+    cache.init();
+    cache.load();
+    final DiceStatistics statistics = new DiceStatistics(diceRepository, diceArchive);
+    statistics.init();
+    doAnswer(invocation -> {
+      // Slow listeners, so that a caller released before them would read the old state.
+      Thread.sleep(50);
+      final DiceInsertedEvent event = invocation.getArgument(0);
+      cache.onDiceInserted(event);
+      statistics.onDiceInserted(event);
+      return null;
+    }).when(eventPublisher).publishEvent(any(Object.class));
+    writer.start();
+
+    final DiceEntity dice = writer.insert(4);
+
+    assertEquals(List.of(dice), cache.find(Optional.empty(), Optional.empty(), 10).orElseThrow(),
+        "The cache should hold the row when the caller gets it.");
+    assertEquals(1L, statistics.snapshot().total(),
+        "The statistics should count the row when the caller gets it.");
+  }
+
+  @Test
+  void testInsertFailsAndWorkerSurvivesError() {
+    writer.start();
+    when(diceRepository.insertAll(anyList()))
+        .thenThrow(new OutOfMemoryError("Java heap space"))
+        .thenAnswer(invocation -> List.of(new DiceEntity(1, 4, LocalDateTime.now())));
+
+    final HandsOnException ex = assertThrows(HandsOnException.class, () -> writer.insert(3),
+        "The caller should not wait forever when the batch fails with an error.");
+    assertInstanceOf(OutOfMemoryError.class, ex.getCause(), "The error should be the cause.");
+    assertEquals(1, writer.insert(4).id(), "The worker should go on after the error.");
+  }
+
+  @Test
+  void testStopWritesInsertsLeftInQueue() throws Exception {
+    // A worker which has already exited, as if the insert arrived after its last look.
+    final Thread exited = Thread.ofPlatform().start(() -> { });
+    exited.join();
+    ReflectionTestUtils.setField(writer, "queue", new LinkedBlockingQueue<>());
+    ReflectionTestUtils.setField(writer, "worker", exited);
+    ReflectionTestUtils.setField(writer, "running", true);
+
+    try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+      final Future<DiceEntity> future = executor.submit(() -> writer.insert(6));
+      final LinkedBlockingQueue<?> queue =
+          (LinkedBlockingQueue<?>) ReflectionTestUtils.getField(writer, "queue");
+      while (queue.isEmpty()) {
+        Thread.onSpinWait();
+      }
+      writer.stop();
+
+      assertEquals(6, future.get().value(), "The insert left in the queue should be written.");
+    }
+  }
+
+}
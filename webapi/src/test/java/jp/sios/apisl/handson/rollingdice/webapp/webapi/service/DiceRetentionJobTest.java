@@ -0,0 +1,131 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.repository.DiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * {@code DiceRetentionJobTest} クラスは、{@link DiceRetentionJob} のユニットテストを提供します。.
+ *
+ * <p>保持期間を過ぎた履歴だけがバッチ単位でアーカイブに移されること、
+ * および中断された削除が次回の実行で補われることを検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class DiceRetentionJobTest {
+
+  /**
+   * 保存先の現在日時です。.
+   */
+  private static final LocalDateTime NOW = LocalDateTime.of(2026, 6, 1, 0, 0, 0);
+
+  /**
+   * 出目履歴の読み込みと削除に使用するDiceRepositoryのモック。.
+   */
+  @Mock
+  private DiceRepository diceRepository;
+
+  /**
+   * セグメントファイルを保存する一時ディレクトリー。.
+   */
+  @TempDir
+  private Path directory;
+
+  /**
+   * メトリクスの記録先となるMeterRegistryインスタンス。.
+   */
+  private SimpleMeterRegistry meterRegistry;
+
+  /**
+   * 出目履歴の移し先となるDiceArchiveインスタンス。.
+   */
+  private DiceArchive archive;
+
+  /**
+   * テスト対象となるDiceRetentionJobのインスタンス。.
+   */
+  private DiceRetentionJob job;
+
+  /**
+   * DiceRetentionJobTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public DiceRetentionJobTest() {
+    // Constructor for DiceRetentionJobTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.archive = new DiceArchive(meterRegistry);
+    ReflectionTestUtils.setField(archive, "directory", directory.toString());
+    this.archive.init();
+    this.job = new DiceRetentionJob(diceRepository, archive, meterRegistry);
+    ReflectionTestUtils.setField(job, "batchSize", 3);
+    when(diceRepository.currentTime()).thenReturn(NOW);
+  }
+
+  @Test
+  void testRunInBatches() throws IOException {
+    givenRows(0, dice(1, 40), dice(2, 40), dice(3, 40));
+    givenRows(3, dice(4, 31), dice(5, 29), dice(6, 1));
+
+    final long archived = job.run();
+
+    assertEquals(4L, archived, "Only the rows older than the max age should be archived.");
+    assertEquals(4, archive.archivedUpTo(), "The archive should end before the recent row.");
+    assertEquals(2, archive.segments().size(), "Each batch should be one segment.");
+    verify(diceRepository).deleteRange(1, 3);
+    verify(diceRepository).deleteRange(4, 4);
+    assertEquals(4.0, meterRegistry.get(DiceRetentionJob.METRIC_ARCHIVED).counter().count(),
+        "The archived rows should be counted.");
+  }
+
+  @Test
+  void testRunWithoutExpiredRows() throws IOException {
+    givenRows(0, dice(1, 1));
+
+    assertEquals(0L, job.run(), "No row should be archived.");
+    assertEquals(0, archive.archivedUpTo(), "The archive should stay empty.");
+    verify(diceRepository, never()).deleteRange(anyInt(), anyInt());
+  }
+
+  @Test
+  void testRunPurgesArchivedRows() throws IOException {
+    archive.append(List.of(dice(1, 40), dice(2, 40)));
+    givenRows(2);
+
+    job.run();
+
+    verify(diceRepository).deleteUpTo(2, 3);
+  }
+
+  private void givenRows(final int archivedUpTo, final DiceEntity... rows) {
+    when(diceRepository.find(Optional.empty(), Optional.of(archivedUpTo), true, 3))
+        .thenReturn(List.of(rows));
+  }
+
+  private static DiceEntity dice(final int id, final int daysAgo) {
+    return new DiceEntity(id, id % 6 + 1, NOW.minusDays(daysAgo));
+  }
+
+}
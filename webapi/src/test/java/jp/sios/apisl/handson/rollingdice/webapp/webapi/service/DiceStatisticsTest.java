@@ -0,0 +1,157 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceStatsDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.event.DiceInsertedEvent;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.repository.DiceFaceCount;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.repository.DiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+/**
+ * {@code DiceStatisticsTest} クラスは、{@link DiceStatistics} のユニットテストを提供します。.
+ *
+ * <p>起動時の集計、登録による加算、同時に加算された場合の総数、
+ * および起動時の集計に失敗した場合の再試行を検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class DiceStatisticsTest {
+
+  /**
+   * 起動時の集計に使用するDiceRepositoryのモック。.
+   */
+  @Mock
+  private DiceRepository diceRepository;
+
+  /**
+   * アーカイブ済みの出目の回数を返すDiceArchiveインスタンス。.
+   */
+  @Mock
+  private DiceArchive diceArchive;
+
+  /**
+   * テスト対象となるDiceStatisticsのインスタンス。.
+   */
+  private DiceStatistics statistics;
+
+  /**
+   * DiceStatisticsTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public DiceStatisticsTest() {
+    // Constructor for DiceStatisticsTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    this.statistics = new DiceStatistics(diceRepository, diceArchive);
+  }
+
+  @Test
+  void testSnapshotEmpty() {
+    when(diceRepository.countFaces(0)).thenReturn(List.of());
+    statistics.init();
+
+    final DiceStatsDto stats = statistics.snapshot();
+
+    assertEquals(0L, stats.total(), "The total of an empty history should be 0.");
+    assertEquals(0.0, stats.mean(), "The mean of an empty history should be 0.");
+    assertEquals(6, stats.counts().size(), "Every face should be listed.");
+    assertNull(stats.lastRolledAt(), "There should be no last roll time.");
+  }
+
+  @Test
+  void testSnapshotAfterInsert() {
+    final LocalDateTime loadedAt = LocalDateTime.of(2026, 4, 1, 12, 0, 0);
+    final LocalDateTime insertedAt = loadedAt.plusMinutes(1);
+    when(diceRepository.countFaces(0)).thenReturn(List.of(
+        new DiceFaceCount(1, 2L, loadedAt, 3),
+        new DiceFaceCount(6, 1L, loadedAt.minusDays(1), 1)));
+    statistics.init();
+
+    statistics.onDiceInserted(new DiceInsertedEvent(List.of(
+        new DiceEntity(4, 3, insertedAt), new DiceEntity(5, 6, insertedAt))));
+    final DiceStatsDto stats = statistics.snapshot();
+
+    assertEquals(5L, stats.total(), "The total should include the loaded and inserted rows.");
+    assertEquals(2L, stats.counts().get(6), "The count of face 6 should be incremented.");
+    assertEquals((1 * 2 + 3 + 6 * 2) / 5.0, stats.mean(), 1e-9, "The mean should be updated.");
+    assertEquals(insertedAt, stats.lastRolledAt(), "The newest roll time should be kept.");
+    assertEquals(Optional.of("5-5"), statistics.version(),
+        "The version should be the newest id and the total.");
+    verify(diceRepository, times(1)).countFaces(0);
+  }
+
+  @Test
+  void testSnapshotWithArchive() {
+    final LocalDateTime archivedAt = LocalDateTime.of(2026, 1, 1, 0, 0, 0);
+    when(diceArchive.archivedUpTo()).thenReturn(3);
+    when(diceArchive.segments()).thenReturn(List.of(new DiceSegment(
+        Path.of("dice-0000000001-0000000003.seg.gz"), 1, 3, 3,
+        new long[] {2, 0, 0, 0, 0, 1}, archivedAt)));
+    when(diceRepository.countFaces(3)).thenReturn(List.of());
+    statistics.init();
+
+    final DiceStatsDto stats = statistics.snapshot();
+
+    assertEquals(3L, stats.total(), "The archived rows should be counted.");
+    assertEquals(1L, stats.counts().get(6), "The count of face 6 should come from the archive.");
+    assertEquals(archivedAt, stats.lastRolledAt(), "The archived roll time should be kept.");
+  }
+
+  @Test
+  void testInsertConcurrently() throws Exception {
+    when(diceRepository.countFaces(0)).thenReturn(List.of());
+    statistics.init();
+
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      final List<Future<?>> futures = IntStream.range(0, 600)
+          .mapToObj(i -> executor.submit(() -> statistics.onDiceInserted(new DiceInsertedEvent(
+              List.of(new DiceEntity(i + 1, i % 6 + 1, LocalDateTime.now()))))))
+          .toList();
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    }
+    final DiceStatsDto stats = statistics.snapshot();
+
+    assertEquals(600L, stats.total(), "No increment should be lost.");
+    assertEquals(100L, stats.counts().get(1), "Each face should be counted evenly.");
+    assertEquals(3.5, stats.mean(), 1e-9, "The mean of the even faces should be 3.5.");
+  }
+
+  @Test
+  void testSnapshotRetriesLoad() {
+    when(diceRepository.countFaces(0))
+        .thenThrow(new DataAccessResourceFailureException("Connection refused"))
+        .thenThrow(new DataAccessResourceFailureException("Connection refused"))
+        .thenReturn(List.of());
+    statistics.init();
+
+    assertThrows(DataAccessResourceFailureException.class, () -> statistics.snapshot(),
+        "The failure of the retry should be propagated.");
+    assertEquals(0L, statistics.snapshot().total(), "The retry should load the statistics.");
+  }
+
+}
@@ -0,0 +1,194 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceValueDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.HandsOnException;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.IdempotencyCacheFullException;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.IdempotencyKeyMismatchException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * {@code IdempotencyCacheTest} クラスは、{@link IdempotencyCache} のユニットテストを提供します。.
+ *
+ * <p>再送されたリクエストへの結果の返却、同時に到着したリクエストの集約、失敗した結果の破棄、
+ * 期限と上限件数による破棄、および上限に達した場合に実行中のキーを破棄しないことを検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class IdempotencyCacheTest {
+
+  /**
+   * サイコロを振った回数。.
+   */
+  private final AtomicInteger executions = new AtomicInteger();
+
+  /**
+   * メトリクスの記録先となるMeterRegistryインスタンス。.
+   */
+  private SimpleMeterRegistry meterRegistry;
+
+  /**
+   * テスト対象となるIdempotencyCacheのインスタンス。.
+   */
+  private IdempotencyCache cache;
+
+  /**
+   * IdempotencyCacheTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public IdempotencyCacheTest() {
+    // Constructor for IdempotencyCacheTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.cache = new IdempotencyCache(meterRegistry);
+  }
+
+  @Test
+  void testReplayWithSameKey() {
+    final DiceValueDto first = cache.execute("key", List.of(), this.roll(3)).join();
+    final DiceValueDto second = cache.execute("key", List.of(), this.roll(5)).join();
+
+    assertEquals(3, first.value(), "The first request should roll the dice.");
+    assertSame(first, second, "The retry should receive the original result.");
+    assertEquals(1, executions.get(), "The dice should be rolled only once.");
+    assertEquals(1.0, this.count("replayed"), "The replayed request should be counted.");
+    assertEquals(1.0, this.count("executed"), "The executed request should be counted.");
+  }
+
+  @Test
+  void testCollapseConcurrentRequests() {
+    final CompletableFuture<DiceValueDto> pending = new CompletableFuture<>();
+    final Supplier<CompletableFuture<DiceValueDto>> action = () -> {
+      executions.incrementAndGet();
+      return pending;
+    };
+
+    final CompletableFuture<DiceValueDto> first = cache.execute("key", List.of(), action);
+    final CompletableFuture<DiceValueDto> second = cache.execute("key", List.of(), action);
+    assertTrue(!first.isDone() && !second.isDone(), "Both requests should wait for the roll.");
+
+    pending.complete(new DiceValueDto(4));
+
+    assertEquals(4, first.join().value(), "The first request should receive the result.");
+    assertEquals(4, second.join().value(), "The duplicate should receive the same result.");
+    assertEquals(1, executions.get(), "The duplicates should be collapsed into one roll.");
+  }
+
+  @Test
+  void testForgetFailedResult() {
+    final CompletableFuture<DiceValueDto> failed = cache.execute("key", List.of(), () -> {
+      executions.incrementAndGet();
+      return CompletableFuture.failedFuture(new HandsOnException("failed"));
+    });
+    assertThrows(CompletionException.class, failed::join, "The failure should be returned.");
+
+    final DiceValueDto retried = cache.execute("key", List.of(), this.roll(2)).join();
+
+    assertEquals(2, retried.value(), "The retry after a failure should roll the dice again.");
+    assertEquals(2, executions.get(), "The failed result should not be kept.");
+  }
+
+  @Test
+  void testRejectDifferentRequest() {
+    cache.execute("key", List.of(1), this.roll(3)).join();
+
+    assertThrows(IdempotencyKeyMismatchException.class,
+        () -> cache.execute("key", List.of(2), this.roll(5)),
+        "The key used by a different request should be rejected.");
+    assertEquals(1, executions.get(), "The rejected request should not roll the dice.");
+  }
+
+  @Test
+  void testExpireAfterTtl() {
+    ReflectionTestUtils.setField(cache, "ttl", Duration.ZERO);
+
+    cache.execute("key", List.of(), this.roll(3)).join();
+    final DiceValueDto second = cache.execute("key", List.of(), this.roll(5)).join();
+
+    assertEquals(5, second.value(), "The expired result should not be replayed.");
+    assertEquals(2, executions.get(), "The dice should be rolled again after the expiry.");
+  }
+
+  @Test
+  void testBoundNumberOfKeys() {
+    ReflectionTestUtils.setField(cache, "maxEntries", 2);
+
+    cache.execute("key-1", List.of(), this.roll(1)).join();
+    cache.execute("key-2", List.of(), this.roll(2)).join();
+    cache.execute("key-3", List.of(), this.roll(3)).join();
+
+    assertEquals(2.0, meterRegistry.get(IdempotencyCache.METRIC_SIZE).gauge().value(),
+        "The number of keys should be bounded.");
+    assertEquals(4, cache.execute("key-1", List.of(), this.roll(4)).join().value(),
+        "The oldest key should be evicted first.");
+    assertEquals(3, cache.execute("key-3", List.of(), this.roll(6)).join().value(),
+        "The newest key should be kept.");
+  }
+
+  @Test
+  void testKeepKeyInFlightAtLimit() {
+    ReflectionTestUtils.setField(cache, "maxEntries", 1);
+    final CompletableFuture<DiceValueDto> pending = new CompletableFuture<>();
+    final CompletableFuture<DiceValueDto> first = cache.execute("key-1", List.of(), () -> {
+      executions.incrementAndGet();
+      return pending;
+    });
+
+    assertThrows(IdempotencyCacheFullException.class,
+        () -> cache.execute("key-2", List.of(), this.roll(2)),
+        "A new key should be refused while only the keys in flight are held.");
+    final CompletableFuture<DiceValueDto> duplicate =
+        cache.execute("key-1", List.of(), this.roll(5));
+    pending.complete(new DiceValueDto(4));
+
+    assertEquals(4, first.join().value(), "The first request should receive the result.");
+    assertEquals(4, duplicate.join().value(), "The duplicate in flight should not roll again.");
+    assertEquals(2, cache.execute("key-2", List.of(), this.roll(2)).join().value(),
+        "A new key should be accepted once the key in flight finished.");
+    assertEquals(2, executions.get(), "Only the accepted keys should roll the dice.");
+  }
+
+  @Test
+  void testPurgeExpiredKeysOnReplay() throws InterruptedException {
+    ReflectionTestUtils.setField(cache, "ttl", Duration.ofSeconds(1));
+    cache.execute("key-1", List.of(), this.roll(1)).join();
+    Thread.sleep(600);
+    cache.execute("key-2", List.of(), this.roll(2)).join();
+    Thread.sleep(600);
+
+    assertEquals(2, cache.execute("key-2", List.of(), this.roll(5)).join().value(),
+        "The live key should be replayed.");
+    assertEquals(1.0, meterRegistry.get(IdempotencyCache.METRIC_SIZE).gauge().value(),
+        "The expired key should be purged by the replay.");
+  }
+
+  private Supplier<CompletableFuture<DiceValueDto>> roll(final int value) {
+    return () -> {
+      executions.incrementAndGet();
+      return CompletableFuture.completedFuture(new DiceValueDto(value));
+    };
+  }
+
+  private double count(final String result) {
+    return meterRegistry.get(IdempotencyCache.METRIC_REQUESTS).tag("result", result)
+        .counter().count();
+  }
+
+}
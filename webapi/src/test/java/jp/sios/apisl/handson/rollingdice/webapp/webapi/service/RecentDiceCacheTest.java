@@ -0,0 +1,264 @@
+package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.event.DiceInsertedEvent;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.repository.DiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * {@code RecentDiceCacheTest} クラスは、{@link RecentDiceCache} のユニットテストを提供します。.
+ *
+ * <p>起動時の読み込み、順不同の追記、容量超過時の破棄、
+ * およびキャッシュで結果が確定しない場合のミス判定を検証します。</p>
+ *
+ * @author Toshiharu Konuma
+ */
+@SuppressWarnings("PMD.CommentSize")
+class RecentDiceCacheTest {
+
+  /**
+   * 起動時の読み込みに使用するDiceRepositoryのモック。.
+   */
+  @Mock
+  private DiceRepository diceRepository;
+
+  /**
+   * アーカイブ済みの範囲を返すDiceArchiveインスタンス。.
+   */
+  @Mock
+  private DiceArchive diceArchive;
+
+  /**
+   * メトリクスの記録先となるMeterRegistryインスタンス。.
+   */
+  private SimpleMeterRegistry meterRegistry;
+
+  /**
+   * テスト対象となるRecentDiceCacheのインスタンス。.
+   */
+  private RecentDiceCache cache;
+
+  /**
+   * RecentDiceCacheTestのコンストラクタです。
+   * このクラスのテストインスタンスを初期化します。.
+   */
+  public RecentDiceCacheTest() {
+    // Constructor for RecentDiceCacheTest
+  }
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.cache = new RecentDiceCache(diceRepository, diceArchive, meterRegistry);
+    ReflectionTestUtils.setField(cache, "capacity", 5);
+    this.cache.init();
+  }
+
+  @Test
+  void testFindWholeTable() {
+    givenRows(3, 2, 1);
+    cache.load();
+
+    final Optional<List<DiceEntity>> rows = cache.find(Optional.empty(), Optional.empty(), 11);
+
+    assertTrue(rows.isPresent(), "The whole table fits in the cache, so it should hit.");
+    assertEquals(List.of(3, 2, 1), ids(rows.get()), "The rows should be in descending order.");
+    assertEquals(1.0, meterRegistry.get(RecentDiceCache.METRIC_REQUESTS)
+        .tag("result", "hit").counter().count(), "The hit should be counted.");
+  }
+
+  @Test
+  void testFindDefaultPageOfSmallTable() {
+    givenRows(2, 1);
+    cache.load();
+
+    final Optional<List<DiceEntity>> rows = cache.find(Optional.empty(), Optional.empty(), 101);
+
+    assertEquals(List.of(2, 1), ids(rows.orElseThrow()),
+        "A table smaller than the page should be served from the cache.");
+    verify(diceRepository, times(1)).find(any(), any(), anyBoolean(), anyInt());
+  }
+
+  @Test
+  void testFindLastPage() {
+    givenRows(5, 4, 3, 2, 1);
+    cache.load();
+
+    final Optional<List<DiceEntity>> rows = cache.find(Optional.of(3), Optional.empty(), 3);
+
+    assertEquals(List.of(2, 1), ids(rows.orElseThrow()),
+        "The last page reaching the oldest row should be served from the cache.");
+  }
+
+  @Test
+  void testFindWholeTableAfterArchive() {
+    when(diceArchive.archivedUpTo()).thenReturn(10);
+    when(diceRepository.find(Optional.empty(), Optional.of(10), false, 5))
+        .thenReturn(List.of(dice(12), dice(11)));
+    cache.load();
+
+    assertEquals(List.of(12, 11),
+        ids(cache.find(Optional.empty(), Optional.of(10), 11).orElseThrow()).reversed(),
+        "The rows after the archive should be served from the cache.");
+    assertTrue(cache.find(Optional.of(11), Optional.empty(), 3).isEmpty(),
+        "The archived rows are not held, so the cache should miss.");
+  }
+
+  @Test
+  void testFindBeforeLoad() {
+    final Optional<List<DiceEntity>> rows = cache.find(Optional.empty(), Optional.empty(), 3);
+
+    assertTrue(rows.isEmpty(), "The cache should miss until it is loaded.");
+    assertEquals(1.0, meterRegistry.get(RecentDiceCache.METRIC_REQUESTS)
+        .tag("result", "miss").counter().count(), "The miss should be counted.");
+  }
+
+  @Test
+  void testFindWithLoadFailure() {
+    when(diceRepository.find(Optional.empty(), Optional.empty(), false, 5))
+        .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+    cache.load();
+
+    assertTrue(cache.find(Optional.empty(), Optional.empty(), 3).isEmpty(),
+        "The cache should keep missing when the load failed.");
+  }
+
+  @Test
+  void testAddOutOfOrderAndEvict() {
+    givenRows(14, 13, 12, 11, 10);
+    cache.load();
+
+    cache.onDiceInserted(new DiceInsertedEvent(List.of(dice(16))));
+    cache.onDiceInserted(new DiceInsertedEvent(List.of(dice(15))));
+
+    final Optional<List<DiceEntity>> newest =
+        cache.find(Optional.empty(), Optional.empty(), 3);
+    assertEquals(List.of(16, 15, 14), ids(newest.orElseThrow()),
+        "The late arrival should be placed in id order.");
+
+    final Optional<List<DiceEntity>> older = cache.find(Optional.of(14), Optional.empty(), 3);
+    assertTrue(older.isEmpty(), "The evicted rows are needed, so the cache should miss.");
+
+    final Optional<List<DiceEntity>> exact = cache.find(Optional.of(15), Optional.empty(), 3);
+    assertEquals(List.of(14, 13, 12), ids(exact.orElseThrow()),
+        "A full page inside the cached range should hit.");
+  }
+
+  @Test
+  void testReloadOnEventsOutOfOrder() {
+    ReflectionTestUtils.setField(cache, "capacity", 10);
+    cache.init();
+    givenRows(3, 2, 1);
+    cache.load();
+
+    // The row 4 is committed, but its event is published after the one of the row 5.
+    givenRows(5, 4, 3, 2, 1);
+    cache.onDiceInserted(new DiceInsertedEvent(List.of(dice(5))));
+
+    assertEquals(List.of(5, 4), ids(cache.find(Optional.empty(), Optional.empty(), 2)
+        .orElseThrow()), "The cache should fill the gap from the database.");
+    verify(diceRepository, times(2)).find(any(), any(), anyBoolean(), anyInt());
+
+    cache.onDiceInserted(new DiceInsertedEvent(List.of(dice(4))));
+    assertEquals(List.of(5, 4, 3), ids(cache.find(Optional.empty(), Optional.empty(), 3)
+        .orElseThrow()), "The late event should not make the cache reload again.");
+    verify(diceRepository, times(2)).find(any(), any(), anyBoolean(), anyInt());
+  }
+
+  @Test
+  void testMissWhileStale() {
+    ReflectionTestUtils.setField(cache, "capacity", 10);
+    cache.init();
+    givenRows(3, 2, 1);
+    cache.load();
+
+    when(diceRepository.find(any(), any(), anyBoolean(), anyInt()))
+        .thenThrow(new DataAccessResourceFailureException("Connection refused"))
+        .thenReturn(List.of(dice(6), dice(5), dice(4), dice(3), dice(2), dice(1)));
+    cache.onDiceInserted(new DiceInsertedEvent(List.of(dice(5))));
+
+    assertTrue(cache.find(Optional.empty(), Optional.empty(), 2).isEmpty(),
+        "The row 4 may be missing, so the cache should miss until it reloads.");
+
+    cache.onDiceInserted(new DiceInsertedEvent(List.of(dice(6))));
+
+    assertEquals(List.of(6, 5, 4), ids(cache.find(Optional.empty(), Optional.empty(), 3)
+        .orElseThrow()), "The next event should retry the reload.");
+  }
+
+  @Test
+  void testFindAfter() {
+    givenRows(14, 13, 12, 11, 10);
+    cache.load();
+
+    final Optional<List<DiceEntity>> newer = cache.find(Optional.empty(), Optional.of(11), 2);
+    assertEquals(List.of(12, 13), ids(newer.orElseThrow()),
+        "The rows after the cursor should be in ascending order.");
+
+    assertTrue(cache.find(Optional.empty(), Optional.of(8), 2).isEmpty(),
+        "The rows next to an uncached cursor are unknown, so the cache should miss.");
+  }
+
+  @Test
+  void testAddConcurrently() throws Exception {
+    ReflectionTestUtils.setField(cache, "capacity", 100);
+    cache.init();
+    givenRows();
+    cache.load();
+
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      final List<Future<?>> futures = IntStream.rangeClosed(1, 150)
+          .mapToObj(id -> executor.submit(
+              () -> cache.onDiceInserted(new DiceInsertedEvent(List.of(dice(id))))))
+          .toList();
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    }
+
+    final List<DiceEntity> rows =
+        cache.find(Optional.empty(), Optional.empty(), 100).orElseThrow();
+    assertEquals(IntStream.iterate(150, id -> id - 1).limit(100).boxed().toList(), ids(rows),
+        "The newest rows should be kept in order regardless of the arrival order.");
+    assertTrue(cache.find(Optional.of(51), Optional.empty(), 2).isEmpty(),
+        "The evicted rows should not be served.");
+  }
+
+  private void givenRows(final int... ids) {
+    final List<DiceEntity> rows = IntStream.of(ids).mapToObj(RecentDiceCacheTest::dice).toList();
+    when(diceRepository.find(any(), any(), anyBoolean(), anyInt()))
+        .thenReturn(rows);
+  }
+
+  private static DiceEntity dice(final int id) {
+    return new DiceEntity(id, id % 6 + 1, LocalDateTime.now());
+  }
+
+  private static List<Integer> ids(final List<DiceEntity> rows) {
+    return rows.stream().map(DiceEntity::id).toList();
+  }
+
+}
@@ -2,25 +2,53 @@ package jp.sios.apisl.handson.rollingdice.webapp.webapi.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.config.SemaphoreBulkhead;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.config.ThreadPoolBulkhead;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceBulkRequestDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceBulkResultDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceChangesDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DicePageDto;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceStatsDto;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.dto.DiceValueDto;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.entity.DiceEntity;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.BulkheadFullException;
 import jp.sios.apisl.handson.rollingdice.webapp.webapi.exception.HandsOnException;
+import jp.sios.apisl.handson.rollingdice.webapp.webapi.repository.DiceRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
 
 /**
  * {@code WebApiServiceImplTest} クラスは、{@link WebApiServiceImpl} のユニットテストを提供します。.
@@ -32,7 +60,7 @@ import org.springframework.jdbc.core.RowMapper;
  *   <li>listDiceメソッドがDBから正しくデータを取得できるかを検証します。</li>
  * </ul>
  *
- * <p>Mockitoを利用して依存コンポーネント（JdbcTemplate）のモック化を行い、テストの独立性を保っています。
+ * <p>Mockitoを利用して依存コンポーネント（DiceRepositoryなど）のモック化を行い、テストの独立性を保っています。
  * </p>
  *
  * @author Toshiharu Konuma
@@ -41,16 +69,57 @@ import org.springframework.jdbc.core.RowMapper;
 class WebApiServiceImplTest {
 
   /**
-   * データベース操作を行うためのJdbcTemplateインスタンス。
-   * SQLクエリの実行やデータ取得などに使用します。.
+   * 出目履歴の保存先となるDiceRepositoryインスタンス。
+   * 履歴の取得条件を検証するために使用します。.
    */
   @Mock
-  private JdbcTemplate jdbcTemplate;
+  private DiceRepository diceRepository;
+
+  /**
+   * サイコロの出目を登録するDiceGroupCommitWriterインスタンス。
+   * 登録処理の呼び出しを検証するために使用します。.
+   */
+  @Mock
+  private DiceGroupCommitWriter groupCommitWriter;
+
+  /**
+   * 直近の出目履歴を保持するRecentDiceCacheインスタンス。
+   * 既定ではキャッシュミスを返し、データベースから取得する経路を検証します。.
+   */
+  @Mock
+  private RecentDiceCache recentDiceCache;
+
+  /**
+   * サイコロの出目の統計情報を保持するDiceStatisticsインスタンス。.
+   */
+  @Mock
+  private DiceStatistics diceStatistics;
+
+  /**
+   * アーカイブ済みの出目履歴を保持するDiceArchiveインスタンス。
+   * 既定ではアーカイブが空の状態を返します。.
+   */
+  @Mock
+  private DiceArchive diceArchive;
+
+  /**
+   * 障害を注入するリクエストを専用のスレッドで実行するバルクヘッド。.
+   */
+  private ThreadPoolBulkhead faultBulkhead;
+
+  /**
+   * 障害を注入せずにサイコロを振るリクエストのバルクヘッド。.
+   */
+  private SemaphoreBulkhead rollBulkhead;
+
+  /**
+   * メトリクスの記録先となるMeterRegistryインスタンス。.
+   */
+  private SimpleMeterRegistry meterRegistry;
 
   /**
    * テスト対象となるWebApiServiceImplのインスタンス。.
    */
-  @InjectMocks
   private WebApiServiceImpl webApiService;
 
   /**
@@ -64,6 +133,17 @@ class WebApiServiceImplTest {
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.faultBulkhead = new ThreadPoolBulkhead("fault", 2, 2, meterRegistry);
+    this.rollBulkhead = new SemaphoreBulkhead("roll", 2, 0, Duration.ZERO, meterRegistry);
+    this.webApiService = new WebApiServiceImpl(diceRepository, groupCommitWriter,
+        recentDiceCache, diceStatistics, diceArchive, faultBulkhead, rollBulkhead,
+        new SemaphoreBulkhead("read", 2, 0, Duration.ZERO, meterRegistry), meterRegistry);
+  }
+
+  @AfterEach
+  void tearDown() {
+    this.faultBulkhead.close();
   }
 
   @Test
@@ -73,7 +153,8 @@ class WebApiServiceImplTest {
     final Optional<Boolean> optError = Optional.empty();
     final DiceValueDto fixedDiceRequest = null;
 
-    when(jdbcTemplate.update(any(String.class), any(Integer.class))).thenReturn(1);
+    when(groupCommitWriter.insert(anyInt()))
+        .thenReturn(new DiceEntity(1, 3, LocalDateTime.now()));
 
     final DiceValueDto response = webApiService.rollDice(
         optSleep, optLoop, optError, fixedDiceRequest);
@@ -88,7 +169,8 @@ class WebApiServiceImplTest {
     final Optional<Boolean> optError = Optional.empty();
     final DiceValueDto fixedDiceRequest = null;
 
-    when(jdbcTemplate.update(any(String.class), any(Integer.class))).thenReturn(1);
+    when(groupCommitWriter.insert(anyInt()))
+        .thenReturn(new DiceEntity(1, 3, LocalDateTime.now()));
 
     final DiceValueDto response = webApiService.rollDice(
         optSleep, optLoop, optError, fixedDiceRequest);
@@ -96,6 +178,84 @@ class WebApiServiceImplTest {
     assertThat(response.value()).isBetween(1, 6);
   }
 
+  @Test
+  void testRollDiceAsyncWithSleep() {
+    final Thread callerThread = Thread.currentThread();
+    when(groupCommitWriter.insert(anyInt())).thenAnswer(invocation -> {
+      assertNotSame(callerThread, Thread.currentThread(),
+          "The dice should be inserted after the timer fires, not on the caller thread.");
+      assertTrue(Thread.currentThread().getName().startsWith("bulkhead-fault-"),
+          "The fault-injected roll should run on the thread of the fault bulkhead.");
+      return new DiceEntity(1, invocation.getArgument(0), LocalDateTime.now());
+    });
+
+    final long startNanos = System.nanoTime();
+    final CompletableFuture<DiceValueDto> future = webApiService.rollDiceAsync(
+        Optional.of(1), Optional.empty(), Optional.empty(), new DiceValueDto(2));
+
+    assertFalse(future.isDone(), "The caller should not wait for the sleep.");
+    assertEquals(2, future.join().value(), "The fixed value should be returned.");
+    assertTrue(System.nanoTime() - startNanos >= TimeUnit.SECONDS.toNanos(1),
+        "The response should be completed after the sleep.");
+    verify(groupCommitWriter, times(1)).insert(2);
+    assertTrue(meterRegistry.get(WebApiServiceImpl.METRIC_FAULT_DURATION)
+        .tags("type", "sleep", WebApiServiceImpl.TAG_FAULT_MODE, "sleep")
+        .timer().totalTime(TimeUnit.SECONDS) >= 1.0,
+        "The delay on the timer should be recorded as the injected sleep.");
+    assertEquals(1.0, meterRegistry.get(WebApiServiceImpl.METRIC_ROLLS)
+        .tags("value", "2", WebApiServiceImpl.TAG_FAULT_MODE, "sleep").counter().count(),
+        "The roll should be counted with the fault mode of the request.");
+  }
+
+  @Test
+  void testRollDiceAsyncWithoutSleep() {
+    final Thread callerThread = Thread.currentThread();
+    when(groupCommitWriter.insert(anyInt())).thenAnswer(invocation -> {
+      assertSame(callerThread, Thread.currentThread(),
+          "The plain roll should be inserted on the caller thread.");
+      assertEquals(1, rollBulkhead.getActive(), "The plain roll should hold the roll bulkhead.");
+      return new DiceEntity(1, 3, LocalDateTime.now());
+    });
+
+    final CompletableFuture<DiceValueDto> future = webApiService.rollDiceAsync(
+        Optional.empty(), Optional.empty(), Optional.empty(), null);
+
+    assertTrue(future.isDone(), "The roll without a sleep should complete on the caller.");
+    assertEquals(0, faultBulkhead.getAccepted(),
+        "The plain roll should not use the fault bulkhead.");
+    assertEquals(0, rollBulkhead.getActive(), "The roll bulkhead should be released.");
+  }
+
+  @Test
+  void testRollDiceAsyncRejectedWhenFaultBulkheadIsFull() {
+    when(groupCommitWriter.insert(anyInt()))
+        .thenReturn(new DiceEntity(1, 3, LocalDateTime.now()));
+    final List<CompletableFuture<DiceValueDto>> sleeping = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      sleeping.add(webApiService.rollDiceAsync(
+          Optional.of(1), Optional.empty(), Optional.empty(), new DiceValueDto(1)));
+    }
+
+    assertThrows(BulkheadFullException.class, () -> webApiService.rollDiceAsync(
+        Optional.of(1), Optional.empty(), Optional.empty(), new DiceValueDto(1)),
+        "The fault-injected roll over the capacity should be rejected.");
+    assertEquals(3, webApiService.rollDiceAsync(
+        Optional.empty(), Optional.empty(), Optional.empty(), null).join().value(),
+        "The plain roll should not be starved by the fault-injected rolls.");
+    sleeping.forEach(CompletableFuture::join);
+  }
+
+  @Test
+  void testRollDiceAsyncWithError() {
+    final CompletableFuture<DiceValueDto> future = webApiService.rollDiceAsync(
+        Optional.of(1), Optional.empty(), Optional.of(true), null);
+
+    final CompletionException exception = assertThrows(CompletionException.class, future::join,
+        "The intentional error should complete the future exceptionally.");
+    assertInstanceOf(HandsOnException.class, exception.getCause(),
+        "The cause should be the intentional HandsOnException.");
+  }
+
   @Test
   void testRollDiceWithInvalidSleep() {
     final Optional<Integer> optSleep = Optional.of(-3);
@@ -103,7 +263,8 @@ class WebApiServiceImplTest {
     final Optional<Boolean> optError = Optional.empty();
     final DiceValueDto fixedDiceRequest = null;
 
-    when(jdbcTemplate.update(any(String.class), any(Integer.class))).thenReturn(1);
+    when(groupCommitWriter.insert(anyInt()))
+        .thenReturn(new DiceEntity(1, 3, LocalDateTime.now()));
 
     final DiceValueDto response = webApiService.rollDice(
         optSleep, optLoop, optError, fixedDiceRequest);
@@ -118,12 +279,19 @@ class WebApiServiceImplTest {
     final Optional<Boolean> optError = Optional.empty();
     final DiceValueDto fixedDiceRequest = null;
 
-    when(jdbcTemplate.update(any(String.class), any(Integer.class))).thenReturn(1);
+    when(groupCommitWriter.insert(anyInt()))
+        .thenReturn(new DiceEntity(1, 3, LocalDateTime.now()));
 
     final DiceValueDto response = webApiService.rollDice(
         optSleep, optLoop, optError, fixedDiceRequest);
 
     assertThat(response.value()).isBetween(1, 6);
+    assertEquals(1L, meterRegistry.get(WebApiServiceImpl.METRIC_FAULT_DURATION)
+        .tags("type", "loop", WebApiServiceImpl.TAG_FAULT_MODE, "loop").timer().count(),
+        "The injected loop should be recorded.");
+    assertTrue(meterRegistry.get(WebApiServiceImpl.METRIC_LOOP_RATE)
+        .tag(WebApiServiceImpl.TAG_FAULT_MODE, "loop").summary().max() > 0.0,
+        "The iterations per second of the loop should be recorded.");
   }
 
   @Test
@@ -133,7 +301,8 @@ class WebApiServiceImplTest {
     final Optional<Boolean> optError = Optional.empty();
     final DiceValueDto fixedDiceRequest = null;
 
-    when(jdbcTemplate.update(any(String.class), any(Integer.class))).thenReturn(1);
+    when(groupCommitWriter.insert(anyInt()))
+        .thenReturn(new DiceEntity(1, 3, LocalDateTime.now()));
 
     final DiceValueDto response = webApiService.rollDice(
         optSleep, optLoop, optError, fixedDiceRequest);
@@ -161,28 +330,296 @@ class WebApiServiceImplTest {
     final Optional<Boolean> optError = Optional.empty();
     final DiceValueDto fixedDiceRequest = new DiceValueDto(4);
 
-    when(jdbcTemplate.update(any(String.class), any(Integer.class))).thenReturn(1);
+    when(groupCommitWriter.insert(anyInt()))
+        .thenReturn(new DiceEntity(1, 3, LocalDateTime.now()));
 
     final DiceValueDto response = webApiService.rollDice(
         optSleep, optLoop, optError, fixedDiceRequest);
 
     assertThat(response.value()).isEqualTo(4);
+    verify(groupCommitWriter, times(1)).insert(4);
+    assertEquals(1.0, meterRegistry.get(WebApiServiceImpl.METRIC_ROLLS)
+        .tags("value", "4", WebApiServiceImpl.TAG_FAULT_MODE, WebApiServiceImpl.FAULT_MODE_NONE)
+        .counter().count(), "The roll should be counted by the value.");
+    assertEquals(1L, meterRegistry.get(WebApiServiceImpl.METRIC_INSERT)
+        .tag(WebApiServiceImpl.TAG_FAULT_MODE, WebApiServiceImpl.FAULT_MODE_NONE)
+        .timer().count(), "The insert should be timed.");
+  }
+
+  @Test
+  void testRollDiceBulk() {
+    final DiceBulkRequestDto bulkRequest = new DiceBulkRequestDto(3, null);
+
+    final LocalDateTime now = LocalDateTime.now();
+    when(groupCommitWriter.insertAll(anyList())).thenReturn(List.of(
+        new DiceEntity(11, 1, now), new DiceEntity(12, 2, now), new DiceEntity(13, 3, now)));
+
+    final DiceBulkResultDto response = webApiService.rollDiceBulk(bulkRequest);
+
+    assertEquals(11, response.firstId(), "The first id should be the first generated key.");
+    assertEquals(13, response.lastId(), "The last id should be the last generated key.");
+    assertThat(response.values()).hasSize(3).allMatch(value -> value >= 1 && value <= 6);
+  }
+
+  @Test
+  void testRollDiceBulkWithFixedValues() {
+    final DiceBulkRequestDto bulkRequest = new DiceBulkRequestDto(null, List.of(6, 5));
+
+    final LocalDateTime now = LocalDateTime.now();
+    when(groupCommitWriter.insertAll(List.of(6, 5))).thenReturn(List.of(
+        new DiceEntity(21, 6, now), new DiceEntity(22, 5, now)));
+
+    final DiceBulkResultDto response = webApiService.rollDiceBulk(bulkRequest);
+
+    assertEquals(List.of(6, 5), response.values(), "The fixed values should be used as is.");
+    assertEquals(22, response.lastId(), "The last id should be the last generated key.");
+    verify(groupCommitWriter, times(1)).insertAll(List.of(6, 5));
   }
 
   @Test
   void testListDice() {
-    final String expectedSql = "SELECT id, value, updated_at FROM dice ORDER BY id DESC;";
     final DiceEntity dice1 = new DiceEntity(1, 5, LocalDateTime.now());
     final List<DiceEntity> expectedRecord = Arrays.asList(dice1);
 
-    when(jdbcTemplate.query(eq(expectedSql), any(RowMapper.class))).thenReturn(expectedRecord);
+    when(diceRepository.find(Optional.empty(), Optional.empty(), false, 101))
+        .thenReturn(expectedRecord);
 
-    final List<DiceEntity> diceList = webApiService.listDice();
+    final DicePageDto page = webApiService.listDice(
+        Optional.empty(), Optional.empty(), Optional.empty());
 
-    assertEquals(1, diceList.size(),
+    assertEquals(1, page.dices().size(),
         "The dice list should contain exactly one element.");
-    assertEquals(5, diceList.get(0).value(),
+    assertEquals(5, page.dices().get(0).value(),
         "The dice value of the first element should be 5.");
+    assertNull(page.nextCursor(), "There should be no next cursor on the last page.");
+    assertNull(page.prevCursor(), "There should be no prev cursor on the first page.");
+    assertEquals(1.0, meterRegistry.get(WebApiServiceImpl.METRIC_LIST_ROWS).gauge().value(),
+        "The number of the returned rows should be recorded.");
+    assertEquals(1L, meterRegistry.get(WebApiServiceImpl.METRIC_LIST_QUERY).timer().count(),
+        "The query to the repository should be timed.");
+  }
+
+  @Test
+  void testListDiceFromCache() {
+    final List<DiceEntity> cachedRecord = Arrays.asList(
+        new DiceEntity(9, 1, LocalDateTime.now()),
+        new DiceEntity(8, 2, LocalDateTime.now()),
+        new DiceEntity(7, 3, LocalDateTime.now()));
+
+    when(recentDiceCache.find(Optional.empty(), Optional.empty(), 3))
+        .thenReturn(Optional.of(cachedRecord));
+
+    final DicePageDto page = webApiService.listDice(
+        Optional.of(2), Optional.empty(), Optional.empty());
+
+    assertEquals(2, page.dices().size(), "The page should be cut to the limit.");
+    assertEquals(8, page.nextCursor(), "The next cursor should be the oldest id of the page.");
+    verifyNoInteractions(diceRepository);
+    assertNull(meterRegistry.find(WebApiServiceImpl.METRIC_LIST_QUERY).timer(),
+        "No query should be timed when the cache answers.");
+  }
+
+  @Test
+  void testListDiceWithLimitAndMoreRows() {
+    final List<DiceEntity> expectedRecord = Arrays.asList(
+        new DiceEntity(9, 1, LocalDateTime.now()),
+        new DiceEntity(8, 2, LocalDateTime.now()),
+        new DiceEntity(7, 3, LocalDateTime.now()));
+
+    when(diceRepository.find(Optional.empty(), Optional.empty(), false, 3))
+        .thenReturn(expectedRecord);
+
+    final DicePageDto page = webApiService.listDice(
+        Optional.of(2), Optional.empty(), Optional.empty());
+
+    assertEquals(2, page.dices().size(),
+        "The extra row fetched for the look-ahead should be dropped.");
+    assertEquals(8, page.nextCursor(),
+        "The next cursor should be the id of the oldest row on the page.");
+    assertNull(page.prevCursor(), "There should be no prev cursor on the first page.");
+  }
+
+  @Test
+  void testListDiceWithBefore() {
+    final List<DiceEntity> expectedRecord = Arrays.asList(
+        new DiceEntity(4, 1, LocalDateTime.now()),
+        new DiceEntity(3, 2, LocalDateTime.now()));
+
+    when(diceRepository.find(Optional.of(5), Optional.empty(), false, 3))
+        .thenReturn(expectedRecord);
+
+    final DicePageDto page = webApiService.listDice(
+        Optional.of(2), Optional.of(5), Optional.empty());
+
+    assertEquals(2, page.dices().size(), "The page should contain two rows.");
+    assertNull(page.nextCursor(), "There should be no next cursor on the last page.");
+    assertEquals(4, page.prevCursor(),
+        "The prev cursor should be the id of the newest row on the page.");
+  }
+
+  @Test
+  void testListDiceWithAfter() {
+    final List<DiceEntity> expectedRecord = Arrays.asList(
+        new DiceEntity(6, 1, LocalDateTime.now()),
+        new DiceEntity(7, 2, LocalDateTime.now()),
+        new DiceEntity(8, 3, LocalDateTime.now()));
+
+    when(diceRepository.find(Optional.empty(), Optional.of(5), true, 3))
+        .thenReturn(expectedRecord);
+
+    final DicePageDto page = webApiService.listDice(
+        Optional.of(2), Optional.empty(), Optional.of(5));
+
+    assertEquals(7, page.dices().get(0).id(),
+        "The page should be returned in descending order of id.");
+    assertEquals(6, page.nextCursor(),
+        "The next cursor should be the id of the oldest row on the page.");
+    assertEquals(7, page.prevCursor(),
+        "The prev cursor should be set because newer rows remain.");
+  }
+
+  @Test
+  void testListDiceMergedWithArchive() {
+    when(diceArchive.archivedUpTo()).thenReturn(100);
+    when(diceRepository.find(Optional.empty(), Optional.of(100), false, 4))
+        .thenReturn(Arrays.asList(
+            new DiceEntity(102, 1, LocalDateTime.now()),
+            new DiceEntity(101, 2, LocalDateTime.now())));
+    when(diceArchive.find(Long.MIN_VALUE, 101L, 2, false))
+        .thenReturn(Arrays.asList(
+            new DiceEntity(100, 3, LocalDateTime.now()),
+            new DiceEntity(99, 4, LocalDateTime.now())));
+
+    final DicePageDto page = webApiService.listDice(
+        Optional.of(3), Optional.empty(), Optional.empty());
+
+    assertEquals(List.of(102, 101, 100), page.dices().stream().map(DiceEntity::id).toList(),
+        "The archived rows should follow the rows in the table.");
+    assertEquals(100, page.nextCursor(),
+        "The next cursor should be the id of the oldest row on the page.");
+  }
+
+  @Test
+  void testListDiceWithBeforeInArchive() {
+    when(diceArchive.archivedUpTo()).thenReturn(100);
+    when(diceArchive.find(Long.MIN_VALUE, 51L, 3, false))
+        .thenReturn(Arrays.asList(
+            new DiceEntity(50, 3, LocalDateTime.now()),
+            new DiceEntity(49, 4, LocalDateTime.now())));
+
+    final DicePageDto page = webApiService.listDice(
+        Optional.of(2), Optional.of(51), Optional.empty());
+
+    assertEquals(2, page.dices().size(), "The page should be read from the archive.");
+    verifyNoInteractions(diceRepository);
+  }
+
+  @Test
+  void testListDiceWithInvalidLimit() {
+
+    when(diceRepository.find(Optional.empty(), Optional.empty(), false, 101))
+        .thenReturn(Collections.emptyList());
+
+    final DicePageDto page = webApiService.listDice(
+        Optional.of(-1), Optional.empty(), Optional.empty());
+
+    assertTrue(page.dices().isEmpty(), "The dice list should be empty.");
+    assertNull(page.nextCursor(), "There should be no next cursor for an empty page.");
+  }
+
+  @Test
+  void testListDiceChanges() {
+    final List<DiceEntity> expectedRecord = Arrays.asList(
+        new DiceEntity(6, 1, LocalDateTime.now()),
+        new DiceEntity(7, 2, LocalDateTime.now()),
+        new DiceEntity(8, 3, LocalDateTime.now()));
+
+    when(diceRepository.find(Optional.empty(), Optional.of(5), true, 3))
+        .thenReturn(expectedRecord);
+
+    final DiceChangesDto changes = webApiService.listDiceChanges(5, Optional.of(2));
+
+    assertEquals(List.of(6, 7), changes.dices().stream().map(DiceEntity::id).toList(),
+        "The changes should be returned in ascending order of id.");
+    assertEquals(7, changes.nextCursor(),
+        "The next cursor should be the id of the newest row in the changes.");
+  }
+
+  @Test
+  void testListDiceChangesWithoutMoreRows() {
+    final List<DiceEntity> expectedRecord = List.of(new DiceEntity(6, 1, LocalDateTime.now()));
+
+    when(diceRepository.find(Optional.empty(), Optional.of(5), true, 3))
+        .thenReturn(expectedRecord);
+
+    final DiceChangesDto changes = webApiService.listDiceChanges(5, Optional.of(2));
+
+    assertEquals(1, changes.dices().size(), "Only the rows after the given id should be returned.");
+    assertNull(changes.nextCursor(), "There should be no next cursor on the last changes.");
+  }
+
+  @Test
+  void testExportDice() {
+    givenExportedRows(0,
+        new DiceEntity(2, 3, LocalDateTime.now()), new DiceEntity(1, 6, LocalDateTime.now()));
+
+    final List<DiceEntity> exported = new ArrayList<>();
+    final long count = webApiService.exportDice(exported::add);
+
+    assertEquals(2L, count, "The exported count should match the streamed rows.");
+    assertEquals(2, exported.get(0).id(), "The rows should be passed in the streamed order.");
+    assertEquals(6, exported.get(1).value(), "The value of the second row should be 6.");
+  }
+
+  @Test
+  void testExportDiceWithArchive() {
+    when(diceArchive.archivedUpTo()).thenReturn(10);
+    when(diceArchive.export(eq(10L), any())).thenReturn(10L);
+    givenExportedRows(10,
+        new DiceEntity(12, 3, LocalDateTime.now()), new DiceEntity(11, 6, LocalDateTime.now()));
+
+    final long count = webApiService.exportDice(dice -> { });
+
+    assertEquals(12L, count, "The archived rows should be exported after the table.");
+  }
+
+  @Test
+  void testGetDiceHistoryVersionFromMemory() {
+    when(diceStatistics.version()).thenReturn(Optional.of("12-12"));
+
+    assertEquals(Optional.of("12-12"), webApiService.getDiceHistoryVersion(),
+        "The version should be returned from the incremental counters.");
+    verifyNoInteractions(diceRepository);
+  }
+
+  @Test
+  void testGetDiceHistoryVersionFromRepository() {
+    ReflectionTestUtils.setField(webApiService, "versionInMemory", false);
+    when(diceRepository.version()).thenReturn("12-10");
+
+    assertEquals(Optional.of("12-10"), webApiService.getDiceHistoryVersion(),
+        "The version should be queried from the repository.");
+    verifyNoInteractions(diceStatistics);
+  }
+
+  @Test
+  void testGetDiceStats() {
+    final DiceStatsDto stats = new DiceStatsDto(
+        2L, Map.of(1, 1L, 2, 0L, 3, 1L, 4, 0L, 5, 0L, 6, 0L), 2.0, LocalDateTime.now());
+
+    when(diceStatistics.snapshot()).thenReturn(stats);
+
+    assertEquals(stats, webApiService.getDiceStats(),
+        "The statistics should be returned from the incremental counters.");
+    verifyNoInteractions(diceRepository);
+  }
+
+  private void givenExportedRows(final int afterId, final DiceEntity... rows) {
+    when(diceRepository.exportDescending(eq(afterId), any())).thenAnswer(invocation -> {
+      final Consumer<DiceEntity> consumer = invocation.getArgument(1);
+      Arrays.stream(rows).forEach(consumer);
+      return (long) rows.length;
+    });
   }
 
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package jp.sios.apisl.handson.rollingdice.webapp.webui;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 /**
  * サイコロWebアプリケーションの起動クラスです。.
@@ -14,6 +15,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 @SuppressWarnings({"PMD.UseUtilityClass"})
 public class Application {
 
+  /**
+   * 起動時に記録するステップ数の上限です。.
+   *
+   * <p>記録した起動の経過は、Actuatorの{@code /actuator/startup}で参照できます。</p>
+   */
+  private static final int STARTUP_STEP_CAPACITY = 2048;
+
   // {{{ public static void main(String[] args)
   /**
    * アプリケーションのエントリーポイントとなるメインメソッドです。.
@@ -21,7 +29,9 @@ public class Application {
    * @param args コマンドライン引数
    */
   public static void main(final String[] args) {
-    SpringApplication.run(Application.class, args);
+    final SpringApplication application = new SpringApplication(Application.class);
+    application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEP_CAPACITY));
+    application.run(args);
   }
   // }}}
 
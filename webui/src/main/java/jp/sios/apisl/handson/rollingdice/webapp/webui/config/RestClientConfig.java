@@ -1,7 +1,9 @@
 package jp.sios.apisl.handson.rollingdice.webapp.webui.config;
 
+import java.util.List;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
 import org.springframework.web.client.RestClient;
 
 /**
@@ -10,11 +12,20 @@ import org.springframework.web.client.RestClient;
  * <p>このクラスはSpringのDIコンテナにRestClientのBeanを登録します。
  * RestClientは外部APIとの通信など、HTTPリクエストを行う際に利用されます。
  * </p>
+ *
+ * <p>Web APIのレスポンスは、JSONより小さく解析の速いCBORを優先して要求します。
+ * CBORに対応していないサーバーからは、これまでどおりJSONで受け取ります。</p>
  */
 @Configuration
 @SuppressWarnings("PMD.AtLeastOneConstructor")
 public class RestClientConfig {
 
+  /**
+   * Web APIに要求するレスポンスの形式です（先頭ほど優先されます）。.
+   */
+  /* default */ static final List<MediaType> ACCEPT =
+      List.of(MediaType.APPLICATION_CBOR, MediaType.APPLICATION_JSON);
+
   // {{{ public RestClient restClient(RestClient.Builder restClientBuilder)
   /**
    * RestClientのインスタンスを生成して返します。.
@@ -24,6 +35,7 @@ public class RestClientConfig {
    */
   @Bean
   public RestClient restClient(final RestClient.Builder restClientBuilder) {
+    restClientBuilder.defaultHeaders(headers -> headers.setAccept(ACCEPT));
     return restClientBuilder.build();
   }
   // }}}
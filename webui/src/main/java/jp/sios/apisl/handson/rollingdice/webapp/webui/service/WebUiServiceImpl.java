@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 import jp.sios.apisl.handson.rollingdice.webapp.webui.dto.DiceHistoryDto;
 import jp.sios.apisl.handson.rollingdice.webapp.webui.dto.DiceValueDto;
 import jp.sios.apisl.handson.rollingdice.webapp.webui.util.UtilEnvInfo;
@@ -13,7 +14,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClient.RequestBodySpec;
@@ -28,6 +31,10 @@ import org.springframework.web.client.RestClientException;
  *   <li>リクエストしているURLの取得</li>
  * </ul>
  *
+ * <p>List Diceの結果はETagとともに保持し、次回の呼び出しでは保持している最新のIDより後の差分だけを
+ * 条件付きリクエストで取得して、保持している結果に併合します。
+ * 履歴が更新されていない場合は、本文を受け取らずに保持している結果を返却します。</p>
+ *
  * @author Toshiharu Konuma
  */
 @Service
@@ -40,17 +47,40 @@ public class WebUiServiceImpl implements WebUiService {
    */
   private static final Logger LOGGER = LoggerFactory.getLogger(WebUiServiceImpl.class);
 
+  /**
+   * 差分の続きが存在することを示すレスポンスヘッダー名です。.
+   */
+  private static final String HEADER_NEXT_CURSOR = "X-Next-Cursor";
+
+  /**
+   * 画面に表示する出目履歴の既定の件数です。.
+   */
+  private static final int DEFAULT_HISTORY_SIZE = 100;
+
   /**
    * REST APIとの通信を行うためのRestClientインスタンス。.
    */
   private final RestClient restClient;
 
+  /**
+   * 直近に取得したList Diceの結果と、そのETagを保持するフィールドです。.
+   */
+  private final AtomicReference<CachedHistory> cachedHistory = new AtomicReference<>();
+
   /**
    * Web APIのホスト名またはアドレスを保持するフィールドです。.
    */
   @Value("${handson.webapp.webapi.host}")
   private String webapiHost;
 
+  /**
+   * 保持して画面に表示する出目履歴の件数です。.
+   *
+   * <p>設定キー: {@code handson.webapp.webapi.history-size}</p>
+   */
+  @Value("${handson.webapp.webapi.history-size:" + DEFAULT_HISTORY_SIZE + "}")
+  private int historySize = DEFAULT_HISTORY_SIZE;
+
   // {{{ public WebUiServiceImpl(RestClient restClient)
   /**
    * RestClientを使用してWebUiServiceImplのインスタンスを生成します。.
@@ -122,6 +152,9 @@ public class WebUiServiceImpl implements WebUiService {
    *
    * <p>このメソッドは、サイコロWeb APIのList Diceをコールし、
    * 取得したレスポンスボディを{@link DiceHistoryDto}のリストで返却します。
+   * 前回の結果を保持している場合は、その最新のIDより後の差分だけをIf-None-Matchを付けて取得し、
+   * 保持している結果に併合して返却します。
+   * 差分が保持する件数を超える場合は、一覧を取得し直します。
    * </p>
    *
    * @return Dice APIから取得したリスト情報のJSONArray
@@ -130,9 +163,19 @@ public class WebUiServiceImpl implements WebUiService {
   public List<DiceHistoryDto> callListDiceApi() {
     UtilEnvInfo.logStartClassMethod();
 
-    final String path = "/api/v1/dices";
-    List<DiceHistoryDto> list = this.callApi(
-        path, HttpMethod.GET, null, new ParameterizedTypeReference<>() {});
+    final CachedHistory cached = this.cachedHistory.get();
+    List<DiceHistoryDto> list = null;
+    try {
+      if (cached != null) {
+        list = this.fetchChanges(cached);
+      }
+      if (list == null) {
+        list = this.fetchHistory();
+      }
+    } catch (RestClientException ex) {
+      LOGGER.error(
+          "!!! Could not get a response from the API, because an exception was happened !!!", ex);
+    }
 
     if (list == null) {
       list = Collections.emptyList();
@@ -142,6 +185,82 @@ public class WebUiServiceImpl implements WebUiService {
   }
   // }}}
 
+  // {{{ private List<DiceHistoryDto> fetchHistory()
+  /**
+   * List Diceを呼び出して出目履歴の一覧を取得し、ETagとともに保持します。.
+   *
+   * @return 取得した出目履歴のリスト
+   */
+  private List<DiceHistoryDto> fetchHistory() {
+    final String url = "http://" + this.webapiHost + "/api/v1/dices";
+    LOGGER.info("Calling API is: URL='{}', Method='{}'", url, HttpMethod.GET);
+
+    final ResponseEntity<List<DiceHistoryDto>> response = this.restClient.get()
+        .uri(url)
+        .retrieve()
+        .toEntity(new ParameterizedTypeReference<>() {});
+    final List<DiceHistoryDto> list = response.getBody();
+    this.remember(response.getHeaders().getETag(), list);
+    LOGGER.info("The value recieved from the list dice api is: '{}'", list);
+    return list;
+  }
+  // }}}
+
+  // {{{ private List<DiceHistoryDto> fetchChanges(CachedHistory cached)
+  /**
+   * 保持している最新のIDより後の差分を取得し、保持している出目履歴に併合します。.
+   *
+   * @param cached 前回取得した出目履歴とそのETag
+   * @return 併合した出目履歴のリスト（一覧を取得し直す必要がある場合はnull）
+   */
+  private List<DiceHistoryDto> fetchChanges(final CachedHistory cached) {
+    final Integer newestId = cached.list().isEmpty() ? null : cached.list().get(0).id();
+    final int sinceId = newestId == null ? 0 : newestId;
+    final String url = "http://" + this.webapiHost + "/api/v1/dices/changes?since=" + sinceId
+        + "&limit=" + this.historySize;
+    LOGGER.info("Calling API is: URL='{}', Method='{}', ETag='{}'",
+        url, HttpMethod.GET, cached.etag());
+
+    final ResponseEntity<List<DiceHistoryDto>> response = this.restClient.get()
+        .uri(url)
+        .headers(headers -> headers.setIfNoneMatch(cached.etag()))
+        .retrieve()
+        .toEntity(new ParameterizedTypeReference<>() {});
+    if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+      LOGGER.info("The history was not modified, the cached list is used: ETag='{}'",
+          cached.etag());
+      return cached.list();
+    }
+
+    final List<DiceHistoryDto> changes = response.getBody();
+    if (changes == null || response.getHeaders().containsKey(HEADER_NEXT_CURSOR)) {
+      LOGGER.info("The changes exceed the history size, the whole list is fetched again");
+      return null;
+    }
+    // The changes are in ascending order, the cached list is in descending order.
+    final List<DiceHistoryDto> merged = new ArrayList<>(changes.reversed());
+    merged.addAll(cached.list());
+    final List<DiceHistoryDto> list =
+        merged.size() > this.historySize ? merged.subList(0, this.historySize) : merged;
+    this.remember(response.getHeaders().getETag(), list);
+    LOGGER.info("The changes recieved from the list dice api are: '{}'", changes);
+    return list;
+  }
+  // }}}
+
+  // {{{ private void remember(String etag, List<DiceHistoryDto> list)
+  /**
+   * 出目履歴のリストを、次回の差分の取得に備えてETagとともに保持します。.
+   *
+   * @param etag レスポンスのETag（ETagが無い場合は保持している結果を破棄します）
+   * @param list 保持する出目履歴のリスト
+   */
+  private void remember(final String etag, final List<DiceHistoryDto> list) {
+    this.cachedHistory.set(
+        etag != null && list != null ? new CachedHistory(etag, List.copyOf(list)) : null);
+  }
+  // }}}
+
   // {{{ private <T> T callApi(...)
   /**
    * 指定されたパスに対してAPIコールを行い、レスポンスボディを指定のクラスで返します。.
@@ -216,4 +335,13 @@ public class WebUiServiceImpl implements WebUiService {
   }
   // }}}
 
+  /**
+   * List Diceの結果と、そのETagを表すレコードクラスです。.
+   *
+   * @param etag レスポンスのETag
+   * @param list レスポンスボディの出目履歴のリスト
+   */
+  private record CachedHistory(String etag, List<DiceHistoryDto> list) {
+  }
+
 }
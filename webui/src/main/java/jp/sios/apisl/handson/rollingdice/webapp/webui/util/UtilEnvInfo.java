@@ -23,7 +23,13 @@ public final class UtilEnvInfo {
    * ログ出力を行うためのLoggerインスタンス。
    * クラス名を指定して初期化され、アプリケーションの動作状況やエラー情報を記録します。.
    */
-  private static final Logger LOGGER = LoggerFactory.getLogger(getClassName());
+  private static final Logger LOGGER = LoggerFactory.getLogger(UtilEnvInfo.class);
+
+  /**
+   * 呼び出し元のメソッドを特定するためのStackWalkerインスタンス。
+   * スタックトレース全体を生成せず、必要なフレームだけを遅延して参照します。.
+   */
+  private static final StackWalker STACK_WALKER = StackWalker.getInstance();
 
   private UtilEnvInfo() {
     // Prevents instantiation.
@@ -67,21 +73,23 @@ public final class UtilEnvInfo {
    * 
    * <p>ログは「>>> calling: クラス名#メソッド名()」の形式で出力されます。
    * 主にデバッグやトレース目的でメソッドの開始時に呼び出してください。</p>
+   *
+   * <p>INFOレベルのログが無効な場合は、呼び出し元の特定を含めて何も行いません。
+   * 呼び出し元は{@link StackWalker}で直前の1フレームのみを参照して特定します。</p>
    */
   public static void logStartClassMethod() {
-    final String className = getClassName();
-    final String methodName = getMethodName();
-    LOGGER.info(">>> calling: {}#{}()", className, methodName);
-  }
-
-  @SuppressWarnings("PMD.DoNotUseThreads")
-  private static String getClassName() {
-    return Thread.currentThread().getStackTrace()[3].getClassName();
+    if (!LOGGER.isInfoEnabled()) {
+      return;
+    }
+    final StackWalker.StackFrame caller = getCaller();
+    if (caller != null) {
+      LOGGER.info(">>> calling: {}#{}()", caller.getClassName(), caller.getMethodName());
+    }
   }
 
-  @SuppressWarnings("PMD.DoNotUseThreads")
-  private static String getMethodName() {
-    return Thread.currentThread().getStackTrace()[3].getMethodName();
+  private static StackWalker.StackFrame getCaller() {
+    // frame[0]: getCaller(), frame[1]: logStartClassMethod(), frame[2]: the caller
+    return STACK_WALKER.walk(frames -> frames.skip(2).findFirst()).orElse(null);
   }
 
 }
@@ -1,4 +1,12 @@
 
+const API_BASE_URL = 'http://localhost:8182/api/v1/dices';
+
+// the number of rows the live history table keeps (same as the history-size of the list)
+const HISTORY_MAX_ROWS = 100;
+
+// the connection that receives new rolls from the webapi (Server-Sent Events)
+let historyStream = null;
+
 function putLoadingImage()
 {
 	// disable all links on the menu
@@ -41,8 +49,7 @@ function handleRumFetch(event) {
 	// id="rum-fetch-sleep" なら sleep モード、それ以外は normal
 	const isSleep = event.currentTarget.id === 'rum-fetch-sleep';
         
-	const apiBaseUrl = 'http://localhost:8182/api/v1/dices';
-	let url = apiBaseUrl;
+	let url = API_BASE_URL;
 	let message = "";
 
 	const fetchOptions = {
@@ -89,9 +96,11 @@ function handleRumFetch(event) {
 
 			// -------------------------------------------------
 			// 2. 履歴テーブル（Report card）への行追加
+			//    （配信に接続している場合は、配信された出目で行を追加する）
 			// -------------------------------------------------
 			const historyTable = document.getElementById('tbl-history');
-			if (historyTable) {
+			const streaming = historyStream && historyStream.readyState === EventSource.OPEN;
+			if (historyTable && !streaming) {
 				const newRow = historyTable.insertRow(1);
 
 				// 1列目: Times (-)
@@ -123,6 +132,53 @@ function handleRumFetch(event) {
 }
 // }}}
 
+// {{{ function addHistoryRow(table, dice)
+function addHistoryRow(table, dice) {
+	// ignore the rolls already shown (e.g. resent after a reconnection)
+	const lastId = Number(table.dataset.lastId || 0);
+	if (dice.id <= lastId) {
+		return;
+	}
+	table.dataset.lastId = dice.id;
+
+	const newRow = table.insertRow(1);
+	newRow.insertCell(0).textContent = dice.id;
+	const smallImg = document.createElement('img');
+	smallImg.src = `/image/dice32_${dice.value}.png`;
+	newRow.insertCell(1).appendChild(smallImg);
+	newRow.insertCell(2).textContent = dice.updatedAt;
+
+	// the first row is the header
+	while (table.rows.length > HISTORY_MAX_ROWS + 1) {
+		table.deleteRow(table.rows.length - 1);
+	}
+}
+// }}}
+
+// {{{ function openHistoryStream()
+function openHistoryStream() {
+	const historyTable = document.getElementById('tbl-history');
+	if (!historyTable || !window.EventSource) {
+		return;
+	}
+	// EventSource reconnects by itself and sends Last-Event-ID to get the missed rolls
+	historyStream = new EventSource(`${API_BASE_URL}/stream`);
+	historyStream.addEventListener('dice', event => {
+		addHistoryRow(historyTable, JSON.parse(event.data));
+	});
+	// the webapi no longer holds the missed rolls, so show the history again from the list
+	historyStream.addEventListener('reset', () => {
+		console.log('[Stream] The missed rolls cannot be resent, the history is reloaded.');
+		historyStream.close();
+		window.location.reload();
+	});
+	historyStream.onerror = () => {
+		console.log('[Stream] The connection was lost, the browser will reconnect.');
+	};
+	window.addEventListener('pagehide', () => historyStream.close());
+}
+// }}}
+
 function generateBrowserError(event) {
 	event.preventDefault();
 	const timestamp = Date.now();
@@ -159,6 +215,7 @@ function initDicePage() {
 	if (rumSleep) {
 		rumSleep.addEventListener('click', handleRumFetch);
 	}
+	openHistoryStream();
 }
 document.addEventListener('DOMContentLoaded', initDicePage);
 
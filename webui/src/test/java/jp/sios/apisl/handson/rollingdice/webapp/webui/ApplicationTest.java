@@ -1,10 +1,15 @@
 package jp.sios.apisl.handson.rollingdice.webapp.webui;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.Mockito.mockStatic;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.verify;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.MockedConstruction;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 /**
  * {@code ApplicationTest} クラスは、{@link Application} クラスの単体テストを提供します。.
@@ -15,7 +20,7 @@ import org.springframework.boot.SpringApplication;
  *
  * <ul>
  *   <li>アプリケーションコンテキストの正常なロードの確認</li>
- *   <li>main メソッドが {@code SpringApplication.run} を正しく呼び出すかの検証</li>
+ *   <li>main メソッドが起動の経過を記録する {@code SpringApplication} を実行するかの検証</li>
  *   <li>引数あり・なしでの main メソッドの動作確認</li>
  *   <li>コンストラクタのカバレッジ確保</li>
  * </ul>
@@ -40,30 +45,33 @@ class ApplicationTest {
   void testMainRunsSpringApplication() {
     // Arrange
     final String[] args = {};
-    try (org.mockito.MockedStatic<SpringApplication> mocked = mockStatic(SpringApplication.class)) {
+    try (MockedConstruction<SpringApplication> mocked =
+        mockConstruction(SpringApplication.class)) {
       // Act
       Application.main(args);
 
       // Assert
-      mocked.verify(() -> SpringApplication.run(Application.class, args));
+      verifyRun(mocked, args);
     }
   }
 
   @Test
   void mainRunsWithoutArguments() {
     final String[] args = {};
-    try (org.mockito.MockedStatic<SpringApplication> mocked = mockStatic(SpringApplication.class)) {
+    try (MockedConstruction<SpringApplication> mocked =
+        mockConstruction(SpringApplication.class)) {
       Application.main(args);
-      mocked.verify(() -> SpringApplication.run(Application.class, args));
+      verifyRun(mocked, args);
     }
   }
 
   @Test
   void mainRunsWithArguments() {
     final String[] args = {"--spring.profiles.active=test"};
-    try (org.mockito.MockedStatic<SpringApplication> mocked = mockStatic(SpringApplication.class)) {
+    try (MockedConstruction<SpringApplication> mocked =
+        mockConstruction(SpringApplication.class)) {
       Application.main(args);
-      mocked.verify(() -> SpringApplication.run(Application.class, args));
+      verifyRun(mocked, args);
     }
   }
 
@@ -73,4 +81,13 @@ class ApplicationTest {
     assertNotNull(application, "Application instance should not be null");
   }
 
+  private static void verifyRun(
+      final MockedConstruction<SpringApplication> mocked, final String... args) {
+    assertEquals(1, mocked.constructed().size(),
+        "SpringApplication should be constructed exactly once");
+    final SpringApplication application = mocked.constructed().get(0);
+    verify(application).setApplicationStartup(any(BufferingApplicationStartup.class));
+    verify(application).run(args);
+  }
+
 }
\ No newline at end of file
@@ -1,12 +1,22 @@
 package jp.sios.apisl.handson.rollingdice.webapp.webui.config;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import java.util.Map;
+import jp.sios.apisl.handson.rollingdice.webapp.webui.dto.DiceValueDto;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestClient;
 
 /**
@@ -39,4 +49,23 @@ class RestClientConfigTest {
     verify(mockBuilder, times(1)).build();
   }
 
+  @Test
+  void testRestClientPrefersCbor() throws Exception {
+    // Arrange
+    final RestClient.Builder builder = RestClient.builder();
+    final MockRestServiceServer mockServer = MockRestServiceServer.bindTo(builder).build();
+    final byte[] body = new CBORMapper().writeValueAsBytes(Map.of("value", 5));
+    mockServer.expect(requestTo("http://localhost:8182/api/v1/dices"))
+        .andExpect(header(HttpHeaders.ACCEPT, "application/cbor, application/json"))
+        .andRespond(withSuccess(body, MediaType.APPLICATION_CBOR));
+
+    // Act
+    final DiceValueDto result = new RestClientConfig().restClient(builder)
+        .get().uri("http://localhost:8182/api/v1/dices").retrieve().body(DiceValueDto.class);
+
+    // Assert
+    mockServer.verify();
+    assertEquals(5, result.value(), "The CBOR response should be read into the DTO.");
+  }
+
 }
\ No newline at end of file
@@ -2,9 +2,12 @@ package jp.sios.apisl.handson.rollingdice.webapp.webui.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,7 +18,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.client.MockRestServiceServer;
@@ -50,6 +55,11 @@ class WebUiServiceImplTest {
    */
   private static final String REQUEST_URL = "http://" + API_HOST + "/api/v1/dices";
 
+  /**
+   * 検証先としての差分取得のリクエストURL.
+   */
+  private static final String CHANGES_URL = REQUEST_URL + "/changes";
+
   /**
    * HTTPリクエスト情報を保持するためのフィールドです。
    * テストケース内でリクエストのモックや検証に使用されます。.
@@ -176,6 +186,104 @@ class WebUiServiceImplTest {
     assertEquals(6, response.get(1).value(), "The value of the second dice history should be 6.");
   }
 
+  @Test
+  void testCallListDiceApiNotModified() {
+    final String testResponse = "[{\"id\":1,\"value\":3,\"updateAt\":\"2025-04-01T12:00:00\"}]";
+    final HttpHeaders etagHeaders = new HttpHeaders();
+    etagHeaders.setETag("\"1-1\"");
+
+    final MockRestServiceServer mockServer = setupMockServer();
+
+    mockServer.expect(requestTo(REQUEST_URL))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+        .andRespond(withSuccess().body(testResponse).contentType(MediaType.APPLICATION_JSON)
+            .headers(etagHeaders));
+    mockServer.expect(requestTo(CHANGES_URL + "?since=1&limit=100"))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"1-1\""))
+        .andRespond(withStatus(HttpStatus.NOT_MODIFIED).headers(etagHeaders));
+
+    final List<DiceHistoryDto> first = webUiService.callListDiceApi();
+    final List<DiceHistoryDto> second = webUiService.callListDiceApi();
+
+    mockServer.verify();
+    assertEquals(first, second, "The cached list should be reused when it was not modified.");
+    assertEquals(3, second.get(0).value(), "The value of the cached dice history should be 3.");
+  }
+
+  @Test
+  void testCallListDiceApiMergesChanges() {
+    final String testResponse = "["
+        + "{\"id\":2,\"value\":6,\"updateAt\":\"2025-04-01T13:00:00\"},"
+        + "{\"id\":1,\"value\":3,\"updateAt\":\"2025-04-01T12:00:00\"}]";
+    final String testChanges = "["
+        + "{\"id\":3,\"value\":1,\"updateAt\":\"2025-04-01T14:00:00\"},"
+        + "{\"id\":4,\"value\":2,\"updateAt\":\"2025-04-01T15:00:00\"}]";
+    final HttpHeaders firstHeaders = new HttpHeaders();
+    firstHeaders.setETag("\"2-2\"");
+    final HttpHeaders secondHeaders = new HttpHeaders();
+    secondHeaders.setETag("\"4-4\"");
+
+    final MockRestServiceServer mockServer = setupMockServer();
+    ReflectionTestUtils.setField(this.webUiService, "historySize", 3);
+
+    mockServer.expect(requestTo(REQUEST_URL))
+        .andExpect(method(HttpMethod.GET))
+        .andRespond(withSuccess().body(testResponse).contentType(MediaType.APPLICATION_JSON)
+            .headers(firstHeaders));
+    mockServer.expect(requestTo(CHANGES_URL + "?since=2&limit=3"))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"2-2\""))
+        .andRespond(withSuccess().body(testChanges).contentType(MediaType.APPLICATION_JSON)
+            .headers(secondHeaders));
+    mockServer.expect(requestTo(CHANGES_URL + "?since=4&limit=3"))
+        .andExpect(method(HttpMethod.GET))
+        .andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"4-4\""))
+        .andRespond(withStatus(HttpStatus.NOT_MODIFIED).headers(secondHeaders));
+
+    webUiService.callListDiceApi();
+    final List<DiceHistoryDto> merged = webUiService.callListDiceApi();
+    final List<DiceHistoryDto> cached = webUiService.callListDiceApi();
+
+    mockServer.verify();
+    assertEquals(List.of(4, 3, 2), merged.stream().map(DiceHistoryDto::id).toList(),
+        "The changes should be merged on top and the list should be cut to the history size.");
+    assertEquals(merged, cached, "The merged list should be reused when it was not modified.");
+  }
+
+  @Test
+  void testCallListDiceApiRefetchesWhenChangesOverflow() {
+    final String testResponse = "[{\"id\":1,\"value\":3,\"updateAt\":\"2025-04-01T12:00:00\"}]";
+    final String testChanges = "[{\"id\":2,\"value\":6,\"updateAt\":\"2025-04-01T13:00:00\"}]";
+    final String testRefetched = "[{\"id\":9,\"value\":5,\"updateAt\":\"2025-04-01T14:00:00\"}]";
+    final HttpHeaders etagHeaders = new HttpHeaders();
+    etagHeaders.setETag("\"1-1\"");
+    final HttpHeaders cursorHeaders = new HttpHeaders();
+    cursorHeaders.setETag("\"9-9\"");
+    cursorHeaders.set("X-Next-Cursor", "2");
+
+    final MockRestServiceServer mockServer = setupMockServer();
+    ReflectionTestUtils.setField(this.webUiService, "historySize", 1);
+
+    mockServer.expect(requestTo(REQUEST_URL))
+        .andRespond(withSuccess().body(testResponse).contentType(MediaType.APPLICATION_JSON)
+            .headers(etagHeaders));
+    mockServer.expect(requestTo(CHANGES_URL + "?since=1&limit=1"))
+        .andRespond(withSuccess().body(testChanges).contentType(MediaType.APPLICATION_JSON)
+            .headers(cursorHeaders));
+    mockServer.expect(requestTo(REQUEST_URL))
+        .andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+        .andRespond(withSuccess().body(testRefetched).contentType(MediaType.APPLICATION_JSON)
+            .headers(cursorHeaders));
+
+    webUiService.callListDiceApi();
+    final List<DiceHistoryDto> response = webUiService.callListDiceApi();
+
+    mockServer.verify();
+    assertEquals(9, response.get(0).id(), "The whole list should be fetched again.");
+  }
+
   @Test
   void testCallListDiceApiWhenApiReturnsServerError() {
     final MockRestServiceServer mockServer = setupMockServer();